@@ -32,6 +32,7 @@ import com.phloc.json2.IJsonProvider;
 import com.phloc.json2.IJsonValueSerializer;
 import com.phloc.json2.impl.JsonArray;
 import com.phloc.json2.impl.JsonObject;
+import com.phloc.json2.impl.JsonObjectShapeCache;
 import com.phloc.json2.impl.JsonValue;
 import com.phloc.json2.serialize.JsonValueSerializerEscaped;
 import com.phloc.json2.serialize.JsonValueSerializerRegistry;
@@ -53,6 +54,22 @@ public final class JsonConverter
 
   @Nonnull
   public static IJson convertToJson (@Nullable final Object aObject)
+  {
+    return _convertToJson (aObject, null);
+  }
+
+  /**
+   * @param aObject
+   *        The object to convert. May be <code>null</code>.
+   * @param aShapeCache
+   *        The shape cache for all objects created by this conversion. May be
+   *        <code>null</code> if no container was converted so far - it is
+   *        created with the first container, so that converting single values
+   *        does not need it.
+   * @return The converted object. Never <code>null</code>.
+   */
+  @Nonnull
+  private static IJson _convertToJson (@Nullable final Object aObject, @Nullable final JsonObjectShapeCache aShapeCache)
   {
     if (aObject == null)
       return JsonValue.NULL;
@@ -133,10 +150,11 @@ public final class JsonConverter
       {
         final Object [] aArray = (Object []) aObject;
         final JsonArray aJsonArray = new JsonArray (aArray.length);
+        final JsonObjectShapeCache aRealShapeCache = aShapeCache != null ? aShapeCache : new JsonObjectShapeCache ();
         for (final Object aValue : aArray)
         {
           // Recursive conversion
-          aJsonArray.add (convertToJson (aValue));
+          aJsonArray.add (_convertToJson (aValue, aRealShapeCache));
         }
         return aJsonArray;
       }
@@ -147,10 +165,11 @@ public final class JsonConverter
     {
       final Collection <?> aCollection = (Collection <?>) aObject;
       final JsonArray aJsonArray = new JsonArray (aCollection.size ());
+      final JsonObjectShapeCache aRealShapeCache = aShapeCache != null ? aShapeCache : new JsonObjectShapeCache ();
       for (final Object aValue : aCollection)
       {
         // Recursive conversion
-        aJsonArray.add (convertToJson (aValue));
+        aJsonArray.add (_convertToJson (aValue, aRealShapeCache));
       }
       return aJsonArray;
     }
@@ -158,12 +177,13 @@ public final class JsonConverter
     if (aObject instanceof Map <?, ?>)
     {
       final Map <?, ?> aMap = (Map <?, ?>) aObject;
-      final JsonObject aJsonObject = new JsonObject (aMap.size ());
+      final JsonObjectShapeCache aRealShapeCache = aShapeCache != null ? aShapeCache : new JsonObjectShapeCache ();
+      final JsonObject aJsonObject = new JsonObject (aMap.size (), aRealShapeCache);
       for (final Map.Entry <?, ?> aEntry : aMap.entrySet ())
       {
         final String sKey = TypeConverter.convertIfNecessary (aEntry.getKey (), String.class);
         // Recursive conversion
-        final IJson aValue = convertToJson (aEntry.getValue ());
+        final IJson aValue = _convertToJson (aEntry.getValue (), aRealShapeCache);
         aJsonObject.add (sKey, aValue);
       }
       return aJsonObject;
@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.json2.IJsonCollection;
+
+/**
+ * The not yet parsed content of a lazily read {@link JsonObject} or
+ * {@link JsonArray}. It is loaded on the first access to the collection.
+ *
+ * @author Philip Helger
+ * @param <T>
+ *        The collection type to be filled.
+ */
+public interface IJsonLazyContent <T extends IJsonCollection>
+{
+  /**
+   * Add all elements to the passed collection. This method is called at most
+   * once per collection.
+   *
+   * @param aTarget
+   *        The empty collection to be filled. May not be <code>null</code>.
+   */
+  void loadInto (@Nonnull T aTarget);
+}
@@ -51,6 +51,8 @@ import com.phloc.json2.serialize.JsonWriter;
 public class JsonArray implements IJsonArray
 {
   private List <IJson> m_aValues;
+  // Only set for lazily parsed arrays until the content is loaded
+  private transient IJsonLazyContent <JsonArray> m_aLazyContent;
 
   public JsonArray ()
   {
@@ -62,9 +64,50 @@ public class JsonArray implements IJsonArray
     m_aValues = new ArrayList <IJson> (nInitialCapacity);
   }
 
+  /**
+   * Create a lazily parsed array. The content is loaded on the first access.
+   *
+   * @param aLazyContent
+   *        The content to be loaded. May not be <code>null</code>.
+   */
+  public JsonArray (@Nonnull final IJsonLazyContent <JsonArray> aLazyContent)
+  {
+    if (aLazyContent == null)
+      throw new NullPointerException ("lazyContent");
+    m_aLazyContent = aLazyContent;
+  }
+
+  @Nonnull
+  private List <IJson> _getValues ()
+  {
+    if (m_aLazyContent != null)
+    {
+      // Reset first, so that the loader can add the elements
+      final IJsonLazyContent <JsonArray> aLazyContent = m_aLazyContent;
+      m_aLazyContent = null;
+      m_aValues = new ArrayList <IJson> ();
+      boolean bLoaded = false;
+      try
+      {
+        aLazyContent.loadInto (this);
+        bLoaded = true;
+      }
+      finally
+      {
+        if (!bLoaded)
+        {
+          // Keep the content, so that the next access fails in the same way
+          m_aLazyContent = aLazyContent;
+          m_aValues = null;
+        }
+      }
+    }
+    return m_aValues;
+  }
+
   private void writeObject (@Nonnull final ObjectOutputStream aOOS) throws IOException
   {
-    aOOS.writeInt (m_aValues.size ());
+    aOOS.writeInt (_getValues ().size ());
     final String sJson = JsonWriter.getAsString (this);
     aOOS.writeUTF (sJson);
   }
@@ -96,18 +139,18 @@ public class JsonArray implements IJsonArray
   @Nonnegative
   public int size ()
   {
-    return m_aValues.size ();
+    return _getValues ().size ();
   }
 
   public boolean isEmpty ()
   {
-    return m_aValues.isEmpty ();
+    return _getValues ().isEmpty ();
   }
 
   @Nonnull
   public Iterator <IJson> iterator ()
   {
-    return m_aValues.iterator ();
+    return _getValues ().iterator ();
   }
 
   @Nonnull
@@ -115,7 +158,7 @@ public class JsonArray implements IJsonArray
   {
     if (aValue == null)
       throw new NullPointerException ("value");
-    m_aValues.add (aValue);
+    _getValues ().add (aValue);
     return this;
   }
 
@@ -179,7 +222,7 @@ public class JsonArray implements IJsonArray
   {
     if (aValue == null)
       throw new NullPointerException ("value");
-    m_aValues.add (nIndex, aValue);
+    _getValues ().add (nIndex, aValue);
     return this;
   }
 
@@ -527,19 +570,19 @@ public class JsonArray implements IJsonArray
   @Nonnull
   public IJson removeAndReturnAtIndex (@Nonnegative final int nIndex)
   {
-    return ContainerHelper.removeAndReturnElementAtIndex (m_aValues, nIndex);
+    return ContainerHelper.removeAndReturnElementAtIndex (_getValues (), nIndex);
   }
 
   @Nonnull
   public EChange removeAtIndex (@Nonnegative final int nIndex)
   {
-    return ContainerHelper.removeElementAtIndex (m_aValues, nIndex);
+    return ContainerHelper.removeElementAtIndex (_getValues (), nIndex);
   }
 
   @Nullable
   public IJson getAtIndex (@Nonnegative final int nIndex)
   {
-    return ContainerHelper.getSafe (m_aValues, nIndex);
+    return ContainerHelper.getSafe (_getValues (), nIndex);
   }
 
   @Nullable
@@ -569,12 +612,12 @@ public class JsonArray implements IJsonArray
   {
     if (nStartIndex < 0)
       throw new IllegalArgumentException ("StartIndex invalid: " + nStartIndex);
-    if (nEndIndex < nStartIndex || nEndIndex > m_aValues.size ())
+    if (nEndIndex < nStartIndex || nEndIndex > _getValues ().size ())
       throw new IllegalArgumentException ("EndIndex invalid: " + nEndIndex);
 
     final int nLength = nEndIndex - nStartIndex;
     final JsonArray ret = new JsonArray (nLength);
-    ret.addAll (m_aValues.subList (nStartIndex, nEndIndex));
+    ret.addAll (_getValues ().subList (nStartIndex, nEndIndex));
     return ret;
   }
 
@@ -582,14 +625,14 @@ public class JsonArray implements IJsonArray
   @ReturnsMutableCopy
   public List <IJson> getAll ()
   {
-    return ContainerHelper.newList (m_aValues);
+    return ContainerHelper.newList (_getValues ());
   }
 
   @Nonnull
   public JsonArray getClone ()
   {
-    final JsonArray ret = new JsonArray (m_aValues.size ());
-    for (final IJson aValue : m_aValues)
+    final JsonArray ret = new JsonArray (_getValues ().size ());
+    for (final IJson aValue : _getValues ())
       ret.add (aValue.getClone ());
     return ret;
   }
@@ -608,18 +651,18 @@ public class JsonArray implements IJsonArray
     if (o == null || !getClass ().equals (o.getClass ()))
       return false;
     final JsonArray rhs = (JsonArray) o;
-    return m_aValues.equals (rhs.m_aValues);
+    return _getValues ().equals (rhs._getValues ());
   }
 
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_aValues).getHashCode ();
+    return new HashCodeGenerator (this).append (_getValues ()).getHashCode ();
   }
 
   @Override
   public String toString ()
   {
-    return new ToStringGenerator (this).append ("values", m_aValues).toString ();
+    return new ToStringGenerator (this).append ("values", _getValues ()).toString ();
   }
 }
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.json2.IJsonValue;
+import com.phloc.json2.serialize.JsonValueSerializerToString;
+
+/**
+ * A decimal {@link IJsonValue} that stores a primitive <code>double</code>.
+ * The {@link BigDecimal} object required by {@link #getValue()} is only
+ * created upon the first call and the value is serialized without it, using
+ * the same notation as {@link BigDecimal#valueOf(double)}.<br>
+ * Objects of this class are created by {@link JsonValue#create(double)} and
+ * {@link JsonValue#create(float)}. Decimal numbers read by
+ * {@link com.phloc.json2.parser.JsonReader} still use {@link BigDecimal} so
+ * that no precision is lost.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class JsonDoubleValue extends JsonValue
+{
+  private final double m_dValue;
+  // Lazily created - the race is benign as the value objects are immutable
+  private transient BigDecimal m_aValue;
+
+  /**
+   * Constructor.
+   *
+   * @param dValue
+   *        The value to use. Must be a finite number, as JSON cannot represent
+   *        NaN or infinity.
+   * @throws NumberFormatException
+   *         if the value is NaN or infinite
+   */
+  JsonDoubleValue (final double dValue)
+  {
+    super (null, JsonValueSerializerToString.getInstance ());
+    // Same exception as thrown by BigDecimal.valueOf
+    if (Double.isNaN (dValue) || Double.isInfinite (dValue))
+      throw new NumberFormatException ("Value must be a finite number: " + dValue);
+    // BigDecimal has no negative zero - "-0.0" is written as "0.0"
+    m_dValue = dValue == 0 ? 0d : dValue;
+  }
+
+  /**
+   * @return The value as a {@link BigDecimal} created via
+   *         {@link BigDecimal#valueOf(double)}. It is created upon the first
+   *         access. Never <code>null</code>.
+   */
+  @Override
+  @Nonnull
+  public BigDecimal getValue ()
+  {
+    BigDecimal ret = m_aValue;
+    if (ret == null)
+    {
+      ret = BigDecimal.valueOf (m_dValue);
+      m_aValue = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * @return The contained value. No object is created.
+   */
+  public double getAsDouble ()
+  {
+    return m_dValue;
+  }
+
+  /**
+   * @return The contained value truncated to a <code>long</code>.
+   */
+  public long getAsLong ()
+  {
+    return (long) m_dValue;
+  }
+
+  @Override
+  @Nonnull
+  public Class <?> getValueClass ()
+  {
+    return BigDecimal.class;
+  }
+
+  @Override
+  public boolean isNullValue ()
+  {
+    return false;
+  }
+
+  @Override
+  public boolean isIntValue ()
+  {
+    return false;
+  }
+
+  @Override
+  public boolean isDecimalValue ()
+  {
+    return true;
+  }
+
+  @Override
+  public boolean isStringValue ()
+  {
+    return false;
+  }
+
+  @Override
+  public void appendAsJsonString (@Nonnull final Writer aWriter) throws IOException
+  {
+    final String sValue = Double.toString (m_dValue);
+    // Double.toString and BigDecimal.toString only differ in the scientific
+    // notation (e.g. "1.0E20" vs. "1.0E+20" or "1.0E-5" vs. "0.000010")
+    if (sValue.indexOf ('E') < 0)
+      aWriter.write (sValue);
+    else
+      aWriter.write (getValue ().toString ());
+  }
+
+  @Override
+  @Nonnull
+  public JsonDoubleValue getClone ()
+  {
+    // No need to clone, as this object is immutable!
+    return this;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("value", m_dValue).toString ();
+  }
+}
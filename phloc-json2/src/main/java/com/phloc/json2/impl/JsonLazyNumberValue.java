@@ -0,0 +1,288 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.hash.HashCodeGenerator;
+import com.phloc.commons.string.StringParser;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.commons.typeconvert.TypeConverter;
+import com.phloc.json2.IJsonValue;
+import com.phloc.json2.IJsonValueSerializer;
+import com.phloc.json2.serialize.JsonValueSerializerConstant;
+import com.phloc.json2.serialize.JsonValueSerializerToString;
+import com.phloc.json2.serialize.JsonWriter;
+
+/**
+ * A numeric {@link IJsonValue} that keeps the original source text of the
+ * number. The {@link BigInteger} or {@link BigDecimal} object is only created
+ * upon the first call to {@link #getValue()} and the primitive accessors
+ * {@link #getAsLong()} and {@link #getAsDouble()} work on the source text
+ * where possible. When serializing, the original source text is written
+ * verbatim.<br>
+ * Objects of this class are created by {@link com.phloc.json2.parser.JsonReader}
+ * if {@link com.phloc.json2.parser.JsonReaderSettings#setLazyNumbers(boolean)}
+ * is enabled.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class JsonLazyNumberValue implements IJsonValue
+{
+  /** Integer numbers with at most this many digits always fit into a long */
+  private static final int MAX_SAFE_LONG_DIGITS = 18;
+
+  private final String m_sLexeme;
+  private final boolean m_bDecimal;
+  // Lazily created - the race is benign as the value objects are immutable
+  private transient Number m_aValue;
+
+  private JsonLazyNumberValue (@Nonnull @Nonempty final String sLexeme, final boolean bDecimal)
+  {
+    m_sLexeme = sLexeme;
+    m_bDecimal = bDecimal;
+  }
+
+  public boolean isArray ()
+  {
+    return false;
+  }
+
+  public boolean isObject ()
+  {
+    return false;
+  }
+
+  public boolean isValue ()
+  {
+    return true;
+  }
+
+  /**
+   * @return The source text of the number as read from the JSON source. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @Nonempty
+  public String getLexeme ()
+  {
+    return m_sLexeme;
+  }
+
+  /**
+   * @return The parsed value - either a {@link BigInteger} or a
+   *         {@link BigDecimal}. It is created upon the first access. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public Number getValue ()
+  {
+    Number ret = m_aValue;
+    if (ret == null)
+    {
+      ret = m_bDecimal ? StringParser.parseBigDecimal (m_sLexeme) : StringParser.parseBigInteger (m_sLexeme);
+      m_aValue = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * @return The value as a <code>long</code>. Decimal values are truncated and
+   *         integer values exceeding the range of <code>long</code> are
+   *         truncated as in {@link BigInteger#longValue()}. Integer values with
+   *         up to 18 digits are parsed without creating a {@link BigInteger}.
+   */
+  public long getAsLong ()
+  {
+    if (!m_bDecimal && m_aValue == null)
+    {
+      final int nDigits = m_sLexeme.charAt (0) == '-' ? m_sLexeme.length () - 1 : m_sLexeme.length ();
+      if (nDigits <= MAX_SAFE_LONG_DIGITS)
+        return Long.parseLong (m_sLexeme);
+    }
+    return getValue ().longValue ();
+  }
+
+  /**
+   * @return The value as a <code>double</code>. Parsed directly from the source
+   *         text without creating a {@link BigDecimal}.
+   */
+  public double getAsDouble ()
+  {
+    // The JSON number syntax is a subset of the Java double syntax
+    return Double.parseDouble (m_sLexeme);
+  }
+
+  /**
+   * @return The value as a {@link BigInteger}. Decimal values are truncated.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  public BigInteger getAsBigInteger ()
+  {
+    final Number aValue = getValue ();
+    return m_bDecimal ? ((BigDecimal) aValue).toBigInteger () : (BigInteger) aValue;
+  }
+
+  /**
+   * @return The value as a {@link BigDecimal}. Never <code>null</code>.
+   */
+  @Nonnull
+  public BigDecimal getAsBigDecimal ()
+  {
+    return m_bDecimal ? (BigDecimal) getValue () : new BigDecimal (m_sLexeme);
+  }
+
+  @Nullable
+  public <T> T getCastedValue (@Nonnull final Class <T> aClass)
+  {
+    if (aClass == null)
+      throw new NullPointerException ("class");
+    return aClass.cast (getValue ());
+  }
+
+  @Nullable
+  public <T> T getConvertedValue (@Nonnull final Class <T> aClass)
+  {
+    if (aClass == null)
+      throw new NullPointerException ("class");
+    return TypeConverter.convertIfNecessary (getValue (), aClass);
+  }
+
+  @Nonnull
+  public Class <?> getValueClass ()
+  {
+    return m_bDecimal ? BigDecimal.class : BigInteger.class;
+  }
+
+  public boolean isNullValue ()
+  {
+    return false;
+  }
+
+  public boolean isBooleanValue ()
+  {
+    return false;
+  }
+
+  public boolean isIntValue ()
+  {
+    return !m_bDecimal;
+  }
+
+  public boolean isDecimalValue ()
+  {
+    return m_bDecimal;
+  }
+
+  public boolean isStringValue ()
+  {
+    return false;
+  }
+
+  @Nonnull
+  public IJsonValueSerializer getValueSerializer ()
+  {
+    return new JsonValueSerializerConstant (m_sLexeme);
+  }
+
+  public void appendAsJsonString (@Nonnull final Writer aWriter) throws IOException
+  {
+    aWriter.write (m_sLexeme);
+  }
+
+  @Nonnull
+  public JsonLazyNumberValue getClone ()
+  {
+    // No need to clone, as this object is immutable!
+    return this;
+  }
+
+  @Nonnull
+  public String getAsString ()
+  {
+    return JsonWriter.getAsString (this);
+  }
+
+  /**
+   * Numbers are compared by their parsed value, so a lazy number is equal to
+   * the {@link JsonValue} created when reading the same document without lazy
+   * numbers.
+   */
+  @Override
+  public boolean equals (final Object o)
+  {
+    if (o == this)
+      return true;
+    if (o instanceof JsonLazyNumberValue)
+      return getValue ().equals (((JsonLazyNumberValue) o).getValue ());
+    if (o instanceof JsonValue)
+      return ((JsonValue) o).isEqualNumber (this);
+    return false;
+  }
+
+  @Override
+  public int hashCode ()
+  {
+    // Same as JsonValue for a number written via toString
+    return new HashCodeGenerator (JsonValue.class).append (getValue ())
+                                                  .append (JsonValueSerializerToString.getInstance ())
+                                                  .getHashCode ();
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("lexeme", m_sLexeme)
+                                       .append ("decimal", m_bDecimal)
+                                       .appendIfNotNull ("value", m_aValue)
+                                       .toString ();
+  }
+
+  /**
+   * Create a new lazy number value.
+   *
+   * @param sLexeme
+   *        The source text of the number. Must be a valid JSON number. May
+   *        neither be <code>null</code> nor empty.
+   * @param bDecimal
+   *        <code>true</code> if the number has a fraction part and should be
+   *        represented as a {@link BigDecimal}, <code>false</code> if it should
+   *        be represented as a {@link BigInteger}. Numbers with an exponent
+   *        part are always represented as a {@link BigDecimal}.
+   * @return The new object. Never <code>null</code>.
+   */
+  @Nonnull
+  public static JsonLazyNumberValue create (@Nonnull @Nonempty final String sLexeme, final boolean bDecimal)
+  {
+    ValueEnforcer.notEmpty (sLexeme, "Lexeme");
+    // The grammar allows integer numbers with an exponent (like "1e5")
+    final boolean bRealDecimal = bDecimal || sLexeme.indexOf ('e') >= 0 || sLexeme.indexOf ('E') >= 0;
+    return new JsonLazyNumberValue (sLexeme, bRealDecimal);
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.json2.IJsonValue;
+import com.phloc.json2.serialize.JsonValueSerializerToString;
+
+/**
+ * An integer {@link IJsonValue} that stores a primitive <code>long</code>. The
+ * {@link BigInteger} object required by {@link #getValue()} is only created
+ * upon the first call and the value is serialized without it.<br>
+ * Objects of this class are created by {@link JsonValue#create(long)} and the
+ * other integer factory methods, as well as by
+ * {@link com.phloc.json2.parser.JsonReader} for integer numbers that fit into
+ * a <code>long</code>.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class JsonLongValue extends JsonValue
+{
+  private final long m_nValue;
+  // Lazily created - the race is benign as the value objects are immutable
+  private transient BigInteger m_aValue;
+
+  JsonLongValue (final long nValue)
+  {
+    super (null, JsonValueSerializerToString.getInstance ());
+    m_nValue = nValue;
+  }
+
+  /**
+   * @return The value as a {@link BigInteger}. It is created upon the first
+   *         access. Never <code>null</code>.
+   */
+  @Override
+  @Nonnull
+  public BigInteger getValue ()
+  {
+    BigInteger ret = m_aValue;
+    if (ret == null)
+    {
+      ret = BigInteger.valueOf (m_nValue);
+      m_aValue = ret;
+    }
+    return ret;
+  }
+
+  /**
+   * @return The contained value. No object is created.
+   */
+  public long getAsLong ()
+  {
+    return m_nValue;
+  }
+
+  /**
+   * @return The contained value converted to an <code>int</code>. Values
+   *         exceeding the range of <code>int</code> are truncated.
+   */
+  public int getAsInt ()
+  {
+    return (int) m_nValue;
+  }
+
+  /**
+   * @return The contained value converted to a <code>double</code>.
+   */
+  public double getAsDouble ()
+  {
+    return m_nValue;
+  }
+
+  @Override
+  @Nonnull
+  public Class <?> getValueClass ()
+  {
+    return BigInteger.class;
+  }
+
+  @Override
+  public boolean isNullValue ()
+  {
+    return false;
+  }
+
+  @Override
+  public boolean isIntValue ()
+  {
+    return true;
+  }
+
+  @Override
+  public boolean isDecimalValue ()
+  {
+    return false;
+  }
+
+  @Override
+  public boolean isStringValue ()
+  {
+    return false;
+  }
+
+  @Override
+  public void appendAsJsonString (@Nonnull final Writer aWriter) throws IOException
+  {
+    aWriter.write (Long.toString (m_nValue));
+  }
+
+  @Override
+  @Nonnull
+  public JsonLongValue getClone ()
+  {
+    // No need to clone, as this object is immutable!
+    return this;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("value", m_nValue).toString ();
+  }
+}
@@ -48,28 +48,102 @@ import com.phloc.json2.parser.JsonReader;
 import com.phloc.json2.serialize.JsonWriter;
 
 /**
- * Default implementation of {@link IJsonObject}.
+ * Default implementation of {@link IJsonObject}. Objects with up to 8 entries
+ * share their ordered keys with all other objects with the same keys and only
+ * store an array of values. Larger objects use a {@link LinkedHashMap}.
  * 
  * @author Philip Helger
  */
 @NotThreadSafe
 public class JsonObject implements IJsonObject
 {
-  private Map <String, IJson> m_aValues;
+  /** The initial capacity of the default constructor */
+  public static final int DEFAULT_INITIAL_CAPACITY = 4;
+
+  private JsonObjectMap m_aValues;
+  // Only set for lazily parsed objects until the content is loaded
+  private transient IJsonLazyContent <JsonObject> m_aLazyContent;
 
   public JsonObject ()
   {
-    this (16);
+    this (DEFAULT_INITIAL_CAPACITY);
   }
 
   public JsonObject (@Nonnegative final int nInitialCapacity)
   {
-    m_aValues = new LinkedHashMap <String, IJson> (nInitialCapacity);
+    this (nInitialCapacity, null);
+  }
+
+  /**
+   * Create an object that shares its keys with the other objects of the same
+   * shape cache, as long as it has only a few entries.
+   *
+   * @param nInitialCapacity
+   *        The expected number of entries. Must be &ge; 0.
+   * @param aShapeCache
+   *        The shape cache to be used. May be <code>null</code> to store the
+   *        keys in this object.
+   */
+  public JsonObject (@Nonnegative final int nInitialCapacity, @Nullable final JsonObjectShapeCache aShapeCache)
+  {
+    m_aValues = new JsonObjectMap (nInitialCapacity, aShapeCache);
+  }
+
+  /**
+   * Create a lazily parsed object. The content is loaded on the first access.
+   *
+   * @param aLazyContent
+   *        The content to be loaded. May not be <code>null</code>.
+   */
+  public JsonObject (@Nonnull final IJsonLazyContent <JsonObject> aLazyContent)
+  {
+    if (aLazyContent == null)
+      throw new NullPointerException ("lazyContent");
+    m_aLazyContent = aLazyContent;
+  }
+
+  @Nonnull
+  private Map <String, IJson> _getValues ()
+  {
+    if (m_aLazyContent != null)
+    {
+      // Reset first, so that the loader can add the elements
+      final IJsonLazyContent <JsonObject> aLazyContent = m_aLazyContent;
+      m_aLazyContent = null;
+      m_aValues = new JsonObjectMap (DEFAULT_INITIAL_CAPACITY, null);
+      boolean bLoaded = false;
+      try
+      {
+        aLazyContent.loadInto (this);
+        bLoaded = true;
+      }
+      finally
+      {
+        if (!bLoaded)
+        {
+          // Keep the content, so that the next access fails in the same way
+          m_aLazyContent = aLazyContent;
+          m_aValues = null;
+        }
+      }
+    }
+    return m_aValues;
+  }
+
+  /**
+   * @return The cache this object shares its keys with or <code>null</code> if
+   *         the keys are not shared.
+   */
+  @Nullable
+  JsonObjectShapeCache getShapeCache ()
+  {
+    _getValues ();
+    return m_aValues.getShapeCache ();
   }
 
   private void writeObject (@Nonnull final ObjectOutputStream aOOS) throws IOException
   {
-    aOOS.writeInt (m_aValues.size ());
+    aOOS.writeInt (_getValues ().size ());
     final String sJson = JsonWriter.getAsString (this);
     aOOS.writeUTF (sJson);
   }
@@ -77,7 +151,7 @@ public class JsonObject implements IJsonObject
   private void readObject (@Nonnull final ObjectInputStream aOIS) throws IOException
   {
     final int nInitialSize = aOIS.readInt ();
-    m_aValues = new LinkedHashMap <String, IJson> (nInitialSize);
+    m_aValues = new JsonObjectMap (nInitialSize, null);
     final String sJson = aOIS.readUTF ();
     final JsonObject aJson = (JsonObject) JsonReader.readFromString (sJson);
     m_aValues.putAll (aJson.m_aValues);
@@ -101,18 +175,18 @@ public class JsonObject implements IJsonObject
   @Nonnegative
   public int size ()
   {
-    return m_aValues.size ();
+    return _getValues ().size ();
   }
 
   public boolean isEmpty ()
   {
-    return m_aValues.isEmpty ();
+    return _getValues ().isEmpty ();
   }
 
   @Nonnull
   public Iterator <Entry <String, IJson>> iterator ()
   {
-    return m_aValues.entrySet ().iterator ();
+    return _getValues ().entrySet ().iterator ();
   }
 
   @Nonnull
@@ -123,7 +197,7 @@ public class JsonObject implements IJsonObject
     if (aValue == null)
       throw new NullPointerException ("value");
 
-    m_aValues.put (sName, aValue);
+    _getValues ().put (sName, aValue);
     return this;
   }
 
@@ -213,38 +287,38 @@ public class JsonObject implements IJsonObject
   @Nullable
   public IJson removeKeyAndReturnValue (@Nullable final String sName)
   {
-    return m_aValues.remove (sName);
+    return _getValues ().remove (sName);
   }
 
   @Nonnull
   public EChange removeKey (@Nullable final String sName)
   {
-    return EChange.valueOf (m_aValues.remove (sName) != null);
+    return EChange.valueOf (_getValues ().remove (sName) != null);
   }
 
   public boolean containsKey (@Nullable final String sName)
   {
-    return m_aValues.containsKey (sName);
+    return _getValues ().containsKey (sName);
   }
 
   @Nonnull
   @ReturnsMutableCopy
   public Set <String> keySet ()
   {
-    return ContainerHelper.newOrderedSet (m_aValues.keySet ());
+    return ContainerHelper.newOrderedSet (_getValues ().keySet ());
   }
 
   @Nonnull
   @ReturnsMutableCopy
   public Collection <IJson> values ()
   {
-    return ContainerHelper.newList (m_aValues.values ());
+    return ContainerHelper.newList (_getValues ().values ());
   }
 
   @Nullable
   public IJson get (@Nullable final String sName)
   {
-    return m_aValues.get (sName);
+    return _getValues ().get (sName);
   }
 
   @Nullable
@@ -272,14 +346,14 @@ public class JsonObject implements IJsonObject
   @ReturnsMutableCopy
   public Map <String, IJson> getAll ()
   {
-    return ContainerHelper.newOrderedMap (m_aValues);
+    return ContainerHelper.newOrderedMap (_getValues ());
   }
 
   @Nonnull
   public JsonObject getClone ()
   {
-    final JsonObject ret = new JsonObject (m_aValues.size ());
-    for (final Map.Entry <String, IJson> aEntry : m_aValues.entrySet ())
+    final JsonObject ret = new JsonObject (_getValues ().size (), getShapeCache ());
+    for (final Map.Entry <String, IJson> aEntry : _getValues ().entrySet ())
       ret.add (aEntry.getKey (), aEntry.getValue ().getClone ());
     return ret;
   }
@@ -298,18 +372,18 @@ public class JsonObject implements IJsonObject
     if (o == null || !getClass ().equals (o.getClass ()))
       return false;
     final JsonObject rhs = (JsonObject) o;
-    return m_aValues.equals (rhs.m_aValues);
+    return _getValues ().equals (rhs._getValues ());
   }
 
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_aValues).getHashCode ();
+    return new HashCodeGenerator (this).append (_getValues ()).getHashCode ();
   }
 
   @Override
   public String toString ()
   {
-    return new ToStringGenerator (this).append ("values", m_aValues).toString ();
+    return new ToStringGenerator (this).append ("values", _getValues ()).toString ();
   }
 }
@@ -0,0 +1,371 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.equals.EqualsUtils;
+import com.phloc.json2.IJson;
+
+/**
+ * The storage of a {@link JsonObject}. Small objects reference a
+ * {@link JsonObjectShape} with the keys and only store an array with the
+ * values. The shape is shared with other objects of the same
+ * {@link JsonObjectShapeCache} if possible. Only if more than
+ * {@link #COMPACT_MAX_SIZE} entries are contained, the entries are moved to a
+ * {@link LinkedHashMap}. In both cases the insertion order is kept.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonObjectMap extends AbstractMap <String, IJson>
+{
+  /** The maximum number of entries that is stored in the arrays */
+  static final int COMPACT_MAX_SIZE = 8;
+
+  private static final IJson [] EMPTY_VALUES = new IJson [0];
+
+  // Compact layout - only used as long as m_aMap is null
+  private JsonObjectShape m_aShape;
+  private IJson [] m_aValues;
+  private int m_nModCount;
+  // Hashed layout
+  private Map <String, IJson> m_aMap;
+
+  /**
+   * Constructor
+   *
+   * @param nInitialCapacity
+   *        The expected number of entries. If it is larger than
+   *        {@link #COMPACT_MAX_SIZE} the hashed layout is used from the start.
+   * @param aShapeCache
+   *        The cache to share the keys with other objects. May be
+   *        <code>null</code> if the object stores its keys on its own.
+   */
+  JsonObjectMap (@Nonnegative final int nInitialCapacity, @Nullable final JsonObjectShapeCache aShapeCache)
+  {
+    ValueEnforcer.isGE0 (nInitialCapacity, "InitialCapacity");
+    if (nInitialCapacity > COMPACT_MAX_SIZE)
+      m_aMap = new LinkedHashMap <String, IJson> (nInitialCapacity);
+    else
+    {
+      m_aShape = aShapeCache == null ? JsonObjectShape.createOwned (nInitialCapacity) : aShapeCache.getEmptyShape ();
+      m_aValues = nInitialCapacity == 0 ? EMPTY_VALUES : new IJson [nInitialCapacity];
+    }
+  }
+
+  /**
+   * @return <code>true</code> if the entries are stored with a shape,
+   *         <code>false</code> if the {@link LinkedHashMap} is used.
+   */
+  boolean isCompact ()
+  {
+    return m_aMap == null;
+  }
+
+  /**
+   * @return The shape of the compact layout or <code>null</code> if the
+   *         {@link LinkedHashMap} is used.
+   */
+  @Nullable
+  JsonObjectShape getShape ()
+  {
+    return m_aShape;
+  }
+
+  /**
+   * @return The cache of the current shape or <code>null</code> if the keys
+   *         are not shared.
+   */
+  @Nullable
+  JsonObjectShapeCache getShapeCache ()
+  {
+    return m_aShape == null ? null : m_aShape.getCache ();
+  }
+
+  private void _removeIndex (final int nIndex)
+  {
+    final int nSize = m_aShape.getSize ();
+    final int nMoved = nSize - nIndex - 1;
+    if (nMoved > 0)
+      System.arraycopy (m_aValues, nIndex + 1, m_aValues, nIndex, nMoved);
+    m_aValues[nSize - 1] = null;
+    m_aShape = m_aShape.getWithout (nIndex);
+    ++m_nModCount;
+  }
+
+  @Override
+  public int size ()
+  {
+    return m_aMap != null ? m_aMap.size () : m_aShape.getSize ();
+  }
+
+  @Override
+  public boolean isEmpty ()
+  {
+    return size () == 0;
+  }
+
+  @Override
+  public boolean containsKey (@Nullable final Object aKey)
+  {
+    return m_aMap != null ? m_aMap.containsKey (aKey) : m_aShape.getIndex (aKey) >= 0;
+  }
+
+  @Override
+  @Nullable
+  public IJson get (@Nullable final Object aKey)
+  {
+    if (m_aMap != null)
+      return m_aMap.get (aKey);
+    final int nIndex = m_aShape.getIndex (aKey);
+    return nIndex < 0 ? null : m_aValues[nIndex];
+  }
+
+  @Override
+  @Nullable
+  public IJson put (@Nullable final String sKey, @Nullable final IJson aValue)
+  {
+    if (m_aMap != null)
+      return m_aMap.put (sKey, aValue);
+
+    final JsonObjectShape aShape = m_aShape;
+    final int nIndex = aShape.getIndex (sKey);
+    if (nIndex >= 0)
+    {
+      // Overwrite - the position is kept
+      final IJson aOld = m_aValues[nIndex];
+      m_aValues[nIndex] = aValue;
+      return aOld;
+    }
+
+    final int nSize = aShape.getSize ();
+    if (nSize == COMPACT_MAX_SIZE)
+    {
+      // Switch to the hashed layout
+      final Map <String, IJson> aMap = new LinkedHashMap <String, IJson> (COMPACT_MAX_SIZE * 2);
+      for (int i = 0; i < nSize; ++i)
+        aMap.put (aShape.getKey (i), m_aValues[i]);
+      aMap.put (sKey, aValue);
+      m_aMap = aMap;
+      m_aShape = null;
+      m_aValues = null;
+      ++m_nModCount;
+      return null;
+    }
+
+    if (nSize == m_aValues.length)
+    {
+      final IJson [] aNewValues = new IJson [Math.min (Math.max (nSize * 2, 2), COMPACT_MAX_SIZE)];
+      System.arraycopy (m_aValues, 0, aNewValues, 0, nSize);
+      m_aValues = aNewValues;
+    }
+    m_aValues[nSize] = aValue;
+    m_aShape = aShape.getChild (sKey);
+    ++m_nModCount;
+    return null;
+  }
+
+  @Override
+  @Nullable
+  public IJson remove (@Nullable final Object aKey)
+  {
+    if (m_aMap != null)
+      return m_aMap.remove (aKey);
+
+    final int nIndex = m_aShape.getIndex (aKey);
+    if (nIndex < 0)
+      return null;
+    final IJson aOld = m_aValues[nIndex];
+    _removeIndex (nIndex);
+    return aOld;
+  }
+
+  @Override
+  public void clear ()
+  {
+    if (m_aMap != null)
+      m_aMap.clear ();
+    else
+    {
+      final int nSize = m_aShape.getSize ();
+      for (int i = 0; i < nSize; ++i)
+        m_aValues[i] = null;
+      m_aShape = m_aShape.getEmpty ();
+      ++m_nModCount;
+    }
+  }
+
+  @Override
+  @Nonnull
+  public Set <Map.Entry <String, IJson>> entrySet ()
+  {
+    if (m_aMap != null)
+      return m_aMap.entrySet ();
+    return new CompactEntrySet ();
+  }
+
+  /**
+   * The entry set view of the compact layout. Its iterators fail with a
+   * {@link ConcurrentModificationException} after the switch to the hashed
+   * layout.
+   */
+  private final class CompactEntrySet extends AbstractSet <Map.Entry <String, IJson>>
+  {
+    @Override
+    public int size ()
+    {
+      return JsonObjectMap.this.size ();
+    }
+
+    @Override
+    public void clear ()
+    {
+      JsonObjectMap.this.clear ();
+    }
+
+    @Override
+    @Nonnull
+    public Iterator <Map.Entry <String, IJson>> iterator ()
+    {
+      return new CompactIterator ();
+    }
+  }
+
+  private final class CompactIterator implements Iterator <Map.Entry <String, IJson>>
+  {
+    private int m_nNext = 0;
+    private int m_nLast = -1;
+    private int m_nExpectedModCount = m_nModCount;
+
+    private void _checkModCount ()
+    {
+      if (m_nModCount != m_nExpectedModCount)
+        throw new ConcurrentModificationException ();
+    }
+
+    public boolean hasNext ()
+    {
+      // After the switch to the hashed layout there are more entries than
+      // slots, so next is called and fails
+      return m_nNext < size ();
+    }
+
+    @Nonnull
+    public Map.Entry <String, IJson> next ()
+    {
+      _checkModCount ();
+      if (m_nNext >= m_aShape.getSize ())
+        throw new NoSuchElementException ();
+      m_nLast = m_nNext++;
+      return new CompactEntry (m_nLast);
+    }
+
+    public void remove ()
+    {
+      if (m_nLast < 0)
+        throw new IllegalStateException ();
+      _checkModCount ();
+      _removeIndex (m_nLast);
+      m_nNext = m_nLast;
+      m_nLast = -1;
+      m_nExpectedModCount = m_nModCount;
+    }
+  }
+
+  private final class CompactEntry implements Map.Entry <String, IJson>
+  {
+    private final String m_sKey;
+    private IJson m_aValue;
+
+    CompactEntry (final int nIndex)
+    {
+      m_sKey = m_aShape.getKey (nIndex);
+      m_aValue = m_aValues[nIndex];
+    }
+
+    public String getKey ()
+    {
+      return m_sKey;
+    }
+
+    public IJson getValue ()
+    {
+      return m_aValue;
+    }
+
+    public IJson setValue (@Nullable final IJson aValue)
+    {
+      // Write through. The slot of the key changes if other keys are removed
+      // and the object may have switched to the hashed layout in the meantime.
+      // As with a LinkedHashMap entry, a removed key is not added again.
+      final IJson aOld = m_aValue;
+      if (m_aMap != null)
+      {
+        if (m_aMap.containsKey (m_sKey))
+          m_aMap.put (m_sKey, aValue);
+      }
+      else
+      {
+        final int nIndex = m_aShape.getIndex (m_sKey);
+        if (nIndex >= 0)
+          m_aValues[nIndex] = aValue;
+      }
+      m_aValue = aValue;
+      return aOld;
+    }
+
+    @Override
+    public boolean equals (final Object o)
+    {
+      // As defined by Map.Entry
+      if (o == this)
+        return true;
+      if (!(o instanceof Map.Entry <?, ?>))
+        return false;
+      final Map.Entry <?, ?> rhs = (Map.Entry <?, ?>) o;
+      return EqualsUtils.equals (m_sKey, rhs.getKey ()) && EqualsUtils.equals (m_aValue, rhs.getValue ());
+    }
+
+    @Override
+    public int hashCode ()
+    {
+      // As defined by Map.Entry
+      return (m_sKey == null ? 0 : m_sKey.hashCode ()) ^ (m_aValue == null ? 0 : m_aValue.hashCode ());
+    }
+
+    @Override
+    public String toString ()
+    {
+      return m_sKey + "=" + m_aValue;
+    }
+  }
+}
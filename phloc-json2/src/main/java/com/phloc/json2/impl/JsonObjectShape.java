@@ -0,0 +1,285 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.phloc.commons.string.ToStringGenerator;
+
+/**
+ * The ordered key layout ("shape") of a small {@link JsonObject}. There are two
+ * kinds of shapes:
+ * <ul>
+ * <li>Shapes of a {@link JsonObjectShapeCache} are immutable. Objects with the
+ * same keys in the same order share one shape and only store their values,
+ * with the value of the n-th key in slot n. All shapes of a cache form a tree
+ * starting with {@link JsonObjectShapeCache#getEmptyShape()}. Adding a key
+ * moves an object to a child shape and the transitions are cached in the
+ * parent, so that e.g. all records of an array end up with the same shape
+ * instance.</li>
+ * <li>Owned shapes belong to a single object and are modified in place. They
+ * are used for objects created without a cache and if the cache is full.</li>
+ * </ul>
+ *
+ * @author Philip Helger
+ */
+final class JsonObjectShape
+{
+  private static final String [] EMPTY_KEYS = new String [0];
+  private static final int [] EMPTY_HASHES = new int [0];
+
+  // null for an owned shape
+  private final JsonObjectShapeCache m_aCache;
+  private String [] m_aKeys;
+  // The hash codes of the keys, so that a lookup only calls equals for a
+  // matching hash code. null for an owned shape.
+  private final int [] m_aHashes;
+  private int m_nSize;
+  // The children with one additional key - guarded by the cache
+  private Map <String, JsonObjectShape> m_aTransitions;
+
+  private JsonObjectShape (@Nullable final JsonObjectShapeCache aCache,
+                           @Nonnull final String [] aKeys,
+                           @Nullable final int [] aHashes,
+                           @Nonnegative final int nSize)
+  {
+    m_aCache = aCache;
+    m_aKeys = aKeys;
+    m_aHashes = aHashes;
+    m_nSize = nSize;
+  }
+
+  /**
+   * Create the empty shape of a cache.
+   *
+   * @param aCache
+   *        The owning cache. May not be <code>null</code>.
+   * @return The new empty shape. Never <code>null</code>.
+   */
+  @Nonnull
+  static JsonObjectShape createEmpty (@Nonnull final JsonObjectShapeCache aCache)
+  {
+    return new JsonObjectShape (aCache, EMPTY_KEYS, EMPTY_HASHES, 0);
+  }
+
+  /**
+   * Create an empty shape that is owned by a single object.
+   *
+   * @param nCapacity
+   *        The expected number of keys.
+   * @return The new shape. Never <code>null</code>.
+   */
+  @Nonnull
+  static JsonObjectShape createOwned (@Nonnegative final int nCapacity)
+  {
+    return new JsonObjectShape (null, nCapacity == 0 ? EMPTY_KEYS : new String [nCapacity], null, 0);
+  }
+
+  /**
+   * @return <code>true</code> if this shape belongs to a cache and may be
+   *         shared by multiple objects, <code>false</code> if it is owned by a
+   *         single object.
+   */
+  boolean isShared ()
+  {
+    return m_aCache != null;
+  }
+
+  /**
+   * @return The cache this shape belongs to or <code>null</code> for an owned
+   *         shape.
+   */
+  @Nullable
+  JsonObjectShapeCache getCache ()
+  {
+    return m_aCache;
+  }
+
+  /**
+   * @return The number of keys.
+   */
+  @Nonnegative
+  int getSize ()
+  {
+    return m_nSize;
+  }
+
+  /**
+   * @param nIndex
+   *        The slot index. Must be &ge; 0 and &lt; {@link #getSize()}.
+   * @return The key of the passed slot.
+   */
+  @Nullable
+  String getKey (@Nonnegative final int nIndex)
+  {
+    return m_aKeys[nIndex];
+  }
+
+  /**
+   * @param aKey
+   *        The key to search. May be <code>null</code>.
+   * @return The slot index of the key or -1 if this shape does not contain it.
+   */
+  int getIndex (@Nullable final Object aKey)
+  {
+    final String [] aKeys = m_aKeys;
+    final int nSize = m_nSize;
+    if (aKey == null)
+    {
+      for (int i = 0; i < nSize; ++i)
+        if (aKeys[i] == null)
+          return i;
+      return -1;
+    }
+
+    final int [] aHashes = m_aHashes;
+    if (aHashes == null)
+    {
+      for (int i = 0; i < nSize; ++i)
+      {
+        final String sKey = aKeys[i];
+        if (sKey == aKey || aKey.equals (sKey))
+          return i;
+      }
+      return -1;
+    }
+
+    final int nHash = aKey.hashCode ();
+    for (int i = 0; i < nSize; ++i)
+      if (aHashes[i] == nHash)
+      {
+        final String sKey = aKeys[i];
+        if (sKey == aKey || aKey.equals (sKey))
+          return i;
+      }
+    return -1;
+  }
+
+  @Nonnull
+  private String [] _getKeysWith (@Nullable final String sKey, @Nonnegative final int nCapacity)
+  {
+    final String [] ret = new String [nCapacity];
+    System.arraycopy (m_aKeys, 0, ret, 0, m_nSize);
+    ret[m_nSize] = sKey;
+    return ret;
+  }
+
+  /**
+   * Get the shape with the keys of this shape and the passed key at the end.
+   * The passed key must not be contained in this shape. An owned shape is
+   * modified and returned.
+   *
+   * @param sKey
+   *        The key to add. May be <code>null</code>.
+   * @return The child shape. Never <code>null</code>.
+   */
+  @Nonnull
+  JsonObjectShape getChild (@Nullable final String sKey)
+  {
+    final int nSize = m_nSize;
+    if (m_aCache == null)
+    {
+      if (nSize == m_aKeys.length)
+        m_aKeys = _getKeysWith (sKey, Math.min (Math.max (nSize * 2, 2), JsonObjectMap.COMPACT_MAX_SIZE));
+      else
+        m_aKeys[nSize] = sKey;
+      m_nSize = nSize + 1;
+      return this;
+    }
+
+    synchronized (m_aCache)
+    {
+      JsonObjectShape ret = m_aTransitions == null ? null : m_aTransitions.get (sKey);
+      if (ret == null)
+      {
+        final String [] aChildKeys = _getKeysWith (sKey, nSize + 1);
+        if (!m_aCache.onShapeCreated ())
+        {
+          // The cache is full - continue with an owned shape
+          return new JsonObjectShape (null, aChildKeys, null, nSize + 1);
+        }
+
+        final int [] aChildHashes = new int [nSize + 1];
+        System.arraycopy (m_aHashes, 0, aChildHashes, 0, nSize);
+        aChildHashes[nSize] = sKey == null ? 0 : sKey.hashCode ();
+        ret = new JsonObjectShape (m_aCache, aChildKeys, aChildHashes, nSize + 1);
+        if (m_aTransitions == null)
+          m_aTransitions = new HashMap <String, JsonObjectShape> (4);
+        m_aTransitions.put (sKey, ret);
+      }
+      return ret;
+    }
+  }
+
+  /**
+   * Get the shape with the keys of this shape except the key at the passed
+   * index. The order of the remaining keys is kept. An owned shape is modified
+   * and returned.
+   *
+   * @param nIndex
+   *        The slot index of the key to remove.
+   * @return The shape without the key. Never <code>null</code>.
+   */
+  @Nonnull
+  JsonObjectShape getWithout (@Nonnegative final int nIndex)
+  {
+    if (m_aCache == null)
+    {
+      final int nMoved = m_nSize - nIndex - 1;
+      if (nMoved > 0)
+        System.arraycopy (m_aKeys, nIndex + 1, m_aKeys, nIndex, nMoved);
+      m_aKeys[--m_nSize] = null;
+      return this;
+    }
+
+    JsonObjectShape ret = m_aCache.getEmptyShape ();
+    for (int i = 0; i < m_nSize; ++i)
+      if (i != nIndex)
+        ret = ret.getChild (m_aKeys[i]);
+    return ret;
+  }
+
+  /**
+   * Get the shape without any key. An owned shape is modified and returned.
+   *
+   * @return The empty shape. Never <code>null</code>.
+   */
+  @Nonnull
+  JsonObjectShape getEmpty ()
+  {
+    if (m_aCache != null)
+      return m_aCache.getEmptyShape ();
+    for (int i = 0; i < m_nSize; ++i)
+      m_aKeys[i] = null;
+    m_nSize = 0;
+    return this;
+  }
+
+  @Override
+  public String toString ()
+  {
+    final String [] aKeys = new String [m_nSize];
+    System.arraycopy (m_aKeys, 0, aKeys, 0, m_nSize);
+    return new ToStringGenerator (this).append ("keys", aKeys).append ("shared", isShared ()).toString ();
+  }
+}
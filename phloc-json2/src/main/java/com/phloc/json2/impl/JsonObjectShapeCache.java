@@ -0,0 +1,117 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.string.ToStringGenerator;
+
+/**
+ * A cache for the key layouts of small {@link JsonObject}s. All objects that
+ * are created with the same cache and that have the same keys in the same
+ * order share one key list and only store their values.<br>
+ * The readers use a new cache for each document, so that the keys are not
+ * retained longer than the objects of the document. To bound the memory
+ * consumption for documents with many different keys, the number of shapes per
+ * cache is limited. If the limit is reached, further objects store their keys
+ * on their own.
+ *
+ * @author Philip Helger
+ */
+@ThreadSafe
+public final class JsonObjectShapeCache
+{
+  /** The default maximum number of shapes per cache */
+  public static final int DEFAULT_MAX_SHAPES = 4096;
+
+  private final int m_nMaxShapes;
+  private final JsonObjectShape m_aEmptyShape;
+  // Guarded by this
+  private int m_nShapes = 0;
+
+  public JsonObjectShapeCache ()
+  {
+    this (DEFAULT_MAX_SHAPES);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param nMaxShapes
+   *        The maximum number of shapes to be created. Must be &ge; 0.
+   */
+  public JsonObjectShapeCache (@Nonnegative final int nMaxShapes)
+  {
+    m_nMaxShapes = ValueEnforcer.isGE0 (nMaxShapes, "MaxShapes");
+    m_aEmptyShape = JsonObjectShape.createEmpty (this);
+  }
+
+  /**
+   * @return The maximum number of shapes to be created.
+   */
+  @Nonnegative
+  public int getMaxShapes ()
+  {
+    return m_nMaxShapes;
+  }
+
+  /**
+   * @return The number of shapes created so far. The shape without keys is not
+   *         counted.
+   */
+  @Nonnegative
+  public synchronized int getShapeCount ()
+  {
+    return m_nShapes;
+  }
+
+  /**
+   * @return The shape without any key. Never <code>null</code>.
+   */
+  @Nonnull
+  JsonObjectShape getEmptyShape ()
+  {
+    return m_aEmptyShape;
+  }
+
+  /**
+   * Called by {@link JsonObjectShape} while holding the lock of this object,
+   * before a new shape is added.
+   *
+   * @return <code>true</code> if the shape may be added, <code>false</code> if
+   *         the maximum number of shapes was reached.
+   */
+  boolean onShapeCreated ()
+  {
+    if (m_nShapes >= m_nMaxShapes)
+      return false;
+    m_nShapes++;
+    return true;
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("maxShapes", m_nMaxShapes)
+                                       .append ("shapes", getShapeCount ())
+                                       .toString ();
+  }
+}
@@ -45,7 +45,11 @@ import com.phloc.json2.serialize.JsonWriter;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
- * Default implementation of {@link IJsonValue}.
+ * Default implementation of {@link IJsonValue}. Numbers created from a
+ * primitive <code>long</code> or <code>double</code> are represented by the
+ * sub classes {@link JsonLongValue} and {@link JsonDoubleValue}. They are
+ * equal to the respective {@link BigInteger} and {@link BigDecimal} based
+ * values.
  * 
  * @author Philip Helger
  */
@@ -67,13 +71,13 @@ public class JsonValue implements IJsonValue
   static
   {
     for (int i = INT_CACHE_MIN; i <= INT_CACHE_MAX; ++i)
-      NUMERIC[i - INT_CACHE_MIN] = new JsonValue (BigInteger.valueOf (i), JsonValueSerializerToString.getInstance ());
+      NUMERIC[i - INT_CACHE_MIN] = new JsonLongValue (i);
   }
 
   private Object m_aValue;
   private IJsonValueSerializer m_aValueSerializer;
 
-  private JsonValue (@Nullable final Object aValue, @Nonnull final IJsonValueSerializer aValueSerializer)
+  JsonValue (@Nullable final Object aValue, @Nonnull final IJsonValueSerializer aValueSerializer)
   {
     m_aValue = aValue;
     m_aValueSerializer = ValueEnforcer.notNull (aValueSerializer, "ValueSerializer");
@@ -82,7 +86,7 @@ public class JsonValue implements IJsonValue
   private void writeObject (@Nonnull final ObjectOutputStream aOOS) throws IOException
   {
     final NonBlockingStringWriter aWriter = new NonBlockingStringWriter ();
-    m_aValueSerializer.appendAsJsonString (m_aValue, aWriter);
+    appendAsJsonString (aWriter);
     aOOS.writeUTF (aWriter.getAsString ());
   }
 
@@ -90,8 +94,8 @@ public class JsonValue implements IJsonValue
   {
     final String sJson = aOIS.readUTF ();
     final JsonValue aJson = (JsonValue) JsonReader.readFromString (sJson);
-    m_aValue = aJson.m_aValue;
-    m_aValueSerializer = aJson.m_aValueSerializer;
+    m_aValue = aJson.getValue ();
+    m_aValueSerializer = aJson.getValueSerializer ();
   }
 
   public boolean isArray ()
@@ -120,7 +124,7 @@ public class JsonValue implements IJsonValue
   {
     if (aClass == null)
       throw new NullPointerException ("class");
-    return aClass.cast (m_aValue);
+    return aClass.cast (getValue ());
   }
 
   @Nullable
@@ -128,7 +132,7 @@ public class JsonValue implements IJsonValue
   {
     if (aClass == null)
       throw new NullPointerException ("class");
-    return TypeConverter.convertIfNecessary (m_aValue, aClass);
+    return TypeConverter.convertIfNecessary (getValue (), aClass);
   }
 
   @Nullable
@@ -191,16 +195,33 @@ public class JsonValue implements IJsonValue
   {
     if (o == this)
       return true;
-    if (o == null || !getClass ().equals (o.getClass ()))
+    if (o instanceof JsonLazyNumberValue)
+      return isEqualNumber ((JsonLazyNumberValue) o);
+    // The primitive sub classes are equal to the generic values
+    if (!(o instanceof JsonValue))
       return false;
     final JsonValue rhs = (JsonValue) o;
-    return EqualsUtils.equals (m_aValue, rhs.m_aValue) && m_aValueSerializer.equals (rhs.m_aValueSerializer);
+    return EqualsUtils.equals (getValue (), rhs.getValue ()) && getValueSerializer ().equals (rhs.getValueSerializer ());
+  }
+
+  /**
+   * Check if this value is a number written via toString that has the same
+   * value as the passed lazy number.
+   *
+   * @param aNumber
+   *        The lazy number to compare to. May not be <code>null</code>.
+   * @return <code>true</code> if both represent the same number.
+   */
+  final boolean isEqualNumber (@Nonnull final JsonLazyNumberValue aNumber)
+  {
+    return getValueSerializer () == JsonValueSerializerToString.getInstance () &&
+           aNumber.getValue ().equals (getValue ());
   }
 
   @Override
   public int hashCode ()
   {
-    return new HashCodeGenerator (this).append (m_aValue).append (m_aValueSerializer).getHashCode ();
+    return new HashCodeGenerator (JsonValue.class).append (getValue ()).append (getValueSerializer ()).getHashCode ();
   }
 
   @Override
@@ -232,13 +253,13 @@ public class JsonValue implements IJsonValue
   @Nonnull
   public static JsonValue create (final double dValue)
   {
-    return create (BigDecimal.valueOf (dValue));
+    return new JsonDoubleValue (dValue);
   }
 
   @Nonnull
   public static JsonValue create (final float fValue)
   {
-    return create (BigDecimal.valueOf (fValue));
+    return new JsonDoubleValue (fValue);
   }
 
   @Nonnull
@@ -254,7 +275,7 @@ public class JsonValue implements IJsonValue
     if (nValue >= INT_CACHE_MIN && nValue < INT_CACHE_MAX)
       return NUMERIC[nValue - INT_CACHE_MIN];
 
-    return create (BigInteger.valueOf (nValue), JsonValueSerializerToString.getInstance ());
+    return new JsonLongValue (nValue);
   }
 
   @Nonnull
@@ -264,7 +285,7 @@ public class JsonValue implements IJsonValue
     if (nValue >= INT_CACHE_MIN && nValue < INT_CACHE_MAX)
       return NUMERIC[(int) nValue - INT_CACHE_MIN];
 
-    return create (BigInteger.valueOf (nValue), JsonValueSerializerToString.getInstance ());
+    return new JsonLongValue (nValue);
   }
 
   @Nonnull
@@ -0,0 +1,918 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.string.StringHelper;
+
+/**
+ * A hand written tokenizer that splits the source into exactly the same tokens
+ * as the JavaCC generated {@link ParserJsonTokenManager}. This includes the
+ * handling of whitespaces around structural characters and the skipping of
+ * comments. Line and column numbers are calculated in the same way as in
+ * {@link JsonCharStream} so that error locations are identical.<br>
+ * In contrast to the generated token manager no {@link Token} objects are
+ * created - they are only created on demand for error reporting.<br>
+ * This base class contains the whole tokenization logic and is independent of
+ * the source unit type. Implementations only handle the buffer management and
+ * the creation of strings.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+abstract class AbstractJsonScanner implements ParserJsonConstants
+{
+  protected static final int DEFAULT_BUF_SIZE = 4096;
+  protected static final int EOF_CHAR = -1;
+  /**
+   * Buffers that grew larger than this while reading a big document are not
+   * kept when the scanner is reset for the next source.
+   */
+  protected static final int MAX_REUSED_BUF_SIZE = 16 * 1024;
+
+  private static final Logger s_aLogger = LoggerFactory.getLogger (AbstractJsonScanner.class);
+  private static final int TAB_SIZE = 8;
+
+  /** Index of the next unit to be tokenized */
+  protected int m_nBufPos = 0;
+  /** Number of valid units in the buffer */
+  protected int m_nBufLimit = 0;
+  /** Offset of the first unit of the buffer in the whole source */
+  protected long m_nBufOffset = 0;
+  protected boolean m_bEOFReached = false;
+
+  // The current token
+  private int m_nKind = EOF;
+  /** Index of the first unit of the current token */
+  protected int m_nTokenBegin = 0;
+  private int m_nTokenLength = 0;
+  /**
+   * Number of characters (as opposed to units) of the current token. Must be
+   * set by {@link #_scanString()}.
+   */
+  protected int m_nTokenChars;
+  private boolean m_bDecimal;
+  protected String m_sStringValue;
+  protected final StringBuilder m_aSB = new StringBuilder ();
+  private JsonKeyCache m_aKeyCache;
+  private boolean m_bKeyExpected = false;
+  private boolean m_bSkipStringValues = false;
+  private boolean m_bLogIllegalCharacters = true;
+  private int m_nMaxStringLength = JsonReaderLimits.DEFAULT_MAX_STRING_LENGTH;
+  private int m_nMaxNumberLength = JsonReaderLimits.DEFAULT_MAX_NUMBER_LENGTH;
+  private long m_nMaxDocumentSize = JsonReaderLimits.DEFAULT_MAX_DOCUMENT_SIZE;
+  // The description of the first exceeded limit
+  private String m_sLimitViolation;
+  private int m_nBeginLine;
+  private int m_nBeginColumn;
+  private int m_nEndLine;
+  private int m_nEndColumn;
+
+  // The previous token - for error reporting only
+  private int m_nPrevKind = EOF;
+  private int m_nPrevBeginLine;
+  private int m_nPrevBeginColumn;
+  private int m_nPrevEndLine;
+  private int m_nPrevEndColumn;
+
+  // Position of the last consumed character
+  private int m_nLine = 1;
+  private int m_nColumn = 0;
+  private boolean m_bPrevCharIsCR = false;
+  private boolean m_bPrevCharIsLF = false;
+
+  protected AbstractJsonScanner ()
+  {}
+
+  private static boolean _isWhitespace (final int c)
+  {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f';
+  }
+
+  private static boolean _isDigit (final int c)
+  {
+    return c >= '0' && c <= '9';
+  }
+
+  private static int _getStructuralKind (final int c)
+  {
+    switch (c)
+    {
+      case '{':
+        return LBRACE;
+      case '}':
+        return RBRACE;
+      case '[':
+        return LSQUARE;
+      case ']':
+        return RSQUARE;
+      case ':':
+        return COLON;
+      case ',':
+        return COMMA;
+      default:
+        return -1;
+    }
+  }
+
+  protected static int _hexval (final int c)
+  {
+    return c == EOF_CHAR ? -1 : StringHelper.getHexValue ((char) c);
+  }
+
+  /**
+   * Read more units into the buffer. All units of the current token (starting
+   * at {@link #m_nTokenBegin}) must be retained, everything before may be
+   * discarded. Read errors must be treated like EOF, as in
+   * {@link JsonCharStream}.
+   *
+   * @return <code>true</code> if at least one more unit is available,
+   *         <code>false</code> upon EOF.
+   */
+  protected abstract boolean _fill ();
+
+  /**
+   * Get the unit at the passed offset relative to the beginning of the current
+   * token.
+   *
+   * @param nOffset
+   *        The offset to use. Must be &ge; 0.
+   * @return {@link #EOF_CHAR} if the end of input was reached. Units are
+   *         always returned as non-negative values.
+   */
+  protected abstract int _charAt (@Nonnegative int nOffset);
+
+  /**
+   * Scan a string token starting at the current token begin and unescape its
+   * content in the same pass. The unescaped value must be stored in
+   * {@link #m_sStringValue} (unless {@link #_isSkipStringValues()} is
+   * <code>true</code>) and the number of characters of the token in
+   * {@link #m_nTokenChars}.
+   *
+   * @return The length of the string token in units including the quotes or 0
+   *         if the string token is invalid.
+   */
+  @Nonnegative
+  protected abstract int _scanString ();
+
+  /**
+   * Determine the length of an unknown token that starts with the passed
+   * unit. {@link #m_nTokenChars} must be set accordingly.
+   *
+   * @param c
+   *        The first unit of the token.
+   * @return The number of units. Always &gt; 0.
+   */
+  @Nonnegative
+  protected abstract int _getUnknownTokenLength (int c);
+
+  /**
+   * Update the line and column numbers for the passed buffer range.
+   *
+   * @param nFrom
+   *        Absolute buffer index to start at.
+   * @param nLength
+   *        Number of units.
+   */
+  protected abstract void _updatePositions (int nFrom, int nLength);
+
+  /**
+   * @param nIndex
+   *        Absolute buffer index of the last unit of a character.
+   * @return The character ending at the passed buffer index.
+   */
+  protected abstract char _getCharEndingAt (int nIndex);
+
+  /**
+   * Create a string from the passed buffer range.
+   *
+   * @param nFrom
+   *        Absolute buffer index to start at.
+   * @param nLength
+   *        Number of units.
+   * @return The decoded string. Never <code>null</code>.
+   */
+  @Nonnull
+  protected abstract String _createString (int nFrom, int nLength);
+
+  @Nonnegative
+  private int _skipWhitespaces (@Nonnegative final int nOffset)
+  {
+    int ret = nOffset;
+    while (_isWhitespace (_charAt (ret)))
+      ++ret;
+    return ret;
+  }
+
+  private boolean _matchesKeyword (@Nonnull final String sKeyword)
+  {
+    // First char was already checked
+    for (int i = 1; i < sKeyword.length (); ++i)
+      if (_charAt (i) != sKeyword.charAt (i))
+        return false;
+    return true;
+  }
+
+  /**
+   * Scan a number according to the rules of the NUMBER_INT and NUMBER_DEC
+   * tokens, using the longest possible match.
+   *
+   * @return The length of the number token or 0 if the number is invalid.
+   */
+  @Nonnegative
+  private int _scanNumber ()
+  {
+    // Read at most one character more than allowed
+    final int nMax = m_nMaxNumberLength;
+    int nOffset = 0;
+    if (_charAt (0) == '-')
+      ++nOffset;
+
+    final int c = _charAt (nOffset);
+    if (!_isDigit (c))
+      return 0;
+    ++nOffset;
+    if (c != '0')
+      while (nOffset <= nMax && _isDigit (_charAt (nOffset)))
+        ++nOffset;
+
+    m_bDecimal = false;
+    if (nOffset <= nMax && _charAt (nOffset) == '.' && _isDigit (_charAt (nOffset + 1)))
+    {
+      m_bDecimal = true;
+      nOffset += 2;
+      while (nOffset <= nMax && _isDigit (_charAt (nOffset)))
+        ++nOffset;
+    }
+
+    final int cExp = _charAt (nOffset);
+    if (cExp == 'e' || cExp == 'E')
+    {
+      int nExpOffset = nOffset + 1;
+      final int cSign = _charAt (nExpOffset);
+      if (cSign == '+' || cSign == '-')
+        ++nExpOffset;
+      if (_isDigit (_charAt (nExpOffset)))
+      {
+        ++nExpOffset;
+        while (nExpOffset <= nMax && _isDigit (_charAt (nExpOffset)))
+          ++nExpOffset;
+        nOffset = nExpOffset;
+      }
+    }
+
+    if (nOffset > nMax)
+    {
+      _setLimitViolation ("The number exceeds the maximum length of " + nMax);
+      return 0;
+    }
+    return nOffset;
+  }
+
+  /**
+   * Handle a single escape sequence inside a string and append the result to
+   * {@link #m_aSB}.
+   *
+   * @param nOffset
+   *        The offset of the backslash relative to the token begin.
+   * @return The number of units of the escape sequence or 0 if the escape
+   *         sequence is invalid.
+   */
+  @Nonnegative
+  protected final int _unescape (@Nonnegative final int nOffset)
+  {
+    final int cNext = _charAt (nOffset + 1);
+    switch (cNext)
+    {
+      case '"':
+      case '/':
+      case '\\':
+        m_aSB.append ((char) cNext);
+        return 2;
+      case 'b':
+        m_aSB.append ('\b');
+        return 2;
+      case 'f':
+        m_aSB.append ('\f');
+        return 2;
+      case 'n':
+        m_aSB.append ('\n');
+        return 2;
+      case 'r':
+        m_aSB.append ('\r');
+        return 2;
+      case 't':
+        m_aSB.append ('\t');
+        return 2;
+      case 'u':
+      {
+        final int nU1 = _hexval (_charAt (nOffset + 2));
+        final int nU2 = _hexval (_charAt (nOffset + 3));
+        final int nU3 = _hexval (_charAt (nOffset + 4));
+        final int nU4 = _hexval (_charAt (nOffset + 5));
+        if (nU1 < 0 || nU2 < 0 || nU3 < 0 || nU4 < 0)
+          return 0;
+        m_aSB.append ((char) (nU1 << 12 | nU2 << 8 | nU3 << 4 | nU4));
+        return 6;
+      }
+      default:
+        // Invalid escape sequence or EOF
+        return 0;
+    }
+  }
+
+  /**
+   * Skip a comment starting at the current token begin.
+   *
+   * @throws TokenMgrError
+   *         If the comment is not terminated. This is the same behaviour as in
+   *         the generated token manager.
+   */
+  private void _skipComment ()
+  {
+    // Skip the "/*"
+    int nOffset = 2;
+    while (true)
+    {
+      final int c = _charAt (nOffset);
+      if (c == EOF_CHAR)
+      {
+        _updatePositions (m_nTokenBegin, nOffset);
+        final char cLast = _getCharEndingAt (m_nTokenBegin + nOffset - 1);
+        final boolean bNewLine = cLast == '\n' || cLast == '\r';
+        throw new TokenMgrError (true,
+                                 IN_COMMENT,
+                                 bNewLine ? m_nLine + 1 : m_nLine,
+                                 bNewLine ? 0 : m_nColumn + 1,
+                                 "",
+                                 cLast,
+                                 TokenMgrError.LEXICAL_ERROR);
+      }
+      ++nOffset;
+      if (c == '*' && _charAt (nOffset) == '/')
+      {
+        ++nOffset;
+        break;
+      }
+    }
+    _updatePositions (m_nTokenBegin, nOffset);
+    m_nBufPos = m_nTokenBegin + nOffset;
+  }
+
+  /**
+   * Update the line and column number in exactly the same way as
+   * {@link JsonCharStream} does.
+   *
+   * @param c
+   *        The character that was consumed
+   */
+  protected final void _updateLineColumn (final char c)
+  {
+    m_nColumn++;
+
+    if (m_bPrevCharIsLF)
+    {
+      m_bPrevCharIsLF = false;
+      m_nColumn = 1;
+      m_nLine++;
+    }
+    else
+      if (m_bPrevCharIsCR)
+      {
+        m_bPrevCharIsCR = false;
+        if (c == '\n')
+          m_bPrevCharIsLF = true;
+        else
+        {
+          m_nColumn = 1;
+          m_nLine++;
+        }
+      }
+
+    switch (c)
+    {
+      case '\r':
+        m_bPrevCharIsCR = true;
+        break;
+      case '\n':
+        m_bPrevCharIsLF = true;
+        break;
+      case '\t':
+        m_nColumn--;
+        m_nColumn += (TAB_SIZE - (m_nColumn % TAB_SIZE));
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Reset all token and position information, so that the scanner can read a
+   * new source from the beginning. The key cache is retained.
+   */
+  protected final void _reset ()
+  {
+    m_nBufPos = 0;
+    m_nBufLimit = 0;
+    m_nBufOffset = 0;
+    m_bEOFReached = false;
+    m_nKind = EOF;
+    m_nTokenBegin = 0;
+    m_nTokenLength = 0;
+    m_nTokenChars = 0;
+    m_bDecimal = false;
+    m_sStringValue = null;
+    m_aSB.setLength (0);
+    if (m_aSB.capacity () > MAX_REUSED_BUF_SIZE)
+      m_aSB.trimToSize ();
+    m_bKeyExpected = false;
+    m_bSkipStringValues = false;
+    m_bLogIllegalCharacters = true;
+    m_nMaxStringLength = JsonReaderLimits.DEFAULT_MAX_STRING_LENGTH;
+    m_nMaxNumberLength = JsonReaderLimits.DEFAULT_MAX_NUMBER_LENGTH;
+    m_nMaxDocumentSize = JsonReaderLimits.DEFAULT_MAX_DOCUMENT_SIZE;
+    m_sLimitViolation = null;
+    m_nBeginLine = 0;
+    m_nBeginColumn = 0;
+    m_nEndLine = 0;
+    m_nEndColumn = 0;
+    m_nPrevKind = EOF;
+    m_nPrevBeginLine = 0;
+    m_nPrevBeginColumn = 0;
+    m_nPrevEndLine = 0;
+    m_nPrevEndColumn = 0;
+    m_nLine = 1;
+    m_nColumn = 0;
+    m_bPrevCharIsCR = false;
+    m_bPrevCharIsLF = false;
+  }
+
+  /**
+   * Set the line number of the next character. Used when the source is only a
+   * part of a larger document.
+   *
+   * @param nLine
+   *        The 1-based line number.
+   */
+  public final void setLine (@Nonnegative final int nLine)
+  {
+    m_nLine = nLine;
+  }
+
+  /**
+   * @param aKeyCache
+   *        The cache to be used for object keys read via
+   *        {@link #nextKeyToken()}. May be <code>null</code> to disable key
+   *        de-duplication.
+   */
+  public final void setKeyCache (@Nullable final JsonKeyCache aKeyCache)
+  {
+    m_aKeyCache = aKeyCache;
+  }
+
+  /**
+   * @param bSkipStringValues
+   *        <code>true</code> to only validate string tokens without creating
+   *        their values, e.g. while skipping a part of the document.
+   *        {@link #getStringValue()} returns <code>null</code> for string
+   *        tokens read in this mode.
+   */
+  public final void setSkipStringValues (final boolean bSkipStringValues)
+  {
+    m_bSkipStringValues = bSkipStringValues;
+  }
+
+  /**
+   * @return <code>true</code> if {@link #_scanString()} should not create the
+   *         string value.
+   */
+  protected final boolean _isSkipStringValues ()
+  {
+    return m_bSkipStringValues;
+  }
+
+  /**
+   * Set the limits to be checked while tokenizing. Only the length of strings
+   * and numbers and the document size are checked by the scanner. If a limit
+   * is exceeded, an {@link ParserJsonConstants#UNKNOWN} token is returned and
+   * {@link #createParseException(int[][])} creates a
+   * {@link JsonLimitExceededException}.
+   *
+   * @param aLimits
+   *        The limits to be used. May be <code>null</code> for no limits.
+   */
+  public final void setLimits (@Nullable final JsonReaderLimits aLimits)
+  {
+    if (aLimits == null)
+    {
+      m_nMaxStringLength = JsonReaderLimits.DEFAULT_MAX_STRING_LENGTH;
+      m_nMaxNumberLength = JsonReaderLimits.DEFAULT_MAX_NUMBER_LENGTH;
+      m_nMaxDocumentSize = JsonReaderLimits.DEFAULT_MAX_DOCUMENT_SIZE;
+    }
+    else
+    {
+      m_nMaxStringLength = aLimits.getMaxStringLength ();
+      m_nMaxNumberLength = aLimits.getMaxNumberLength ();
+      m_nMaxDocumentSize = aLimits.getMaxDocumentSize ();
+    }
+  }
+
+  private void _setLimitViolation (@Nonnull final String sMessage)
+  {
+    // Keep the first one
+    if (m_sLimitViolation == null)
+      m_sLimitViolation = sMessage;
+  }
+
+  /**
+   * Check the length of a string token. Must be called by
+   * {@link #_scanString()} at least before reading more units and at the end
+   * of the string.
+   *
+   * @param nLength
+   *        The number of characters of the string read so far, without the
+   *        quotes.
+   * @return <code>true</code> if the string is too long and scanning must be
+   *         stopped.
+   */
+  protected final boolean _isStringTooLong (final int nLength)
+  {
+    if (nLength <= m_nMaxStringLength)
+      return false;
+    _setLimitViolation ("The string exceeds the maximum length of " + m_nMaxStringLength);
+    return true;
+  }
+
+  /**
+   * Check the document size after new units were read into the buffer. If the
+   * maximum size is exceeded, the excess units are discarded and the end of
+   * input is simulated.
+   *
+   * @param nRead
+   *        The number of units that were just added to the buffer.
+   * @return <code>true</code> if at least one of the new units can be used.
+   */
+  protected final boolean _checkDocumentSize (final int nRead)
+  {
+    final long nExcess = m_nBufOffset + m_nBufLimit - m_nMaxDocumentSize;
+    if (nExcess <= 0)
+      return true;
+    // nExcess is at most nRead
+    m_nBufLimit -= (int) nExcess;
+    m_bEOFReached = true;
+    _setLimitViolation ("The source exceeds the maximum size of " + m_nMaxDocumentSize);
+    return nExcess < nRead;
+  }
+
+  /**
+   * @return <code>true</code> if a limit was exceeded.
+   */
+  public final boolean isLimitExceeded ()
+  {
+    return m_sLimitViolation != null;
+  }
+
+  /**
+   * @return The description of the first exceeded limit or <code>null</code>
+   *         if no limit was exceeded.
+   */
+  @Nullable
+  public final String getLimitViolation ()
+  {
+    return m_sLimitViolation;
+  }
+
+  /**
+   * @throws JsonLimitExceededException
+   *         If a limit was exceeded. This must be checked after the end of
+   *         input, because the end of input is simulated if the document is
+   *         too large.
+   */
+  public final void checkLimits () throws JsonLimitExceededException
+  {
+    if (m_sLimitViolation != null)
+      throw new JsonLimitExceededException (m_sLimitViolation, m_nBeginLine, m_nBeginColumn);
+  }
+
+  /**
+   * @param bLogIllegalCharacters
+   *        <code>false</code> to not log illegal characters. This is only
+   *        helpful if errors are reported differently.
+   */
+  public final void setLogIllegalCharacters (final boolean bLogIllegalCharacters)
+  {
+    m_bLogIllegalCharacters = bLogIllegalCharacters;
+  }
+
+  /**
+   * @return The key cache to be used by {@link #_scanString()} or
+   *         <code>null</code> if the current string is not an object key or no
+   *         key cache is present.
+   */
+  @Nullable
+  protected final JsonKeyCache _getKeyCache ()
+  {
+    return m_bKeyExpected ? m_aKeyCache : null;
+  }
+
+  /**
+   * Read the next token in a place where an object key is expected. If it is
+   * a string, its value is taken from the key cache.
+   *
+   * @return The kind of the token as defined in {@link ParserJsonConstants}.
+   */
+  public final int nextKeyToken ()
+  {
+    m_bKeyExpected = true;
+    final int ret = nextToken ();
+    m_bKeyExpected = false;
+    return ret;
+  }
+
+  /**
+   * Read the next token.
+   *
+   * @return The kind of the token as defined in {@link ParserJsonConstants}.
+   */
+  public final int nextToken ()
+  {
+    m_nPrevKind = m_nKind;
+    m_nPrevBeginLine = m_nBeginLine;
+    m_nPrevBeginColumn = m_nBeginColumn;
+    m_nPrevEndLine = m_nEndLine;
+    m_nPrevEndColumn = m_nEndColumn;
+    m_sStringValue = null;
+
+    while (true)
+    {
+      m_nTokenBegin = m_nBufPos;
+      final int c = _charAt (0);
+      int nKind;
+      int nLength;
+      // Plain tokens contain no whitespace characters
+      boolean bPlain = true;
+      switch (c)
+      {
+        case EOF_CHAR:
+          m_nKind = EOF;
+          m_nTokenLength = 0;
+          m_nBeginLine = m_nEndLine = m_nLine;
+          m_nBeginColumn = m_nEndColumn = m_nColumn;
+          return EOF;
+        case ' ':
+        case '\t':
+        case '\r':
+        case '\n':
+        case '\f':
+        {
+          bPlain = false;
+          nLength = _skipWhitespaces (1);
+          nKind = _getStructuralKind (_charAt (nLength));
+          if (nKind < 0)
+            nKind = S;
+          else
+            nLength = _skipWhitespaces (nLength + 1);
+          break;
+        }
+        case '{':
+        case '}':
+        case '[':
+        case ']':
+        case ':':
+        case ',':
+          nKind = _getStructuralKind (c);
+          nLength = _skipWhitespaces (1);
+          bPlain = nLength == 1;
+          break;
+        case '"':
+          nKind = STRING;
+          nLength = _scanString ();
+          break;
+        case '-':
+        case '0':
+        case '1':
+        case '2':
+        case '3':
+        case '4':
+        case '5':
+        case '6':
+        case '7':
+        case '8':
+        case '9':
+          nLength = _scanNumber ();
+          nKind = m_bDecimal ? NUMBER_DEC : NUMBER_INT;
+          break;
+        case 't':
+          nKind = TRUE;
+          nLength = _matchesKeyword ("true") ? 4 : 0;
+          break;
+        case 'f':
+          nKind = FALSE;
+          nLength = _matchesKeyword ("false") ? 5 : 0;
+          break;
+        case 'n':
+          nKind = NULL;
+          nLength = _matchesKeyword ("null") ? 4 : 0;
+          break;
+        case '/':
+          if (_charAt (1) == '*')
+          {
+            _skipComment ();
+            continue;
+          }
+          nKind = UNKNOWN;
+          nLength = 0;
+          break;
+        default:
+          nKind = UNKNOWN;
+          nLength = 0;
+          break;
+      }
+
+      if (nKind != STRING)
+        m_nTokenChars = nLength;
+
+      if (nLength == 0)
+      {
+        // No token matched - use a single character
+        nKind = UNKNOWN;
+        nLength = _getUnknownTokenLength (c);
+        m_sStringValue = null;
+        if (m_bLogIllegalCharacters && m_sLimitViolation == null)
+          s_aLogger.error ("Illegal character: " + _createString (m_nTokenBegin, nLength));
+      }
+
+      m_nKind = nKind;
+      m_nTokenLength = nLength;
+      m_nBufPos = m_nTokenBegin + nLength;
+
+      // Update the position
+      _updateLineColumn ((char) c);
+      m_nBeginLine = m_nLine;
+      m_nBeginColumn = m_nColumn;
+      if (bPlain)
+        m_nColumn += m_nTokenChars - 1;
+      else
+        _updatePositions (m_nTokenBegin + 1, nLength - 1);
+      m_nEndLine = m_nLine;
+      m_nEndColumn = m_nColumn;
+      return nKind;
+    }
+  }
+
+  /**
+   * @return The kind of the current token.
+   */
+  public final int getKind ()
+  {
+    return m_nKind;
+  }
+
+  /**
+   * @return The offset of the first unit of the current token in the whole
+   *         source.
+   */
+  @Nonnegative
+  public final long getTokenOffset ()
+  {
+    return m_nBufOffset + m_nTokenBegin;
+  }
+
+  /**
+   * @return The offset after the last unit that was read from the source.
+   */
+  @Nonnegative
+  public final long getReadOffset ()
+  {
+    return m_nBufOffset + m_nBufLimit;
+  }
+
+  /**
+   * @return The 1-based line number of the beginning of the current token.
+   */
+  public final int getBeginLine ()
+  {
+    return m_nBeginLine;
+  }
+
+  /**
+   * @return The 1-based column number of the beginning of the current token.
+   */
+  public final int getBeginColumn ()
+  {
+    return m_nBeginColumn;
+  }
+
+  /**
+   * @return The 1-based line number of the last consumed character.
+   */
+  public final int getLine ()
+  {
+    return m_nLine;
+  }
+
+  /**
+   * @return The column number of the last consumed character.
+   */
+  public final int getColumn ()
+  {
+    return m_nColumn;
+  }
+
+  /**
+   * @return The unescaped value of the current token if it is a
+   *         {@link ParserJsonConstants#STRING} token. <code>null</code>
+   *         otherwise.
+   */
+  public final String getStringValue ()
+  {
+    return m_sStringValue;
+  }
+
+  /**
+   * @return The source text of the current token - same as in the generated
+   *         token manager. For {@link ParserJsonConstants#STRING} tokens this
+   *         includes the quotes and the escape sequences. Use
+   *         {@link #getStringValue()} to get the unescaped value.
+   */
+  @Nonnull
+  public final String getImage ()
+  {
+    if (m_nKind == EOF)
+      return "";
+    return _createString (m_nTokenBegin, m_nTokenLength);
+  }
+
+  /**
+   * @return A new {@link Token} object representing the current token. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  public final Token createToken ()
+  {
+    final Token ret = Token.newToken (m_nKind, getImage ());
+    ret.beginLine = m_nBeginLine;
+    ret.beginColumn = m_nBeginColumn;
+    ret.endLine = m_nEndLine;
+    ret.endColumn = m_nEndColumn;
+    return ret;
+  }
+
+  /**
+   * @return A new {@link Token} object representing the previous token. The
+   *         image of the token is not available. Never <code>null</code>.
+   */
+  @Nonnull
+  public final Token createPreviousToken ()
+  {
+    final Token ret = Token.newToken (m_nPrevKind);
+    ret.beginLine = m_nPrevBeginLine;
+    ret.beginColumn = m_nPrevBeginColumn;
+    ret.endLine = m_nPrevEndLine;
+    ret.endColumn = m_nPrevEndColumn;
+    return ret;
+  }
+
+  /**
+   * Create a {@link ParseException} for the current token, in the same way as
+   * the generated parser does. If a limit was exceeded, a
+   * {@link JsonLimitExceededException} is created instead.
+   *
+   * @param aExpectedTokenSequences
+   *        The expected token sequences at the current location. May not be
+   *        <code>null</code>.
+   * @return The new exception. Never <code>null</code>.
+   */
+  @Nonnull
+  public final ParseException createParseException (@Nonnull final int [][] aExpectedTokenSequences)
+  {
+    if (m_sLimitViolation != null)
+      return new JsonLimitExceededException (m_sLimitViolation, m_nBeginLine, m_nBeginColumn);
+
+    final Token aLastValidToken = createPreviousToken ();
+    aLastValidToken.next = createToken ();
+    return new ParseException (aLastValidToken, aExpectedTokenSequences, tokenImage);
+  }
+}
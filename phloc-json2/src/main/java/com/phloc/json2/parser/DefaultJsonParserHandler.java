@@ -0,0 +1,67 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.commons.annotations.OverrideOnDemand;
+
+/**
+ * Default implementation of {@link IJsonParserHandler} that does nothing.
+ * Derive from this class and override only the methods you are interested in.
+ *
+ * @author Philip Helger
+ */
+public class DefaultJsonParserHandler implements IJsonParserHandler
+{
+  @OverrideOnDemand
+  public void onObjectStart ()
+  {}
+
+  @OverrideOnDemand
+  public void onKey (@Nonnull final String sKey)
+  {}
+
+  @OverrideOnDemand
+  public void onObjectEnd ()
+  {}
+
+  @OverrideOnDemand
+  public void onArrayStart ()
+  {}
+
+  @OverrideOnDemand
+  public void onArrayEnd ()
+  {}
+
+  @OverrideOnDemand
+  public void onString (@Nonnull final String sValue)
+  {}
+
+  @OverrideOnDemand
+  public void onNumber (@Nonnull final String sNumber, final boolean bDecimal)
+  {}
+
+  @OverrideOnDemand
+  public void onBoolean (final boolean bValue)
+  {}
+
+  @OverrideOnDemand
+  public void onNull ()
+  {}
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+/**
+ * Defines the different parser engines that can be used by {@link JsonReader}
+ * to convert the source characters to {@link com.phloc.json2.IJson} objects.
+ * 
+ * @author Philip Helger
+ */
+public enum EJsonParserEngine
+{
+  /**
+   * The JavaCC generated parser. It first builds a complete {@link JsonNode}
+   * tree and converts this tree to the domain objects in a second pass.
+   */
+  JAVACC,
+
+  /**
+   * A hand written recursive descent parser that creates the domain objects
+   * directly from the source characters without building an intermediate
+   * {@link JsonNode} tree. It creates the same results and reports the same
+   * error locations as {@link #JAVACC}. When reading from an
+   * {@link java.io.InputStream} with UTF-8 encoding, the bytes are tokenized
+   * directly without decoding them to characters first.
+   */
+  DIRECT;
+}
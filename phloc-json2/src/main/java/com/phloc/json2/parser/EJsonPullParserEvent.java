@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+/**
+ * The different events that are emitted by an {@link IJsonPullParser}.
+ *
+ * @author Philip Helger
+ */
+public enum EJsonPullParserEvent
+{
+  /** A JSON object starts ("{") */
+  START_OBJECT,
+  /** A JSON object ends ("}") */
+  END_OBJECT,
+  /** A JSON array starts ("[") */
+  START_ARRAY,
+  /** A JSON array ends ("]") */
+  END_ARRAY,
+  /** The key of an object entry */
+  KEY,
+  /** A string value */
+  VALUE_STRING,
+  /** An integer or decimal number value */
+  VALUE_NUMBER,
+  /** The value <code>true</code> */
+  VALUE_TRUE,
+  /** The value <code>false</code> */
+  VALUE_FALSE,
+  /** The value <code>null</code> */
+  VALUE_NULL,
+  /** The complete document was read */
+  END_DOCUMENT,
+  /**
+   * The next token is not yet complete. Only returned by an
+   * {@link IJsonFeedParser} that needs more bytes to be fed.
+   */
+  NEED_MORE_INPUT;
+
+  /**
+   * @return <code>true</code> if this event represents a simple value,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isValue ()
+  {
+    return this == VALUE_STRING || this == VALUE_NUMBER || this == VALUE_TRUE || this == VALUE_FALSE || this == VALUE_NULL;
+  }
+
+  /**
+   * @return <code>true</code> if this event starts an object or an array.
+   */
+  public boolean isStartContainer ()
+  {
+    return this == START_OBJECT || this == START_ARRAY;
+  }
+
+  /**
+   * @return <code>true</code> if this event ends an object or an array.
+   */
+  public boolean isEndContainer ()
+  {
+    return this == END_OBJECT || this == END_ARRAY;
+  }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.phloc.json2.IJson;
+import com.phloc.json2.IJsonValue;
+
+/**
+ * A non-blocking parser for UTF-8 encoded JSON that is read in chunks, e.g.
+ * from a network connection. Instead of reading from a blocking source, the
+ * bytes are passed to the parser with {@link #feed(ByteBuffer)} as they arrive
+ * and the end of the source is signalled with {@link #endOfInput()}. If the
+ * data fed so far does not contain the next complete token,
+ * {@link EJsonPullParserEvent#NEED_MORE_INPUT} is returned instead of
+ * blocking.<br>
+ * Because of the JSON grammar a token is only complete when the following byte
+ * is known. Therefore the events of numbers, keywords and closing brackets at
+ * the end of the fed data are only emitted after more data was fed or the end
+ * of input was signalled.<br>
+ * Use {@link JsonReader#createFeedParser(JsonReaderSettings)} to create
+ * instances.
+ *
+ * @author Philip Helger
+ */
+public interface IJsonFeedParser
+{
+  /**
+   * Pass more bytes to the parser. The bytes are copied, so the buffer may be
+   * reused after this method returns.
+   *
+   * @param aBuffer
+   *        The buffer containing the bytes between its position and its limit.
+   *        The position is set to the limit. May not be <code>null</code>.
+   * @throws IllegalStateException
+   *         If {@link #endOfInput()} was already called
+   */
+  void feed (@Nonnull ByteBuffer aBuffer);
+
+  /**
+   * Pass more bytes to the parser. The bytes are copied, so the array may be
+   * reused after this method returns.
+   *
+   * @param aBytes
+   *        The byte array to take the bytes from. May not be <code>null</code>.
+   * @param nOfs
+   *        The offset of the first byte to use. Must be &ge; 0.
+   * @param nLen
+   *        The number of bytes to use. Must be &ge; 0.
+   * @throws IllegalStateException
+   *         If {@link #endOfInput()} was already called
+   */
+  void feed (@Nonnull byte [] aBytes, @Nonnegative int nOfs, @Nonnegative int nLen);
+
+  /**
+   * Signal that no more bytes will be fed. Afterwards {@link #next()} never
+   * returns {@link EJsonPullParserEvent#NEED_MORE_INPUT}.
+   */
+  void endOfInput ();
+
+  /**
+   * @return <code>true</code> if {@link #endOfInput()} was called.
+   */
+  boolean isEndOfInput ();
+
+  /**
+   * @return <code>true</code> if {@link #next()} may be called, meaning
+   *         {@link EJsonPullParserEvent#END_DOCUMENT} was not yet returned.
+   */
+  boolean hasNext ();
+
+  /**
+   * Read the next event from the bytes fed so far.
+   *
+   * @return The next event or {@link EJsonPullParserEvent#NEED_MORE_INPUT} if
+   *         more bytes need to be fed before the next event is available.
+   *         Never <code>null</code>. The last event of a document is always
+   *         {@link EJsonPullParserEvent#END_DOCUMENT}.
+   * @throws ParseException
+   *         If the source is not valid JSON or if a limit of the settings is
+   *         exceeded. The parser cannot be used afterwards.
+   * @throws IllegalStateException
+   *         If the end of the document was already reached.
+   */
+  @Nonnull
+  EJsonPullParserEvent next () throws ParseException;
+
+  /**
+   * @return The event that was last returned by {@link #next()}. Only
+   *         <code>null</code> if {@link #next()} was never called.
+   */
+  @Nullable
+  EJsonPullParserEvent getCurrentEvent ();
+
+  /**
+   * @return The number of currently open objects and arrays, in the same way
+   *         as {@link IJsonPullParser#getDepth()}.
+   */
+  @Nonnegative
+  int getDepth ();
+
+  /**
+   * @return The unescaped object key for {@link EJsonPullParserEvent#KEY}, the
+   *         unescaped string for {@link EJsonPullParserEvent#VALUE_STRING} or
+   *         the textual representation of the number for
+   *         {@link EJsonPullParserEvent#VALUE_NUMBER}. <code>null</code> for all
+   *         other events.
+   */
+  @Nullable
+  String getString ();
+
+  /**
+   * @return <code>true</code> if the current event is
+   *         {@link EJsonPullParserEvent#VALUE_NUMBER} and the number has a
+   *         fraction part.
+   */
+  boolean isDecimalNumber ();
+
+  /**
+   * @return The current simple value as an {@link IJsonValue} - the same
+   *         object that would be contained in a tree read by
+   *         {@link JsonReader} with the same settings. <code>null</code> if
+   *         the current event is not a value event.
+   */
+  @Nullable
+  IJsonValue getValue ();
+
+  /**
+   * Read the whole document as an {@link IJson} tree. The tree is built
+   * incrementally from the bytes fed so far, so this method can be called
+   * again after each {@link #feed(ByteBuffer)} until the document is
+   * complete. It must not be mixed with calls to {@link #next()}.
+   *
+   * @return The complete document or <code>null</code> if more bytes need to
+   *         be fed.
+   * @throws ParseException
+   *         If the source is not valid JSON or if a limit of the settings is
+   *         exceeded.
+   * @throws IllegalStateException
+   *         If {@link #next()} was called before.
+   */
+  @Nullable
+  IJson readDocument () throws ParseException;
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+/**
+ * A reader for newline delimited JSON (also known as JSON lines or NDJSON),
+ * where each line of the source contains a single JSON value. The records are
+ * read one by one, so that arbitrary large sources can be processed. Usage:
+ *
+ * <pre>
+ * final IJsonLinesReader aReader = JsonReader.createLinesReader (aSource);
+ * try
+ * {
+ *   while (aReader.hasNext ())
+ *   {
+ *     final IJson aRecord = aReader.next ();
+ *     ...
+ *   }
+ * }
+ * finally
+ * {
+ *   aReader.close ();
+ * }
+ * </pre>
+ *
+ * If a record is not valid JSON, the error is passed to the exception handler
+ * of the {@link JsonReaderSettings} and no more records are returned.<br>
+ * Each line is a separate document, so this is a special case of
+ * {@link IJsonMultiDocumentReader}.
+ *
+ * @author Philip Helger
+ */
+public interface IJsonLinesReader extends IJsonMultiDocumentReader
+{
+  /* empty */
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import com.phloc.json2.IJson;
+
+/**
+ * A reader for sources that contain several top-level JSON values one after
+ * the other, like <code>{...}{...}[...]</code>. The values may be separated
+ * by whitespaces. They are read one by one with the same parser, so that
+ * arbitrary large sources (e.g. log streams) can be processed. Usage:
+ *
+ * <pre>
+ * final IJsonMultiDocumentReader aReader = JsonReader.createMultiDocumentReader (aSource);
+ * try
+ * {
+ *   while (aReader.hasNext ())
+ *   {
+ *     final IJson aDocument = aReader.next ();
+ *     ...
+ *   }
+ * }
+ * finally
+ * {
+ *   aReader.close ();
+ * }
+ * </pre>
+ *
+ * If a value is not valid JSON, the error is passed to the exception handler of
+ * the {@link JsonReaderSettings} and no more values are returned.
+ *
+ * @author Philip Helger
+ */
+public interface IJsonMultiDocumentReader extends Iterator <IJson>, Closeable
+{
+  /**
+   * @return <code>true</code> if another value is available,
+   *         <code>false</code> if the end of the source was reached or an error
+   *         occurred.
+   */
+  boolean hasNext ();
+
+  /**
+   * @return <code>true</code> if reading stopped because of an invalid value.
+   */
+  boolean isError ();
+}
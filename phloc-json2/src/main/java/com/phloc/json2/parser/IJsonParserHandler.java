@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Callback interface for the push (SAX-like) parsing of JSON via
+ * {@link JsonReader#parse(java.io.Reader, IJsonParserHandler)}. The methods
+ * are invoked in document order as soon as the respective tokens are
+ * recognized. No {@link com.phloc.json2.IJson} objects are created.
+ *
+ * @author Philip Helger
+ * @see DefaultJsonParserHandler
+ */
+public interface IJsonParserHandler
+{
+  /**
+   * A JSON object starts.
+   */
+  void onObjectStart ();
+
+  /**
+   * The key of the next object entry was read. It is directly followed by the
+   * callback for the value.
+   *
+   * @param sKey
+   *        The unescaped key. Never <code>null</code>.
+   */
+  void onKey (@Nonnull String sKey);
+
+  /**
+   * The current JSON object ends.
+   */
+  void onObjectEnd ();
+
+  /**
+   * A JSON array starts.
+   */
+  void onArrayStart ();
+
+  /**
+   * The current JSON array ends.
+   */
+  void onArrayEnd ();
+
+  /**
+   * A string value was read.
+   *
+   * @param sValue
+   *        The unescaped string value. Never <code>null</code>.
+   */
+  void onString (@Nonnull String sValue);
+
+  /**
+   * A number value was read. The number is passed in its textual form so that
+   * the handler may decide on the best suitable numeric type.
+   *
+   * @param sNumber
+   *        The number as contained in the source. Never <code>null</code>.
+   * @param bDecimal
+   *        <code>true</code> if the number contains a fraction part.
+   */
+  void onNumber (@Nonnull String sNumber, boolean bDecimal);
+
+  /**
+   * A boolean value was read.
+   *
+   * @param bValue
+   *        The value.
+   */
+  void onBoolean (boolean bValue);
+
+  /**
+   * The value <code>null</code> was read.
+   */
+  void onNull ();
+}
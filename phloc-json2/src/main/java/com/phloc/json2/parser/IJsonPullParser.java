@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.phloc.json2.IJson;
+import com.phloc.json2.IJsonValue;
+
+/**
+ * A pull parser (StAX-like) for JSON. Instead of building the complete
+ * {@link IJson} tree, the content is read event by event so that arbitrary
+ * large documents can be processed with constant memory. Usage:
+ *
+ * <pre>
+ * final IJsonPullParser aParser = JsonReader.createPullParser (aReader);
+ * try
+ * {
+ *   while (aParser.hasNext ())
+ *   {
+ *     final EJsonPullParserEvent eEvent = aParser.next ();
+ *     ...
+ *   }
+ * }
+ * finally
+ * {
+ *   aParser.close ();
+ * }
+ * </pre>
+ *
+ * @author Philip Helger
+ */
+public interface IJsonPullParser extends Closeable
+{
+  /**
+   * @return <code>true</code> if {@link #next()} may be called, meaning
+   *         {@link EJsonPullParserEvent#END_DOCUMENT} was not yet returned.
+   */
+  boolean hasNext ();
+
+  /**
+   * Read the next event.
+   *
+   * @return The next event. Never <code>null</code>. The last event of a
+   *         document is always {@link EJsonPullParserEvent#END_DOCUMENT}.
+   * @throws ParseException
+   *         If the source is not valid JSON. The parser cannot be used
+   *         afterwards.
+   * @throws IllegalStateException
+   *         If the end of the document was already reached.
+   */
+  @Nonnull
+  EJsonPullParserEvent next () throws ParseException;
+
+  /**
+   * @return The event that was last returned by {@link #next()}. Only
+   *         <code>null</code> if {@link #next()} was never called.
+   */
+  @Nullable
+  EJsonPullParserEvent getCurrentEvent ();
+
+  /**
+   * @return The number of currently open objects and arrays. The
+   *         {@link EJsonPullParserEvent#START_OBJECT} and
+   *         {@link EJsonPullParserEvent#START_ARRAY} events already increase
+   *         the depth, the respective end events already decrease it.
+   */
+  @Nonnegative
+  int getDepth ();
+
+  /**
+   * @return The unescaped object key for {@link EJsonPullParserEvent#KEY}, the
+   *         unescaped string for {@link EJsonPullParserEvent#VALUE_STRING} or
+   *         the textual representation of the number for
+   *         {@link EJsonPullParserEvent#VALUE_NUMBER}. <code>null</code> for all
+   *         other events.
+   */
+  @Nullable
+  String getString ();
+
+  /**
+   * @return <code>true</code> if the current event is
+   *         {@link EJsonPullParserEvent#VALUE_NUMBER} and the number has a
+   *         fraction part.
+   */
+  boolean isDecimalNumber ();
+
+  /**
+   * @return The current number as a {@link BigInteger} or <code>null</code>
+   *         if the current event is not {@link EJsonPullParserEvent#VALUE_NUMBER}
+   *         or the number is no integer.
+   */
+  @Nullable
+  BigInteger getBigInteger ();
+
+  /**
+   * @return The current number as a {@link BigDecimal} or <code>null</code>
+   *         if the current event is not
+   *         {@link EJsonPullParserEvent#VALUE_NUMBER}.
+   */
+  @Nullable
+  BigDecimal getBigDecimal ();
+
+  /**
+   * @return The current simple value as an {@link IJsonValue} - the same
+   *         object that would be contained in a tree read by
+   *         {@link JsonReader}. <code>null</code> if the current event is not
+   *         a value event.
+   */
+  @Nullable
+  IJsonValue getValue ();
+
+  /**
+   * If the current event is {@link EJsonPullParserEvent#START_OBJECT} or
+   * {@link EJsonPullParserEvent#START_ARRAY}, all events up to and including
+   * the matching end event are skipped. For all other events nothing happens.
+   *
+   * @throws ParseException
+   *         If the source is not valid JSON.
+   */
+  void skipChildren () throws ParseException;
+
+  /**
+   * Read the value starting at the current event completely into memory. This
+   * is e.g. helpful to process a huge array element by element. If the
+   * current event is {@link EJsonPullParserEvent#START_OBJECT} or
+   * {@link EJsonPullParserEvent#START_ARRAY} all events up to and including
+   * the matching end event are consumed.
+   *
+   * @return The value starting at the current event or <code>null</code> if
+   *         the current event does not start a value.
+   * @throws ParseException
+   *         If the source is not valid JSON.
+   */
+  @Nullable
+  IJson readValue () throws ParseException;
+
+  /**
+   * Close the underlying source.
+   */
+  void close ();
+}
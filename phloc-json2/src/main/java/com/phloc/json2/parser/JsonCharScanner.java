@@ -0,0 +1,249 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+
+/**
+ * The {@link AbstractJsonScanner} implementation that reads characters from a
+ * {@link Reader} or directly from an in-memory char array.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonCharScanner extends AbstractJsonScanner
+{
+  private Reader m_aReader;
+  private char [] m_aBuffer = new char [DEFAULT_BUF_SIZE];
+  /** The own buffer while the source array is used as the buffer */
+  private char [] m_aOwnBuffer;
+
+  public JsonCharScanner (@Nonnull final Reader aReader)
+  {
+    m_aReader = ValueEnforcer.notNull (aReader, "Reader");
+  }
+
+  public JsonCharScanner (@Nonnull final char [] aChars)
+  {
+    reInit (aChars);
+  }
+
+  /**
+   * Prepare this scanner for reading from another source. The buffer is
+   * reused unless it grew too large.
+   *
+   * @param aReader
+   *        The new reader to read from. May be <code>null</code> to only
+   *        release the previous reader.
+   */
+  void reInit (@Nullable final Reader aReader)
+  {
+    _reset ();
+    m_aReader = aReader;
+    if (m_aOwnBuffer != null)
+    {
+      m_aBuffer = m_aOwnBuffer;
+      m_aOwnBuffer = null;
+    }
+    if (m_aBuffer.length > MAX_REUSED_BUF_SIZE)
+      m_aBuffer = new char [DEFAULT_BUF_SIZE];
+  }
+
+  /**
+   * Prepare this scanner for reading the passed characters. The array is used
+   * as the buffer directly, without copying it. It is never modified.
+   *
+   * @param aChars
+   *        The complete source to read. May not be <code>null</code>.
+   */
+  void reInit (@Nonnull final char [] aChars)
+  {
+    ValueEnforcer.notNull (aChars, "Chars");
+    reInit ((Reader) null);
+    m_aOwnBuffer = m_aBuffer;
+    m_aBuffer = aChars;
+  }
+
+  @Override
+  protected boolean _fill ()
+  {
+    if (m_bEOFReached)
+      return false;
+
+    if (m_aOwnBuffer != null)
+    {
+      // All characters of the in-memory source are available at once
+      m_bEOFReached = true;
+      m_nBufLimit = m_aBuffer.length;
+      return m_nBufLimit > 0 && _checkDocumentSize (m_nBufLimit);
+    }
+
+    if (m_nTokenBegin > 0)
+    {
+      // Discard everything before the current token
+      final int nKeep = m_nBufLimit - m_nTokenBegin;
+      System.arraycopy (m_aBuffer, m_nTokenBegin, m_aBuffer, 0, nKeep);
+      m_nBufPos -= m_nTokenBegin;
+      m_nBufLimit = nKeep;
+      m_nBufOffset += m_nTokenBegin;
+      m_nTokenBegin = 0;
+    }
+
+    if (m_nBufLimit == m_aBuffer.length)
+    {
+      // The current token spans the whole buffer
+      final char [] aNewBuffer = new char [m_aBuffer.length * 2];
+      System.arraycopy (m_aBuffer, 0, aNewBuffer, 0, m_nBufLimit);
+      m_aBuffer = aNewBuffer;
+    }
+
+    try
+    {
+      int nRead;
+      do
+      {
+        nRead = m_aReader.read (m_aBuffer, m_nBufLimit, m_aBuffer.length - m_nBufLimit);
+      } while (nRead == 0);
+
+      if (nRead < 0)
+      {
+        m_bEOFReached = true;
+        return false;
+      }
+      m_nBufLimit += nRead;
+      return _checkDocumentSize (nRead);
+    }
+    catch (final IOException ex)
+    {
+      // Same as in JsonCharStream: read errors are treated like EOF
+      m_bEOFReached = true;
+      return false;
+    }
+  }
+
+  @Override
+  protected int _charAt (@Nonnegative final int nOffset)
+  {
+    while (m_nTokenBegin + nOffset >= m_nBufLimit)
+      if (!_fill ())
+        return EOF_CHAR;
+    return m_aBuffer[m_nTokenBegin + nOffset];
+  }
+
+  @Override
+  @Nonnegative
+  protected int _scanString ()
+  {
+    // Skip the opening quote
+    int nOffset = 1;
+    boolean bUnescaped = false;
+    final boolean bSkip = _isSkipStringValues ();
+    while (true)
+    {
+      final int nIndex = m_nTokenBegin + nOffset;
+      if (nIndex >= m_nBufLimit)
+      {
+        if (_isStringTooLong (nOffset - 1) || !_fill ())
+          return 0;
+        continue;
+      }
+
+      final char c = m_aBuffer[nIndex];
+      if (c == '"')
+      {
+        if (_isStringTooLong (nOffset - 1))
+          return 0;
+        final JsonKeyCache aKeyCache = _getKeyCache ();
+        if (bSkip)
+          m_sStringValue = null;
+        else
+          if (aKeyCache != null)
+            m_sStringValue = bUnescaped ? aKeyCache.getFromCharSequence (m_aSB)
+                                        : aKeyCache.getFromChars (m_aBuffer, m_nTokenBegin + 1, nOffset - 1);
+          else
+            m_sStringValue = bUnescaped ? m_aSB.toString () : new String (m_aBuffer, m_nTokenBegin + 1, nOffset - 1);
+        m_nTokenChars = nOffset + 1;
+        return nOffset + 1;
+      }
+
+      if (c == '\\')
+      {
+        if (!bUnescaped)
+        {
+          // Copy everything read so far
+          m_aSB.setLength (0);
+          if (!bSkip)
+            m_aSB.append (m_aBuffer, m_nTokenBegin + 1, nOffset - 1);
+          bUnescaped = true;
+        }
+
+        final int nEscapeLength = _unescape (nOffset);
+        if (nEscapeLength == 0)
+          return 0;
+        nOffset += nEscapeLength;
+        continue;
+      }
+
+      if (c <= '\r' && (c == '\b' || c == '\t' || c == '\n' || c == '\f' || c == '\r'))
+      {
+        // Control character not allowed in strings
+        return 0;
+      }
+
+      if (bUnescaped && !bSkip)
+        m_aSB.append (c);
+      ++nOffset;
+    }
+  }
+
+  @Override
+  @Nonnegative
+  protected int _getUnknownTokenLength (final int c)
+  {
+    m_nTokenChars = 1;
+    return 1;
+  }
+
+  @Override
+  protected void _updatePositions (final int nFrom, final int nLength)
+  {
+    for (int i = 0; i < nLength; ++i)
+      _updateLineColumn (m_aBuffer[nFrom + i]);
+  }
+
+  @Override
+  protected char _getCharEndingAt (final int nIndex)
+  {
+    return m_aBuffer[nIndex];
+  }
+
+  @Override
+  @Nonnull
+  protected String _createString (final int nFrom, final int nLength)
+  {
+    return new String (m_aBuffer, nFrom, nLength);
+  }
+}
@@ -0,0 +1,281 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.phloc.commons.ValueEnforcer;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * This class is only used internally as the source for the generated parsers.<br>
+ * An implementation of interface {@link CharStream} that reads directly from
+ * an in-memory {@link CharSequence} (e.g. a {@link String} or a
+ * {@link java.nio.CharBuffer} wrapping a char array). No reader and no
+ * intermediate buffers are used and the characters are never copied, except
+ * for the token images.<br>
+ * Line and column numbers are not stored per character but calculated on
+ * demand by advancing a cursor over the source. As the positions are only
+ * requested in ascending order, every character is visited only once. The
+ * results are identical to the ones of {@link JsonCharStream}.
+ *
+ * @author Philip Helger
+ */
+@SuppressFBWarnings ("NM_METHOD_NAMING_CONVENTION")
+public final class JsonCharSequenceStream implements CharStream
+{
+  private CharSequence m_aSource;
+  private int m_nLength;
+  private boolean m_bTrackLineColumn;
+  /** Index of the first character of the current token */
+  private int m_nTokenBegin = 0;
+  /** Index of the last read character */
+  private int m_nBufPos = -1;
+  private int m_nTabSize = 8;
+
+  // The position cursor: line and column of the character at m_nPosIndex
+  private int m_nPosIndex;
+  private int m_nLine;
+  private int m_nColumn;
+  private boolean m_bPrevCharIsCR;
+  private boolean m_bPrevCharIsLF;
+
+  public JsonCharSequenceStream (@Nonnull final CharSequence aSource, final boolean bTrackLineColumn)
+  {
+    reInit (ValueEnforcer.notNull (aSource, "Source"), bTrackLineColumn);
+  }
+
+  /**
+   * Prepare this stream for reading from another source.
+   *
+   * @param aSource
+   *        The new source to read from. May be <code>null</code> to only
+   *        release the previous source.
+   * @param bTrackLineColumn
+   *        <code>true</code> to calculate line and column numbers,
+   *        <code>false</code> to always return -1.
+   */
+  void reInit (@Nullable final CharSequence aSource, final boolean bTrackLineColumn)
+  {
+    m_aSource = aSource;
+    m_nLength = aSource == null ? 0 : aSource.length ();
+    m_bTrackLineColumn = bTrackLineColumn;
+    m_nTokenBegin = 0;
+    m_nBufPos = -1;
+    _resetPosition ();
+  }
+
+  private void _resetPosition ()
+  {
+    m_nPosIndex = -1;
+    m_nLine = 1;
+    m_nColumn = 0;
+    m_bPrevCharIsCR = false;
+    m_bPrevCharIsLF = false;
+  }
+
+  public void setTabSize (final int i)
+  {
+    m_nTabSize = i;
+  }
+
+  public int getTabSize ()
+  {
+    return m_nTabSize;
+  }
+
+  /**
+   * Move the position cursor to the passed index. Indices after the last
+   * character have the position of the last character, as in
+   * {@link JsonCharStream}.
+   *
+   * @param nIndex
+   *        The index of the character to get the position of.
+   */
+  private void _moveTo (final int nIndex)
+  {
+    final int nTarget = Math.min (nIndex, m_nLength - 1);
+    if (nTarget < m_nPosIndex)
+    {
+      // Not needed by the generated token manager
+      _resetPosition ();
+    }
+
+    while (m_nPosIndex < nTarget)
+    {
+      final char c = m_aSource.charAt (++m_nPosIndex);
+      // Same as in JsonCharStream
+      m_nColumn++;
+
+      if (m_bPrevCharIsLF)
+      {
+        m_bPrevCharIsLF = false;
+        m_nColumn = 1;
+        m_nLine++;
+      }
+      else
+        if (m_bPrevCharIsCR)
+        {
+          m_bPrevCharIsCR = false;
+          if (c == '\n')
+            m_bPrevCharIsLF = true;
+          else
+          {
+            m_nColumn = 1;
+            m_nLine++;
+          }
+        }
+
+      switch (c)
+      {
+        case '\r':
+          m_bPrevCharIsCR = true;
+          break;
+        case '\n':
+          m_bPrevCharIsLF = true;
+          break;
+        case '\t':
+          m_nColumn--;
+          m_nColumn += (m_nTabSize - (m_nColumn % m_nTabSize));
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * @return starting character for token.
+   * @throws IOException
+   */
+  public char BeginToken () throws IOException
+  {
+    m_nTokenBegin = m_nBufPos + 1;
+    return readChar ();
+  }
+
+  /**
+   * Read a character.
+   *
+   * @return The read character
+   * @throws IOException
+   *         if the end of the source is reached
+   */
+  public char readChar () throws IOException
+  {
+    if (m_nBufPos + 1 >= m_nLength)
+      throw new IOException ("EOF in JsonCharSequenceStream");
+    return m_aSource.charAt (++m_nBufPos);
+  }
+
+  @Deprecated
+  public int getColumn ()
+  {
+    return getEndColumn ();
+  }
+
+  @Deprecated
+  public int getLine ()
+  {
+    return getEndLine ();
+  }
+
+  /** @return end column or -1 if line and column numbers are not tracked. */
+  public int getEndColumn ()
+  {
+    if (!m_bTrackLineColumn)
+      return -1;
+    _moveTo (m_nBufPos);
+    return m_nColumn;
+  }
+
+  /** @return end line or -1 if line and column numbers are not tracked. */
+  public int getEndLine ()
+  {
+    if (!m_bTrackLineColumn)
+      return -1;
+    _moveTo (m_nBufPos);
+    return m_nLine;
+  }
+
+  /**
+   * @return column of token start or -1 if line and column numbers are not
+   *         tracked.
+   */
+  public int getBeginColumn ()
+  {
+    if (!m_bTrackLineColumn)
+      return -1;
+    _moveTo (m_nTokenBegin);
+    return m_nColumn;
+  }
+
+  /**
+   * @return line number of token start or -1 if line and column numbers are
+   *         not tracked.
+   */
+  public int getBeginLine ()
+  {
+    if (!m_bTrackLineColumn)
+      return -1;
+    _moveTo (m_nTokenBegin);
+    return m_nLine;
+  }
+
+  /** Retreat. */
+  public void backup (final int nAmount)
+  {
+    m_nBufPos -= nAmount;
+  }
+
+  /** @return token image as String */
+  public String GetImage ()
+  {
+    return m_aSource.subSequence (m_nTokenBegin, m_nBufPos + 1).toString ();
+  }
+
+  /** @return suffix */
+  public char [] GetSuffix (final int len)
+  {
+    final char [] ret = new char [len];
+    final int nStart = m_nBufPos - len + 1;
+    for (int i = 0; i < len; ++i)
+      ret[i] = m_aSource.charAt (nStart + i);
+    return ret;
+  }
+
+  /** Set buffers back to null when finished. */
+  public void Done ()
+  {
+    m_aSource = null;
+  }
+
+  public boolean getTrackLineColumn ()
+  {
+    return m_bTrackLineColumn;
+  }
+
+  public void setTrackLineColumn (final boolean tlc)
+  {
+    m_bTrackLineColumn = tlc;
+  }
+}
@@ -22,6 +22,7 @@ import java.io.Reader;
 
 import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.phloc.commons.ValueEnforcer;
 import com.phloc.commons.io.streams.StreamUtils;
@@ -40,8 +41,9 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 public final class JsonCharStream implements CharStream
 {
   private static final int DEFAULT_BUF_SIZE = 4096;
+  private static final int MAX_REUSED_BUF_SIZE = 16 * 1024;
 
-  private final Reader m_aReader;
+  private Reader m_aReader;
   private int m_nLine;
   private int m_nColumn;
   private int m_nAvailable;
@@ -87,6 +89,40 @@ public final class JsonCharStream implements CharStream
     m_aNextCharBuf = new char [DEFAULT_BUF_SIZE];
   }
 
+  /**
+   * Prepare this stream for reading from another reader, starting at line 1
+   * and column 1. The buffers are reused unless they grew too large.
+   *
+   * @param aReader
+   *        The new reader to read from. May be <code>null</code> to only
+   *        release the previous reader.
+   */
+  void reInit (@Nullable final Reader aReader)
+  {
+    m_aReader = StreamUtils.getBuffered (aReader);
+    m_nLine = 1;
+    m_nColumn = 0;
+
+    if (m_aBuffer == null || m_nBufsize > MAX_REUSED_BUF_SIZE)
+    {
+      m_nBufsize = DEFAULT_BUF_SIZE;
+      m_aBuffer = new char [DEFAULT_BUF_SIZE];
+      m_aBufLine = new int [DEFAULT_BUF_SIZE];
+      m_aBufColumn = new int [DEFAULT_BUF_SIZE];
+    }
+    if (m_aNextCharBuf == null)
+      m_aNextCharBuf = new char [DEFAULT_BUF_SIZE];
+    m_nAvailable = m_nBufsize;
+
+    m_bPrevCharIsCR = false;
+    m_bPrevCharIsLF = false;
+    m_nTokenBegin = 0;
+    m_nInBuf = 0;
+    m_nMaxNextCharInd = 0;
+    m_nNextCharInd = -1;
+    m_nBufpos = -1;
+  }
+
   public void setTabSize (final int i)
   {
     m_nTabSize = i;
@@ -99,9 +135,12 @@ public final class JsonCharStream implements CharStream
 
   private void _expandBuff (final boolean bWrapAround)
   {
-    final char [] aNewBuffer = new char [m_nBufsize + 2048];
-    final int [] aNewBufLine = new int [m_nBufsize + 2048];
-    final int [] newbufcolumn = new int [m_nBufsize + 2048];
+    // Grow geometrically so that very long tokens (e.g. multi megabyte
+    // strings) are read in linear time
+    final int nNewBufsize = m_nBufsize * 2;
+    final char [] aNewBuffer = new char [nNewBufsize];
+    final int [] aNewBufLine = new int [nNewBufsize];
+    final int [] newbufcolumn = new int [nNewBufsize];
 
     try
     {
@@ -140,7 +179,7 @@ public final class JsonCharStream implements CharStream
       throw new Error ("Something went wrong", t);
     }
 
-    m_nBufsize += 2048;
+    m_nBufsize = nNewBufsize;
     m_nAvailable = m_nBufsize;
     m_nTokenBegin = 0;
   }
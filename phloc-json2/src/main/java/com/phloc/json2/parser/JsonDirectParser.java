@@ -0,0 +1,589 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.string.StringParser;
+import com.phloc.json2.IJson;
+import com.phloc.json2.convert.JsonConverter;
+import com.phloc.json2.impl.JsonArray;
+import com.phloc.json2.impl.JsonLazyNumberValue;
+import com.phloc.json2.impl.JsonObject;
+import com.phloc.json2.impl.JsonObjectShapeCache;
+import com.phloc.json2.impl.JsonValue;
+
+/**
+ * A hand written recursive descent parser that implements the same grammar as
+ * the JavaCC generated {@link ParserJson}, but creates the domain objects
+ * directly while reading the tokens. So no {@link JsonNode} tree needs to be
+ * built and traversed afterwards.<br>
+ * The created objects are identical to the ones created by
+ * {@link JsonNodeToDomainObject} and in case of an error, a
+ * {@link ParseException} with the same error location as from the generated
+ * parser is thrown.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonDirectParser implements ParserJsonConstants
+{
+  /** Integer numbers with at most this many digits always fit into a long */
+  private static final int MAX_SAFE_LONG_DIGITS = 18;
+
+  private final AbstractJsonScanner m_aScanner;
+  private final boolean m_bLazyNumbers;
+  private final int m_nMaxDepth;
+  private final long m_nMaxEntries;
+  private int m_nDepth = 0;
+  private long m_nEntries = 0;
+  // Was an empty key read in the current value?
+  private boolean m_bEmptyKey = false;
+  // Shared by all objects read by this parser
+  private final JsonObjectShapeCache m_aShapeCache = new JsonObjectShapeCache ();
+
+  public JsonDirectParser (@Nonnull final AbstractJsonScanner aScanner, final boolean bLazyNumbers)
+  {
+    this (aScanner, bLazyNumbers, null);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param aScanner
+   *        The scanner to read the tokens from. May not be <code>null</code>.
+   * @param bLazyNumbers
+   *        <code>true</code> to create {@link JsonLazyNumberValue} objects.
+   * @param aLimits
+   *        The limits to be checked. They are also passed to the scanner. May
+   *        be <code>null</code> for no limits.
+   */
+  public JsonDirectParser (@Nonnull final AbstractJsonScanner aScanner,
+                           final boolean bLazyNumbers,
+                           @Nullable final JsonReaderLimits aLimits)
+  {
+    m_aScanner = ValueEnforcer.notNull (aScanner, "Scanner");
+    m_bLazyNumbers = bLazyNumbers;
+    m_nMaxDepth = aLimits == null ? JsonReaderLimits.DEFAULT_MAX_DEPTH : aLimits.getMaxDepth ();
+    m_nMaxEntries = aLimits == null ? JsonReaderLimits.DEFAULT_MAX_ENTRIES : aLimits.getMaxEntries ();
+    aScanner.setLimits (aLimits);
+  }
+
+  /**
+   * Create the value for a number token.
+   *
+   * @param sImage
+   *        The image of the number token. May not be <code>null</code>.
+   * @param bDecimal
+   *        <code>true</code> for a {@link #NUMBER_DEC} token,
+   *        <code>false</code> for a {@link #NUMBER_INT} token.
+   * @param bLazyNumbers
+   *        <code>true</code> to create a {@link JsonLazyNumberValue}.
+   * @return The number value. Integer numbers that fit into a
+   *         <code>long</code> are created as {@link JsonValue#create(long)}.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  static IJson createNumber (@Nonnull final String sImage, final boolean bDecimal, final boolean bLazyNumbers)
+  {
+    if (bLazyNumbers)
+      return JsonLazyNumberValue.create (sImage, bDecimal);
+    if (bDecimal)
+      return JsonValue.create (StringParser.parseBigDecimal (sImage));
+    final int nDigits = sImage.charAt (0) == '-' ? sImage.length () - 1 : sImage.length ();
+    if (nDigits <= MAX_SAFE_LONG_DIGITS && sImage.indexOf ('e') < 0 && sImage.indexOf ('E') < 0)
+      return JsonValue.create (Long.parseLong (sImage));
+    return JsonValue.create (StringParser.parseBigInteger (sImage));
+  }
+
+  private void _expect (final int nKind, @Nonnull final int [][] aExpectedTokenSequences) throws ParseException
+  {
+    if (m_aScanner.nextToken () != nKind)
+      throw m_aScanner.createParseException (aExpectedTokenSequences);
+  }
+
+  @Nonnull
+  private JsonLimitExceededException _createLimitException (@Nonnull final String sMessage)
+  {
+    return new JsonLimitExceededException (sMessage, m_aScanner.getBeginLine (), m_aScanner.getBeginColumn ());
+  }
+
+  /**
+   * Called for every object and array that is opened.
+   *
+   * @throws JsonLimitExceededException
+   *         If the maximum depth is exceeded
+   */
+  private void _enter () throws JsonLimitExceededException
+  {
+    if (++m_nDepth > m_nMaxDepth)
+      throw _createLimitException ("The nesting exceeds the maximum depth of " + m_nMaxDepth);
+  }
+
+  /**
+   * Called for every value that is created.
+   *
+   * @throws JsonLimitExceededException
+   *         If the maximum number of values is exceeded
+   */
+  private void _countEntry () throws JsonLimitExceededException
+  {
+    if (++m_nEntries > m_nMaxEntries)
+      throw _createLimitException ("The document exceeds the maximum number of " + m_nMaxEntries + " values");
+  }
+
+  @Nonnull
+  private IJson _readArray () throws ParseException
+  {
+    _enter ();
+    final JsonArray aArray = new JsonArray ();
+    int nKind = m_aScanner.nextToken ();
+    if (nKind != RSQUARE)
+    {
+      aArray.add (_readValue (nKind, JsonExpectedTokens.FIRST_ARRAY_ELEMENT));
+      while ((nKind = m_aScanner.nextToken ()) == COMMA)
+        aArray.add (_readValue (m_aScanner.nextToken (), JsonExpectedTokens.VALUE));
+      if (nKind != RSQUARE)
+        throw m_aScanner.createParseException (JsonExpectedTokens.NEXT_ARRAY_ELEMENT);
+    }
+    --m_nDepth;
+    return aArray;
+  }
+
+  /**
+   * Add a member to an object. {@link JsonObject#add(String, IJson)} rejects
+   * an empty key, but {@link JsonNodeToDomainObject} only fails after the
+   * complete value was parsed. So the rejection is deferred to
+   * {@link #_checkEmptyKey()} and a syntax error after the key is reported to
+   * the exception handler first.
+   */
+  private void _addMember (@Nonnull final JsonObject aObject,
+                           @Nonnull final String sKey,
+                           @Nonnull final IJson aValue)
+  {
+    if (sKey.length () == 0)
+      m_bEmptyKey = true;
+    else
+      aObject.add (sKey, aValue);
+  }
+
+  /**
+   * Called after a top-level value was read completely.
+   *
+   * @throws IllegalArgumentException
+   *         If the value contains an empty key - the same exception as from
+   *         {@link JsonObject#add(String, IJson)}.
+   */
+  private void _checkEmptyKey ()
+  {
+    if (m_bEmptyKey)
+    {
+      m_bEmptyKey = false;
+      throw new IllegalArgumentException ("name");
+    }
+  }
+
+  @Nonnull
+  private IJson _readObject () throws ParseException
+  {
+    _enter ();
+    final JsonObject aObject = new JsonObject (JsonObject.DEFAULT_INITIAL_CAPACITY, m_aShapeCache);
+    int nKind = m_aScanner.nextKeyToken ();
+    if (nKind == STRING)
+    {
+      while (true)
+      {
+        final String sKey = m_aScanner.getStringValue ();
+        _expect (COLON, JsonExpectedTokens.COLON_SEPARATOR);
+        _addMember (aObject, sKey, _readValue (m_aScanner.nextToken (), JsonExpectedTokens.VALUE));
+
+        nKind = m_aScanner.nextToken ();
+        if (nKind != COMMA)
+          break;
+        if (m_aScanner.nextKeyToken () != STRING)
+          throw m_aScanner.createParseException (JsonExpectedTokens.OBJECT_KEY);
+      }
+      if (nKind != RBRACE)
+        throw m_aScanner.createParseException (JsonExpectedTokens.NEXT_OBJECT_ELEMENT);
+    }
+    else
+      if (nKind != RBRACE)
+        throw m_aScanner.createParseException (JsonExpectedTokens.FIRST_OBJECT_ELEMENT);
+    --m_nDepth;
+    return aObject;
+  }
+
+  /**
+   * Read a single value
+   *
+   * @param nKind
+   *        The kind of the first token of the value.
+   * @param aExpectedTokenSequences
+   *        The token sequences to be reported in case the token does not start
+   *        a value.
+   * @return The read value. Never <code>null</code>.
+   * @throws ParseException
+   *         In case of an error
+   */
+  @Nonnull
+  private IJson _readValue (final int nKind, @Nonnull final int [][] aExpectedTokenSequences) throws ParseException
+  {
+    _countEntry ();
+    switch (nKind)
+    {
+      case STRING:
+        return JsonConverter.convertToJson (m_aScanner.getStringValue ());
+      case NUMBER_INT:
+        return createNumber (m_aScanner.getImage (), false, m_bLazyNumbers);
+      case NUMBER_DEC:
+        return createNumber (m_aScanner.getImage (), true, m_bLazyNumbers);
+      case LBRACE:
+        return _readObject ();
+      case LSQUARE:
+        return _readArray ();
+      case TRUE:
+        return JsonValue.TRUE;
+      case FALSE:
+        return JsonValue.FALSE;
+      case NULL:
+        return JsonValue.NULL;
+      default:
+        throw m_aScanner.createParseException (aExpectedTokenSequences);
+    }
+  }
+
+  /**
+   * Skip a single value without creating any objects. The syntax is checked
+   * in the same way as when reading it.
+   *
+   * @param nKind
+   *        The kind of the first token of the value.
+   * @param aExpectedTokenSequences
+   *        The token sequences to be reported in case the token does not start
+   *        a value.
+   * @throws ParseException
+   *         In case of an error
+   */
+  private void _skipValue (final int nKind, @Nonnull final int [][] aExpectedTokenSequences) throws ParseException
+  {
+    switch (nKind)
+    {
+      case STRING:
+      case NUMBER_INT:
+      case NUMBER_DEC:
+      case TRUE:
+      case FALSE:
+      case NULL:
+        break;
+      case LBRACE:
+      {
+        _enter ();
+        int nNextKind = m_aScanner.nextToken ();
+        if (nNextKind == STRING)
+        {
+          while (true)
+          {
+            _expect (COLON, JsonExpectedTokens.COLON_SEPARATOR);
+            _skipValue (m_aScanner.nextToken (), JsonExpectedTokens.VALUE);
+
+            nNextKind = m_aScanner.nextToken ();
+            if (nNextKind != COMMA)
+              break;
+            if (m_aScanner.nextToken () != STRING)
+              throw m_aScanner.createParseException (JsonExpectedTokens.OBJECT_KEY);
+          }
+          if (nNextKind != RBRACE)
+            throw m_aScanner.createParseException (JsonExpectedTokens.NEXT_OBJECT_ELEMENT);
+        }
+        else
+          if (nNextKind != RBRACE)
+            throw m_aScanner.createParseException (JsonExpectedTokens.FIRST_OBJECT_ELEMENT);
+        --m_nDepth;
+        break;
+      }
+      case LSQUARE:
+      {
+        _enter ();
+        int nNextKind = m_aScanner.nextToken ();
+        if (nNextKind != RSQUARE)
+        {
+          _skipValue (nNextKind, JsonExpectedTokens.FIRST_ARRAY_ELEMENT);
+          while ((nNextKind = m_aScanner.nextToken ()) == COMMA)
+            _skipValue (m_aScanner.nextToken (), JsonExpectedTokens.VALUE);
+          if (nNextKind != RSQUARE)
+            throw m_aScanner.createParseException (JsonExpectedTokens.NEXT_ARRAY_ELEMENT);
+        }
+        --m_nDepth;
+        break;
+      }
+      default:
+        throw m_aScanner.createParseException (aExpectedTokenSequences);
+    }
+  }
+
+  /**
+   * Read the next value if it is part of the projection or skip it
+   * otherwise. Must be called before the first token of the value is read.
+   *
+   * @param aNode
+   *        The projection node of the value. May be <code>null</code> if the
+   *        value is to be skipped.
+   * @param aExpectedTokenSequences
+   *        The token sequences to be reported in case the token does not start
+   *        a value.
+   * @return <code>null</code> if the value is not part of the result.
+   * @throws ParseException
+   *         In case of an error
+   */
+  @Nullable
+  private IJson _readNextProjected (@Nullable final JsonProjection.Node aNode,
+                                    @Nonnull final int [][] aExpectedTokenSequences) throws ParseException
+  {
+    if (aNode == null)
+    {
+      // Don't create the string value of the next token
+      m_aScanner.setSkipStringValues (true);
+      try
+      {
+        _skipValue (m_aScanner.nextToken (), aExpectedTokenSequences);
+      }
+      finally
+      {
+        m_aScanner.setSkipStringValues (false);
+      }
+      return null;
+    }
+    return _readProjected (m_aScanner.nextToken (), aNode, aExpectedTokenSequences);
+  }
+
+  @Nullable
+  private static JsonProjection.Node _getElementNode (@Nonnull final JsonProjection.Node aNode, final int nIndex)
+  {
+    // Avoid creating the index string if there are only wildcards
+    return aNode.hasNamedChildren () ? aNode.getChild (Integer.toString (nIndex)) : aNode.getWildcardChild ();
+  }
+
+  /**
+   * Read a single value, restricted to the passed projection node.
+   *
+   * @param nKind
+   *        The kind of the first token of the value.
+   * @param aNode
+   *        The projection node of the value. May not be <code>null</code>.
+   * @param aExpectedTokenSequences
+   *        The token sequences to be reported in case the token does not start
+   *        a value.
+   * @return <code>null</code> if the value is a scalar that is not selected.
+   * @throws ParseException
+   *         In case of an error
+   */
+  @Nullable
+  private IJson _readProjected (final int nKind,
+                                @Nonnull final JsonProjection.Node aNode,
+                                @Nonnull final int [][] aExpectedTokenSequences) throws ParseException
+  {
+    if (aNode.isSelected ())
+      return _readValue (nKind, aExpectedTokenSequences);
+
+    switch (nKind)
+    {
+      case LBRACE:
+      {
+        _countEntry ();
+        _enter ();
+        final JsonObject aObject = new JsonObject (JsonObject.DEFAULT_INITIAL_CAPACITY, m_aShapeCache);
+        int nNextKind = m_aScanner.nextKeyToken ();
+        if (nNextKind == STRING)
+        {
+          while (true)
+          {
+            final String sKey = m_aScanner.getStringValue ();
+            _expect (COLON, JsonExpectedTokens.COLON_SEPARATOR);
+            final IJson aValue = _readNextProjected (aNode.getChild (sKey), JsonExpectedTokens.VALUE);
+            if (aValue != null)
+              _addMember (aObject, sKey, aValue);
+
+            nNextKind = m_aScanner.nextToken ();
+            if (nNextKind != COMMA)
+              break;
+            if (m_aScanner.nextKeyToken () != STRING)
+              throw m_aScanner.createParseException (JsonExpectedTokens.OBJECT_KEY);
+          }
+          if (nNextKind != RBRACE)
+            throw m_aScanner.createParseException (JsonExpectedTokens.NEXT_OBJECT_ELEMENT);
+        }
+        else
+          if (nNextKind != RBRACE)
+            throw m_aScanner.createParseException (JsonExpectedTokens.FIRST_OBJECT_ELEMENT);
+        --m_nDepth;
+        return aObject;
+      }
+      case LSQUARE:
+      {
+        _countEntry ();
+        _enter ();
+        final JsonArray aArray = new JsonArray ();
+        final JsonProjection.Node aFirstNode = _getElementNode (aNode, 0);
+        int nNextKind;
+        if (aFirstNode == null)
+        {
+          // Don't create the string value of the first element
+          m_aScanner.setSkipStringValues (true);
+          try
+          {
+            nNextKind = m_aScanner.nextToken ();
+            if (nNextKind != RSQUARE)
+              _skipValue (nNextKind, JsonExpectedTokens.FIRST_ARRAY_ELEMENT);
+          }
+          finally
+          {
+            m_aScanner.setSkipStringValues (false);
+          }
+        }
+        else
+        {
+          nNextKind = m_aScanner.nextToken ();
+          if (nNextKind != RSQUARE)
+          {
+            final IJson aValue = _readProjected (nNextKind, aFirstNode, JsonExpectedTokens.FIRST_ARRAY_ELEMENT);
+            if (aValue != null)
+              aArray.add (aValue);
+          }
+        }
+
+        if (nNextKind != RSQUARE)
+        {
+          int nIndex = 1;
+          while ((nNextKind = m_aScanner.nextToken ()) == COMMA)
+          {
+            final IJson aValue = _readNextProjected (_getElementNode (aNode, nIndex++), JsonExpectedTokens.VALUE);
+            if (aValue != null)
+              aArray.add (aValue);
+          }
+          if (nNextKind != RSQUARE)
+            throw m_aScanner.createParseException (JsonExpectedTokens.NEXT_ARRAY_ELEMENT);
+        }
+        --m_nDepth;
+        return aArray;
+      }
+      default:
+        // Scalar values are only part of the result if they are selected
+        _skipValue (nKind, aExpectedTokenSequences);
+        return null;
+    }
+  }
+
+  /**
+   * @return The number of values of the current document that were read so
+   *         far, including all nested values.
+   */
+  @Nonnegative
+  long getEntryCount ()
+  {
+    return m_nEntries;
+  }
+
+  /**
+   * Parse the next value of a sequence of JSON values that are separated by
+   * whitespaces (like JSON lines).
+   *
+   * @return The parsed JSON element or <code>null</code> if the end of input
+   *         was reached.
+   * @throws ParseException
+   *         In case the next value is not valid JSON.
+   */
+  @Nullable
+  public IJson nextValue () throws ParseException
+  {
+    int nKind;
+    do
+    {
+      nKind = m_aScanner.nextToken ();
+    } while (nKind == S);
+
+    if (nKind == EOF)
+    {
+      m_aScanner.checkLimits ();
+      return null;
+    }
+    // The number of values is limited per document
+    m_nEntries = 0;
+    m_bEmptyKey = false;
+    final IJson ret = _readValue (nKind, JsonExpectedTokens.ROOT_VALUE);
+    _checkEmptyKey ();
+    return ret;
+  }
+
+  /**
+   * Parse a complete JSON document. This is the equivalent of
+   * {@link ParserJson#json()}.
+   *
+   * @return The parsed JSON element. Never <code>null</code>.
+   * @throws ParseException
+   *         In case the source is not valid JSON.
+   */
+  @Nonnull
+  public IJson json () throws ParseException
+  {
+    int nKind;
+    do
+    {
+      nKind = m_aScanner.nextToken ();
+    } while (nKind == S);
+
+    final IJson ret = _readValue (nKind, JsonExpectedTokens.ROOT_VALUE);
+    _expect (EOF, JsonExpectedTokens.END_OF_INPUT);
+    // The end of input may be caused by the maximum document size
+    m_aScanner.checkLimits ();
+    _checkEmptyKey ();
+    return ret;
+  }
+
+  /**
+   * Parse a complete JSON document, but only read the parts defined by the
+   * passed projection. Everything else is checked for syntax errors but no
+   * objects are created for it.
+   *
+   * @param aProjection
+   *        The projection to be used. May not be <code>null</code>.
+   * @return The projected JSON element. Never <code>null</code>. If the root
+   *         value is a scalar that is not selected, {@link JsonValue#NULL} is
+   *         returned.
+   * @throws ParseException
+   *         In case the source is not valid JSON.
+   */
+  @Nonnull
+  public IJson json (@Nonnull final JsonProjection aProjection) throws ParseException
+  {
+    int nKind;
+    do
+    {
+      nKind = m_aScanner.nextToken ();
+    } while (nKind == S);
+
+    final IJson ret = _readProjected (nKind, aProjection.getRoot (), JsonExpectedTokens.ROOT_VALUE);
+    _expect (EOF, JsonExpectedTokens.END_OF_INPUT);
+    m_aScanner.checkLimits ();
+    _checkEmptyKey ();
+    return ret != null ? ret : JsonValue.NULL;
+  }
+}
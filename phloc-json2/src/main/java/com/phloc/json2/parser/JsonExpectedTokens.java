@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.annotations.PresentForCodeCoverage;
+
+/**
+ * Contains the expected token sequences that are reported in a
+ * {@link ParseException} by the hand written parsers. They are identical to
+ * the ones reported by the JavaCC generated {@link ParserJson} at the
+ * respective locations.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+final class JsonExpectedTokens implements ParserJsonConstants
+{
+  /** Before the root value */
+  static final int [][] ROOT_VALUE = _expected (S,
+                                                STRING,
+                                                NUMBER_DEC,
+                                                NUMBER_INT,
+                                                LBRACE,
+                                                LSQUARE,
+                                                TRUE,
+                                                FALSE,
+                                                NULL);
+  /** Any nested value */
+  static final int [][] VALUE = _expected (STRING, NUMBER_DEC, NUMBER_INT, LBRACE, LSQUARE, TRUE, FALSE, NULL);
+  /** After "[" */
+  static final int [][] FIRST_ARRAY_ELEMENT = _expected (STRING,
+                                                         NUMBER_DEC,
+                                                         NUMBER_INT,
+                                                         LBRACE,
+                                                         LSQUARE,
+                                                         RSQUARE,
+                                                         TRUE,
+                                                         FALSE,
+                                                         NULL);
+  /** After an array element */
+  static final int [][] NEXT_ARRAY_ELEMENT = _expected (COMMA, RSQUARE);
+  /** After "{" */
+  static final int [][] FIRST_OBJECT_ELEMENT = _expected (STRING, RBRACE);
+  /** After an object value */
+  static final int [][] NEXT_OBJECT_ELEMENT = _expected (RBRACE, COMMA);
+  /** After a "," in an object */
+  static final int [][] OBJECT_KEY = _expected (STRING);
+  /** After an object key */
+  static final int [][] COLON_SEPARATOR = _expected (COLON);
+  /** After the root value */
+  static final int [][] END_OF_INPUT = _expected (EOF);
+
+  @PresentForCodeCoverage
+  @SuppressWarnings ("unused")
+  private static final JsonExpectedTokens s_aInstance = new JsonExpectedTokens ();
+
+  private JsonExpectedTokens ()
+  {}
+
+  @Nonnull
+  private static int [][] _expected (@Nonnull final int... aKinds)
+  {
+    final int [][] ret = new int [aKinds.length] [];
+    for (int i = 0; i < aKinds.length; ++i)
+      ret[i] = new int [] { aKinds[i] };
+    return ret;
+  }
+}
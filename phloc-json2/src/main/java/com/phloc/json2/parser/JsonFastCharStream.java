@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.phloc.commons.ValueEnforcer;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * This class is only used internally as the source for the generated parsers.<br>
+ * An implementation of interface {@link CharStream} that does not track line
+ * and column numbers at all. All position getters return -1. Compared to
+ * {@link JsonCharStream} no per character position arrays need to be
+ * maintained and the buffer is a simple linear buffer that is compacted at the
+ * beginning of a token.
+ *
+ * @author Philip Helger
+ */
+@SuppressFBWarnings ("NM_METHOD_NAMING_CONVENTION")
+public final class JsonFastCharStream implements CharStream
+{
+  private static final int DEFAULT_BUF_SIZE = 4096;
+  private static final int MAX_REUSED_BUF_SIZE = 16 * 1024;
+
+  private Reader m_aReader;
+  private char [] m_aBuffer = new char [DEFAULT_BUF_SIZE];
+  /** Index of the first character of the current token */
+  private int m_nTokenBegin = 0;
+  /** Index of the last read character */
+  private int m_nBufPos = -1;
+  /** Number of valid characters in the buffer */
+  private int m_nBufLimit = 0;
+  private int m_nTabSize = 8;
+
+  public JsonFastCharStream (@Nonnull final Reader aReader)
+  {
+    m_aReader = ValueEnforcer.notNull (aReader, "Reader");
+  }
+
+  /**
+   * Prepare this stream for reading from another reader. The buffer is reused
+   * unless it grew too large.
+   *
+   * @param aReader
+   *        The new reader to read from. May be <code>null</code> to only
+   *        release the previous reader.
+   */
+  void reInit (@Nullable final Reader aReader)
+  {
+    m_aReader = aReader;
+    if (m_aBuffer == null || m_aBuffer.length > MAX_REUSED_BUF_SIZE)
+      m_aBuffer = new char [DEFAULT_BUF_SIZE];
+    m_nTokenBegin = 0;
+    m_nBufPos = -1;
+    m_nBufLimit = 0;
+  }
+
+  public void setTabSize (final int i)
+  {
+    m_nTabSize = i;
+  }
+
+  public int getTabSize ()
+  {
+    return m_nTabSize;
+  }
+
+  private void _fillBuff () throws IOException
+  {
+    if (m_nTokenBegin > 0)
+    {
+      // Discard everything before the current token
+      final int nKeep = m_nBufLimit - m_nTokenBegin;
+      System.arraycopy (m_aBuffer, m_nTokenBegin, m_aBuffer, 0, nKeep);
+      m_nBufPos -= m_nTokenBegin;
+      m_nBufLimit = nKeep;
+      m_nTokenBegin = 0;
+    }
+
+    if (m_nBufLimit == m_aBuffer.length)
+    {
+      // The current token spans the whole buffer
+      final char [] aNewBuffer = new char [m_aBuffer.length * 2];
+      System.arraycopy (m_aBuffer, 0, aNewBuffer, 0, m_nBufLimit);
+      m_aBuffer = aNewBuffer;
+    }
+
+    int nRead;
+    do
+    {
+      nRead = m_aReader.read (m_aBuffer, m_nBufLimit, m_aBuffer.length - m_nBufLimit);
+    } while (nRead == 0);
+
+    if (nRead < 0)
+    {
+      m_aReader.close ();
+      throw new IOException ("EOF in JsonFastCharStream");
+    }
+    m_nBufLimit += nRead;
+  }
+
+  /**
+   * @return starting character for token.
+   * @throws IOException
+   */
+  public char BeginToken () throws IOException
+  {
+    m_nTokenBegin = m_nBufPos + 1;
+    return readChar ();
+  }
+
+  /**
+   * Read a character.
+   *
+   * @return The read character
+   * @throws IOException
+   *         if an I/O error occurs
+   */
+  public char readChar () throws IOException
+  {
+    if (m_nBufPos + 1 >= m_nBufLimit)
+      _fillBuff ();
+    return m_aBuffer[++m_nBufPos];
+  }
+
+  @Deprecated
+  public int getColumn ()
+  {
+    return -1;
+  }
+
+  @Deprecated
+  public int getLine ()
+  {
+    return -1;
+  }
+
+  /** @return always -1 */
+  public int getEndColumn ()
+  {
+    return -1;
+  }
+
+  /** @return always -1 */
+  public int getEndLine ()
+  {
+    return -1;
+  }
+
+  /** @return always -1 */
+  public int getBeginColumn ()
+  {
+    return -1;
+  }
+
+  /** @return always -1 */
+  public int getBeginLine ()
+  {
+    return -1;
+  }
+
+  /** Retreat. */
+  public void backup (final int nAmount)
+  {
+    m_nBufPos -= nAmount;
+  }
+
+  /** @return token image as String */
+  public String GetImage ()
+  {
+    return new String (m_aBuffer, m_nTokenBegin, m_nBufPos - m_nTokenBegin + 1);
+  }
+
+  /** @return suffix */
+  public char [] GetSuffix (final int len)
+  {
+    final char [] ret = new char [len];
+    System.arraycopy (m_aBuffer, m_nBufPos - len + 1, ret, 0, len);
+    return ret;
+  }
+
+  /** Set buffers back to null when finished. */
+  public void Done ()
+  {
+    m_aBuffer = null;
+  }
+
+  /**
+   * @return always <code>false</code>
+   */
+  public boolean getTrackLineColumn ()
+  {
+    return false;
+  }
+
+  /**
+   * Line and column tracking cannot be enabled on this class. Use
+   * {@link JsonCharStream} instead.
+   */
+  public void setTrackLineColumn (final boolean tlc)
+  {}
+}
@@ -0,0 +1,581 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.json2.IJson;
+import com.phloc.json2.IJsonValue;
+import com.phloc.json2.convert.JsonConverter;
+import com.phloc.json2.impl.JsonArray;
+import com.phloc.json2.impl.JsonObject;
+import com.phloc.json2.impl.JsonObjectShapeCache;
+import com.phloc.json2.impl.JsonValue;
+
+/**
+ * Default implementation of {@link IJsonFeedParser}. The fed bytes are
+ * tokenized by a {@link JsonUTF8Scanner}. If the scanner needs more bytes than
+ * were fed, the scanning is aborted and the incomplete token is scanned again
+ * from its beginning after the next feed. Therefore the parser state is
+ * advanced token by token, so that no consumed token gets lost.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonFeedParser implements IJsonFeedParser, ParserJsonConstants
+{
+  /**
+   * Thrown by {@link FeedInputStream} if the scanner needs more bytes than were
+   * fed. No stack trace is created.
+   */
+  private static final class NeedMoreInputSignal extends RuntimeException
+  {
+    static final NeedMoreInputSignal INSTANCE = new NeedMoreInputSignal ();
+
+    private NeedMoreInputSignal ()
+    {
+      super ("More input is needed", null, false, false);
+    }
+  }
+
+  /**
+   * The input stream of the scanner containing the fed bytes.
+   */
+  private static final class FeedInputStream extends InputStream
+  {
+    private byte [] m_aData = new byte [AbstractJsonScanner.DEFAULT_BUF_SIZE];
+    private int m_nPos = 0;
+    private int m_nLimit = 0;
+    private boolean m_bEndOfInput = false;
+    // The byte that must be fed before scanning again or -1
+    private int m_nWaitFor = -1;
+
+    void feed (@Nonnull final byte [] aBytes, @Nonnegative final int nOfs, @Nonnegative final int nLen)
+    {
+      _ensureCapacity (nLen);
+      System.arraycopy (aBytes, nOfs, m_aData, m_nLimit, nLen);
+      _added (nLen);
+    }
+
+    void feed (@Nonnull final ByteBuffer aBuffer)
+    {
+      final int nLen = aBuffer.remaining ();
+      _ensureCapacity (nLen);
+      aBuffer.get (m_aData, m_nLimit, nLen);
+      _added (nLen);
+    }
+
+    private void _ensureCapacity (@Nonnegative final int nLen)
+    {
+      if (m_bEndOfInput)
+        throw new IllegalStateException ("The end of input was already signalled!");
+
+      final int nAvailable = m_nLimit - m_nPos;
+      if (m_nLimit + nLen > m_aData.length)
+      {
+        // Discard everything that was already read
+        byte [] aTarget = m_aData;
+        if (nAvailable + nLen > m_aData.length)
+          aTarget = new byte [Math.max (m_aData.length * 2, nAvailable + nLen)];
+        System.arraycopy (m_aData, m_nPos, aTarget, 0, nAvailable);
+        m_aData = aTarget;
+        m_nPos = 0;
+        m_nLimit = nAvailable;
+      }
+    }
+
+    private void _added (@Nonnegative final int nLen)
+    {
+      if (m_nWaitFor >= 0)
+        for (int i = m_nLimit; i < m_nLimit + nLen; ++i)
+          if (m_aData[i] == m_nWaitFor)
+          {
+            m_nWaitFor = -1;
+            break;
+          }
+      m_nLimit += nLen;
+    }
+
+    void endOfInput ()
+    {
+      m_bEndOfInput = true;
+      m_nWaitFor = -1;
+    }
+
+    boolean isEndOfInput ()
+    {
+      return m_bEndOfInput;
+    }
+
+    /**
+     * @param nWaitFor
+     *        The byte that must be contained in the next fed bytes, so that
+     *        scanning again can succeed. -1 to scan again after any feed.
+     */
+    void setWaitFor (final int nWaitFor)
+    {
+      m_nWaitFor = m_bEndOfInput ? -1 : nWaitFor;
+    }
+
+    boolean isWaiting ()
+    {
+      return m_nWaitFor >= 0;
+    }
+
+    @Override
+    public int read ()
+    {
+      if (m_nPos == m_nLimit)
+      {
+        if (m_bEndOfInput)
+          return -1;
+        throw NeedMoreInputSignal.INSTANCE;
+      }
+      return m_aData[m_nPos++] & 0xff;
+    }
+
+    @Override
+    public int read (@Nonnull final byte [] aBuf, final int nOfs, final int nLen)
+    {
+      if (nLen == 0)
+        return 0;
+      final int nAvailable = m_nLimit - m_nPos;
+      if (nAvailable == 0)
+      {
+        if (m_bEndOfInput)
+          return -1;
+        throw NeedMoreInputSignal.INSTANCE;
+      }
+      final int nRead = Math.min (nAvailable, nLen);
+      System.arraycopy (m_aData, m_nPos, aBuf, nOfs, nRead);
+      m_nPos += nRead;
+      return nRead;
+    }
+
+    @Override
+    public int available ()
+    {
+      return m_nLimit - m_nPos;
+    }
+  }
+
+  // The parser states
+  private static final int STATE_ROOT = 0;
+  private static final int STATE_ARRAY_FIRST = 1;
+  private static final int STATE_ARRAY_NEXT = 2;
+  private static final int STATE_ARRAY_VALUE = 3;
+  private static final int STATE_OBJECT_FIRST = 4;
+  private static final int STATE_OBJECT_KEY = 5;
+  private static final int STATE_OBJECT_COLON = 6;
+  private static final int STATE_OBJECT_VALUE = 7;
+  private static final int STATE_OBJECT_NEXT = 8;
+  private static final int STATE_ROOT_END = 9;
+  private static final int STATE_DONE = 10;
+
+  private final FeedInputStream m_aIS = new FeedInputStream ();
+  private final JsonUTF8Scanner m_aScanner = new JsonUTF8Scanner (m_aIS);
+  private final boolean m_bLazyNumbers;
+  private final boolean m_bHasLimits;
+  private final int m_nMaxDepth;
+  private final long m_nMaxEntries;
+  private int m_nState = STATE_ROOT;
+  /** For each open container: <code>true</code> for objects */
+  private boolean [] m_aStack = new boolean [16];
+  private int m_nDepth = 0;
+  private long m_nEntries = 0;
+  // Shared by all objects read by this parser
+  private final JsonObjectShapeCache m_aShapeCache = new JsonObjectShapeCache ();
+  private EJsonPullParserEvent m_eEvent;
+
+  // For readDocument only
+  private boolean m_bReadDocument = false;
+  private final List <IJson> m_aOpenContainers = ContainerHelper.newList ();
+  private String m_sKey;
+  private IJson m_aDocument;
+
+  /**
+   * Constructor
+   *
+   * @param aSettings
+   *        The settings to be used. Only the lazy numbers, the key
+   *        de-duplication and the limits are considered. May not be
+   *        <code>null</code>.
+   */
+  public JsonFeedParser (@Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aSettings, "Settings");
+    m_bLazyNumbers = aSettings.isLazyNumbers ();
+    if (aSettings.isDeduplicateKeys ())
+      m_aScanner.setKeyCache (new JsonKeyCache ());
+    final JsonReaderLimits aLimits = aSettings.getLimits ();
+    m_bHasLimits = aLimits != null;
+    m_nMaxDepth = aLimits == null ? JsonReaderLimits.DEFAULT_MAX_DEPTH : aLimits.getMaxDepth ();
+    m_nMaxEntries = aLimits == null ? JsonReaderLimits.DEFAULT_MAX_ENTRIES : aLimits.getMaxEntries ();
+    m_aScanner.setLimits (aLimits);
+  }
+
+  public void feed (@Nonnull final ByteBuffer aBuffer)
+  {
+    ValueEnforcer.notNull (aBuffer, "Buffer");
+    m_aIS.feed (aBuffer);
+  }
+
+  public void feed (@Nonnull final byte [] aBytes, @Nonnegative final int nOfs, @Nonnegative final int nLen)
+  {
+    ValueEnforcer.isArrayOfsLen (aBytes, nOfs, nLen);
+    m_aIS.feed (aBytes, nOfs, nLen);
+  }
+
+  public void endOfInput ()
+  {
+    m_aIS.endOfInput ();
+  }
+
+  public boolean isEndOfInput ()
+  {
+    return m_aIS.isEndOfInput ();
+  }
+
+  @Nonnull
+  private JsonLimitExceededException _createLimitException (@Nonnull final String sMessage)
+  {
+    return new JsonLimitExceededException (sMessage, m_aScanner.getBeginLine (), m_aScanner.getBeginColumn ());
+  }
+
+  private void _expect (final int nKind, @Nonnull final int [][] aExpectedTokenSequences) throws ParseException
+  {
+    if (m_aScanner.nextToken () != nKind)
+      throw m_aScanner.createParseException (aExpectedTokenSequences);
+  }
+
+  private void _push (final boolean bObject) throws JsonLimitExceededException
+  {
+    if (m_nDepth == m_nMaxDepth)
+      throw _createLimitException ("The nesting exceeds the maximum depth of " + m_nMaxDepth);
+    if (m_nDepth == m_aStack.length)
+    {
+      final boolean [] aNewStack = new boolean [m_aStack.length * 2];
+      System.arraycopy (m_aStack, 0, aNewStack, 0, m_nDepth);
+      m_aStack = aNewStack;
+    }
+    m_aStack[m_nDepth++] = bObject;
+    m_nState = bObject ? STATE_OBJECT_FIRST : STATE_ARRAY_FIRST;
+  }
+
+  private void _setStateAfterValue ()
+  {
+    if (m_nDepth == 0)
+      m_nState = STATE_ROOT_END;
+    else
+      m_nState = m_aStack[m_nDepth - 1] ? STATE_OBJECT_NEXT : STATE_ARRAY_NEXT;
+  }
+
+  @Nonnull
+  private EJsonPullParserEvent _pop (@Nonnull final EJsonPullParserEvent eEvent)
+  {
+    m_nDepth--;
+    _setStateAfterValue ();
+    return eEvent;
+  }
+
+  @Nonnull
+  private EJsonPullParserEvent _startValue (final int nKind, @Nonnull final int [][] aExpectedTokenSequences) throws ParseException
+  {
+    if (++m_nEntries > m_nMaxEntries)
+      throw _createLimitException ("The document exceeds the maximum number of " + m_nMaxEntries + " values");
+
+    switch (nKind)
+    {
+      case LBRACE:
+        _push (true);
+        return EJsonPullParserEvent.START_OBJECT;
+      case LSQUARE:
+        _push (false);
+        return EJsonPullParserEvent.START_ARRAY;
+      case STRING:
+        _setStateAfterValue ();
+        return EJsonPullParserEvent.VALUE_STRING;
+      case NUMBER_INT:
+      case NUMBER_DEC:
+        _setStateAfterValue ();
+        return EJsonPullParserEvent.VALUE_NUMBER;
+      case TRUE:
+        _setStateAfterValue ();
+        return EJsonPullParserEvent.VALUE_TRUE;
+      case FALSE:
+        _setStateAfterValue ();
+        return EJsonPullParserEvent.VALUE_FALSE;
+      case NULL:
+        _setStateAfterValue ();
+        return EJsonPullParserEvent.VALUE_NULL;
+      default:
+        throw m_aScanner.createParseException (aExpectedTokenSequences);
+    }
+  }
+
+  /**
+   * Read tokens until the next event is available. Each consumed token
+   * updates the state, so that this method can be continued after
+   * {@link NeedMoreInputSignal} was thrown.
+   */
+  @Nonnull
+  private EJsonPullParserEvent _next () throws ParseException
+  {
+    while (true)
+    {
+      switch (m_nState)
+      {
+        case STATE_ROOT:
+        {
+          final int nKind = m_aScanner.nextToken ();
+          if (nKind != S)
+            return _startValue (nKind, JsonExpectedTokens.ROOT_VALUE);
+          break;
+        }
+        case STATE_ARRAY_FIRST:
+        {
+          final int nKind = m_aScanner.nextToken ();
+          if (nKind == RSQUARE)
+            return _pop (EJsonPullParserEvent.END_ARRAY);
+          return _startValue (nKind, JsonExpectedTokens.FIRST_ARRAY_ELEMENT);
+        }
+        case STATE_ARRAY_NEXT:
+        {
+          final int nKind = m_aScanner.nextToken ();
+          if (nKind == RSQUARE)
+            return _pop (EJsonPullParserEvent.END_ARRAY);
+          if (nKind != COMMA)
+            throw m_aScanner.createParseException (JsonExpectedTokens.NEXT_ARRAY_ELEMENT);
+          m_nState = STATE_ARRAY_VALUE;
+          break;
+        }
+        case STATE_ARRAY_VALUE:
+          return _startValue (m_aScanner.nextToken (), JsonExpectedTokens.VALUE);
+        case STATE_OBJECT_FIRST:
+        {
+          final int nKind = m_aScanner.nextKeyToken ();
+          if (nKind == RBRACE)
+            return _pop (EJsonPullParserEvent.END_OBJECT);
+          if (nKind != STRING)
+            throw m_aScanner.createParseException (JsonExpectedTokens.FIRST_OBJECT_ELEMENT);
+          m_nState = STATE_OBJECT_COLON;
+          return EJsonPullParserEvent.KEY;
+        }
+        case STATE_OBJECT_KEY:
+          if (m_aScanner.nextKeyToken () != STRING)
+            throw m_aScanner.createParseException (JsonExpectedTokens.OBJECT_KEY);
+          m_nState = STATE_OBJECT_COLON;
+          return EJsonPullParserEvent.KEY;
+        case STATE_OBJECT_COLON:
+          _expect (COLON, JsonExpectedTokens.COLON_SEPARATOR);
+          m_nState = STATE_OBJECT_VALUE;
+          break;
+        case STATE_OBJECT_VALUE:
+          return _startValue (m_aScanner.nextToken (), JsonExpectedTokens.VALUE);
+        case STATE_OBJECT_NEXT:
+        {
+          final int nKind = m_aScanner.nextToken ();
+          if (nKind == RBRACE)
+            return _pop (EJsonPullParserEvent.END_OBJECT);
+          if (nKind != COMMA)
+            throw m_aScanner.createParseException (JsonExpectedTokens.NEXT_OBJECT_ELEMENT);
+          m_nState = STATE_OBJECT_KEY;
+          break;
+        }
+        case STATE_ROOT_END:
+          _expect (EOF, JsonExpectedTokens.END_OF_INPUT);
+          // The end of input may be caused by the maximum document size
+          m_aScanner.checkLimits ();
+          m_nState = STATE_DONE;
+          return EJsonPullParserEvent.END_DOCUMENT;
+        default:
+          throw new IllegalStateException ("The end of the document was already reached!");
+      }
+    }
+  }
+
+  public boolean hasNext ()
+  {
+    return m_nState != STATE_DONE;
+  }
+
+  @Nonnull
+  public EJsonPullParserEvent next () throws ParseException
+  {
+    // Reset the current event in case of an exception
+    m_eEvent = null;
+    if (m_aIS.isWaiting () && m_nState != STATE_DONE)
+    {
+      // The incomplete token cannot be completed with the bytes fed so far
+      m_eEvent = EJsonPullParserEvent.NEED_MORE_INPUT;
+      return m_eEvent;
+    }
+
+    try
+    {
+      m_eEvent = _next ();
+    }
+    catch (final NeedMoreInputSignal ex)
+    {
+      // Strings and comments can only end with the respective byte, so there
+      // is no need to scan them again before it was fed. With limits the
+      // scanner must check the length of the incomplete token after each feed.
+      if (!m_bHasLimits)
+      {
+        final int c = m_aScanner.getTokenBeginUnit ();
+        if (c == '"' || c == '/')
+          m_aIS.setWaitFor (c);
+      }
+      m_eEvent = EJsonPullParserEvent.NEED_MORE_INPUT;
+    }
+    return m_eEvent;
+  }
+
+  @Nullable
+  public EJsonPullParserEvent getCurrentEvent ()
+  {
+    return m_eEvent;
+  }
+
+  @Nonnegative
+  public int getDepth ()
+  {
+    return m_nDepth;
+  }
+
+  @Nullable
+  public String getString ()
+  {
+    if (m_eEvent == EJsonPullParserEvent.KEY || m_eEvent == EJsonPullParserEvent.VALUE_STRING)
+      return m_aScanner.getStringValue ();
+    if (m_eEvent == EJsonPullParserEvent.VALUE_NUMBER)
+      return m_aScanner.getImage ();
+    return null;
+  }
+
+  public boolean isDecimalNumber ()
+  {
+    return m_eEvent == EJsonPullParserEvent.VALUE_NUMBER && m_aScanner.getKind () == NUMBER_DEC;
+  }
+
+  @Nullable
+  public IJsonValue getValue ()
+  {
+    if (m_eEvent == null)
+      return null;
+
+    switch (m_eEvent)
+    {
+      case VALUE_STRING:
+        return (IJsonValue) JsonConverter.convertToJson (m_aScanner.getStringValue ());
+      case VALUE_NUMBER:
+        // Same as in JsonDirectParser
+        return (IJsonValue) JsonDirectParser.createNumber (m_aScanner.getImage (),
+                                                           m_aScanner.getKind () == NUMBER_DEC,
+                                                           m_bLazyNumbers);
+      case VALUE_TRUE:
+        return JsonValue.TRUE;
+      case VALUE_FALSE:
+        return JsonValue.FALSE;
+      case VALUE_NULL:
+        return JsonValue.NULL;
+      default:
+        return null;
+    }
+  }
+
+  private void _addToDocument (@Nonnull final IJson aValue)
+  {
+    if (m_aOpenContainers.isEmpty ())
+      m_aDocument = aValue;
+    else
+    {
+      final IJson aParent = m_aOpenContainers.get (m_aOpenContainers.size () - 1);
+      if (aParent instanceof JsonObject)
+        ((JsonObject) aParent).add (m_sKey, aValue);
+      else
+        ((JsonArray) aParent).add (aValue);
+    }
+  }
+
+  @Nullable
+  public IJson readDocument () throws ParseException
+  {
+    if (!m_bReadDocument)
+    {
+      if (m_eEvent != null)
+        throw new IllegalStateException ("next() was already called!");
+      m_bReadDocument = true;
+    }
+
+    if (m_nState == STATE_DONE)
+      return m_aDocument;
+
+    while (true)
+    {
+      final EJsonPullParserEvent eEvent = next ();
+      switch (eEvent)
+      {
+        case NEED_MORE_INPUT:
+          return null;
+        case START_OBJECT:
+        case START_ARRAY:
+        {
+          final IJson aContainer = eEvent == EJsonPullParserEvent.START_OBJECT ? new JsonObject (JsonObject.DEFAULT_INITIAL_CAPACITY,
+                                                                                                m_aShapeCache)
+                                                                               : new JsonArray ();
+          _addToDocument (aContainer);
+          m_aOpenContainers.add (aContainer);
+          break;
+        }
+        case END_OBJECT:
+        case END_ARRAY:
+          m_aOpenContainers.remove (m_aOpenContainers.size () - 1);
+          break;
+        case KEY:
+          m_sKey = getString ();
+          break;
+        case END_DOCUMENT:
+          return m_aDocument;
+        default:
+          _addToDocument (getValue ());
+          break;
+      }
+    }
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("state", m_nState)
+                                       .append ("depth", m_nDepth)
+                                       .append ("event", m_eEvent)
+                                       .append ("endOfInput", m_aIS.isEndOfInput ())
+                                       .toString ();
+  }
+}
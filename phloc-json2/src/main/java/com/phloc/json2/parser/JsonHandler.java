@@ -48,12 +48,29 @@ public final class JsonHandler
    */
   @Nonnull
   public static IJson readCascadingStyleSheetFromNode (@Nonnull final JsonNode aNode)
+  {
+    return readCascadingStyleSheetFromNode (aNode, new JsonReaderSettings ());
+  }
+
+  /**
+   * Create a {@link IJson} object from a parsed object.
+   * 
+   * @param aNode
+   *        The parsed Json object to read. May not be <code>null</code>.
+   * @param aSettings
+   *        The reader settings that define how the domain objects are
+   *        created. May not be <code>null</code>.
+   * @return Never <code>null</code>.
+   */
+  @Nonnull
+  public static IJson readCascadingStyleSheetFromNode (@Nonnull final JsonNode aNode,
+                                                       @Nonnull final JsonReaderSettings aSettings)
   {
     if (aNode == null)
       throw new NullPointerException ("node");
     if (aNode.getNodeType () != ParserJsonTreeConstants.JJTROOT)
       throw new JsonHandlingException (aNode, "Passed node is not a root node!");
 
-    return new JsonNodeToDomainObject ().createCascadingStyleSheetFromNode (aNode);
+    return new JsonNodeToDomainObject (aSettings).createCascadingStyleSheetFromNode (aNode);
   }
 }
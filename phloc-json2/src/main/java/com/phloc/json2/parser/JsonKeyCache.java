@@ -0,0 +1,268 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A small cache so that repeated object keys share a single {@link String}
+ * instance. The cache is an open addressed hash table with a fixed size. It can
+ * be queried with a range of characters or ASCII bytes, so that for a cache hit
+ * no {@link String} needs to be created at all. If all slots for a hash are
+ * occupied, the oldest entry is replaced, so the memory consumption is
+ * bounded.<br>
+ * The cache is owned by a {@link JsonParserContext}. It is cleared when the
+ * context is released, so that only the keys of one document are shared and no
+ * key of a document stays referenced after parsing.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonKeyCache
+{
+  /** The number of slots. Must be a power of 2. */
+  private static final int CAPACITY = 512;
+  /** The number of slots to probe for a single hash */
+  private static final int MAX_PROBES = 4;
+  /** Longer keys are not cached */
+  static final int MAX_KEY_LENGTH = 64;
+
+  private final String [] m_aKeys = new String [CAPACITY];
+  private final int [] m_aHashes = new int [CAPACITY];
+
+  public JsonKeyCache ()
+  {}
+
+  /**
+   * Remove all keys, so that they can be garbage collected.
+   */
+  public void clear ()
+  {
+    // An empty slot ends the probing, so the hashes need not be reset
+    Arrays.fill (m_aKeys, null);
+  }
+
+  private static int _getSlot (final int nHash)
+  {
+    return (nHash ^ (nHash >>> 16)) & (CAPACITY - 1);
+  }
+
+  @Nonnull
+  private String _store (final int nHash, @Nonnull final String sKey)
+  {
+    final int nSlot = _getSlot (nHash);
+    for (int i = 0; i < MAX_PROBES; ++i)
+    {
+      final int nIndex = (nSlot + i) & (CAPACITY - 1);
+      if (m_aKeys[nIndex] == null)
+      {
+        m_aKeys[nIndex] = sKey;
+        m_aHashes[nIndex] = nHash;
+        return sKey;
+      }
+    }
+
+    // All slots are occupied - move the entries one slot further and put the
+    // new key into the first slot
+    for (int i = MAX_PROBES - 1; i > 0; --i)
+    {
+      final int nIndex = (nSlot + i) & (CAPACITY - 1);
+      final int nPrevIndex = (nSlot + i - 1) & (CAPACITY - 1);
+      m_aKeys[nIndex] = m_aKeys[nPrevIndex];
+      m_aHashes[nIndex] = m_aHashes[nPrevIndex];
+    }
+    m_aKeys[nSlot] = sKey;
+    m_aHashes[nSlot] = nHash;
+    return sKey;
+  }
+
+  /**
+   * Get the key consisting of the passed characters.
+   *
+   * @param aChars
+   *        The source characters. May not be <code>null</code>.
+   * @param nOfs
+   *        The index of the first character of the key.
+   * @param nLen
+   *        The number of characters of the key.
+   * @return The cached or newly created key. Never <code>null</code>.
+   */
+  @Nonnull
+  public String getFromChars (@Nonnull final char [] aChars, @Nonnegative final int nOfs, @Nonnegative final int nLen)
+  {
+    if (nLen > MAX_KEY_LENGTH)
+      return new String (aChars, nOfs, nLen);
+
+    // Same hash code as String.hashCode
+    int nHash = 0;
+    for (int i = 0; i < nLen; ++i)
+      nHash = 31 * nHash + aChars[nOfs + i];
+
+    final int nSlot = _getSlot (nHash);
+    outer: for (int i = 0; i < MAX_PROBES; ++i)
+    {
+      final int nIndex = (nSlot + i) & (CAPACITY - 1);
+      final String sKey = m_aKeys[nIndex];
+      if (sKey == null)
+        break;
+      if (m_aHashes[nIndex] == nHash && sKey.length () == nLen)
+      {
+        for (int j = 0; j < nLen; ++j)
+          if (sKey.charAt (j) != aChars[nOfs + j])
+            continue outer;
+        return sKey;
+      }
+    }
+    return _store (nHash, new String (aChars, nOfs, nLen));
+  }
+
+  /**
+   * Get the key consisting of the passed ASCII bytes.
+   *
+   * @param aBytes
+   *        The source bytes. All bytes in the range must be &lt; 0x80. May not
+   *        be <code>null</code>.
+   * @param nOfs
+   *        The index of the first byte of the key.
+   * @param nLen
+   *        The number of bytes of the key.
+   * @return The cached or newly created key. Never <code>null</code>.
+   */
+  @Nonnull
+  @SuppressWarnings ("deprecation")
+  public String getFromASCIIBytes (@Nonnull final byte [] aBytes,
+                                   @Nonnegative final int nOfs,
+                                   @Nonnegative final int nLen)
+  {
+    if (nLen > MAX_KEY_LENGTH)
+      return new String (aBytes, 0, nOfs, nLen);
+
+    int nHash = 0;
+    for (int i = 0; i < nLen; ++i)
+      nHash = 31 * nHash + aBytes[nOfs + i];
+
+    final int nSlot = _getSlot (nHash);
+    outer: for (int i = 0; i < MAX_PROBES; ++i)
+    {
+      final int nIndex = (nSlot + i) & (CAPACITY - 1);
+      final String sKey = m_aKeys[nIndex];
+      if (sKey == null)
+        break;
+      if (m_aHashes[nIndex] == nHash && sKey.length () == nLen)
+      {
+        for (int j = 0; j < nLen; ++j)
+          if (sKey.charAt (j) != aBytes[nOfs + j])
+            continue outer;
+        return sKey;
+      }
+    }
+    // The high byte is 0 for ASCII characters
+    return _store (nHash, new String (aBytes, 0, nOfs, nLen));
+  }
+
+  /**
+   * Get the key consisting of the passed ASCII bytes of a {@link ByteBuffer}.
+   * Same as {@link #getFromASCIIBytes(byte[], int, int)} but for sources that
+   * are not backed by an array, like memory mapped files.
+   *
+   * @param aBytes
+   *        The source buffer. Only absolute access is used. May not be
+   *        <code>null</code>.
+   * @param nOfs
+   *        The index of the first byte of the key.
+   * @param nLen
+   *        The number of bytes of the key.
+   * @return The cached or newly created key. Never <code>null</code>.
+   */
+  @Nonnull
+  public String getFromASCIIBytes (@Nonnull final ByteBuffer aBytes,
+                                   @Nonnegative final int nOfs,
+                                   @Nonnegative final int nLen)
+  {
+    int nHash = 0;
+    for (int i = 0; i < nLen; ++i)
+      nHash = 31 * nHash + aBytes.get (nOfs + i);
+
+    if (nLen <= MAX_KEY_LENGTH)
+    {
+      final int nSlot = _getSlot (nHash);
+      outer: for (int i = 0; i < MAX_PROBES; ++i)
+      {
+        final int nIndex = (nSlot + i) & (CAPACITY - 1);
+        final String sKey = m_aKeys[nIndex];
+        if (sKey == null)
+          break;
+        if (m_aHashes[nIndex] == nHash && sKey.length () == nLen)
+        {
+          for (int j = 0; j < nLen; ++j)
+            if (sKey.charAt (j) != aBytes.get (nOfs + j))
+              continue outer;
+          return sKey;
+        }
+      }
+    }
+
+    final char [] aChars = new char [nLen];
+    for (int i = 0; i < nLen; ++i)
+      aChars[i] = (char) aBytes.get (nOfs + i);
+    final String sKey = new String (aChars);
+    return nLen <= MAX_KEY_LENGTH ? _store (nHash, sKey) : sKey;
+  }
+
+  /**
+   * Get the key with the same content as the passed character sequence.
+   *
+   * @param aCS
+   *        The key. May not be <code>null</code>.
+   * @return The cached key or the passed character sequence as a
+   *         {@link String}. Never <code>null</code>.
+   */
+  @Nonnull
+  public String getFromCharSequence (@Nonnull final CharSequence aCS)
+  {
+    final int nLen = aCS.length ();
+    if (nLen > MAX_KEY_LENGTH)
+      return aCS.toString ();
+
+    int nHash = 0;
+    for (int i = 0; i < nLen; ++i)
+      nHash = 31 * nHash + aCS.charAt (i);
+
+    final int nSlot = _getSlot (nHash);
+    outer: for (int i = 0; i < MAX_PROBES; ++i)
+    {
+      final int nIndex = (nSlot + i) & (CAPACITY - 1);
+      final String sKey = m_aKeys[nIndex];
+      if (sKey == null)
+        break;
+      if (m_aHashes[nIndex] == nHash && sKey.length () == nLen)
+      {
+        for (int j = 0; j < nLen; ++j)
+          if (sKey.charAt (j) != aCS.charAt (j))
+            continue outer;
+        return sKey;
+      }
+    }
+    return _store (nHash, aCS.toString ());
+  }
+}
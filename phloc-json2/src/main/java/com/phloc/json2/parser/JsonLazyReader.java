@@ -0,0 +1,444 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.json2.IJson;
+import com.phloc.json2.convert.JsonConverter;
+import com.phloc.json2.impl.IJsonLazyContent;
+import com.phloc.json2.impl.JsonArray;
+import com.phloc.json2.impl.JsonObject;
+import com.phloc.json2.impl.JsonObjectShapeCache;
+import com.phloc.json2.impl.JsonValue;
+
+/**
+ * Reads a Json document from a character array and creates the content of
+ * nested objects and arrays only when they are accessed for the first time.
+ * <br>
+ * Initially the whole source is checked by a scan that creates no objects at
+ * all, so that invalid documents are rejected right away - exactly like with
+ * the eager parser engines. Afterwards only the top-level value is created.
+ * Its nested objects and arrays are {@link JsonObject} and {@link JsonArray}
+ * instances with an {@link IJsonLazyContent} that remembers the start offset
+ * in the source. Loading a collection creates its direct children only.<br>
+ * The source is referenced until all collections are loaded. As reading a
+ * lazy collection modifies it, a lazily read document must not be accessed
+ * from multiple threads concurrently, not even for reading.<br>
+ * Comments and empty object keys are not supported by this class. Sources
+ * containing them are rejected and must be read by the regular engines.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonLazyReader
+{
+  private final class LazyObject implements IJsonLazyContent <JsonObject>
+  {
+    private final int m_nStart;
+
+    LazyObject (@Nonnegative final int nStart)
+    {
+      m_nStart = nStart;
+    }
+
+    public void loadInto (@Nonnull final JsonObject aTarget)
+    {
+      _readObject (m_nStart, aTarget);
+    }
+  }
+
+  private final class LazyArray implements IJsonLazyContent <JsonArray>
+  {
+    private final int m_nStart;
+
+    LazyArray (@Nonnegative final int nStart)
+    {
+      m_nStart = nStart;
+    }
+
+    public void loadInto (@Nonnull final JsonArray aTarget)
+    {
+      _readArray (m_nStart, aTarget);
+    }
+  }
+
+  private static final int INVALID = -1;
+
+  private final char [] m_aSource;
+  private final int m_nEnd;
+  private final boolean m_bLazyNumbers;
+  private final JsonKeyCache m_aKeyCache;
+  // Shared by all objects read eagerly by this reader
+  private final JsonObjectShapeCache m_aShapeCache = new JsonObjectShapeCache ();
+  // The end of the value last read by _readValue
+  private int m_nValueEnd;
+
+  public JsonLazyReader (@Nonnull final char [] aSource, @Nonnull final JsonReaderSettings aSettings)
+  {
+    m_aSource = ValueEnforcer.notNull (aSource, "Source");
+    m_nEnd = aSource.length;
+    m_bLazyNumbers = aSettings.isLazyNumbers ();
+    m_aKeyCache = aSettings.isDeduplicateKeys () ? new JsonKeyCache () : null;
+  }
+
+  private static boolean _isWhitespace (final char c)
+  {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f';
+  }
+
+  private static boolean _isDigit (final char c)
+  {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean _isHexDigit (final char c)
+  {
+    return _isDigit (c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+  }
+
+  private int _skipWhitespaces (final int nStart)
+  {
+    int nPos = nStart;
+    while (nPos < m_nEnd && _isWhitespace (m_aSource[nPos]))
+      ++nPos;
+    return nPos;
+  }
+
+  private int _skipDigits (final int nStart)
+  {
+    int nPos = nStart;
+    while (nPos < m_nEnd && _isDigit (m_aSource[nPos]))
+      ++nPos;
+    return nPos;
+  }
+
+  private boolean _isAt (final int nPos, final char c)
+  {
+    return nPos < m_nEnd && m_aSource[nPos] == c;
+  }
+
+  /**
+   * @param nStart
+   *        The index of the opening quote.
+   * @return The index after the closing quote or {@link #INVALID}.
+   */
+  private int _skipString (final int nStart)
+  {
+    int nPos = nStart + 1;
+    while (nPos < m_nEnd)
+    {
+      final char c = m_aSource[nPos++];
+      if (c == '"')
+        return nPos;
+      if (c == '\\')
+      {
+        if (nPos >= m_nEnd)
+          return INVALID;
+        final char cNext = m_aSource[nPos++];
+        if (cNext == 'u')
+        {
+          if (nPos + 4 > m_nEnd)
+            return INVALID;
+          for (int i = 0; i < 4; ++i)
+            if (!_isHexDigit (m_aSource[nPos++]))
+              return INVALID;
+        }
+        else
+          if ("\"/\\bfnrt".indexOf (cNext) < 0)
+            return INVALID;
+      }
+      else
+        if (c == '\b' || c == '\f' || c == '\n' || c == '\r' || c == '\t')
+        {
+          // Not allowed unescaped
+          return INVALID;
+        }
+    }
+    return INVALID;
+  }
+
+  /**
+   * @param nStart
+   *        The index of the first character of the number.
+   * @return The index after the number or {@link #INVALID}.
+   */
+  private int _skipNumber (final int nStart)
+  {
+    int nPos = nStart;
+    if (_isAt (nPos, '-'))
+      ++nPos;
+    if (_isAt (nPos, '0'))
+      ++nPos;
+    else
+    {
+      final int nDigitsEnd = _skipDigits (nPos);
+      if (nDigitsEnd == nPos)
+        return INVALID;
+      nPos = nDigitsEnd;
+    }
+
+    if (_isAt (nPos, '.'))
+    {
+      final int nDigitsEnd = _skipDigits (nPos + 1);
+      if (nDigitsEnd == nPos + 1)
+        return INVALID;
+      nPos = nDigitsEnd;
+    }
+
+    if (_isAt (nPos, 'e') || _isAt (nPos, 'E'))
+    {
+      ++nPos;
+      if (_isAt (nPos, '+') || _isAt (nPos, '-'))
+        ++nPos;
+      final int nDigitsEnd = _skipDigits (nPos);
+      if (nDigitsEnd == nPos)
+        return INVALID;
+      nPos = nDigitsEnd;
+    }
+    return nPos;
+  }
+
+  private int _skipLiteral (final int nStart, @Nonnull final String sLiteral)
+  {
+    final int nLength = sLiteral.length ();
+    if (nStart + nLength > m_nEnd)
+      return INVALID;
+    for (int i = 0; i < nLength; ++i)
+      if (m_aSource[nStart + i] != sLiteral.charAt (i))
+        return INVALID;
+    return nStart + nLength;
+  }
+
+  /**
+   * @param nStart
+   *        The index of the opening brace.
+   * @return The index after the closing brace or {@link #INVALID}.
+   */
+  private int _skipObject (final int nStart)
+  {
+    int nPos = _skipWhitespaces (nStart + 1);
+    if (_isAt (nPos, '}'))
+      return nPos + 1;
+    while (true)
+    {
+      if (!_isAt (nPos, '"'))
+        return INVALID;
+      final int nKeyStart = nPos;
+      nPos = _skipString (nPos);
+      // Empty keys are rejected by JsonObject - let the regular engines
+      // report it, so that loading a collection never fails
+      if (nPos == INVALID || nPos == nKeyStart + 2)
+        return INVALID;
+      nPos = _skipWhitespaces (nPos);
+      if (!_isAt (nPos, ':'))
+        return INVALID;
+      nPos = _skipValue (_skipWhitespaces (nPos + 1));
+      if (nPos == INVALID)
+        return INVALID;
+      nPos = _skipWhitespaces (nPos);
+      if (_isAt (nPos, '}'))
+        return nPos + 1;
+      if (!_isAt (nPos, ','))
+        return INVALID;
+      nPos = _skipWhitespaces (nPos + 1);
+    }
+  }
+
+  /**
+   * @param nStart
+   *        The index of the opening bracket.
+   * @return The index after the closing bracket or {@link #INVALID}.
+   */
+  private int _skipArray (final int nStart)
+  {
+    int nPos = _skipWhitespaces (nStart + 1);
+    if (_isAt (nPos, ']'))
+      return nPos + 1;
+    while (true)
+    {
+      nPos = _skipValue (nPos);
+      if (nPos == INVALID)
+        return INVALID;
+      nPos = _skipWhitespaces (nPos);
+      if (_isAt (nPos, ']'))
+        return nPos + 1;
+      if (!_isAt (nPos, ','))
+        return INVALID;
+      nPos = _skipWhitespaces (nPos + 1);
+    }
+  }
+
+  /**
+   * @param nStart
+   *        The index of the first character of the value.
+   * @return The index after the value or {@link #INVALID}.
+   */
+  private int _skipValue (final int nStart)
+  {
+    if (nStart >= m_nEnd)
+      return INVALID;
+    switch (m_aSource[nStart])
+    {
+      case '{':
+        return _skipObject (nStart);
+      case '[':
+        return _skipArray (nStart);
+      case '"':
+        return _skipString (nStart);
+      case 't':
+        return _skipLiteral (nStart, "true");
+      case 'f':
+        return _skipLiteral (nStart, "false");
+      case 'n':
+        return _skipLiteral (nStart, "null");
+      default:
+        return _skipNumber (nStart);
+    }
+  }
+
+  @Nonnull
+  private String _readString (final int nStart, final int nEnd, @Nullable final JsonKeyCache aKeyCache)
+  {
+    // Without the quotes
+    final int nContentStart = nStart + 1;
+    final int nContentLength = nEnd - nStart - 2;
+    for (int i = nContentStart; i < nEnd - 1; ++i)
+      if (m_aSource[i] == '\\')
+      {
+        final String ret = ParseUtils.unescapeString (new String (m_aSource, nStart, nEnd - nStart));
+        return aKeyCache != null ? aKeyCache.getFromCharSequence (ret) : ret;
+      }
+    return aKeyCache != null ? aKeyCache.getFromChars (m_aSource, nContentStart, nContentLength)
+                             : new String (m_aSource, nContentStart, nContentLength);
+  }
+
+  /**
+   * Create the value starting at the passed index of the already validated
+   * source. The end of the value is stored in {@link #m_nValueEnd}.
+   */
+  @Nonnull
+  private IJson _readValue (final int nStart)
+  {
+    switch (m_aSource[nStart])
+    {
+      case '{':
+        m_nValueEnd = _skipObject (nStart);
+        return new JsonObject (new LazyObject (nStart));
+      case '[':
+        m_nValueEnd = _skipArray (nStart);
+        return new JsonArray (new LazyArray (nStart));
+      case '"':
+        m_nValueEnd = _skipString (nStart);
+        return JsonConverter.convertToJson (_readString (nStart, m_nValueEnd, null));
+      case 't':
+        m_nValueEnd = nStart + 4;
+        return JsonValue.TRUE;
+      case 'f':
+        m_nValueEnd = nStart + 5;
+        return JsonValue.FALSE;
+      case 'n':
+        m_nValueEnd = nStart + 4;
+        return JsonValue.NULL;
+      default:
+        m_nValueEnd = _skipNumber (nStart);
+        final String sImage = new String (m_aSource, nStart, m_nValueEnd - nStart);
+        // Same distinction as NUMBER_INT and NUMBER_DEC of the grammar
+        return JsonDirectParser.createNumber (sImage, sImage.indexOf ('.') >= 0, m_bLazyNumbers);
+    }
+  }
+
+  private void _readObject (final int nStart, @Nonnull final JsonObject aTarget)
+  {
+    int nPos = _skipWhitespaces (nStart + 1);
+    if (m_aSource[nPos] == '}')
+      return;
+    while (true)
+    {
+      final int nKeyEnd = _skipString (nPos);
+      final String sKey = _readString (nPos, nKeyEnd, m_aKeyCache);
+      // Skip the colon
+      nPos = _skipWhitespaces (_skipWhitespaces (nKeyEnd) + 1);
+      aTarget.add (sKey, _readValue (nPos));
+      nPos = _skipWhitespaces (m_nValueEnd);
+      if (m_aSource[nPos] == '}')
+        return;
+      // Skip the comma
+      nPos = _skipWhitespaces (nPos + 1);
+    }
+  }
+
+  private void _readArray (final int nStart, @Nonnull final JsonArray aTarget)
+  {
+    int nPos = _skipWhitespaces (nStart + 1);
+    if (m_aSource[nPos] == ']')
+      return;
+    while (true)
+    {
+      aTarget.add (_readValue (nPos));
+      nPos = _skipWhitespaces (m_nValueEnd);
+      if (m_aSource[nPos] == ']')
+        return;
+      // Skip the comma
+      nPos = _skipWhitespaces (nPos + 1);
+    }
+  }
+
+  /**
+   * Check the whole source and create the top-level value.
+   *
+   * @return <code>null</code> if the source is not valid Json (or contains
+   *         comments or empty keys), the top-level value otherwise.
+   */
+  @Nullable
+  public IJson read ()
+  {
+    final int nStart = _skipWhitespaces (0);
+    final int nEnd = _skipValue (nStart);
+    if (nEnd == INVALID)
+      return null;
+
+    final char cFirst = m_aSource[nStart];
+    if (cFirst == '{')
+    {
+      // Whitespaces after the closing brace are part of the token
+      if (_skipWhitespaces (nEnd) != m_nEnd)
+        return null;
+      final JsonObject ret = new JsonObject (JsonObject.DEFAULT_INITIAL_CAPACITY, m_aShapeCache);
+      _readObject (nStart, ret);
+      return ret;
+    }
+    if (cFirst == '[')
+    {
+      if (_skipWhitespaces (nEnd) != m_nEnd)
+        return null;
+      final JsonArray ret = new JsonArray ();
+      _readArray (nStart, ret);
+      return ret;
+    }
+
+    // Like the grammar, no whitespace is allowed after a simple value
+    if (nEnd != m_nEnd)
+      return null;
+    return _readValue (nStart);
+  }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Special {@link ParseException} that is thrown if a source exceeds one of the
+ * {@link JsonReaderLimits}.
+ *
+ * @author Philip Helger
+ */
+public class JsonLimitExceededException extends ParseException
+{
+  private final int m_nLine;
+  private final int m_nColumn;
+
+  public JsonLimitExceededException (@Nonnull final String sMessage, final int nLine, final int nColumn)
+  {
+    super ("[" + nLine + ":" + nColumn + "] " + sMessage);
+    m_nLine = nLine;
+    m_nColumn = nColumn;
+  }
+
+  /**
+   * @return The 1-based line number where the limit was exceeded.
+   */
+  public int getLine ()
+  {
+    return m_nLine;
+  }
+
+  /**
+   * @return The 1-based column number where the limit was exceeded.
+   */
+  public int getColumn ()
+  {
+    return m_nColumn;
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.WillCloseWhenClosed;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.io.streams.StreamUtils;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.json2.IJson;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Default implementation of {@link IJsonLinesReader} that reads all records
+ * with a single {@link AbstractJsonScanner}, so that the scanner and its
+ * buffers are created only once for the whole source. Records are separated by
+ * whitespaces - a line break between two records is not enforced. Therefore
+ * this class is also the {@link IJsonMultiDocumentReader} of the
+ * {@link EJsonParserEngine#DIRECT} engine.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonLinesReader implements IJsonLinesReader
+{
+  private final Closeable m_aSource;
+  private final JsonDirectParser m_aParser;
+  private final IJsonParseExceptionHandler m_aExceptionHandler;
+  private IJson m_aNext;
+  private boolean m_bEOF = false;
+  private boolean m_bError = false;
+
+  /**
+   * Constructor
+   *
+   * @param aScanner
+   *        The scanner to read the tokens from. May not be <code>null</code>.
+   * @param aSource
+   *        The source of the scanner, that is closed when this reader is
+   *        closed. May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. May not be <code>null</code>.
+   * @param aExceptionHandler
+   *        The exception handler for invalid records. May not be
+   *        <code>null</code>.
+   */
+  public JsonLinesReader (@Nonnull final AbstractJsonScanner aScanner,
+                          @Nonnull @WillCloseWhenClosed final Closeable aSource,
+                          @Nonnull final JsonReaderSettings aSettings,
+                          @Nonnull final IJsonParseExceptionHandler aExceptionHandler)
+  {
+    ValueEnforcer.notNull (aScanner, "Scanner");
+    ValueEnforcer.notNull (aSettings, "Settings");
+    m_aSource = ValueEnforcer.notNull (aSource, "Source");
+    m_aExceptionHandler = ValueEnforcer.notNull (aExceptionHandler, "ExceptionHandler");
+    if (aSettings.isDeduplicateKeys ())
+      aScanner.setKeyCache (new JsonKeyCache ());
+    m_aParser = new JsonDirectParser (aScanner, aSettings.isLazyNumbers (), aSettings.getLimits ());
+  }
+
+  public boolean hasNext ()
+  {
+    if (m_aNext == null && !m_bEOF)
+    {
+      try
+      {
+        m_aNext = m_aParser.nextValue ();
+        if (m_aNext == null)
+          m_bEOF = true;
+      }
+      catch (final ParseException ex)
+      {
+        m_bEOF = true;
+        m_bError = true;
+        m_aExceptionHandler.onException (ex);
+      }
+    }
+    return m_aNext != null;
+  }
+
+  @Nonnull
+  public IJson next ()
+  {
+    if (!hasNext ())
+      throw new NoSuchElementException ();
+    final IJson ret = m_aNext;
+    m_aNext = null;
+    return ret;
+  }
+
+  public void remove ()
+  {
+    throw new UnsupportedOperationException ();
+  }
+
+  public boolean isError ()
+  {
+    return m_bError;
+  }
+
+  public void close () throws IOException
+  {
+    m_bEOF = true;
+    m_aNext = null;
+    StreamUtils.close (m_aSource);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("EOF", m_bEOF).append ("error", m_bError).toString ();
+  }
+}
@@ -19,6 +19,7 @@ package com.phloc.json2.parser;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -41,12 +42,25 @@ public class JsonNode implements Node, Iterable <JsonNode>, Serializable
   private JsonNode [] m_aChildren;
   private Object m_aValue;
   private String m_sText;
+  private final boolean m_bRetainTokens;
+  // Only used if the tokens are retained
   private Token m_aFirstToken;
   private Token m_aLastToken;
+  // Only used if the tokens are not retained: begin line, begin column, end
+  // line and end column of the first token, followed by the same for the last
+  // token. null if no position is known.
+  private int [] m_aPositions;
 
   public JsonNode (final int nType)
   {
     m_nType = nType;
+    m_bRetainTokens = true;
+  }
+
+  public JsonNode (@Nonnull final ParserJson aParser, final int nType)
+  {
+    m_nType = nType;
+    m_bRetainTokens = aParser.isRetainTokens ();
   }
 
   public int getId ()
@@ -100,8 +114,52 @@ public class JsonNode implements Node, Iterable <JsonNode>, Serializable
     return m_aChildren == null ? 0 : m_aChildren.length;
   }
 
-  // The following 4 methods are required for JJTree option TRACK_TOKENS=true
+  // The following 4 methods are required for JJTree option TRACK_TOKENS=true.
+  // If the tokens are not retained, only the positions are copied so that the
+  // token chain reachable via Token.next is not referenced by the tree.
 
+  @Nullable
+  private int [] _getPositions (@Nonnull final Token aToken)
+  {
+    // Character streams without position tracking deliver -1 - nothing to
+    // record in this case
+    if (aToken.beginLine < 0 && m_aPositions == null)
+      return null;
+    if (m_aPositions == null)
+    {
+      m_aPositions = new int [8];
+      Arrays.fill (m_aPositions, -1);
+    }
+    return m_aPositions;
+  }
+
+  private void _setPositions (@Nonnull final Token aToken, final int nIndex)
+  {
+    final int [] aPositions = _getPositions (aToken);
+    if (aPositions != null)
+    {
+      aPositions[nIndex] = aToken.beginLine;
+      aPositions[nIndex + 1] = aToken.beginColumn;
+      aPositions[nIndex + 2] = aToken.endLine;
+      aPositions[nIndex + 3] = aToken.endColumn;
+    }
+  }
+
+  /**
+   * @return <code>true</code> if this node keeps its first and last token,
+   *         <code>false</code> if only the token positions are kept.
+   * @see ParserJson#setRetainTokens(boolean)
+   */
+  public boolean isRetainTokens ()
+  {
+    return m_bRetainTokens;
+  }
+
+  /**
+   * @return The first token of this node. Always <code>null</code> if the
+   *         tokens are not retained.
+   * @see #isRetainTokens()
+   */
   @Nullable
   public Token jjtGetFirstToken ()
   {
@@ -110,9 +168,17 @@ public class JsonNode implements Node, Iterable <JsonNode>, Serializable
 
   public void jjtSetFirstToken (@Nonnull final Token aFirstToken)
   {
-    m_aFirstToken = aFirstToken;
+    if (m_bRetainTokens)
+      m_aFirstToken = aFirstToken;
+    else
+      _setPositions (aFirstToken, 0);
   }
 
+  /**
+   * @return The last token of this node. Always <code>null</code> if the
+   *         tokens are not retained.
+   * @see #isRetainTokens()
+   */
   @Nullable
   public Token jjtGetLastToken ()
   {
@@ -121,7 +187,20 @@ public class JsonNode implements Node, Iterable <JsonNode>, Serializable
 
   public void jjtSetLastToken (@Nonnull final Token aLastToken)
   {
-    m_aLastToken = aLastToken;
+    if (m_bRetainTokens)
+      m_aLastToken = aLastToken;
+    else
+      _setPositions (aLastToken, 4);
+  }
+
+  /**
+   * @return <code>true</code> if the source positions of this node are known.
+   *         This is not the case if the Json was read without position
+   *         tracking.
+   */
+  public boolean hasSourcePositions ()
+  {
+    return _getArea (0) != null || _getArea (4) != null;
   }
 
   public void setValue (@Nullable final Object aValue)
@@ -175,22 +254,35 @@ public class JsonNode implements Node, Iterable <JsonNode>, Serializable
     return aChildren.iterator ();
   }
 
+  // The area of the first (index 0) or last (index 4) token
+  @Nullable
+  private JsonSourceArea _getArea (final int nIndex)
+  {
+    if (m_bRetainTokens)
+    {
+      final Token aToken = nIndex == 0 ? m_aFirstToken : m_aLastToken;
+      if (aToken == null || aToken.beginLine < 0)
+        return null;
+      return new JsonSourceArea (aToken.beginLine, aToken.beginColumn, aToken.endLine, aToken.endColumn);
+    }
+    if (m_aPositions == null || m_aPositions[nIndex] < 0)
+      return null;
+    return new JsonSourceArea (m_aPositions[nIndex],
+                               m_aPositions[nIndex + 1],
+                               m_aPositions[nIndex + 2],
+                               m_aPositions[nIndex + 3]);
+  }
+
   /**
    * @return The source location of this node. May be <code>null</code> if
-   *         neither begin token nor end token is present.
+   *         neither begin token nor end token position is present. The
+   *         location is created on every call.
    */
   @Nullable
   public JsonSourceLocation getSourceLocation ()
   {
-    final JsonSourceArea aFirstTokenArea = m_aFirstToken == null ? null
-                                                                : new JsonSourceArea (m_aFirstToken.beginLine,
-                                                                                      m_aFirstToken.beginColumn,
-                                                                                      m_aFirstToken.endLine,
-                                                                                      m_aFirstToken.endColumn);
-    final JsonSourceArea aLastTokenArea = m_aLastToken == null ? null : new JsonSourceArea (m_aLastToken.beginLine,
-                                                                                            m_aLastToken.beginColumn,
-                                                                                            m_aLastToken.endLine,
-                                                                                            m_aLastToken.endColumn);
+    final JsonSourceArea aFirstTokenArea = _getArea (0);
+    final JsonSourceArea aLastTokenArea = _getArea (4);
     if (aFirstTokenArea == null && aLastTokenArea == null)
       return null;
     return new JsonSourceLocation (aFirstTokenArea, aLastTokenArea);
@@ -216,6 +308,7 @@ public class JsonNode implements Node, Iterable <JsonNode>, Serializable
                                        .append ("children#", m_aChildren == null ? 0 : m_aChildren.length)
                                        .appendIfNotNull ("firstToken", m_aFirstToken)
                                        .appendIfNotNull ("lastToken", m_aLastToken)
+                                       .appendIfNotNull ("sourceLocation", getSourceLocation ())
                                        .toString ();
   }
 }
@@ -24,11 +24,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.phloc.commons.annotations.Nonempty;
-import com.phloc.commons.string.StringParser;
 import com.phloc.json2.IJson;
 import com.phloc.json2.convert.JsonConverter;
 import com.phloc.json2.impl.JsonArray;
 import com.phloc.json2.impl.JsonObject;
+import com.phloc.json2.impl.JsonObjectShapeCache;
 import com.phloc.json2.impl.JsonValue;
 
 /**
@@ -42,11 +42,22 @@ final class JsonNodeToDomainObject
 {
   private static final Logger s_aLogger = LoggerFactory.getLogger (JsonNodeToDomainObject.class);
 
+  private final boolean m_bLazyNumbers;
+  private final JsonKeyCache m_aKeyCache;
+  // Shared by all objects created by this converter
+  private final JsonObjectShapeCache m_aShapeCache = new JsonObjectShapeCache ();
+
   /**
    * Constructor
+   *
+   * @param aSettings
+   *        The reader settings to be used. May not be <code>null</code>.
    */
-  public JsonNodeToDomainObject ()
-  {}
+  public JsonNodeToDomainObject (@Nonnull final JsonReaderSettings aSettings)
+  {
+    m_bLazyNumbers = aSettings.isLazyNumbers ();
+    m_aKeyCache = aSettings.isDeduplicateKeys () ? new JsonKeyCache () : null;
+  }
 
   private void _expectNodeType (@Nonnull final JsonNode aNode, @Nonnull final int nExpected)
   {
@@ -79,13 +90,13 @@ final class JsonNodeToDomainObject
       case ParserJsonTreeConstants.JJTJSTRING:
         return JsonConverter.convertToJson (aChildNode.getText ());
       case ParserJsonTreeConstants.JJTJNUMBERINTEGER:
-        return JsonValue.create (StringParser.parseBigInteger (aChildNode.getText ()));
+        return JsonDirectParser.createNumber (aChildNode.getText (), false, m_bLazyNumbers);
       case ParserJsonTreeConstants.JJTJNUMBERDECIMAL:
-        return JsonValue.create (StringParser.parseBigDecimal (aChildNode.getText ()));
+        return JsonDirectParser.createNumber (aChildNode.getText (), true, m_bLazyNumbers);
       case ParserJsonTreeConstants.JJTJOBJECT:
       {
         final int nObjectChildCount = aChildNode.jjtGetNumChildren ();
-        final JsonObject aObject = new JsonObject (nObjectChildCount);
+        final JsonObject aObject = new JsonObject (nObjectChildCount, m_aShapeCache);
         for (int i = 0; i < nObjectChildCount; ++i)
         {
           final JsonNode aObjectChildNode = aChildNode.jjtGetChild (i);
@@ -96,7 +107,9 @@ final class JsonNodeToDomainObject
           final JsonNode aValueNode = aObjectChildNode.jjtGetChild (1);
           _expectNodeType (aValueNode, ParserJsonTreeConstants.JJTVALUE);
 
-          aObject.add (aKeyNode.getText (), _createValue (aValueNode));
+          final String sKey = m_aKeyCache == null ? aKeyNode.getText ()
+                                                  : m_aKeyCache.getFromCharSequence (aKeyNode.getText ());
+          aObject.add (sKey, _createValue (aValueNode));
         }
         return aObject;
       }
@@ -0,0 +1,465 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.annotations.PresentForCodeCoverage;
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.io.streams.ByteBuffersInputStream;
+import com.phloc.commons.io.streams.StreamUtils;
+import com.phloc.json2.IJson;
+import com.phloc.json2.IJsonArray;
+import com.phloc.json2.impl.JsonArray;
+
+/**
+ * Reads a file containing a top-level JSON array with multiple threads. A fast
+ * sequential pre-scan of the bytes with the {@link JsonStructuralIndexer}
+ * determines the positions of top-level commas so that the file is split into
+ * chunks of complete array elements. The chunks are parsed concurrently with the {@link EJsonParserEngine#DIRECT}
+ * engine on the memory mapped file and the results are combined in the
+ * original element order.<br>
+ * If the file cannot be split (e.g. because it is not UTF-8 encoded, contains
+ * comments or is not an array) or if any chunk contains an error, the file is
+ * read sequentially via {@link JsonReader#readFromFile(File, JsonReaderSettings)}
+ * so that errors are reported with the correct position.<br>
+ * The {@link JsonReaderLimits} apply to the whole file and not to the single
+ * chunks: the maximum document size is checked against the file size and the
+ * values of all chunks are counted together.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+final class JsonParallelArrayReader
+{
+  /** The minimum number of bytes of a chunk */
+  public static final long DEFAULT_MIN_CHUNK_SIZE = 256 * CGlobal.BYTES_PER_KILOBYTE;
+  /** The number of chunks per thread for a better load balancing */
+  private static final int CHUNKS_PER_THREAD = 8;
+  private static final int SCAN_BUFFER_SIZE = 64 * CGlobal.BYTES_PER_KILOBYTE;
+
+  private static final Logger s_aLogger = LoggerFactory.getLogger (JsonParallelArrayReader.class);
+  private static final byte [] OPEN_ARRAY = new byte [] { '[' };
+  private static final byte [] CLOSE_ARRAY = new byte [] { ']' };
+
+  @PresentForCodeCoverage
+  @SuppressWarnings ("unused")
+  private static final JsonParallelArrayReader s_aInstance = new JsonParallelArrayReader ();
+
+  private JsonParallelArrayReader ()
+  {}
+
+  /**
+   * Parses a range of chunks by recursively splitting the range.
+   *
+   * @author Philip Helger
+   */
+  private static final class ParseChunksAction extends RecursiveAction
+  {
+    private final FileChannel m_aChannel;
+    private final List <Long> m_aChunkStarts;
+    private final List <Long> m_aChunkEnds;
+    private final JsonReaderSettings m_aSettings;
+    private final JsonArray [] m_aResults;
+    private final AtomicBoolean m_aFailed;
+    private final AtomicLong m_aEntries;
+    private final long m_nMaxEntries;
+    private final int m_nFrom;
+    private final int m_nTo;
+
+    ParseChunksAction (@Nonnull final FileChannel aChannel,
+                       @Nonnull final List <Long> aChunkStarts,
+                       @Nonnull final List <Long> aChunkEnds,
+                       @Nonnull final JsonReaderSettings aSettings,
+                       @Nonnull final JsonArray [] aResults,
+                       @Nonnull final AtomicBoolean aFailed,
+                       @Nonnull final AtomicLong aEntries,
+                       final long nMaxEntries,
+                       @Nonnegative final int nFrom,
+                       @Nonnegative final int nTo)
+    {
+      m_aChannel = aChannel;
+      m_aChunkStarts = aChunkStarts;
+      m_aChunkEnds = aChunkEnds;
+      m_aSettings = aSettings;
+      m_aResults = aResults;
+      m_aFailed = aFailed;
+      m_aEntries = aEntries;
+      m_nMaxEntries = nMaxEntries;
+      m_nFrom = nFrom;
+      m_nTo = nTo;
+    }
+
+    @Nullable
+    private JsonArray _parseChunk (final int nIndex) throws IOException
+    {
+      final long nStart = m_aChunkStarts.get (nIndex).longValue ();
+      final long nEnd = m_aChunkEnds.get (nIndex).longValue ();
+      final ByteBuffer aChunk = m_aChannel.map (MapMode.READ_ONLY, nStart, nEnd - nStart);
+      // Parse the elements of the chunk as an array on its own
+      final AbstractJsonScanner aScanner = new JsonUTF8Scanner (new ByteBuffersInputStream (ByteBuffer.wrap (OPEN_ARRAY),
+                                                                                          aChunk,
+                                                                                          ByteBuffer.wrap (CLOSE_ARRAY)));
+      if (m_aSettings.isDeduplicateKeys ())
+        aScanner.setKeyCache (new JsonKeyCache ());
+      try
+      {
+        final JsonDirectParser aParser = new JsonDirectParser (aScanner,
+                                                               m_aSettings.isLazyNumbers (),
+                                                               m_aSettings.getLimits ());
+        final IJson aJson = aParser.json ();
+        // An empty chunk means two subsequent commas or a misplaced comma
+        if (!aJson.isArray () || (m_aResults.length > 1 && ((JsonArray) aJson).isEmpty ()))
+          return null;
+        // The surrounding array of each chunk replaces the single array of the
+        // file, so it is only counted once
+        if (m_aEntries.addAndGet (aParser.getEntryCount () - 1) >= m_nMaxEntries)
+          return null;
+        return (JsonArray) aJson;
+      }
+      catch (final ParseException ex)
+      {
+        return null;
+      }
+      catch (final TokenMgrError ex)
+      {
+        return null;
+      }
+    }
+
+    @Override
+    protected void compute ()
+    {
+      if (m_aFailed.get ())
+        return;
+
+      if (m_nTo - m_nFrom == 1)
+      {
+        JsonArray aResult;
+        try
+        {
+          aResult = _parseChunk (m_nFrom);
+        }
+        catch (final IOException ex)
+        {
+          s_aLogger.error ("Failed to map chunk " + m_nFrom, ex);
+          aResult = null;
+        }
+        if (aResult == null)
+          m_aFailed.set (true);
+        else
+          m_aResults[m_nFrom] = aResult;
+      }
+      else
+      {
+        final int nMid = (m_nFrom + m_nTo) >>> 1;
+        invokeAll (new ParseChunksAction (m_aChannel,
+                                          m_aChunkStarts,
+                                          m_aChunkEnds,
+                                          m_aSettings,
+                                          m_aResults,
+                                          m_aFailed,
+                                          m_aEntries,
+                                          m_nMaxEntries,
+                                          m_nFrom,
+                                          nMid),
+                   new ParseChunksAction (m_aChannel,
+                                          m_aChunkStarts,
+                                          m_aChunkEnds,
+                                          m_aSettings,
+                                          m_aResults,
+                                          m_aFailed,
+                                          m_aEntries,
+                                          m_nMaxEntries,
+                                          nMid,
+                                          m_nTo));
+      }
+    }
+  }
+
+  private static boolean _isWhitespace (final int c)
+  {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f';
+  }
+
+  /**
+   * Determine the chunk boundaries of the top-level array. Chunk boundaries are
+   * top-level commas.
+   *
+   * @param aFile
+   *        The file to scan. May not be <code>null</code>.
+   * @param aFallbackCharset
+   *        The charset to be used if no BOM is present. May not be
+   *        <code>null</code>.
+   * @param bSWAR
+   *        <code>true</code> to use the word-at-a-time variant of the
+   *        {@link JsonStructuralIndexer}.
+   * @param nChunkSize
+   *        The minimum number of bytes per chunk.
+   * @param aChunkStarts
+   *        Filled with the file offset of the first byte of each chunk.
+   * @param aChunkEnds
+   *        Filled with the file offset after the last byte of each chunk.
+   * @return <code>true</code> if the file can be read in chunks,
+   *         <code>false</code> if it must be read sequentially.
+   * @throws IOException
+   *         In case of a read error
+   */
+  private static boolean _scanChunks (@Nonnull final File aFile,
+                                      @Nonnull final Charset aFallbackCharset,
+                                      final boolean bSWAR,
+                                      final long nChunkSize,
+                                      @Nonnull final List <Long> aChunkStarts,
+                                      @Nonnull final List <Long> aChunkEnds) throws IOException
+  {
+    final MappedFileInputStream aIS = new MappedFileInputStream (aFile);
+    try
+    {
+      final byte [] aBuf = new byte [SCAN_BUFFER_SIZE];
+      int nBufLen = aIS.read (aBuf, 0, aBuf.length);
+      int nBufPos = 0;
+      // File offset of aBuf[0]
+      long nBufStart = 0;
+
+      // Check the BOM
+      if (nBufLen >= 3 && (aBuf[0] & 0xff) == 0xef && (aBuf[1] & 0xff) == 0xbb && (aBuf[2] & 0xff) == 0xbf)
+        nBufPos = 3;
+      else
+        if (nBufLen >= 2 &&
+            ((aBuf[0] & 0xff) == 0xfe || (aBuf[0] & 0xff) == 0xff || aBuf[0] == 0 || aBuf[1] == 0))
+        {
+          // UTF-16 or UTF-32
+          return false;
+        }
+        else
+          if (!aFallbackCharset.equals (CCharset.CHARSET_UTF_8_OBJ))
+            return false;
+
+      // 0 = before the array, 1 = in the array, 2 = after the array
+      int nState = 0;
+      int nDepth = 0;
+      long nChunkStart = -1;
+      final JsonStructuralIndexer aIndexer = new JsonStructuralIndexer (bSWAR);
+      while (nBufLen > 0)
+      {
+        if (nState == 0)
+          for (; nBufPos < nBufLen; ++nBufPos)
+          {
+            final int c = aBuf[nBufPos];
+            if (!_isWhitespace (c))
+            {
+              if (c != '[')
+                return false;
+              nState = 1;
+              nDepth = 1;
+              nChunkStart = nBufStart + nBufPos + 1;
+              ++nBufPos;
+              break;
+            }
+          }
+
+        if (nState == 1)
+        {
+          // Only the structural characters outside of strings are relevant
+          final int nCount = aIndexer.index (aBuf, nBufPos, nBufLen);
+          final int [] aPositions = aIndexer.getPositions ();
+          nBufPos = nBufLen;
+          for (int i = 0; i < nCount; ++i)
+          {
+            final int nPos = aPositions[i];
+            switch (aBuf[nPos])
+            {
+              case '[':
+              case '{':
+                ++nDepth;
+                break;
+              case ']':
+              case '}':
+                if (--nDepth == 0)
+                {
+                  // End of the top-level array
+                  aChunkStarts.add (Long.valueOf (nChunkStart));
+                  aChunkEnds.add (Long.valueOf (nBufStart + nPos));
+                  nState = 2;
+                  nBufPos = nPos + 1;
+                  i = nCount;
+                }
+                break;
+              case ',':
+                if (nDepth == 1 && nBufStart + nPos - nChunkStart >= nChunkSize)
+                {
+                  aChunkStarts.add (Long.valueOf (nChunkStart));
+                  aChunkEnds.add (Long.valueOf (nBufStart + nPos));
+                  nChunkStart = nBufStart + nPos + 1;
+                }
+                break;
+              case '/':
+                // Comments are not handled by the pre-scan
+                return false;
+            }
+          }
+        }
+
+        if (nState == 2)
+          for (; nBufPos < nBufLen; ++nBufPos)
+            if (!_isWhitespace (aBuf[nBufPos]))
+              return false;
+
+        nBufPos = 0;
+        nBufStart += nBufLen;
+        nBufLen = aIS.read (aBuf, 0, aBuf.length);
+      }
+
+      // The array must be complete and each chunk must be mappable
+      if (nState != 2)
+        return false;
+      for (int i = 0; i < aChunkStarts.size (); ++i)
+        if (aChunkEnds.get (i).longValue () - aChunkStarts.get (i).longValue () > Integer.MAX_VALUE)
+          return false;
+      return true;
+    }
+    finally
+    {
+      StreamUtils.close (aIS);
+    }
+  }
+
+  @Nullable
+  private static IJsonArray _readSequential (@Nonnull final File aFile, @Nonnull final JsonReaderSettings aSettings)
+  {
+    final IJson aJson = JsonReader.readFromFile (aFile, aSettings);
+    if (aJson != null && !aJson.isArray ())
+    {
+      s_aLogger.warn ("The file " + aFile + " does not contain a JSON array");
+      return null;
+    }
+    return (IJsonArray) aJson;
+  }
+
+  /**
+   * Read a file containing a JSON array in parallel.
+   *
+   * @param aFile
+   *        The file to read. May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. The parser engine is only used when
+   *        reading sequentially. May not be <code>null</code>.
+   * @param aPool
+   *        The pool to execute the parsing tasks. May not be
+   *        <code>null</code>.
+   * @param nMinChunkSize
+   *        The minimum number of bytes per chunk.
+   * @return <code>null</code> if reading failed or if the file does not
+   *         contain an array.
+   */
+  @Nullable
+  static IJsonArray readArray (@Nonnull final File aFile,
+                               @Nonnull final JsonReaderSettings aSettings,
+                               @Nonnull final ForkJoinPool aPool,
+                               @Nonnegative final long nMinChunkSize)
+  {
+    final JsonReaderLimits aLimits = aSettings.getLimits ();
+    // Let the sequential reader report the violation with the correct position
+    if (aLimits != null && aFile.length () > aLimits.getMaxDocumentSize ())
+      return _readSequential (aFile, aSettings);
+
+    final List <Long> aChunkStarts = ContainerHelper.newList ();
+    final List <Long> aChunkEnds = ContainerHelper.newList ();
+    final long nChunkSize = Math.max (nMinChunkSize, aFile.length () / (aPool.getParallelism () * CHUNKS_PER_THREAD));
+    try
+    {
+      if (!_scanChunks (aFile,
+                        aSettings.getFallbackCharset (),
+                        aSettings.isStructuralIndexSWAR (),
+                        nChunkSize,
+                        aChunkStarts,
+                        aChunkEnds))
+        return _readSequential (aFile, aSettings);
+    }
+    catch (final IOException ex)
+    {
+      s_aLogger.error ("Failed to scan file " + aFile, ex);
+      return null;
+    }
+
+    final int nChunks = aChunkStarts.size ();
+    final JsonArray [] aResults = new JsonArray [nChunks];
+    final AtomicBoolean aFailed = new AtomicBoolean (false);
+    RandomAccessFile aRAF = null;
+    try
+    {
+      aRAF = new RandomAccessFile (aFile, "r");
+      aPool.invoke (new ParseChunksAction (aRAF.getChannel (),
+                                           aChunkStarts,
+                                           aChunkEnds,
+                                           aSettings,
+                                           aResults,
+                                           aFailed,
+                                           new AtomicLong (0),
+                                           aLimits == null ? JsonReaderLimits.DEFAULT_MAX_ENTRIES
+                                                           : aLimits.getMaxEntries (),
+                                           0,
+                                           nChunks));
+    }
+    catch (final IOException ex)
+    {
+      s_aLogger.error ("Failed to open file " + aFile, ex);
+      return null;
+    }
+    finally
+    {
+      StreamUtils.close (aRAF);
+    }
+
+    if (aFailed.get ())
+    {
+      // Read again to report the error with the correct position
+      return _readSequential (aFile, aSettings);
+    }
+
+    // Combine the results in the original order
+    int nTotal = 0;
+    for (final JsonArray aResult : aResults)
+      nTotal += aResult.size ();
+    final JsonArray ret = new JsonArray (nTotal);
+    for (final JsonArray aResult : aResults)
+      ret.addAll (aResult);
+    return ret;
+  }
+}
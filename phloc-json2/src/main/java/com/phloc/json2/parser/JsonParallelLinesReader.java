@@ -0,0 +1,435 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillCloseWhenClosed;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.io.streams.NonBlockingBufferedReader;
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.commons.io.streams.StreamUtils;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.json2.IJson;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Implementation of {@link IJsonLinesReader} that parses the records with
+ * multiple threads. The calling thread splits the source into batches of lines
+ * that are parsed by the passed {@link ExecutorService}. Each batch is parsed
+ * with a single scanner. The number of batches in progress is limited, so that
+ * the memory consumption does not depend on the size of the source.<br>
+ * A batch only ends at a line break outside of any array, object or comment.
+ * Otherwise it is extended by further lines, so that records spanning multiple
+ * lines are read in the same way as by {@link JsonLinesReader}.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonParallelLinesReader implements IJsonLinesReader
+{
+  /** The default number of lines per batch */
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+  /** The number of batches in progress per thread */
+  private static final int PENDING_BATCHES_PER_THREAD = 2;
+
+  /**
+   * The result of parsing a single batch.
+   *
+   * @author Philip Helger
+   */
+  private static final class Batch
+  {
+    private int m_nFirstLine;
+    private final List <IJson> m_aRecords = ContainerHelper.newList ();
+    private ParseException m_aError;
+  }
+
+  /**
+   * Parses all records of a single batch.
+   *
+   * @author Philip Helger
+   */
+  private static final class ParseBatchCallable implements Callable <Batch>
+  {
+    private final String m_sLines;
+    private final int m_nFirstLine;
+    private final JsonReaderSettings m_aSettings;
+
+    ParseBatchCallable (@Nonnull final String sLines,
+                        @Nonnegative final int nFirstLine,
+                        @Nonnull final JsonReaderSettings aSettings)
+    {
+      m_sLines = sLines;
+      m_nFirstLine = nFirstLine;
+      m_aSettings = aSettings;
+    }
+
+    @Nonnull
+    public Batch call ()
+    {
+      final AbstractJsonScanner aScanner = new JsonCharScanner (new NonBlockingStringReader (m_sLines));
+      // Report errors with the line number of the complete source
+      aScanner.setLine (m_nFirstLine);
+      if (m_aSettings.isDeduplicateKeys ())
+        aScanner.setKeyCache (new JsonKeyCache ());
+      final JsonDirectParser aParser = new JsonDirectParser (aScanner,
+                                                             m_aSettings.isLazyNumbers (),
+                                                             m_aSettings.getLimits ());
+
+      final Batch ret = new Batch ();
+      ret.m_nFirstLine = m_nFirstLine;
+      try
+      {
+        IJson aRecord;
+        while ((aRecord = aParser.nextValue ()) != null)
+          ret.m_aRecords.add (aRecord);
+      }
+      catch (final ParseException ex)
+      {
+        ret.m_aError = ex;
+      }
+      return ret;
+    }
+  }
+
+  private final NonBlockingBufferedReader m_aReader;
+  private final JsonReaderSettings m_aSettings;
+  private final IJsonParseExceptionHandler m_aExceptionHandler;
+  private final ExecutorService m_aExecutor;
+  private final int m_nBatchSize;
+  private final int m_nMaxPendingBatches;
+  private final boolean m_bPreserveOrder;
+  // All batches in progress in the order of the source
+  private final Queue <Future <Batch>> m_aPendingBatches = new LinkedList <Future <Batch>> ();
+  // The first line of each batch in progress
+  private final Map <Future <Batch>, Integer> m_aPendingFirstLines = new HashMap <Future <Batch>, Integer> ();
+  // Used if the order is not preserved
+  private final CompletionService <Batch> m_aCompletionService;
+
+  private int m_nNextLine = 1;
+  private boolean m_bReaderEOF = false;
+  // The nesting level of arrays and objects at the end of the lines read
+  private int m_nOpenNesting = 0;
+  // Is a comment open at the end of the lines read?
+  private boolean m_bOpenComment = false;
+  private Iterator <IJson> m_aCurrentRecords;
+  private ParseException m_aPendingError;
+  private int m_nPendingErrorBatchLine;
+  private boolean m_bEOF = false;
+  private boolean m_bError = false;
+
+  /**
+   * Constructor
+   *
+   * @param aReader
+   *        The reader to read the lines from. Is closed when this reader is
+   *        closed. May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. May not be <code>null</code>.
+   * @param aExceptionHandler
+   *        The exception handler for invalid records. May not be
+   *        <code>null</code>.
+   * @param aExecutor
+   *        The executor to parse the batches. Is not shut down by this class.
+   *        May not be <code>null</code>.
+   * @param nThreads
+   *        The number of threads of the executor. Used to limit the number of
+   *        batches in progress. Must be &gt; 0.
+   * @param nBatchSize
+   *        The number of lines per batch. Must be &gt; 0.
+   * @param bPreserveOrder
+   *        <code>true</code> to return the records in the order of the source,
+   *        <code>false</code> to return the records of a batch as soon as it
+   *        was parsed. In both cases all valid records before an invalid record
+   *        are returned before the error is reported.
+   */
+  public JsonParallelLinesReader (@Nonnull @WillCloseWhenClosed final Reader aReader,
+                                  @Nonnull final JsonReaderSettings aSettings,
+                                  @Nonnull final IJsonParseExceptionHandler aExceptionHandler,
+                                  @Nonnull final ExecutorService aExecutor,
+                                  @Nonnegative final int nThreads,
+                                  @Nonnegative final int nBatchSize,
+                                  final boolean bPreserveOrder)
+  {
+    ValueEnforcer.notNull (aReader, "Reader");
+    ValueEnforcer.isGT0 (nThreads, "Threads");
+    ValueEnforcer.isGT0 (nBatchSize, "BatchSize");
+    m_aReader = aReader instanceof NonBlockingBufferedReader ? (NonBlockingBufferedReader) aReader
+                                                             : new NonBlockingBufferedReader (aReader);
+    // Copy, as the settings are used from other threads
+    m_aSettings = ValueEnforcer.notNull (aSettings, "Settings").getClone ();
+    m_aExceptionHandler = ValueEnforcer.notNull (aExceptionHandler, "ExceptionHandler");
+    m_aExecutor = ValueEnforcer.notNull (aExecutor, "Executor");
+    m_nBatchSize = nBatchSize;
+    m_nMaxPendingBatches = nThreads * PENDING_BATCHES_PER_THREAD;
+    m_bPreserveOrder = bPreserveOrder;
+    m_aCompletionService = bPreserveOrder ? null : new ExecutorCompletionService <Batch> (aExecutor);
+  }
+
+  /**
+   * Update the nesting level and the comment state with the passed line. A
+   * string can not span multiple lines, so it ends at the end of the line.
+   *
+   * @param sLine
+   *        The line to scan. May not be <code>null</code>.
+   */
+  private void _scanLine (@Nonnull final String sLine)
+  {
+    final int nLength = sLine.length ();
+    boolean bInString = false;
+    for (int i = 0; i < nLength; ++i)
+    {
+      final char c = sLine.charAt (i);
+      if (m_bOpenComment)
+      {
+        if (c == '*' && i + 1 < nLength && sLine.charAt (i + 1) == '/')
+        {
+          m_bOpenComment = false;
+          ++i;
+        }
+      }
+      else
+        if (bInString)
+        {
+          if (c == '\\')
+            ++i;
+          else
+            if (c == '"')
+              bInString = false;
+        }
+        else
+          switch (c)
+          {
+            case '"':
+              bInString = true;
+              break;
+            case '{':
+            case '[':
+              ++m_nOpenNesting;
+              break;
+            case '}':
+            case ']':
+              // An unbalanced closing bracket is a parse error anyway
+              if (m_nOpenNesting > 0)
+                --m_nOpenNesting;
+              break;
+            case '/':
+              if (i + 1 < nLength && sLine.charAt (i + 1) == '*')
+              {
+                m_bOpenComment = true;
+                ++i;
+              }
+              break;
+          }
+    }
+  }
+
+  /**
+   * Read the next batch of lines. The batch is extended beyond the batch size
+   * until no array, object or comment is open.
+   *
+   * @return <code>null</code> if no more lines are available.
+   */
+  @Nullable
+  private String _readLines ()
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    int nLines = 0;
+    try
+    {
+      while (nLines < m_nBatchSize || m_nOpenNesting > 0 || m_bOpenComment)
+      {
+        final String sLine = m_aReader.readLine ();
+        if (sLine == null)
+        {
+          m_bReaderEOF = true;
+          break;
+        }
+        _scanLine (sLine);
+        aSB.append (sLine).append ('\n');
+        ++nLines;
+      }
+    }
+    catch (final IOException ex)
+    {
+      // Same as in JsonCharStream: read errors are treated like EOF
+      m_bReaderEOF = true;
+    }
+    m_nNextLine += nLines;
+    return nLines == 0 ? null : aSB.toString ();
+  }
+
+  private void _submitBatches ()
+  {
+    while (!m_bReaderEOF && m_aPendingBatches.size () < m_nMaxPendingBatches)
+    {
+      final int nFirstLine = m_nNextLine;
+      final String sLines = _readLines ();
+      if (sLines == null)
+        break;
+
+      final ParseBatchCallable aCallable = new ParseBatchCallable (sLines, nFirstLine, m_aSettings);
+      final Future <Batch> aFuture = m_bPreserveOrder ? m_aExecutor.submit (aCallable)
+                                                      : m_aCompletionService.submit (aCallable);
+      m_aPendingBatches.add (aFuture);
+      m_aPendingFirstLines.put (aFuture, Integer.valueOf (nFirstLine));
+    }
+  }
+
+  @Nonnull
+  private Batch _takeBatch ()
+  {
+    try
+    {
+      final Future <Batch> aFuture = m_bPreserveOrder ? m_aPendingBatches.peek () : m_aCompletionService.take ();
+      m_aPendingBatches.remove (aFuture);
+      m_aPendingFirstLines.remove (aFuture);
+      return aFuture.get ();
+    }
+    catch (final InterruptedException ex)
+    {
+      Thread.currentThread ().interrupt ();
+      throw new IllegalStateException ("Interrupted while waiting for the next batch", ex);
+    }
+    catch (final ExecutionException ex)
+    {
+      final Throwable aCause = ex.getCause ();
+      if (aCause instanceof RuntimeException)
+        throw (RuntimeException) aCause;
+      if (aCause instanceof Error)
+        throw (Error) aCause;
+      throw new IllegalStateException ("Failed to parse batch", aCause);
+    }
+  }
+
+  private void _stop ()
+  {
+    m_bEOF = true;
+    m_aCurrentRecords = null;
+    for (final Future <Batch> aFuture : m_aPendingBatches)
+      aFuture.cancel (false);
+    m_aPendingBatches.clear ();
+    m_aPendingFirstLines.clear ();
+  }
+
+  /**
+   * @return <code>true</code> if a batch before the batch with the pending
+   *         error is still in progress.
+   */
+  private boolean _isBatchBeforeErrorPending ()
+  {
+    final Future <Batch> aFirst = m_aPendingBatches.peek ();
+    return aFirst != null && m_aPendingFirstLines.get (aFirst).intValue () < m_nPendingErrorBatchLine;
+  }
+
+  public boolean hasNext ()
+  {
+    while (!m_bEOF && (m_aCurrentRecords == null || !m_aCurrentRecords.hasNext ()))
+    {
+      if (m_aPendingError != null)
+      {
+        if (!_isBatchBeforeErrorPending ())
+        {
+          // All valid records before the error were returned
+          m_bError = true;
+          _stop ();
+          m_aExceptionHandler.onException (m_aPendingError);
+          m_aPendingError = null;
+          break;
+        }
+      }
+      else
+        _submitBatches ();
+
+      if (m_aPendingBatches.isEmpty ())
+      {
+        m_bEOF = true;
+        break;
+      }
+
+      final Batch aBatch = _takeBatch ();
+      // If the order is not preserved, batches after the error may complete
+      // before the batches before the error - they are skipped
+      if (m_aPendingError != null && aBatch.m_nFirstLine > m_nPendingErrorBatchLine)
+        continue;
+      m_aCurrentRecords = aBatch.m_aRecords.iterator ();
+      if (aBatch.m_aError != null)
+      {
+        m_aPendingError = aBatch.m_aError;
+        m_nPendingErrorBatchLine = aBatch.m_nFirstLine;
+      }
+    }
+    return !m_bEOF;
+  }
+
+  @Nonnull
+  public IJson next ()
+  {
+    if (!hasNext ())
+      throw new NoSuchElementException ();
+    return m_aCurrentRecords.next ();
+  }
+
+  public void remove ()
+  {
+    throw new UnsupportedOperationException ();
+  }
+
+  public boolean isError ()
+  {
+    return m_bError;
+  }
+
+  public void close () throws IOException
+  {
+    _stop ();
+    StreamUtils.close (m_aReader);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("batchSize", m_nBatchSize)
+                                       .append ("preserveOrder", m_bPreserveOrder)
+                                       .append ("pendingBatches", m_aPendingBatches.size ())
+                                       .append ("EOF", m_bEOF)
+                                       .append ("error", m_bError)
+                                       .toString ();
+  }
+}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Holds the parser objects that are created for every source otherwise: the
+ * JavaCC token manager and parser, the character streams, the scanners of the
+ * {@link EJsonParserEngine#DIRECT} engine and the key cache. Instead of
+ * creating them from scratch, they are re-initialized with the next source so
+ * that their buffers are reused. This matters most when many small documents
+ * are parsed one after the other.<br>
+ * {@link JsonReader} uses one instance per thread, obtained via
+ * {@link #acquire()}. Each acquired context must be handed back via
+ * {@link #release()} when parsing is done.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonParserContext
+{
+  private static final ThreadLocal <JsonParserContext> s_aPerThread = new ThreadLocal <JsonParserContext> ()
+  {
+    @Override
+    protected JsonParserContext initialValue ()
+    {
+      return new JsonParserContext ();
+    }
+  };
+
+  private boolean m_bInUse = false;
+  private JsonCharStream m_aCharStream;
+  private JsonFastCharStream m_aFastCharStream;
+  private JsonCharSequenceStream m_aCharSequenceStream;
+  private ParserJson m_aParser;
+  private CharStream m_aParserStream;
+  private JsonCharScanner m_aCharScanner;
+  private JsonUTF8Scanner m_aUTF8Scanner;
+  private final JsonKeyCache m_aKeyCache = new JsonKeyCache ();
+
+  JsonParserContext ()
+  {}
+
+  /**
+   * Get the context of the current thread. If it is already in use (e.g.
+   * because a custom exception handler parses Json itself), a new context is
+   * returned instead.
+   *
+   * @return The context to be used. Never <code>null</code>.
+   */
+  @Nonnull
+  static JsonParserContext acquire ()
+  {
+    JsonParserContext ret = s_aPerThread.get ();
+    if (ret.m_bInUse)
+      ret = new JsonParserContext ();
+    ret.m_bInUse = true;
+    return ret;
+  }
+
+  /**
+   * Release all references to the last source and the last parse result, so
+   * that they can be garbage collected, and make the context available again.
+   */
+  void release ()
+  {
+    if (m_aCharStream != null)
+      m_aCharStream.reInit (null);
+    if (m_aFastCharStream != null)
+      m_aFastCharStream.reInit (null);
+    if (m_aCharSequenceStream != null)
+      m_aCharSequenceStream.reInit (null, false);
+    if (m_aParser != null)
+    {
+      // Clears the token chain and the node stack
+      m_aParser.ReInit (m_aParserStream);
+    }
+    if (m_aCharScanner != null)
+      m_aCharScanner.reInit ((Reader) null);
+    if (m_aUTF8Scanner != null)
+      m_aUTF8Scanner.reInit ((InputStream) null);
+    // The keys are only shared within one document
+    m_aKeyCache.clear ();
+    m_bInUse = false;
+  }
+
+  boolean isInUse ()
+  {
+    return m_bInUse;
+  }
+
+  @Nonnull
+  JsonCharStream getCharStream (@Nonnull final Reader aReader)
+  {
+    if (m_aCharStream == null)
+      m_aCharStream = new JsonCharStream (aReader);
+    else
+      m_aCharStream.reInit (aReader);
+    return m_aCharStream;
+  }
+
+  @Nonnull
+  JsonFastCharStream getFastCharStream (@Nonnull final Reader aReader)
+  {
+    if (m_aFastCharStream == null)
+      m_aFastCharStream = new JsonFastCharStream (aReader);
+    else
+      m_aFastCharStream.reInit (aReader);
+    return m_aFastCharStream;
+  }
+
+  @Nonnull
+  JsonCharSequenceStream getCharSequenceStream (@Nonnull final CharSequence aSource, final boolean bTrackLineColumn)
+  {
+    if (m_aCharSequenceStream == null)
+      m_aCharSequenceStream = new JsonCharSequenceStream (aSource, bTrackLineColumn);
+    else
+      m_aCharSequenceStream.reInit (aSource, bTrackLineColumn);
+    return m_aCharSequenceStream;
+  }
+
+  @Nonnull
+  ParserJson getParser (@Nonnull final CharStream aStream, final boolean bRetainTokens)
+  {
+    if (m_aParser == null)
+      m_aParser = new ParserJson (aStream);
+    else
+      m_aParser.ReInit (aStream);
+    m_aParser.setRetainTokens (bRetainTokens);
+    m_aParserStream = aStream;
+    return m_aParser;
+  }
+
+  @Nonnull
+  JsonCharScanner getCharScanner (@Nonnull final Reader aReader)
+  {
+    if (m_aCharScanner == null)
+      m_aCharScanner = new JsonCharScanner (aReader);
+    else
+      m_aCharScanner.reInit (aReader);
+    return m_aCharScanner;
+  }
+
+  @Nonnull
+  JsonCharScanner getCharScanner (@Nonnull final char [] aChars)
+  {
+    if (m_aCharScanner == null)
+      m_aCharScanner = new JsonCharScanner (aChars);
+    else
+      m_aCharScanner.reInit (aChars);
+    return m_aCharScanner;
+  }
+
+  @Nonnull
+  JsonUTF8Scanner getUTF8Scanner (@Nonnull final InputStream aIS)
+  {
+    if (m_aUTF8Scanner == null)
+      m_aUTF8Scanner = new JsonUTF8Scanner (aIS);
+    else
+      m_aUTF8Scanner.reInit (aIS);
+    return m_aUTF8Scanner;
+  }
+
+  @Nonnull
+  JsonUTF8Scanner getUTF8Scanner (@Nonnull final ByteBuffer aSource)
+  {
+    if (m_aUTF8Scanner == null)
+      m_aUTF8Scanner = new JsonUTF8Scanner (aSource);
+    else
+      m_aUTF8Scanner.reInit (aSource);
+    return m_aUTF8Scanner;
+  }
+
+  /**
+   * @return The key cache for the current document. It is cleared by
+   *         {@link #release()}. Never <code>null</code>.
+   */
+  @Nonnull
+  JsonKeyCache getKeyCache ()
+  {
+    return m_aKeyCache;
+  }
+}
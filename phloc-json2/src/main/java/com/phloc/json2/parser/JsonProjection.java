@@ -0,0 +1,261 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.annotations.ReturnsMutableCopy;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.string.StringHelper;
+import com.phloc.commons.string.ToStringGenerator;
+
+/**
+ * Defines the parts of a Json document that should be read by
+ * {@link JsonReader#readFromReader(java.io.Reader, JsonReaderSettings, JsonProjection)}
+ * . Everything else is skipped on the token level without creating keys,
+ * strings or values.<br>
+ * Each path is either a JSON Pointer (RFC 6901) like
+ * <code>/items/0/price</code> or a dotted path like <code>items.0.price</code>.
+ * A segment <code>*</code> matches every member of an object and every element
+ * of an array, a numeric segment matches the respective array index as well as
+ * an object member with that name. Everything below the last segment of a path
+ * is read completely. The empty JSON Pointer <code>""</code> selects the whole
+ * document.<br>
+ * Objects and arrays on the way to a selected value are always part of the
+ * result, even if they end up empty, so that the elements of projected arrays
+ * keep their relative order. Scalar values on the way are omitted.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class JsonProjection
+{
+  /** The segment matching all members and elements */
+  public static final String WILDCARD = "*";
+
+  /**
+   * A single node of the path tree.
+   *
+   * @author Philip Helger
+   */
+  @NotThreadSafe
+  static final class Node
+  {
+    private boolean m_bSelected = false;
+    private final Map <String, Node> m_aChildren = ContainerHelper.newMap ();
+    private Node m_aWildcard;
+
+    /**
+     * @return <code>true</code> if the value at this node is read completely.
+     */
+    boolean isSelected ()
+    {
+      return m_bSelected;
+    }
+
+    /**
+     * @return <code>true</code> if there are child nodes for specific names
+     *         or indices.
+     */
+    boolean hasNamedChildren ()
+    {
+      return !m_aChildren.isEmpty ();
+    }
+
+    /**
+     * Get the child node for an object member or array element.
+     *
+     * @param sName
+     *        The name of the member or the array index as a string.
+     * @return <code>null</code> if the member or element is not part of the
+     *         projection.
+     */
+    @Nullable
+    Node getChild (@Nonnull final String sName)
+    {
+      final Node ret = m_aChildren.get (sName);
+      return ret != null ? ret : m_aWildcard;
+    }
+
+    /**
+     * @return The node matching all members and elements. May be
+     *         <code>null</code>.
+     */
+    @Nullable
+    Node getWildcardChild ()
+    {
+      return m_aWildcard;
+    }
+
+    @Nonnull
+    private Node _getOrCreateChild (@Nonnull final String sName)
+    {
+      if (WILDCARD.equals (sName))
+      {
+        if (m_aWildcard == null)
+          m_aWildcard = new Node ();
+        return m_aWildcard;
+      }
+      Node ret = m_aChildren.get (sName);
+      if (ret == null)
+      {
+        ret = new Node ();
+        m_aChildren.put (sName, ret);
+      }
+      return ret;
+    }
+
+    private void _mergeFrom (@Nonnull final Node aOther)
+    {
+      if (aOther.m_bSelected)
+        m_bSelected = true;
+      if (aOther.m_aWildcard != null)
+      {
+        if (m_aWildcard == null)
+          m_aWildcard = new Node ();
+        m_aWildcard._mergeFrom (aOther.m_aWildcard);
+      }
+      for (final Map.Entry <String, Node> aEntry : aOther.m_aChildren.entrySet ())
+        _getOrCreateChild (aEntry.getKey ())._mergeFrom (aEntry.getValue ());
+    }
+
+    /**
+     * Named children also match the paths of the wildcard child. As the
+     * lookup only returns a single node, the wildcard paths are copied into
+     * all named siblings.
+     */
+    private void _complete ()
+    {
+      if (m_aWildcard != null)
+      {
+        for (final Node aChild : m_aChildren.values ())
+          aChild._mergeFrom (m_aWildcard);
+        m_aWildcard._complete ();
+      }
+      for (final Node aChild : m_aChildren.values ())
+        aChild._complete ();
+    }
+  }
+
+  private final List <String> m_aPaths;
+  private final Node m_aRoot = new Node ();
+
+  private JsonProjection (@Nonnull final List <String> aPaths)
+  {
+    m_aPaths = aPaths;
+    for (final String sPath : aPaths)
+    {
+      Node aNode = m_aRoot;
+      for (final String sSegment : _getSegments (sPath))
+        aNode = aNode._getOrCreateChild (sSegment);
+      aNode.m_bSelected = true;
+    }
+    m_aRoot._complete ();
+  }
+
+  @Nonnull
+  private static List <String> _getSegments (@Nonnull final String sPath)
+  {
+    final List <String> ret = ContainerHelper.newList ();
+    if (sPath.length () == 0)
+      return ret;
+
+    if (sPath.charAt (0) == '/')
+    {
+      // JSON Pointer
+      for (final String sSegment : StringHelper.getExploded ('/', sPath.substring (1)))
+        ret.add (StringHelper.replaceAll (StringHelper.replaceAll (sSegment, "~1", "/"), "~0", "~"));
+    }
+    else
+    {
+      // Dotted path
+      for (final String sSegment : StringHelper.getExploded ('.', sPath))
+      {
+        if (sSegment.length () == 0)
+          throw new IllegalArgumentException ("The path '" + sPath + "' contains an empty segment");
+        ret.add (sSegment);
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * @return The root node of the path tree. Never <code>null</code>.
+   */
+  @Nonnull
+  Node getRoot ()
+  {
+    return m_aRoot;
+  }
+
+  /**
+   * @return A copy of all paths this projection was created from. Never
+   *         <code>null</code>.
+   */
+  @Nonnull
+  @ReturnsMutableCopy
+  public List <String> getAllPaths ()
+  {
+    return ContainerHelper.newList (m_aPaths);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("paths", m_aPaths).toString ();
+  }
+
+  /**
+   * Create a new projection.
+   *
+   * @param aPaths
+   *        The JSON Pointers or dotted paths to be read. May neither be
+   *        <code>null</code> nor empty.
+   * @return The new projection. Never <code>null</code>.
+   */
+  @Nonnull
+  public static JsonProjection of (@Nonnull @Nonempty final String... aPaths)
+  {
+    ValueEnforcer.notEmptyNoNullValue (aPaths, "Paths");
+    return new JsonProjection (ContainerHelper.newList (aPaths));
+  }
+
+  /**
+   * Create a new projection.
+   *
+   * @param aPaths
+   *        The JSON Pointers or dotted paths to be read. May neither be
+   *        <code>null</code> nor empty.
+   * @return The new projection. Never <code>null</code>.
+   */
+  @Nonnull
+  public static JsonProjection of (@Nonnull @Nonempty final Collection <String> aPaths)
+  {
+    ValueEnforcer.notEmptyNoNullValue (aPaths, "Paths");
+    return new JsonProjection (ContainerHelper.newList (aPaths));
+  }
+}
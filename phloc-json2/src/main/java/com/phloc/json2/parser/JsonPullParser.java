@@ -0,0 +1,385 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.Closeable;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.WillCloseWhenClosed;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.io.streams.StreamUtils;
+import com.phloc.commons.string.StringParser;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.json2.IJson;
+import com.phloc.json2.IJsonValue;
+import com.phloc.json2.convert.JsonConverter;
+import com.phloc.json2.impl.JsonArray;
+import com.phloc.json2.impl.JsonObject;
+import com.phloc.json2.impl.JsonObjectShapeCache;
+import com.phloc.json2.impl.JsonValue;
+
+/**
+ * Default implementation of {@link IJsonPullParser} based on an
+ * {@link AbstractJsonScanner}. The grammar is the same as for the JavaCC
+ * generated {@link ParserJson} but instead of recursion an explicit stack of the open
+ * objects and arrays is used. Use {@link JsonReader#createPullParser(Reader)}
+ * to create instances.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonPullParser implements IJsonPullParser, ParserJsonConstants
+{
+  // The parser states
+  private static final int STATE_ROOT = 0;
+  private static final int STATE_ARRAY_FIRST = 1;
+  private static final int STATE_ARRAY_NEXT = 2;
+  private static final int STATE_OBJECT_FIRST = 3;
+  private static final int STATE_OBJECT_VALUE = 4;
+  private static final int STATE_OBJECT_NEXT = 5;
+  private static final int STATE_ROOT_END = 6;
+  private static final int STATE_DONE = 7;
+
+  private final Closeable m_aSource;
+  private final AbstractJsonScanner m_aScanner;
+  private final boolean m_bLazyNumbers;
+  private final int m_nMaxDepth;
+  private final long m_nMaxEntries;
+  private int m_nState = STATE_ROOT;
+  /** For each open container: <code>true</code> for objects */
+  private boolean [] m_aStack = new boolean [16];
+  private int m_nDepth = 0;
+  private long m_nEntries = 0;
+  // Shared by all objects read by this parser
+  private final JsonObjectShapeCache m_aShapeCache = new JsonObjectShapeCache ();
+  private EJsonPullParserEvent m_eEvent;
+
+  /**
+   * Constructor
+   *
+   * @param aScanner
+   *        The scanner to read the tokens from. May not be <code>null</code>.
+   * @param aSource
+   *        The source of the scanner, that is closed when this parser is
+   *        closed. May be <code>null</code> for in-memory sources.
+   * @param aSettings
+   *        The settings to be used. Only the lazy numbers, the key
+   *        de-duplication and the limits are considered. May not be
+   *        <code>null</code>.
+   */
+  public JsonPullParser (@Nonnull final AbstractJsonScanner aScanner,
+                         @Nullable @WillCloseWhenClosed final Closeable aSource,
+                         @Nonnull final JsonReaderSettings aSettings)
+  {
+    m_aScanner = ValueEnforcer.notNull (aScanner, "Scanner");
+    ValueEnforcer.notNull (aSettings, "Settings");
+    m_aSource = aSource;
+    m_bLazyNumbers = aSettings.isLazyNumbers ();
+    if (aSettings.isDeduplicateKeys ())
+      m_aScanner.setKeyCache (new JsonKeyCache ());
+    final JsonReaderLimits aLimits = aSettings.getLimits ();
+    m_nMaxDepth = aLimits == null ? JsonReaderLimits.DEFAULT_MAX_DEPTH : aLimits.getMaxDepth ();
+    m_nMaxEntries = aLimits == null ? JsonReaderLimits.DEFAULT_MAX_ENTRIES : aLimits.getMaxEntries ();
+    m_aScanner.setLimits (aLimits);
+  }
+
+  @Nonnull
+  private JsonLimitExceededException _createLimitException (@Nonnull final String sMessage)
+  {
+    return new JsonLimitExceededException (sMessage, m_aScanner.getBeginLine (), m_aScanner.getBeginColumn ());
+  }
+
+  private void _expect (final int nKind, @Nonnull final int [][] aExpectedTokenSequences) throws ParseException
+  {
+    if (m_aScanner.nextToken () != nKind)
+      throw m_aScanner.createParseException (aExpectedTokenSequences);
+  }
+
+  private void _push (final boolean bObject) throws JsonLimitExceededException
+  {
+    if (m_nDepth == m_nMaxDepth)
+      throw _createLimitException ("The nesting exceeds the maximum depth of " + m_nMaxDepth);
+    if (m_nDepth == m_aStack.length)
+    {
+      final boolean [] aNewStack = new boolean [m_aStack.length * 2];
+      System.arraycopy (m_aStack, 0, aNewStack, 0, m_nDepth);
+      m_aStack = aNewStack;
+    }
+    m_aStack[m_nDepth++] = bObject;
+    m_nState = bObject ? STATE_OBJECT_FIRST : STATE_ARRAY_FIRST;
+  }
+
+  private void _setStateAfterValue ()
+  {
+    if (m_nDepth == 0)
+      m_nState = STATE_ROOT_END;
+    else
+      m_nState = m_aStack[m_nDepth - 1] ? STATE_OBJECT_NEXT : STATE_ARRAY_NEXT;
+  }
+
+  @Nonnull
+  private EJsonPullParserEvent _pop (@Nonnull final EJsonPullParserEvent eEvent)
+  {
+    m_nDepth--;
+    _setStateAfterValue ();
+    return eEvent;
+  }
+
+  @Nonnull
+  private EJsonPullParserEvent _startValue (final int nKind, @Nonnull final int [][] aExpectedTokenSequences) throws ParseException
+  {
+    if (++m_nEntries > m_nMaxEntries)
+      throw _createLimitException ("The document exceeds the maximum number of " + m_nMaxEntries + " values");
+
+    switch (nKind)
+    {
+      case LBRACE:
+        _push (true);
+        return EJsonPullParserEvent.START_OBJECT;
+      case LSQUARE:
+        _push (false);
+        return EJsonPullParserEvent.START_ARRAY;
+      case STRING:
+        _setStateAfterValue ();
+        return EJsonPullParserEvent.VALUE_STRING;
+      case NUMBER_INT:
+      case NUMBER_DEC:
+        _setStateAfterValue ();
+        return EJsonPullParserEvent.VALUE_NUMBER;
+      case TRUE:
+        _setStateAfterValue ();
+        return EJsonPullParserEvent.VALUE_TRUE;
+      case FALSE:
+        _setStateAfterValue ();
+        return EJsonPullParserEvent.VALUE_FALSE;
+      case NULL:
+        _setStateAfterValue ();
+        return EJsonPullParserEvent.VALUE_NULL;
+      default:
+        throw m_aScanner.createParseException (aExpectedTokenSequences);
+    }
+  }
+
+  @Nonnull
+  private EJsonPullParserEvent _next () throws ParseException
+  {
+    switch (m_nState)
+    {
+      case STATE_ROOT:
+      {
+        int nKind;
+        do
+        {
+          nKind = m_aScanner.nextToken ();
+        } while (nKind == S);
+        return _startValue (nKind, JsonExpectedTokens.ROOT_VALUE);
+      }
+      case STATE_ARRAY_FIRST:
+      {
+        final int nKind = m_aScanner.nextToken ();
+        if (nKind == RSQUARE)
+          return _pop (EJsonPullParserEvent.END_ARRAY);
+        return _startValue (nKind, JsonExpectedTokens.FIRST_ARRAY_ELEMENT);
+      }
+      case STATE_ARRAY_NEXT:
+      {
+        final int nKind = m_aScanner.nextToken ();
+        if (nKind == COMMA)
+          return _startValue (m_aScanner.nextToken (), JsonExpectedTokens.VALUE);
+        if (nKind == RSQUARE)
+          return _pop (EJsonPullParserEvent.END_ARRAY);
+        throw m_aScanner.createParseException (JsonExpectedTokens.NEXT_ARRAY_ELEMENT);
+      }
+      case STATE_OBJECT_FIRST:
+      {
+        final int nKind = m_aScanner.nextKeyToken ();
+        if (nKind == STRING)
+        {
+          m_nState = STATE_OBJECT_VALUE;
+          return EJsonPullParserEvent.KEY;
+        }
+        if (nKind == RBRACE)
+          return _pop (EJsonPullParserEvent.END_OBJECT);
+        throw m_aScanner.createParseException (JsonExpectedTokens.FIRST_OBJECT_ELEMENT);
+      }
+      case STATE_OBJECT_VALUE:
+        _expect (COLON, JsonExpectedTokens.COLON_SEPARATOR);
+        return _startValue (m_aScanner.nextToken (), JsonExpectedTokens.VALUE);
+      case STATE_OBJECT_NEXT:
+      {
+        final int nKind = m_aScanner.nextToken ();
+        if (nKind == COMMA)
+        {
+          if (m_aScanner.nextKeyToken () != STRING)
+            throw m_aScanner.createParseException (JsonExpectedTokens.OBJECT_KEY);
+          m_nState = STATE_OBJECT_VALUE;
+          return EJsonPullParserEvent.KEY;
+        }
+        if (nKind == RBRACE)
+          return _pop (EJsonPullParserEvent.END_OBJECT);
+        throw m_aScanner.createParseException (JsonExpectedTokens.NEXT_OBJECT_ELEMENT);
+      }
+      case STATE_ROOT_END:
+        _expect (EOF, JsonExpectedTokens.END_OF_INPUT);
+        // The end of input may be caused by the maximum document size
+        m_aScanner.checkLimits ();
+        m_nState = STATE_DONE;
+        return EJsonPullParserEvent.END_DOCUMENT;
+      default:
+        throw new IllegalStateException ("The end of the document was already reached!");
+    }
+  }
+
+  public boolean hasNext ()
+  {
+    return m_nState != STATE_DONE;
+  }
+
+  @Nonnull
+  public EJsonPullParserEvent next () throws ParseException
+  {
+    // Reset the current event in case of an exception
+    m_eEvent = null;
+    m_eEvent = _next ();
+    return m_eEvent;
+  }
+
+  @Nullable
+  public EJsonPullParserEvent getCurrentEvent ()
+  {
+    return m_eEvent;
+  }
+
+  @Nonnegative
+  public int getDepth ()
+  {
+    return m_nDepth;
+  }
+
+  @Nullable
+  public String getString ()
+  {
+    if (m_eEvent == EJsonPullParserEvent.KEY || m_eEvent == EJsonPullParserEvent.VALUE_STRING)
+      return m_aScanner.getStringValue ();
+    if (m_eEvent == EJsonPullParserEvent.VALUE_NUMBER)
+      return m_aScanner.getImage ();
+    return null;
+  }
+
+  public boolean isDecimalNumber ()
+  {
+    return m_eEvent == EJsonPullParserEvent.VALUE_NUMBER && m_aScanner.getKind () == NUMBER_DEC;
+  }
+
+  @Nullable
+  public BigInteger getBigInteger ()
+  {
+    if (m_eEvent != EJsonPullParserEvent.VALUE_NUMBER || m_aScanner.getKind () != NUMBER_INT)
+      return null;
+    return StringParser.parseBigInteger (m_aScanner.getImage ());
+  }
+
+  @Nullable
+  public BigDecimal getBigDecimal ()
+  {
+    if (m_eEvent != EJsonPullParserEvent.VALUE_NUMBER)
+      return null;
+    return StringParser.parseBigDecimal (m_aScanner.getImage ());
+  }
+
+  @Nullable
+  public IJsonValue getValue ()
+  {
+    if (m_eEvent == null)
+      return null;
+
+    switch (m_eEvent)
+    {
+      case VALUE_STRING:
+        return (IJsonValue) JsonConverter.convertToJson (m_aScanner.getStringValue ());
+      case VALUE_NUMBER:
+        // Same as in JsonDirectParser
+        return (IJsonValue) JsonDirectParser.createNumber (m_aScanner.getImage (),
+                                                           m_aScanner.getKind () == NUMBER_DEC,
+                                                           m_bLazyNumbers);
+      case VALUE_TRUE:
+        return JsonValue.TRUE;
+      case VALUE_FALSE:
+        return JsonValue.FALSE;
+      case VALUE_NULL:
+        return JsonValue.NULL;
+      default:
+        return null;
+    }
+  }
+
+  public void skipChildren () throws ParseException
+  {
+    if (m_eEvent != null && m_eEvent.isStartContainer ())
+    {
+      final int nTargetDepth = m_nDepth - 1;
+      while (m_nDepth > nTargetDepth)
+        next ();
+    }
+  }
+
+  @Nullable
+  public IJson readValue () throws ParseException
+  {
+    if (m_eEvent == EJsonPullParserEvent.START_OBJECT)
+    {
+      final JsonObject aObject = new JsonObject (JsonObject.DEFAULT_INITIAL_CAPACITY, m_aShapeCache);
+      while (next () == EJsonPullParserEvent.KEY)
+      {
+        final String sKey = m_aScanner.getStringValue ();
+        next ();
+        aObject.add (sKey, readValue ());
+      }
+      return aObject;
+    }
+    if (m_eEvent == EJsonPullParserEvent.START_ARRAY)
+    {
+      final JsonArray aArray = new JsonArray ();
+      while (next () != EJsonPullParserEvent.END_ARRAY)
+        aArray.add (readValue ());
+      return aArray;
+    }
+    return getValue ();
+  }
+
+  public void close ()
+  {
+    StreamUtils.close (m_aSource);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("state", m_nState)
+                                       .append ("depth", m_nDepth)
+                                       .append ("event", m_eEvent)
+                                       .toString ();
+  }
+}
@@ -22,13 +22,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.WillClose;
+import javax.annotation.WillCloseWhenClosed;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -42,12 +49,15 @@ import com.phloc.commons.charset.EUnicodeBOM;
 import com.phloc.commons.collections.ArrayHelper;
 import com.phloc.commons.collections.pair.ReadonlyPair;
 import com.phloc.commons.io.IInputStreamProvider;
+import com.phloc.commons.io.IReaderProvider;
 import com.phloc.commons.io.resource.FileSystemResource;
-import com.phloc.commons.io.streamprovider.StringInputStreamProvider;
+import com.phloc.commons.io.streams.ByteBufferInputStream;
 import com.phloc.commons.io.streams.NonBlockingStringReader;
 import com.phloc.commons.io.streams.StreamUtils;
+import com.phloc.commons.state.ESuccess;
 import com.phloc.json2.IJson;
-import com.phloc.json2.parser.errorhandler.DoNothingJsonParseExceptionHandler;
+import com.phloc.json2.IJsonArray;
+import com.phloc.json2.IJsonObject;
 import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
 import com.phloc.json2.parser.errorhandler.LoggingJsonParseExceptionHandler;
 
@@ -120,8 +130,8 @@ public final class JsonReader
   /**
    * Main reading of the Json
    *
-   * @param aStream
-   *        The stream to read from. May not be <code>null</code>.
+   * @param aParser
+   *        The parser to use. May not be <code>null</code>.
    * @param aCustomExceptionHandler
    *        A custom handler for unrecoverable errors. May not be
    *        <code>null</code>.
@@ -131,11 +141,9 @@ public final class JsonReader
    *         succeeded.
    */
   @Nullable
-  private static JsonNode _readJson (@Nonnull final CharStream aStream,
+  private static JsonNode _readJson (@Nonnull final ParserJson aParser,
                                      @Nonnull final IJsonParseExceptionHandler aCustomExceptionHandler)
   {
-    final ParserJsonTokenManager aTokenHdl = new ParserJsonTokenManager (aStream);
-    final ParserJson aParser = new ParserJson (aTokenHdl);
     try
     {
       // Main parsing
@@ -149,6 +157,236 @@ public final class JsonReader
     }
   }
 
+  @Nonnull
+  private static IJsonParseExceptionHandler _getExceptionHandler (@Nonnull final JsonReaderSettings aSettings)
+  {
+    // Use the default Json exception handler if none is provided
+    final IJsonParseExceptionHandler aCustomExceptionHandler = aSettings.getCustomExceptionHandler ();
+    return aCustomExceptionHandler == null ? getDefaultParseExceptionHandler () : aCustomExceptionHandler;
+  }
+
+  /**
+   * Main reading of the Json using the {@link EJsonParserEngine#DIRECT}
+   * engine.
+   *
+   * @param aScanner
+   *        The scanner to read the tokens from. May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. May not be <code>null</code>.
+   * @param aContext
+   *        The context the scanner was taken from. May not be
+   *        <code>null</code>.
+   * @param aProjection
+   *        The optional projection to restrict the parts to be read. May be
+   *        <code>null</code> to read everything.
+   * @return <code>null</code> if parsing failed with an unrecoverable error
+   *         (and no throwing exception handler is used), or non-
+   *         <code>null</code> if parsing succeeded.
+   */
+  @Nullable
+  private static IJson _readJsonDirect (@Nonnull final AbstractJsonScanner aScanner,
+                                        @Nonnull final JsonReaderSettings aSettings,
+                                        @Nonnull final JsonParserContext aContext,
+                                        @Nullable final JsonProjection aProjection)
+  {
+    // Create the domain objects directly
+    aScanner.setKeyCache (aSettings.isDeduplicateKeys () ? aContext.getKeyCache () : null);
+    final JsonDirectParser aParser = new JsonDirectParser (aScanner,
+                                                           aSettings.isLazyNumbers (),
+                                                           aSettings.getLimits ());
+    try
+    {
+      return aProjection == null ? aParser.json () : aParser.json (aProjection);
+    }
+    catch (final ParseException ex)
+    {
+      // Unrecoverable error
+      _getExceptionHandler (aSettings).onException (ex);
+      return null;
+    }
+  }
+
+  /**
+   * Read the source a second time with position tracking, so that the
+   * reported error contains the correct location.
+   *
+   * @param aReopenProvider
+   *        The provider to open the source again. May be <code>null</code>.
+   * @param aCustomExceptionHandler
+   *        The exception handler to be invoked. May not be <code>null</code>.
+   * @return <code>true</code> if the error was reported to the exception
+   *         handler, <code>false</code> if the source could not be read again
+   *         or (unexpectedly) contains no error.
+   */
+  private static boolean _reportErrorWithPosition (@Nullable final IReaderProvider aReopenProvider,
+                                                   @Nonnull final IJsonParseExceptionHandler aCustomExceptionHandler)
+  {
+    final Reader aReader = aReopenProvider == null ? null : aReopenProvider.getReader ();
+    if (aReader == null)
+      return false;
+
+    try
+    {
+      return _readJson (new ParserJson (new JsonCharStream (aReader)), aCustomExceptionHandler) == null;
+    }
+    finally
+    {
+      StreamUtils.close (aReader);
+    }
+  }
+
+  /**
+   * Main reading of the Json without tracking line and column numbers.
+   *
+   * @param aParser
+   *        The parser to use. Its stream must not track line and column
+   *        numbers. May not be <code>null</code>.
+   * @param aCustomExceptionHandler
+   *        A custom handler for unrecoverable errors. May not be
+   *        <code>null</code>.
+   * @param aReopenProvider
+   *        An optional provider to read the source again in case of an error
+   *        to determine the error position. May be <code>null</code>.
+   * @return <code>null</code> if parsing failed with an unrecoverable error
+   *         (and no throwing exception handler is used), or non-
+   *         <code>null</code> if parsing succeeded.
+   */
+  @Nullable
+  private static JsonNode _readJsonWithoutPosition (@Nonnull final ParserJson aParser,
+                                                    @Nonnull final IJsonParseExceptionHandler aCustomExceptionHandler,
+                                                    @Nullable final IReaderProvider aReopenProvider)
+  {
+    try
+    {
+      // Main parsing
+      return aParser.json ();
+    }
+    catch (final ParseException ex)
+    {
+      // Unrecoverable error
+      if (!_reportErrorWithPosition (aReopenProvider, aCustomExceptionHandler))
+        aCustomExceptionHandler.onException (ex);
+      return null;
+    }
+    catch (final TokenMgrError ex)
+    {
+      // Throws the TokenMgrError with the correct position
+      _reportErrorWithPosition (aReopenProvider, aCustomExceptionHandler);
+      throw ex;
+    }
+  }
+
+  /**
+   * Main reading of the Json using the parser engine defined in the settings.
+   *
+   * @param aReader
+   *        The reader to read from. Is not closed by this method. May not be
+   *        <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. May not be <code>null</code>.
+   * @param aReopenProvider
+   *        An optional provider to read the source again. Only used if
+   *        position tracking is disabled. May be <code>null</code>.
+   * @return <code>null</code> if parsing failed with an unrecoverable error
+   *         (and no throwing exception handler is used), or non-
+   *         <code>null</code> if parsing succeeded.
+   */
+  @Nullable
+  private static IJson _readJson (@Nonnull final Reader aReader,
+                                  @Nonnull final JsonReaderSettings aSettings,
+                                  @Nullable final IReaderProvider aReopenProvider)
+  {
+    // Reuse the parser objects of this thread
+    final JsonParserContext aContext = JsonParserContext.acquire ();
+    try
+    {
+      if (aSettings.getEffectiveParserEngine () == EJsonParserEngine.DIRECT)
+        return _readJsonDirect (aContext.getCharScanner (aReader), aSettings, aContext, null);
+
+      final IJsonParseExceptionHandler aRealExceptionHandler = _getExceptionHandler (aSettings);
+      final boolean bRetainTokens = aSettings.isRetainTokens ();
+      final JsonNode aNode = aSettings.isTrackPosition () ? _readJson (aContext.getParser (aContext.getCharStream (aReader),
+                                                                                          bRetainTokens),
+                                                                       aRealExceptionHandler)
+                                                          : _readJsonWithoutPosition (aContext.getParser (aContext.getFastCharStream (aReader),
+                                                                                                          bRetainTokens),
+                                                                                      aRealExceptionHandler,
+                                                                                      aReopenProvider);
+
+      // Failed to interpret content as Json?
+      if (aNode == null)
+        return null;
+
+      // Convert the AST to a domain object
+      return JsonHandler.readCascadingStyleSheetFromNode (aNode, aSettings);
+    }
+    finally
+    {
+      aContext.release ();
+    }
+  }
+
+  /**
+   * Main reading of an in-memory Json source using the parser engine defined
+   * in the settings. No reader and no intermediate buffers are used: the
+   * JavaCC generated parser reads directly from the {@link CharSequence} and
+   * the direct parser uses the char array as its buffer.
+   *
+   * @param aSource
+   *        The source to read. May not be <code>null</code>.
+   * @param aChars
+   *        The same source as a char array, if available. May be
+   *        <code>null</code> in which case it is created from the source if
+   *        the direct parser is used.
+   * @param aSettings
+   *        The settings to be used. May not be <code>null</code>.
+   * @param aProjection
+   *        The projection to be used. Implies the direct parser. May be
+   *        <code>null</code> to read everything.
+   * @return <code>null</code> if parsing failed with an unrecoverable error
+   *         (and no throwing exception handler is used), or non-
+   *         <code>null</code> if parsing succeeded.
+   */
+  @Nullable
+  private static IJson _readFromChars (@Nonnull final CharSequence aSource,
+                                       @Nullable final char [] aChars,
+                                       @Nonnull final JsonReaderSettings aSettings,
+                                       @Nullable final JsonProjection aProjection)
+  {
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    // Reuse the parser objects of this thread
+    final JsonParserContext aContext = JsonParserContext.acquire ();
+    try
+    {
+      if (aProjection != null || aSettings.getEffectiveParserEngine () == EJsonParserEngine.DIRECT)
+      {
+        final char [] aRealChars = aChars != null ? aChars : aSource.toString ().toCharArray ();
+        return _readJsonDirect (aContext.getCharScanner (aRealChars), aSettings, aContext, aProjection);
+      }
+
+      final IJsonParseExceptionHandler aRealExceptionHandler = _getExceptionHandler (aSettings);
+      final boolean bTrackPosition = aSettings.isTrackPosition ();
+      final ParserJson aParser = aContext.getParser (aContext.getCharSequenceStream (aSource, bTrackPosition),
+                                                     aSettings.isRetainTokens ());
+      final JsonNode aNode = bTrackPosition ? _readJson (aParser, aRealExceptionHandler)
+                                            : _readJsonWithoutPosition (aParser,
+                                                                        aRealExceptionHandler,
+                                                                        _getReaderProvider (aSource));
+
+      // Failed to interpret content as Json?
+      if (aNode == null)
+        return null;
+
+      // Convert the AST to a domain object
+      return JsonHandler.readCascadingStyleSheetFromNode (aNode, aSettings);
+    }
+    finally
+    {
+      aContext.release ();
+    }
+  }
+
   /**
    * Check if the passed Json file can be parsed without error using the default
    * charset.
@@ -260,9 +498,8 @@ public final class JsonReader
 
   /**
    * Check if the passed String can be resembled to valid Json content. This is
-   * accomplished by fully parsing the Json file each time the method is called.
-   * This is similar to calling {@link #readFromString(String, Charset)} and
-   * checking for a non-<code>null</code> result.
+   * accomplished by a recognizer that checks the syntax without creating any
+   * objects. Use {@link #validateJson(String)} to get the error position.
    *
    * @param sJson
    *        The Json string to scan. May not be <code>null</code>.
@@ -271,17 +508,13 @@ public final class JsonReader
    */
   public static boolean isValidJson (@Nonnull final String sJson)
   {
-    ValueEnforcer.notNull (sJson, "Json");
-
-    return isValidJson (new NonBlockingStringReader (sJson));
+    return validateJson (sJson).isValid ();
   }
 
   /**
    * Check if the passed reader can be resembled to valid Json content. This is
-   * accomplished by fully parsing the Json each time the method is called. This
-   * is similar to calling
-   * {@link #readFromStream(IInputStreamProvider, Charset)} and checking for a
-   * non-<code>null</code> result.
+   * accomplished by a recognizer that checks the syntax without creating any
+   * objects. Use {@link #validateJson(Reader)} to get the error position.
    *
    * @param aReader
    *        The reader to use. May not be <code>null</code>.
@@ -289,29 +522,74 @@ public final class JsonReader
    *         <code>false</code> if not
    */
   public static boolean isValidJson (@Nonnull @WillClose final Reader aReader)
+  {
+    return validateJson (aReader).isValid ();
+  }
+
+  /**
+   * Check if the passed String is valid Json. See
+   * {@link #validateJson(Reader)} for details.
+   *
+   * @param sJson
+   *        The Json string to scan. May not be <code>null</code>.
+   * @return The validation result containing the position of the first error.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  public static JsonValidationResult validateJson (@Nonnull final String sJson)
+  {
+    ValueEnforcer.notNull (sJson, "Json");
+
+    final JsonParserContext aContext = JsonParserContext.acquire ();
+    try
+    {
+      return new JsonValidator (aContext.getCharScanner (sJson.toCharArray ())).validate ();
+    }
+    finally
+    {
+      aContext.release ();
+    }
+  }
+
+  /**
+   * Check if the content of the passed reader is valid Json. The same sources
+   * as with {@link #readFromReader(Reader, JsonReaderSettings)} are accepted,
+   * but no objects are created and errors are neither logged nor passed to an
+   * exception handler. Instead the offset, line, column and a short reason of
+   * the first error are returned.
+   *
+   * @param aReader
+   *        The reader to use. Is automatically closed. May not be
+   *        <code>null</code>.
+   * @return The validation result containing the position of the first error.
+   *         Never <code>null</code>.
+   */
+  @Nonnull
+  public static JsonValidationResult validateJson (@Nonnull @WillClose final Reader aReader)
   {
     ValueEnforcer.notNull (aReader, "Reader");
 
+    final JsonParserContext aContext = JsonParserContext.acquire ();
     try
     {
-      final JsonCharStream aCharStream = new JsonCharStream (aReader);
-      final JsonNode aNode = _readJson (aCharStream, DoNothingJsonParseExceptionHandler.getInstance ());
-      return aNode != null;
+      return new JsonValidator (aContext.getCharScanner (aReader)).validate ();
     }
     finally
     {
+      aContext.release ();
       StreamUtils.close (aReader);
     }
   }
 
   /**
-   * Read the Json from the passed String using a byte stream.
+   * Read the Json from the passed String. The String is read directly, so the
+   * charset is not used. A leading byte order mark character is ignored.
    *
    * @param sJson
    *        The source string containing the Json to be parsed. May not be
    *        <code>null</code>.
    * @param aFallbackCharset
-   *        The charset to be used in case no BOM is present. May not be
+   *        Not used, as the String is already decoded. May not be
    *        <code>null</code>.
    * @return <code>null</code> if reading failed, the Json declarations
    *         otherwise.
@@ -323,13 +601,14 @@ public final class JsonReader
   }
 
   /**
-   * Read the Json from the passed String using a byte stream.
+   * Read the Json from the passed String. The String is read directly, so the
+   * charset is not used. A leading byte order mark character is ignored.
    *
    * @param sJson
    *        The source string containing the Json to be parsed. May not be
    *        <code>null</code>.
    * @param aFallbackCharset
-   *        The charset to be used in case no BOM is present. May not be
+   *        Not used, as the String is already decoded. May not be
    *        <code>null</code>.
    * @param aCustomExceptionHandler
    *        An optional custom exception handler that can be used to collect the
@@ -342,14 +621,20 @@ public final class JsonReader
                                       @Nonnull final Charset aFallbackCharset,
                                       @Nullable final IJsonParseExceptionHandler aCustomExceptionHandler)
   {
-    return readFromStream (new StringInputStreamProvider (sJson, aFallbackCharset),
-                           aFallbackCharset,
-                           aCustomExceptionHandler);
+    ValueEnforcer.notNull (sJson, "Json");
+    ValueEnforcer.notNull (aFallbackCharset, "FallbackCharset");
+
+    // Previously the String was encoded and the BOM was removed when decoding
+    final String sRealJson = sJson.length () > 0 && sJson.charAt (0) == '\ufeff' ? sJson.substring (1) : sJson;
+    return _readFromChars (sRealJson,
+                           null,
+                           new JsonReaderSettings ().setCustomExceptionHandler (aCustomExceptionHandler),
+                           null);
   }
 
   /**
-   * Read the Json from the passed String using a character stream. An
-   * eventually contained <code>@charset</code> rule is ignored.
+   * Read the Json from the passed String. The characters are read directly
+   * from the String.
    *
    * @param sJson
    *        The source string containing the Json to be parsed. May not be
@@ -360,11 +645,12 @@ public final class JsonReader
   @Nullable
   public static IJson readFromString (@Nonnull final String sJson)
   {
-    return readFromReader (new NonBlockingStringReader (sJson), (IJsonParseExceptionHandler) null);
+    return readFromString (sJson, (IJsonParseExceptionHandler) null);
   }
 
   /**
-   * Read the Json from the passed String using a character stream.
+   * Read the Json from the passed String. The characters are read directly
+   * from the String.
    *
    * @param sJson
    *        The source string containing the Json to be parsed. May not be
@@ -379,7 +665,66 @@ public final class JsonReader
   public static IJson readFromString (@Nonnull final String sJson,
                                       @Nullable final IJsonParseExceptionHandler aCustomExceptionHandler)
   {
-    return readFromReader (new NonBlockingStringReader (sJson), aCustomExceptionHandler);
+    return readFromString (sJson, new JsonReaderSettings ().setCustomExceptionHandler (aCustomExceptionHandler));
+  }
+
+  /**
+   * Read the Json from the passed String. The characters are read directly
+   * from the String, so the fallback charset of the settings is not used.
+   *
+   * @param sJson
+   *        The source string containing the Json to be parsed. May not be
+   *        <code>null</code>.
+   * @param aSettings
+   *        The settings to be used for reading. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the Json declarations
+   *         otherwise.
+   */
+  @Nullable
+  public static IJson readFromString (@Nonnull final String sJson, @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (sJson, "Json");
+    return _readFromChars (sJson, null, aSettings, null);
+  }
+
+  /**
+   * Read the Json from the passed {@link CharSequence}. The characters are
+   * read directly from the sequence, so the fallback charset of the settings
+   * is not used.
+   *
+   * @param aJson
+   *        The source containing the Json to be parsed. May not be
+   *        <code>null</code>. Must not be modified while reading.
+   * @param aSettings
+   *        The settings to be used for reading. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the Json declarations
+   *         otherwise.
+   */
+  @Nullable
+  public static IJson readFromCharSequence (@Nonnull final CharSequence aJson,
+                                            @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aJson, "Json");
+    return _readFromChars (aJson, null, aSettings, null);
+  }
+
+  /**
+   * Read the Json from the passed char array. The array is read directly and
+   * is not copied, so the fallback charset of the settings is not used.
+   *
+   * @param aJson
+   *        The source containing the Json to be parsed. May not be
+   *        <code>null</code>. Must not be modified while reading.
+   * @param aSettings
+   *        The settings to be used for reading. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the Json declarations
+   *         otherwise.
+   */
+  @Nullable
+  public static IJson readFromChars (@Nonnull final char [] aJson, @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aJson, "Json");
+    return _readFromChars (CharBuffer.wrap (aJson), aJson, aSettings, null);
   }
 
   /**
@@ -438,6 +783,142 @@ public final class JsonReader
     return readFromStream (new FileSystemResource (aFile), aFallbackCharset, aCustomExceptionHandler);
   }
 
+  /**
+   * Read the Json from the passed File. If
+   * {@link JsonReaderSettings#isMemoryMapFiles()} is enabled, the file is
+   * memory mapped instead of being read via a regular stream. For UTF-8 files
+   * of up to 2 GB and the {@link EJsonParserEngine#DIRECT} engine the mapped
+   * bytes are tokenized directly without copying them. Otherwise the mapped
+   * file is read like a stream.
+   *
+   * @param aFile
+   *        The file containing the Json to be parsed. May not be
+   *        <code>null</code>.
+   * @param aSettings
+   *        The settings to be used for reading. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the Json declarations
+   *         otherwise.
+   */
+  @Nullable
+  public static IJson readFromFile (@Nonnull final File aFile, @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aFile, "File");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    if (aSettings.isMemoryMapFiles ())
+    {
+      InputStream aIS = null;
+      if (aSettings.getEffectiveParserEngine () == EJsonParserEngine.DIRECT)
+      {
+        ByteBuffer aBuffer;
+        try
+        {
+          aBuffer = MappedFileInputStream.mapFile (aFile);
+        }
+        catch (final IOException ex)
+        {
+          s_aLogger.error ("Failed to memory map file " + aFile, ex);
+          return null;
+        }
+        if (aBuffer != null)
+        {
+          final Charset aBOMCharset = _skipBOM (aBuffer);
+          final Charset aCharsetToUse = aBOMCharset != null ? aBOMCharset : aSettings.getFallbackCharset ();
+          if (aCharsetToUse.equals (CCharset.CHARSET_UTF_8_OBJ))
+          {
+            // Tokenize the mapped bytes directly
+            final JsonParserContext aContext = JsonParserContext.acquire ();
+            try
+            {
+              return _readJsonDirect (aContext.getUTF8Scanner (aBuffer), aSettings, aContext, null);
+            }
+            finally
+            {
+              aContext.release ();
+            }
+          }
+
+          // Decode the already mapped bytes - the BOM is detected again
+          aBuffer.rewind ();
+          aIS = new ByteBufferInputStream (aBuffer);
+        }
+      }
+
+      if (aIS == null)
+      {
+        // Not read with the DIRECT engine or too large for a single buffer
+        try
+        {
+          aIS = new MappedFileInputStream (aFile);
+        }
+        catch (final IOException ex)
+        {
+          s_aLogger.error ("Failed to memory map file " + aFile, ex);
+          return null;
+        }
+      }
+      return _readFromStream (aIS,
+                              aSettings,
+                              _getReaderProvider (new FileSystemResource (aFile), aSettings.getFallbackCharset ()));
+    }
+    return readFromStream (new FileSystemResource (aFile), aSettings);
+  }
+
+  /**
+   * Read a file containing a JSON array with multiple threads using the
+   * default settings.
+   *
+   * @param aFile
+   *        The file containing the Json array to be parsed. May not be
+   *        <code>null</code>.
+   * @param aPool
+   *        The pool used to parse the parts of the array concurrently. May not
+   *        be <code>null</code>.
+   * @return <code>null</code> if reading failed or if the file does not
+   *         contain an array, the Json array otherwise.
+   * @see #readArrayParallel(File, JsonReaderSettings, ForkJoinPool)
+   */
+  @Nullable
+  public static IJsonArray readArrayParallel (@Nonnull final File aFile, @Nonnull final ForkJoinPool aPool)
+  {
+    return readArrayParallel (aFile, new JsonReaderSettings (), aPool);
+  }
+
+  /**
+   * Read a file containing a JSON array with multiple threads. The file is
+   * pre-scanned to find the boundaries between the array elements, the parts
+   * are parsed concurrently and the results are combined into a single array
+   * that keeps the element order. This is only possible for UTF-8 encoded
+   * files without comments outside of the array elements - otherwise the file
+   * is read sequentially. In case of an error the file is read sequentially as
+   * well, so that the error is reported with the correct position. The
+   * {@link JsonReaderLimits} apply to the whole file and not to the single
+   * parts.
+   *
+   * @param aFile
+   *        The file containing the Json array to be parsed. May not be
+   *        <code>null</code>.
+   * @param aSettings
+   *        The settings to be used for reading. The parser engine is only used
+   *        when the file is read sequentially. May not be <code>null</code>.
+   * @param aPool
+   *        The pool used to parse the parts of the array concurrently. May not
+   *        be <code>null</code>.
+   * @return <code>null</code> if reading failed or if the file does not
+   *         contain an array, the Json array otherwise.
+   */
+  @Nullable
+  public static IJsonArray readArrayParallel (@Nonnull final File aFile,
+                                              @Nonnull final JsonReaderSettings aSettings,
+                                              @Nonnull final ForkJoinPool aPool)
+  {
+    ValueEnforcer.notNull (aFile, "File");
+    ValueEnforcer.notNull (aSettings, "Settings");
+    ValueEnforcer.notNull (aPool, "Pool");
+
+    return JsonParallelArrayReader.readArray (aFile, aSettings, aPool, JsonParallelArrayReader.DEFAULT_MIN_CHUNK_SIZE);
+  }
+
   /**
    * Read the Json from the passed {@link IInputStreamProvider} using the
    * default charset.
@@ -496,6 +977,28 @@ public final class JsonReader
     return readFromStream (aIS, aFallbackCharset, aCustomExceptionHandler);
   }
 
+  /**
+   * Read the Json from the passed {@link IInputStreamProvider}.
+   *
+   * @param aISP
+   *        The input stream to use. May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used for reading. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the Json declarations
+   *         otherwise.
+   */
+  @Nullable
+  public static IJson readFromStream (@Nonnull final IInputStreamProvider aISP,
+                                      @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aISP, "InputStreamProvider");
+    ValueEnforcer.notNull (aSettings, "Settings");
+    final InputStream aIS = aISP.getInputStream ();
+    if (aIS == null)
+      return null;
+    return _readFromStream (aIS, aSettings, _getReaderProvider (aISP, aSettings.getFallbackCharset ()));
+  }
+
   /**
    * Read the Json from the passed {@link InputStream} using the default
    * charset.
@@ -511,6 +1014,27 @@ public final class JsonReader
     return readFromStream (aIS, DEFAULT_CHARSET);
   }
 
+  /**
+   * Skip a byte order mark at the current position of the passed buffer.
+   *
+   * @param aBuffer
+   *        The buffer to check. Its position is moved behind the BOM if one is
+   *        present. May not be <code>null</code>.
+   * @return The charset of the BOM or <code>null</code> if no BOM is present or
+   *         if the BOM has no Java charset.
+   */
+  @Nullable
+  private static Charset _skipBOM (@Nonnull final ByteBuffer aBuffer)
+  {
+    final byte [] aBOM = new byte [Math.min (EUnicodeBOM.getMaximumByteCount (), aBuffer.remaining ())];
+    aBuffer.duplicate ().get (aBOM);
+    final EUnicodeBOM eBOM = EUnicodeBOM.getFromBytesOrNull (aBOM);
+    if (eBOM == null)
+      return null;
+    aBuffer.position (aBuffer.position () + eBOM.getByteCount ());
+    return eBOM.getCharset ();
+  }
+
   /**
    * Read the Json from the passed {@link InputStream}.
    *
@@ -599,35 +1123,119 @@ public final class JsonReader
                                       @Nonnull final Charset aFallbackCharset,
                                       @Nullable final IJsonParseExceptionHandler aCustomExceptionHandler)
   {
-    ValueEnforcer.notNull (aIS, "InputStream");
-    ValueEnforcer.notNull (aFallbackCharset, "FallbackCharset");
+    return readFromStream (aIS,
+                           new JsonReaderSettings ().setFallbackCharset (aFallbackCharset)
+                                                    .setCustomExceptionHandler (aCustomExceptionHandler));
+  }
 
-    // Open input stream
-    final ReadonlyPair <InputStream, Charset> aISAndBOM = _getInputStreamWithoutBOM (aIS);
-    if (aISAndBOM == null || aISAndBOM.getFirst () == null)
-    {
-      // Failed to open stream!
+  /**
+   * Read the Json from the passed {@link InputStream}.
+   *
+   * @param aIS
+   *        The input stream to use. May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used for reading. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the Json declarations
+   *         otherwise.
+   */
+  @Nullable
+  public static IJson readFromStream (@Nonnull final InputStream aIS, @Nonnull final JsonReaderSettings aSettings)
+  {
+    return _readFromStream (aIS, aSettings, null);
+  }
+
+  /**
+   * Create a reader provider for an in-memory source.
+   *
+   * @param aSource
+   *        The source to read. May not be <code>null</code>.
+   * @return The reader provider. Never <code>null</code>.
+   */
+  @Nonnull
+  private static IReaderProvider _getReaderProvider (@Nonnull final CharSequence aSource)
+  {
+    return new IReaderProvider ()
+    {
+      @Nonnull
+      public Reader getReader ()
+      {
+        return new NonBlockingStringReader (aSource.toString ());
+      }
+    };
+  }
+
+  /**
+   * Create a reader provider that opens the passed input stream provider and
+   * considers a potential BOM.
+   *
+   * @param aISP
+   *        The input stream provider to use. May not be <code>null</code>.
+   * @param aFallbackCharset
+   *        The charset to be used in case no BOM is present. May not be
+   *        <code>null</code>.
+   * @return The reader provider. Never <code>null</code>.
+   */
+  @Nonnull
+  private static IReaderProvider _getReaderProvider (@Nonnull final IInputStreamProvider aISP,
+                                                     @Nonnull final Charset aFallbackCharset)
+  {
+    return new IReaderProvider ()
+    {
+      @Nullable
+      public Reader getReader ()
+      {
+        final InputStream aIS = aISP.getInputStream ();
+        if (aIS == null)
+          return null;
+
+        final ReadonlyPair <InputStream, Charset> aISAndBOM = _getInputStreamWithoutBOM (aIS);
+        if (aISAndBOM == null || aISAndBOM.getFirst () == null)
+        {
+          StreamUtils.close (aIS);
+          return null;
+        }
+        final Charset aCharsetToUse = aISAndBOM.getSecond () != null ? aISAndBOM.getSecond () : aFallbackCharset;
+        return StreamUtils.createReader (aISAndBOM.getFirst (), aCharsetToUse);
+      }
+    };
+  }
+
+  @Nullable
+  private static IJson _readFromStream (@Nonnull @WillClose final InputStream aIS,
+                                        @Nonnull final JsonReaderSettings aSettings,
+                                        @Nullable final IReaderProvider aReopenProvider)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    // Open input stream
+    final ReadonlyPair <InputStream, Charset> aISAndBOM = _getInputStreamWithoutBOM (aIS);
+    if (aISAndBOM == null || aISAndBOM.getFirst () == null)
+    {
+      // Failed to open stream!
       return null;
     }
 
     final InputStream aISToUse = aISAndBOM.getFirst ();
-    final Charset aCharsetToUse = aISAndBOM.getSecond () != null ? aISAndBOM.getSecond () : aFallbackCharset;
+    final Charset aCharsetToUse = aISAndBOM.getSecond () != null ? aISAndBOM.getSecond ()
+                                                                 : aSettings.getFallbackCharset ();
 
     try
     {
-      final JsonCharStream aCharStream = new JsonCharStream (StreamUtils.createReader (aISToUse, aCharsetToUse));
-
-      // Use the default Json exception handler if none is provided
-      final IJsonParseExceptionHandler aRealExceptionHandler = aCustomExceptionHandler == null ? getDefaultParseExceptionHandler ()
-                                                                                              : aCustomExceptionHandler;
-      final JsonNode aNode = _readJson (aCharStream, aRealExceptionHandler);
-
-      // Failed to interpret content as Json?
-      if (aNode == null)
-        return null;
-
-      // Convert the AST to a domain object
-      return JsonHandler.readCascadingStyleSheetFromNode (aNode);
+      if (aSettings.getEffectiveParserEngine () == EJsonParserEngine.DIRECT && aCharsetToUse.equals (CCharset.CHARSET_UTF_8_OBJ))
+      {
+        // Tokenize the UTF-8 bytes directly without decoding them to chars
+        final JsonParserContext aContext = JsonParserContext.acquire ();
+        try
+        {
+          return _readJsonDirect (aContext.getUTF8Scanner (aISToUse), aSettings, aContext, null);
+        }
+        finally
+        {
+          aContext.release ();
+        }
+      }
+      return _readJson (StreamUtils.createReader (aISToUse, aCharsetToUse), aSettings, aReopenProvider);
     }
     finally
     {
@@ -647,7 +1255,7 @@ public final class JsonReader
   @Nullable
   public static IJson readFromReader (@Nonnull final Reader aReader)
   {
-    return readFromReader (aReader, null);
+    return readFromReader (aReader, (IJsonParseExceptionHandler) null);
   }
 
   /**
@@ -664,27 +1272,218 @@ public final class JsonReader
   @Nullable
   public static IJson readFromReader (@Nonnull final Reader aReader,
                                       @Nullable final IJsonParseExceptionHandler aCustomExceptionHandler)
+  {
+    return readFromReader (aReader, new JsonReaderSettings ().setCustomExceptionHandler (aCustomExceptionHandler));
+  }
+
+  /**
+   * Read the Json from the passed {@link Reader}. The fallback charset of the
+   * settings is not used.
+   *
+   * @param aReader
+   *        The reader to use. Is automatically closed. May not be
+   *        <code>null</code>.
+   * @param aSettings
+   *        The settings to be used for reading. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the Json declarations
+   *         otherwise.
+   */
+  @Nullable
+  public static IJson readFromReader (@Nonnull @WillClose final Reader aReader,
+                                      @Nonnull final JsonReaderSettings aSettings)
+  {
+    return _readFromReader (aReader, aSettings, null);
+  }
+
+  /**
+   * Read only the parts of the Json from the passed String that are defined by
+   * the passed projection, using the default settings.
+   *
+   * @param sJson
+   *        The source string containing the Json to be parsed. May not be
+   *        <code>null</code>.
+   * @param aProjection
+   *        The parts of the document to be read. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the projected Json
+   *         declarations otherwise.
+   * @see #readFromReader(Reader, JsonReaderSettings, JsonProjection)
+   */
+  @Nullable
+  public static IJson readFromString (@Nonnull final String sJson, @Nonnull final JsonProjection aProjection)
+  {
+    ValueEnforcer.notNull (sJson, "Json");
+    ValueEnforcer.notNull (aProjection, "Projection");
+    return _readFromChars (sJson, null, new JsonReaderSettings (), aProjection);
+  }
+
+  /**
+   * Read only the parts of the Json from the passed {@link Reader} that are
+   * defined by the passed projection, using the default settings.
+   *
+   * @param aReader
+   *        The reader to use. Is automatically closed. May not be
+   *        <code>null</code>.
+   * @param aProjection
+   *        The parts of the document to be read. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the projected Json
+   *         declarations otherwise.
+   * @see #readFromReader(Reader, JsonReaderSettings, JsonProjection)
+   */
+  @Nullable
+  public static IJson readFromReader (@Nonnull @WillClose final Reader aReader,
+                                      @Nonnull final JsonProjection aProjection)
+  {
+    return readFromReader (aReader, new JsonReaderSettings (), aProjection);
+  }
+
+  /**
+   * Read only the parts of the Json from the passed {@link Reader} that are
+   * defined by the passed projection. All other parts are checked for syntax
+   * errors on the token level, but no keys, strings or values are created for
+   * them. This always uses the {@link EJsonParserEngine#DIRECT} engine,
+   * independent of the settings. See {@link JsonProjection} for the structure
+   * of the result.
+   *
+   * @param aReader
+   *        The reader to use. Is automatically closed. May not be
+   *        <code>null</code>.
+   * @param aSettings
+   *        The settings to be used for reading. May not be <code>null</code>.
+   * @param aProjection
+   *        The parts of the document to be read. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the projected Json
+   *         declarations otherwise.
+   */
+  @Nullable
+  public static IJson readFromReader (@Nonnull @WillClose final Reader aReader,
+                                      @Nonnull final JsonReaderSettings aSettings,
+                                      @Nonnull final JsonProjection aProjection)
+  {
+    ValueEnforcer.notNull (aReader, "Reader");
+    ValueEnforcer.notNull (aSettings, "Settings");
+    ValueEnforcer.notNull (aProjection, "Projection");
+
+    final JsonParserContext aContext = JsonParserContext.acquire ();
+    try
+    {
+      return _readJsonDirect (aContext.getCharScanner (aReader), aSettings, aContext, aProjection);
+    }
+    finally
+    {
+      aContext.release ();
+      StreamUtils.close (aReader);
+    }
+  }
+
+  @Nullable
+  private static IJson _readFromReader (@Nonnull @WillClose final Reader aReader,
+                                        @Nonnull final JsonReaderSettings aSettings,
+                                        @Nullable final IReaderProvider aReopenProvider)
   {
     ValueEnforcer.notNull (aReader, "Reader");
+    ValueEnforcer.notNull (aSettings, "Settings");
 
     // No charset determination, as the Reader already has an implicit Charset
 
     try
     {
-      final JsonCharStream aCharStream = new JsonCharStream (aReader);
+      return _readJson (aReader, aSettings, aReopenProvider);
+    }
+    finally
+    {
+      StreamUtils.close (aReader);
+    }
+  }
 
-      // Use the default Json exception handler if none is provided
-      final IJsonParseExceptionHandler aRealExceptionHandler = aCustomExceptionHandler == null ? getDefaultParseExceptionHandler ()
-                                                                                              : aCustomExceptionHandler;
+  @Nullable
+  private static IJson _readLazy (@Nonnull final char [] aChars, @Nonnull final JsonReaderSettings aSettings)
+  {
+    // Limits are only checked by the direct parser
+    if (aSettings.getLimits () != null)
+      return readFromChars (aChars, aSettings);
 
-      final JsonNode aNode = _readJson (aCharStream, aRealExceptionHandler);
+    final IJson ret = new JsonLazyReader (aChars, aSettings).read ();
+    if (ret != null)
+      return ret;
 
-      // Failed to interpret content as Json?
-      if (aNode == null)
-        return null;
+    // Invalid Json (or comments or empty keys): let the regular parser report the error
+    return readFromChars (aChars, aSettings);
+  }
 
-      // Convert the AST to a domain object
-      return JsonHandler.readCascadingStyleSheetFromNode (aNode);
+  /**
+   * Read the Json from the passed String using the default settings. Objects
+   * and arrays are only parsed when they are accessed for the first time. See
+   * {@link #readLazyFromString(String, JsonReaderSettings)} for details.
+   *
+   * @param sJson
+   *        The source string containing the Json to be parsed. May not be
+   *        <code>null</code>.
+   * @return <code>null</code> if reading failed, the Json declarations
+   *         otherwise.
+   */
+  @Nullable
+  public static IJson readLazyFromString (@Nonnull final String sJson)
+  {
+    return readLazyFromString (sJson, new JsonReaderSettings ());
+  }
+
+  /**
+   * Read the Json from the passed String. The whole source is validated
+   * upfront, but only the top-level value is created. The content of nested
+   * objects and arrays is parsed when they are accessed for the first time.
+   * This makes reading only a few parts of a large document considerably
+   * cheaper. The returned objects are regular {@link IJsonObject} and
+   * {@link IJsonArray} implementations, but they keep a reference to the
+   * source until they are loaded and they must not be accessed from multiple
+   * threads concurrently. The parser engine of the settings is only used to
+   * report errors. If limits are set, the source is read completely.
+   *
+   * @param sJson
+   *        The source string containing the Json to be parsed. May not be
+   *        <code>null</code>.
+   * @param aSettings
+   *        The settings to be used for reading. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the Json declarations
+   *         otherwise.
+   */
+  @Nullable
+  public static IJson readLazyFromString (@Nonnull final String sJson, @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (sJson, "Json");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    return _readLazy (sJson.toCharArray (), aSettings);
+  }
+
+  /**
+   * Read the Json from the passed {@link Reader}. The whole content is read
+   * into memory first. See
+   * {@link #readLazyFromString(String, JsonReaderSettings)} for details.
+   *
+   * @param aReader
+   *        The reader to use. Is automatically closed. May not be
+   *        <code>null</code>.
+   * @param aSettings
+   *        The settings to be used for reading. May not be <code>null</code>.
+   * @return <code>null</code> if reading failed, the Json declarations
+   *         otherwise.
+   */
+  @Nullable
+  public static IJson readLazyFromReader (@Nonnull @WillClose final Reader aReader,
+                                          @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aReader, "Reader");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    try
+    {
+      final char [] aChars = StreamUtils.getAllCharacters (aReader);
+      if (aChars == null)
+      {
+        s_aLogger.warn ("Failed to read all characters from " + aReader);
+        return null;
+      }
+      return _readLazy (aChars, aSettings);
     }
     finally
     {
@@ -692,6 +1491,580 @@ public final class JsonReader
     }
   }
 
+  /**
+   * Create a new pull parser reading from the passed {@link Reader}. The
+   * parser must be closed by the caller.
+   *
+   * @param aReader
+   *        The reader to use. Is closed when the pull parser is closed. May not
+   *        be <code>null</code>.
+   * @return The new pull parser. Never <code>null</code>.
+   */
+  @Nonnull
+  public static IJsonPullParser createPullParser (@Nonnull @WillCloseWhenClosed final Reader aReader)
+  {
+    return createPullParser (aReader, new JsonReaderSettings ());
+  }
+
+  /**
+   * Create a new pull parser reading from the passed {@link Reader}. The
+   * parser must be closed by the caller.
+   *
+   * @param aReader
+   *        The reader to use. Is closed when the pull parser is closed. May not
+   *        be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. Only the lazy numbers, the key
+   *        de-duplication and the limits are considered. May not be
+   *        <code>null</code>.
+   * @return The new pull parser. Never <code>null</code>.
+   */
+  @Nonnull
+  public static IJsonPullParser createPullParser (@Nonnull @WillCloseWhenClosed final Reader aReader,
+                                                  @Nonnull final JsonReaderSettings aSettings)
+  {
+    return new JsonPullParser (new JsonCharScanner (aReader), aReader, aSettings);
+  }
+
+  /**
+   * Create a new pull parser reading from the passed {@link InputStream}. The
+   * parser must be closed by the caller.
+   *
+   * @param aIS
+   *        The input stream to use. Is closed when the pull parser is closed.
+   *        May not be <code>null</code>.
+   * @param aFallbackCharset
+   *        The charset to be used in case no BOM is present. May not be
+   *        <code>null</code>.
+   * @return <code>null</code> if the input stream could not be opened, the new
+   *         pull parser otherwise.
+   */
+  @Nullable
+  public static IJsonPullParser createPullParser (@Nonnull @WillCloseWhenClosed final InputStream aIS,
+                                                  @Nonnull final Charset aFallbackCharset)
+  {
+    return createPullParser (aIS, new JsonReaderSettings ().setFallbackCharset (aFallbackCharset));
+  }
+
+  /**
+   * Create a new pull parser reading from the passed {@link InputStream}. The
+   * parser must be closed by the caller.
+   *
+   * @param aIS
+   *        The input stream to use. Is closed when the pull parser is closed.
+   *        May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. Only the fallback charset, the lazy
+   *        numbers, the key de-duplication and the limits are considered. May
+   *        not be <code>null</code>.
+   * @return <code>null</code> if the input stream could not be opened, the new
+   *         pull parser otherwise.
+   */
+  @Nullable
+  public static IJsonPullParser createPullParser (@Nonnull @WillCloseWhenClosed final InputStream aIS,
+                                                  @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    final ReadonlyPair <InputStream, Charset> aISAndBOM = _getInputStreamWithoutBOM (aIS);
+    if (aISAndBOM == null || aISAndBOM.getFirst () == null)
+    {
+      // Failed to open stream!
+      StreamUtils.close (aIS);
+      return null;
+    }
+
+    final InputStream aISToUse = aISAndBOM.getFirst ();
+    final Charset aCharsetToUse = aISAndBOM.getSecond () != null ? aISAndBOM.getSecond ()
+                                                                 : aSettings.getFallbackCharset ();
+    if (aCharsetToUse.equals (CCharset.CHARSET_UTF_8_OBJ))
+    {
+      // Tokenize the UTF-8 bytes directly without decoding them to chars
+      return new JsonPullParser (new JsonUTF8Scanner (aISToUse), aISToUse, aSettings);
+    }
+    return createPullParser (StreamUtils.createReader (aISToUse, aCharsetToUse), aSettings);
+  }
+
+  /**
+   * Create a new non-blocking parser for UTF-8 encoded JSON that is fed in
+   * chunks, using the default settings.
+   *
+   * @return The new feed parser. Never <code>null</code>.
+   */
+  @Nonnull
+  public static IJsonFeedParser createFeedParser ()
+  {
+    return createFeedParser (new JsonReaderSettings ());
+  }
+
+  /**
+   * Create a new non-blocking parser for UTF-8 encoded JSON that is fed in
+   * chunks. A BOM is not supported.
+   *
+   * @param aSettings
+   *        The settings to be used. Only the lazy numbers, the key
+   *        de-duplication and the limits are considered. May not be
+   *        <code>null</code>.
+   * @return The new feed parser. Never <code>null</code>.
+   */
+  @Nonnull
+  public static IJsonFeedParser createFeedParser (@Nonnull final JsonReaderSettings aSettings)
+  {
+    return new JsonFeedParser (aSettings);
+  }
+
+  /**
+   * Create a new reader for newline delimited JSON (JSON lines) using the
+   * default settings. The reader must be closed by the caller.
+   *
+   * @param aReader
+   *        The reader to use. Is closed when the lines reader is closed. May
+   *        not be <code>null</code>.
+   * @return The new lines reader. Never <code>null</code>.
+   */
+  @Nonnull
+  public static IJsonLinesReader createLinesReader (@Nonnull @WillCloseWhenClosed final Reader aReader)
+  {
+    return createLinesReader (aReader, new JsonReaderSettings ());
+  }
+
+  /**
+   * Create a new reader for newline delimited JSON (JSON lines). All records
+   * are read with a single scanner. The reader must be closed by the caller.
+   *
+   * @param aReader
+   *        The reader to use. Is closed when the lines reader is closed. May
+   *        not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. The parser engine is ignored. May not be
+   *        <code>null</code>.
+   * @return The new lines reader. Never <code>null</code>.
+   */
+  @Nonnull
+  public static IJsonLinesReader createLinesReader (@Nonnull @WillCloseWhenClosed final Reader aReader,
+                                                    @Nonnull final JsonReaderSettings aSettings)
+  {
+    return new JsonLinesReader (new JsonCharScanner (aReader), aReader, aSettings, _getExceptionHandler (aSettings));
+  }
+
+  /**
+   * Create a new reader for newline delimited JSON (JSON lines). UTF-8 encoded
+   * sources are tokenized directly on the byte level. The reader must be
+   * closed by the caller.
+   *
+   * @param aIS
+   *        The input stream to use. Is closed when the lines reader is closed.
+   *        May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. The fallback charset is used in case no BOM
+   *        is present. The parser engine is ignored. May not be
+   *        <code>null</code>.
+   * @return <code>null</code> if the input stream could not be opened, the new
+   *         lines reader otherwise.
+   */
+  @Nullable
+  public static IJsonLinesReader createLinesReader (@Nonnull @WillCloseWhenClosed final InputStream aIS,
+                                                    @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    final ReadonlyPair <InputStream, Charset> aISAndBOM = _getInputStreamWithoutBOM (aIS);
+    if (aISAndBOM == null || aISAndBOM.getFirst () == null)
+    {
+      // Failed to open stream!
+      StreamUtils.close (aIS);
+      return null;
+    }
+
+    final InputStream aISToUse = aISAndBOM.getFirst ();
+    final Charset aCharsetToUse = aISAndBOM.getSecond () != null ? aISAndBOM.getSecond ()
+                                                                 : aSettings.getFallbackCharset ();
+    if (aCharsetToUse.equals (CCharset.CHARSET_UTF_8_OBJ))
+    {
+      // Tokenize the UTF-8 bytes directly without decoding them to chars
+      return new JsonLinesReader (new JsonUTF8Scanner (aISToUse),
+                                  aISToUse,
+                                  aSettings,
+                                  _getExceptionHandler (aSettings));
+    }
+    return createLinesReader (StreamUtils.createReader (aISToUse, aCharsetToUse), aSettings);
+  }
+
+  /**
+   * Create a new reader for a file containing newline delimited JSON (JSON
+   * lines). If {@link JsonReaderSettings#isMemoryMapFiles()} is enabled, the
+   * file is memory mapped. The reader must be closed by the caller.
+   *
+   * @param aFile
+   *        The file to read. May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. The parser engine is ignored. May not be
+   *        <code>null</code>.
+   * @return <code>null</code> if the file could not be opened, the new lines
+   *         reader otherwise.
+   */
+  @Nullable
+  public static IJsonLinesReader createLinesReader (@Nonnull final File aFile,
+                                                    @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aFile, "File");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    InputStream aIS;
+    if (aSettings.isMemoryMapFiles ())
+    {
+      try
+      {
+        aIS = new MappedFileInputStream (aFile);
+      }
+      catch (final IOException ex)
+      {
+        s_aLogger.error ("Failed to memory map file " + aFile, ex);
+        return null;
+      }
+    }
+    else
+    {
+      aIS = new FileSystemResource (aFile).getInputStream ();
+      if (aIS == null)
+        return null;
+    }
+    return createLinesReader (aIS, aSettings);
+  }
+
+  /**
+   * Create a new reader for a source with several concatenated top-level Json
+   * values using the default settings. The reader must be closed by the
+   * caller.
+   *
+   * @param aReader
+   *        The reader to use. Is closed when the multi document reader is
+   *        closed. May not be <code>null</code>.
+   * @return The new multi document reader. Never <code>null</code>.
+   */
+  @Nonnull
+  public static IJsonMultiDocumentReader createMultiDocumentReader (@Nonnull @WillCloseWhenClosed final Reader aReader)
+  {
+    return createMultiDocumentReader (aReader, new JsonReaderSettings ());
+  }
+
+  /**
+   * Create a new reader for a source with several concatenated top-level Json
+   * values, like <code>{...}{...}[...]</code>. All values are read with the
+   * same parser instance of the engine defined in the settings. The reader
+   * must be closed by the caller.
+   *
+   * @param aReader
+   *        The reader to use. Is closed when the multi document reader is
+   *        closed. May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. May not be <code>null</code>.
+   * @return The new multi document reader. Never <code>null</code>.
+   */
+  @Nonnull
+  public static IJsonMultiDocumentReader createMultiDocumentReader (@Nonnull @WillCloseWhenClosed final Reader aReader,
+                                                                    @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aReader, "Reader");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    final IJsonParseExceptionHandler aExceptionHandler = _getExceptionHandler (aSettings);
+    if (aSettings.getEffectiveParserEngine () == EJsonParserEngine.DIRECT)
+      return new JsonLinesReader (new JsonCharScanner (aReader), aReader, aSettings, aExceptionHandler);
+
+    final CharStream aStream = aSettings.isTrackPosition () ? new JsonCharStream (aReader)
+                                                            : new JsonFastCharStream (aReader);
+    return new JsonMultiDocumentReader (aStream, aReader, aSettings, aExceptionHandler);
+  }
+
+  /**
+   * Create a new reader for a source with several concatenated top-level Json
+   * values, like <code>{...}{...}[...]</code>. With the
+   * {@link EJsonParserEngine#DIRECT} engine, UTF-8 encoded sources are
+   * tokenized directly on the byte level. The reader must be closed by the
+   * caller.
+   *
+   * @param aIS
+   *        The input stream to use. Is closed when the multi document reader
+   *        is closed. May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. The fallback charset is used in case no BOM
+   *        is present. May not be <code>null</code>.
+   * @return <code>null</code> if the input stream could not be opened, the new
+   *         multi document reader otherwise.
+   */
+  @Nullable
+  public static IJsonMultiDocumentReader createMultiDocumentReader (@Nonnull @WillCloseWhenClosed final InputStream aIS,
+                                                                    @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aIS, "InputStream");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    final ReadonlyPair <InputStream, Charset> aISAndBOM = _getInputStreamWithoutBOM (aIS);
+    if (aISAndBOM == null || aISAndBOM.getFirst () == null)
+    {
+      // Failed to open stream!
+      StreamUtils.close (aIS);
+      return null;
+    }
+
+    final InputStream aISToUse = aISAndBOM.getFirst ();
+    final Charset aCharsetToUse = aISAndBOM.getSecond () != null ? aISAndBOM.getSecond ()
+                                                                 : aSettings.getFallbackCharset ();
+    if (aSettings.getEffectiveParserEngine () == EJsonParserEngine.DIRECT && aCharsetToUse.equals (CCharset.CHARSET_UTF_8_OBJ))
+    {
+      // Tokenize the UTF-8 bytes directly without decoding them to chars
+      return new JsonLinesReader (new JsonUTF8Scanner (aISToUse),
+                                  aISToUse,
+                                  aSettings,
+                                  _getExceptionHandler (aSettings));
+    }
+    return createMultiDocumentReader (StreamUtils.createReader (aISToUse, aCharsetToUse), aSettings);
+  }
+
+  @Nonnegative
+  private static int _getThreadCount (@Nonnull final ExecutorService aExecutor)
+  {
+    if (aExecutor instanceof ForkJoinPool)
+      return ((ForkJoinPool) aExecutor).getParallelism ();
+    if (aExecutor instanceof ThreadPoolExecutor)
+      return ((ThreadPoolExecutor) aExecutor).getMaximumPoolSize ();
+    return Runtime.getRuntime ().availableProcessors ();
+  }
+
+  /**
+   * Create a new reader for newline delimited JSON (JSON lines) that parses
+   * the records with multiple threads. The calling thread reads batches of
+   * lines from the source that are parsed by the passed executor. A batch is
+   * extended while an array, object or comment is open at its end, so records
+   * spanning multiple lines give the same result as with
+   * {@link #createLinesReader(Reader, JsonReaderSettings)}. The reader must be
+   * closed by the caller.
+   *
+   * @param aReader
+   *        The reader to use. Is closed when the lines reader is closed. May
+   *        not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. The parser engine is ignored. May not be
+   *        <code>null</code>.
+   * @param aExecutor
+   *        The executor to parse the batches of lines. Is not shut down when
+   *        the lines reader is closed. May not be <code>null</code>.
+   * @param bPreserveOrder
+   *        <code>true</code> to return the records in the order of the source,
+   *        <code>false</code> to return the records of each batch as soon as
+   *        it is parsed. In both cases all valid records before an invalid
+   *        record are returned before the error is reported. Without order,
+   *        valid records after the invalid record may have been returned
+   *        already.
+   * @return The new lines reader. Never <code>null</code>.
+   */
+  @Nonnull
+  public static IJsonLinesReader createParallelLinesReader (@Nonnull @WillCloseWhenClosed final Reader aReader,
+                                                            @Nonnull final JsonReaderSettings aSettings,
+                                                            @Nonnull final ExecutorService aExecutor,
+                                                            final boolean bPreserveOrder)
+  {
+    ValueEnforcer.notNull (aExecutor, "Executor");
+    return new JsonParallelLinesReader (aReader,
+                                        aSettings,
+                                        _getExceptionHandler (aSettings),
+                                        aExecutor,
+                                        _getThreadCount (aExecutor),
+                                        JsonParallelLinesReader.DEFAULT_BATCH_SIZE,
+                                        bPreserveOrder);
+  }
+
+  /**
+   * Parse the JSON from the passed String and invoke the passed handler for
+   * every recognized element. No {@link IJson} objects are created.
+   *
+   * @param sJson
+   *        The source string containing the Json to be parsed. May not be
+   *        <code>null</code>.
+   * @param aHandler
+   *        The handler to be invoked. May not be <code>null</code>.
+   * @return {@link ESuccess#SUCCESS} if the complete document was parsed,
+   *         {@link ESuccess#FAILURE} if the source is not valid JSON.
+   */
+  @Nonnull
+  public static ESuccess parse (@Nonnull final String sJson, @Nonnull final IJsonParserHandler aHandler)
+  {
+    ValueEnforcer.notNull (sJson, "Json");
+    ValueEnforcer.notNull (aHandler, "Handler");
+
+    return parse (sJson, aHandler, new JsonReaderSettings ());
+  }
+
+  /**
+   * Parse the JSON from the passed String and invoke the passed handler for
+   * every recognized element. No {@link IJson} objects are created. Please
+   * note that in case of a parse error, the handler may already have been
+   * invoked for the elements before the error location.
+   *
+   * @param sJson
+   *        The source string containing the Json to be parsed. May not be
+   *        <code>null</code>.
+   * @param aHandler
+   *        The handler to be invoked. May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. Only the custom exception handler, the key
+   *        de-duplication and the limits are considered. May not be
+   *        <code>null</code>.
+   * @return {@link ESuccess#SUCCESS} if the complete document was parsed,
+   *         {@link ESuccess#FAILURE} if the source is not valid JSON or a limit
+   *         was exceeded.
+   */
+  @Nonnull
+  public static ESuccess parse (@Nonnull final String sJson,
+                                @Nonnull final IJsonParserHandler aHandler,
+                                @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (sJson, "Json");
+    ValueEnforcer.notNull (aHandler, "Handler");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    // Read the characters directly from the String
+    return _parse (new JsonPullParser (new JsonCharScanner (sJson.toCharArray ()), null, aSettings),
+                   aHandler,
+                   _getExceptionHandler (aSettings));
+  }
+
+  /**
+   * Parse the JSON from the passed {@link Reader} and invoke the passed
+   * handler for every recognized element. No {@link IJson} objects are
+   * created.
+   *
+   * @param aReader
+   *        The reader to use. Is automatically closed. May not be
+   *        <code>null</code>.
+   * @param aHandler
+   *        The handler to be invoked. May not be <code>null</code>.
+   * @return {@link ESuccess#SUCCESS} if the complete document was parsed,
+   *         {@link ESuccess#FAILURE} if the source is not valid JSON.
+   */
+  @Nonnull
+  public static ESuccess parse (@Nonnull @WillClose final Reader aReader, @Nonnull final IJsonParserHandler aHandler)
+  {
+    return parse (aReader, aHandler, new JsonReaderSettings ());
+  }
+
+  /**
+   * Parse the JSON from the passed {@link Reader} and invoke the passed
+   * handler for every recognized element. No {@link IJson} objects are
+   * created. Please note that in case of a parse error, the handler may
+   * already have been invoked for the elements before the error location.
+   *
+   * @param aReader
+   *        The reader to use. Is automatically closed. May not be
+   *        <code>null</code>.
+   * @param aHandler
+   *        The handler to be invoked. May not be <code>null</code>.
+   * @param aCustomExceptionHandler
+   *        An optional custom exception handler that can be used to collect
+   *        the unrecoverable parsing errors. May be <code>null</code>.
+   * @return {@link ESuccess#SUCCESS} if the complete document was parsed,
+   *         {@link ESuccess#FAILURE} if the source is not valid JSON.
+   */
+  @Nonnull
+  public static ESuccess parse (@Nonnull @WillClose final Reader aReader,
+                                @Nonnull final IJsonParserHandler aHandler,
+                                @Nullable final IJsonParseExceptionHandler aCustomExceptionHandler)
+  {
+    return parse (aReader, aHandler, new JsonReaderSettings ().setCustomExceptionHandler (aCustomExceptionHandler));
+  }
+
+  /**
+   * Parse the JSON from the passed {@link Reader} and invoke the passed
+   * handler for every recognized element. No {@link IJson} objects are
+   * created. Please note that in case of a parse error, the handler may
+   * already have been invoked for the elements before the error location.
+   *
+   * @param aReader
+   *        The reader to use. Is automatically closed. May not be
+   *        <code>null</code>.
+   * @param aHandler
+   *        The handler to be invoked. May not be <code>null</code>.
+   * @param aSettings
+   *        The settings to be used. Only the custom exception handler, the key
+   *        de-duplication and the limits are considered. May not be
+   *        <code>null</code>.
+   * @return {@link ESuccess#SUCCESS} if the complete document was parsed,
+   *         {@link ESuccess#FAILURE} if the source is not valid JSON or a limit
+   *         was exceeded.
+   */
+  @Nonnull
+  public static ESuccess parse (@Nonnull @WillClose final Reader aReader,
+                                @Nonnull final IJsonParserHandler aHandler,
+                                @Nonnull final JsonReaderSettings aSettings)
+  {
+    ValueEnforcer.notNull (aReader, "Reader");
+    ValueEnforcer.notNull (aHandler, "Handler");
+    ValueEnforcer.notNull (aSettings, "Settings");
+
+    return _parse (createPullParser (aReader, aSettings), aHandler, _getExceptionHandler (aSettings));
+  }
+
+  @Nonnull
+  private static ESuccess _parse (@Nonnull final IJsonPullParser aParser,
+                                  @Nonnull final IJsonParserHandler aHandler,
+                                  @Nonnull final IJsonParseExceptionHandler aExceptionHandler)
+  {
+    try
+    {
+      while (true)
+      {
+        switch (aParser.next ())
+        {
+          case START_OBJECT:
+            aHandler.onObjectStart ();
+            break;
+          case KEY:
+            aHandler.onKey (aParser.getString ());
+            break;
+          case END_OBJECT:
+            aHandler.onObjectEnd ();
+            break;
+          case START_ARRAY:
+            aHandler.onArrayStart ();
+            break;
+          case END_ARRAY:
+            aHandler.onArrayEnd ();
+            break;
+          case VALUE_STRING:
+            aHandler.onString (aParser.getString ());
+            break;
+          case VALUE_NUMBER:
+            aHandler.onNumber (aParser.getString (), aParser.isDecimalNumber ());
+            break;
+          case VALUE_TRUE:
+            aHandler.onBoolean (true);
+            break;
+          case VALUE_FALSE:
+            aHandler.onBoolean (false);
+            break;
+          case VALUE_NULL:
+            aHandler.onNull ();
+            break;
+          case END_DOCUMENT:
+            return ESuccess.SUCCESS;
+        }
+      }
+    }
+    catch (final ParseException ex)
+    {
+      // Unrecoverable error
+      aExceptionHandler.onException (ex);
+      return ESuccess.FAILURE;
+    }
+    finally
+    {
+      aParser.close ();
+    }
+  }
+
   // public static void parseAsArray (@Nonnull final String sJSON, @Nonnull
   // final JsonArray aArray) throws JsonReadException
   // {
@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ICloneable;
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.string.ToStringGenerator;
+
+/**
+ * Limits for reading untrusted Json sources, to be set via
+ * {@link JsonReaderSettings#setLimits(JsonReaderLimits)}. The limits are
+ * checked incrementally while tokenizing and parsing, so that oversized
+ * sources are rejected as soon as a limit is exceeded, without reading the
+ * rest of the source. A violation is reported as a
+ * {@link JsonLimitExceededException} to the exception handler.<br>
+ * All limits are unlimited by default.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public class JsonReaderLimits implements ICloneable <JsonReaderLimits>
+{
+  /** Default maximum nesting depth of objects and arrays */
+  public static final int DEFAULT_MAX_DEPTH = Integer.MAX_VALUE;
+  /** Default maximum length of a string in characters */
+  public static final int DEFAULT_MAX_STRING_LENGTH = Integer.MAX_VALUE;
+  /** Default maximum length of a number in characters */
+  public static final int DEFAULT_MAX_NUMBER_LENGTH = Integer.MAX_VALUE;
+  /** Default maximum size of the source */
+  public static final long DEFAULT_MAX_DOCUMENT_SIZE = Long.MAX_VALUE;
+  /** Default maximum number of values */
+  public static final long DEFAULT_MAX_ENTRIES = Long.MAX_VALUE;
+
+  private int m_nMaxDepth = DEFAULT_MAX_DEPTH;
+  private int m_nMaxStringLength = DEFAULT_MAX_STRING_LENGTH;
+  private int m_nMaxNumberLength = DEFAULT_MAX_NUMBER_LENGTH;
+  private long m_nMaxDocumentSize = DEFAULT_MAX_DOCUMENT_SIZE;
+  private long m_nMaxEntries = DEFAULT_MAX_ENTRIES;
+
+  /**
+   * Constructor without limits.
+   */
+  public JsonReaderLimits ()
+  {}
+
+  /**
+   * Copy constructor.
+   *
+   * @param aOther
+   *        The limits to copy from. May not be <code>null</code>.
+   */
+  public JsonReaderLimits (@Nonnull final JsonReaderLimits aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_nMaxDepth = aOther.m_nMaxDepth;
+    m_nMaxStringLength = aOther.m_nMaxStringLength;
+    m_nMaxNumberLength = aOther.m_nMaxNumberLength;
+    m_nMaxDocumentSize = aOther.m_nMaxDocumentSize;
+    m_nMaxEntries = aOther.m_nMaxEntries;
+  }
+
+  /**
+   * @return The maximum nesting depth of objects and arrays. A top-level
+   *         object or array has the depth 1.
+   */
+  @Nonnegative
+  public int getMaxDepth ()
+  {
+    return m_nMaxDepth;
+  }
+
+  /**
+   * @param nMaxDepth
+   *        The maximum nesting depth of objects and arrays. A top-level object
+   *        or array has the depth 1. Must be &ge; 0.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderLimits setMaxDepth (@Nonnegative final int nMaxDepth)
+  {
+    m_nMaxDepth = ValueEnforcer.isGE0 (nMaxDepth, "MaxDepth");
+    return this;
+  }
+
+  /**
+   * @return The maximum length of a string value or object key, measured in
+   *         source characters between the quotes (escape sequences count with
+   *         their source length).
+   */
+  @Nonnegative
+  public int getMaxStringLength ()
+  {
+    return m_nMaxStringLength;
+  }
+
+  /**
+   * @param nMaxStringLength
+   *        The maximum length of a string value or object key, measured in
+   *        source characters between the quotes. Must be &ge; 0.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderLimits setMaxStringLength (@Nonnegative final int nMaxStringLength)
+  {
+    m_nMaxStringLength = ValueEnforcer.isGE0 (nMaxStringLength, "MaxStringLength");
+    return this;
+  }
+
+  /**
+   * @return The maximum length of a number in source characters, including
+   *         sign, fraction and exponent.
+   */
+  @Nonnegative
+  public int getMaxNumberLength ()
+  {
+    return m_nMaxNumberLength;
+  }
+
+  /**
+   * @param nMaxNumberLength
+   *        The maximum length of a number in source characters, including
+   *        sign, fraction and exponent. Must be &gt; 0.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderLimits setMaxNumberLength (@Nonnegative final int nMaxNumberLength)
+  {
+    m_nMaxNumberLength = ValueEnforcer.isGT0 (nMaxNumberLength, "MaxNumberLength");
+    return this;
+  }
+
+  /**
+   * @return The maximum size of the whole source. It is measured in
+   *         characters for character sources and in bytes for UTF-8 encoded
+   *         byte sources that are read with the
+   *         {@link EJsonParserEngine#DIRECT} engine.
+   */
+  @Nonnegative
+  public long getMaxDocumentSize ()
+  {
+    return m_nMaxDocumentSize;
+  }
+
+  /**
+   * @param nMaxDocumentSize
+   *        The maximum size of the whole source. Must be &gt; 0.
+   * @return this
+   * @see #getMaxDocumentSize()
+   */
+  @Nonnull
+  public JsonReaderLimits setMaxDocumentSize (@Nonnegative final long nMaxDocumentSize)
+  {
+    m_nMaxDocumentSize = ValueEnforcer.isGT0 (nMaxDocumentSize, "MaxDocumentSize");
+    return this;
+  }
+
+  /**
+   * @return The maximum number of values of a document. Each object, array,
+   *         string, number and literal counts as one value, object keys are
+   *         not counted.
+   */
+  @Nonnegative
+  public long getMaxEntries ()
+  {
+    return m_nMaxEntries;
+  }
+
+  /**
+   * @param nMaxEntries
+   *        The maximum number of values of a document. Must be &gt; 0.
+   * @return this
+   * @see #getMaxEntries()
+   */
+  @Nonnull
+  public JsonReaderLimits setMaxEntries (@Nonnegative final long nMaxEntries)
+  {
+    m_nMaxEntries = ValueEnforcer.isGT0 (nMaxEntries, "MaxEntries");
+    return this;
+  }
+
+  @Nonnull
+  public JsonReaderLimits getClone ()
+  {
+    return new JsonReaderLimits (this);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("maxDepth", m_nMaxDepth)
+                                       .append ("maxStringLength", m_nMaxStringLength)
+                                       .append ("maxNumberLength", m_nMaxNumberLength)
+                                       .append ("maxDocumentSize", m_nMaxDocumentSize)
+                                       .append ("maxEntries", m_nMaxEntries)
+                                       .toString ();
+  }
+}
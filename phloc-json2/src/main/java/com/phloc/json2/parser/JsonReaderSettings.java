@@ -0,0 +1,410 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.nio.charset.Charset;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ICloneable;
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.string.ToStringGenerator;
+import com.phloc.json2.impl.JsonLazyNumberValue;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * This class contains all the settings that can be used to customize the
+ * behavior of {@link JsonReader}.
+ * 
+ * @author Philip Helger
+ */
+@NotThreadSafe
+public class JsonReaderSettings implements ICloneable <JsonReaderSettings>
+{
+  /** The default parser engine to be used */
+  public static final EJsonParserEngine DEFAULT_PARSER_ENGINE = EJsonParserEngine.JAVACC;
+  /** By default files are not memory mapped */
+  public static final boolean DEFAULT_MEMORY_MAP_FILES = false;
+  /** By default source positions are tracked */
+  public static final boolean DEFAULT_TRACK_POSITION = true;
+  /** By default numbers are parsed eagerly */
+  public static final boolean DEFAULT_LAZY_NUMBERS = false;
+  /** By default object keys are de-duplicated */
+  public static final boolean DEFAULT_DEDUPLICATE_KEYS = true;
+  /** By default the nodes of the JavaCC engine keep their tokens */
+  public static final boolean DEFAULT_RETAIN_TOKENS = true;
+  /** By default the word-at-a-time structural index is used */
+  public static final boolean DEFAULT_STRUCTURAL_INDEX_SWAR = true;
+
+  private EJsonParserEngine m_eParserEngine = DEFAULT_PARSER_ENGINE;
+  private Charset m_aFallbackCharset = JsonReader.DEFAULT_CHARSET;
+  private IJsonParseExceptionHandler m_aCustomExceptionHandler;
+  private boolean m_bMemoryMapFiles = DEFAULT_MEMORY_MAP_FILES;
+  private boolean m_bTrackPosition = DEFAULT_TRACK_POSITION;
+  private boolean m_bLazyNumbers = DEFAULT_LAZY_NUMBERS;
+  private boolean m_bDeduplicateKeys = DEFAULT_DEDUPLICATE_KEYS;
+  private boolean m_bRetainTokens = DEFAULT_RETAIN_TOKENS;
+  private boolean m_bStructuralIndexSWAR = DEFAULT_STRUCTURAL_INDEX_SWAR;
+  private JsonReaderLimits m_aLimits;
+
+  /**
+   * Constructor with default settings.
+   */
+  public JsonReaderSettings ()
+  {}
+
+  /**
+   * Copy constructor.
+   * 
+   * @param aOther
+   *        The settings to copy from. May not be <code>null</code>.
+   */
+  public JsonReaderSettings (@Nonnull final JsonReaderSettings aOther)
+  {
+    ValueEnforcer.notNull (aOther, "Other");
+    m_eParserEngine = aOther.m_eParserEngine;
+    m_aFallbackCharset = aOther.m_aFallbackCharset;
+    m_aCustomExceptionHandler = aOther.m_aCustomExceptionHandler;
+    m_bMemoryMapFiles = aOther.m_bMemoryMapFiles;
+    m_bTrackPosition = aOther.m_bTrackPosition;
+    m_bLazyNumbers = aOther.m_bLazyNumbers;
+    m_bDeduplicateKeys = aOther.m_bDeduplicateKeys;
+    m_bRetainTokens = aOther.m_bRetainTokens;
+    m_bStructuralIndexSWAR = aOther.m_bStructuralIndexSWAR;
+    m_aLimits = aOther.m_aLimits == null ? null : aOther.m_aLimits.getClone ();
+  }
+
+  /**
+   * @return The parser engine to be used. Never <code>null</code>. Defaults to
+   *         {@link #DEFAULT_PARSER_ENGINE}.
+   */
+  @Nonnull
+  public EJsonParserEngine getParserEngine ()
+  {
+    return m_eParserEngine;
+  }
+
+  /**
+   * @param eParserEngine
+   *        The parser engine to be used. May not be <code>null</code>.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderSettings setParserEngine (@Nonnull final EJsonParserEngine eParserEngine)
+  {
+    m_eParserEngine = ValueEnforcer.notNull (eParserEngine, "ParserEngine");
+    return this;
+  }
+
+  /**
+   * @return The charset to be used for reading byte sources in case no BOM is
+   *         present. Never <code>null</code>. Defaults to
+   *         {@link JsonReader#DEFAULT_CHARSET}.
+   */
+  @Nonnull
+  public Charset getFallbackCharset ()
+  {
+    return m_aFallbackCharset;
+  }
+
+  /**
+   * @param aFallbackCharset
+   *        The charset to be used for reading byte sources in case no BOM is
+   *        present. May not be <code>null</code>.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderSettings setFallbackCharset (@Nonnull final Charset aFallbackCharset)
+  {
+    m_aFallbackCharset = ValueEnforcer.notNull (aFallbackCharset, "FallbackCharset");
+    return this;
+  }
+
+  /**
+   * @return The custom exception handler to be used for unrecoverable errors.
+   *         May be <code>null</code> in which case the default exception
+   *         handler of {@link JsonReader} is used.
+   */
+  @Nullable
+  public IJsonParseExceptionHandler getCustomExceptionHandler ()
+  {
+    return m_aCustomExceptionHandler;
+  }
+
+  /**
+   * @param aCustomExceptionHandler
+   *        An optional custom exception handler that can be used to collect the
+   *        unrecoverable parsing errors. May be <code>null</code>.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderSettings setCustomExceptionHandler (@Nullable final IJsonParseExceptionHandler aCustomExceptionHandler)
+  {
+    m_aCustomExceptionHandler = aCustomExceptionHandler;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if files should be memory mapped instead of
+   *         being read via a stream. Defaults to
+   *         {@link #DEFAULT_MEMORY_MAP_FILES}.
+   */
+  public boolean isMemoryMapFiles ()
+  {
+    return m_bMemoryMapFiles;
+  }
+
+  /**
+   * Define whether files should be memory mapped when reading them via
+   * {@link JsonReader#readFromFile(java.io.File, JsonReaderSettings)}. With
+   * the {@link EJsonParserEngine#DIRECT} engine, UTF-8 files of up to 2 GB are
+   * mapped as a whole and tokenized directly from the mapped memory without
+   * copying the bytes. In all other cases (other engines, other charsets or
+   * larger files) the file is mapped in windows and read like a stream, so the
+   * bytes are copied into the parser buffers and the {@link
+   * EJsonParserEngine#JAVACC} engine still decodes them via a
+   * {@link java.io.Reader}.
+   *
+   * @param bMemoryMapFiles
+   *        <code>true</code> to memory map files, <code>false</code> to read
+   *        them via a regular stream.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderSettings setMemoryMapFiles (final boolean bMemoryMapFiles)
+  {
+    m_bMemoryMapFiles = bMemoryMapFiles;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if line and column numbers are tracked while
+   *         reading. Defaults to {@link #DEFAULT_TRACK_POSITION}.
+   */
+  public boolean isTrackPosition ()
+  {
+    return m_bTrackPosition;
+  }
+
+  /**
+   * Define whether line and column numbers should be tracked for every
+   * character while reading with the {@link EJsonParserEngine#JAVACC} engine.
+   * If disabled, a {@link JsonFastCharStream} is used and all positions are
+   * -1. In case of a parse error the source is read a second time with
+   * position tracking to report the exact error location - this is only
+   * possible for sources that can be opened again (strings, files and
+   * {@link com.phloc.commons.io.IInputStreamProvider} objects). The
+   * {@link EJsonParserEngine#DIRECT} engine always tracks positions with
+   * negligible overhead.
+   *
+   * @param bTrackPosition
+   *        <code>true</code> to track positions, <code>false</code> to disable
+   *        it.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderSettings setTrackPosition (final boolean bTrackPosition)
+  {
+    m_bTrackPosition = bTrackPosition;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if numbers are read as
+   *         {@link JsonLazyNumberValue} objects. Defaults to
+   *         {@link #DEFAULT_LAZY_NUMBERS}.
+   */
+  public boolean isLazyNumbers ()
+  {
+    return m_bLazyNumbers;
+  }
+
+  /**
+   * Define whether numbers should be read as {@link JsonLazyNumberValue}
+   * objects that keep the source text and create the {@link java.math.BigInteger}
+   * or {@link java.math.BigDecimal} objects only on demand. When writing the
+   * read objects again, the source text of the numbers is written verbatim.
+   * This is beneficial if only few numbers of a document are accessed.
+   *
+   * @param bLazyNumbers
+   *        <code>true</code> to read numbers lazily, <code>false</code> to
+   *        parse them while reading.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderSettings setLazyNumbers (final boolean bLazyNumbers)
+  {
+    m_bLazyNumbers = bLazyNumbers;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if equal object keys share a single
+   *         {@link String} instance. Defaults to
+   *         {@link #DEFAULT_DEDUPLICATE_KEYS}.
+   */
+  public boolean isDeduplicateKeys ()
+  {
+    return m_bDeduplicateKeys;
+  }
+
+  /**
+   * Define whether equal object keys should share a single {@link String}
+   * instance within one document. This reduces the memory footprint of
+   * documents with many objects having the same keys (like arrays of records).
+   * The {@link EJsonParserEngine#DIRECT} engine even avoids creating the
+   * {@link String} objects for repeated keys.
+   *
+   * @param bDeduplicateKeys
+   *        <code>true</code> to de-duplicate keys, <code>false</code> to
+   *        disable it.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderSettings setDeduplicateKeys (final boolean bDeduplicateKeys)
+  {
+    m_bDeduplicateKeys = bDeduplicateKeys;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if the nodes created by the
+   *         {@link EJsonParserEngine#JAVACC} engine keep their tokens.
+   *         Defaults to {@link #DEFAULT_RETAIN_TOKENS}.
+   */
+  public boolean isRetainTokens ()
+  {
+    return m_bRetainTokens;
+  }
+
+  /**
+   * Define whether the {@link JsonNode} objects created by the
+   * {@link EJsonParserEngine#JAVACC} engine keep their first and last
+   * {@link Token}. As each token references the next one, the whole token
+   * chain of the document stays reachable while the nodes are built. If
+   * disabled, only the line and column numbers are kept and
+   * {@link JsonNode#jjtGetFirstToken()} and {@link JsonNode#jjtGetLastToken()}
+   * return <code>null</code>.
+   *
+   * @param bRetainTokens
+   *        <code>true</code> to keep the tokens, <code>false</code> to keep
+   *        only the positions.
+   * @return this
+   * @see ParserJson#setRetainTokens(boolean)
+   */
+  @Nonnull
+  public JsonReaderSettings setRetainTokens (final boolean bRetainTokens)
+  {
+    m_bRetainTokens = bRetainTokens;
+    return this;
+  }
+
+  /**
+   * @return <code>true</code> if the word-at-a-time variant of the structural
+   *         index is used. Defaults to {@link #DEFAULT_STRUCTURAL_INDEX_SWAR}.
+   */
+  public boolean isStructuralIndexSWAR ()
+  {
+    return m_bStructuralIndexSWAR;
+  }
+
+  /**
+   * Define which variant of the structural index is used by
+   * {@link JsonReader#readArrayParallel(java.io.File, JsonReaderSettings, java.util.concurrent.ForkJoinPool)}
+   * to split a file into chunks. Both variants give identical results. The
+   * word-at-a-time ("SWAR") variant is considerably faster for sources with
+   * long strings, but not for sources consisting of many small records, for
+   * which the byte by byte variant may be slightly faster.
+   *
+   * @param bStructuralIndexSWAR
+   *        <code>true</code> to use the word-at-a-time variant,
+   *        <code>false</code> to use the byte by byte variant.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderSettings setStructuralIndexSWAR (final boolean bStructuralIndexSWAR)
+  {
+    m_bStructuralIndexSWAR = bStructuralIndexSWAR;
+    return this;
+  }
+
+  /**
+   * @return The limits for reading untrusted sources. May be
+   *         <code>null</code> if no limits are set (which is the default).
+   */
+  @Nullable
+  public JsonReaderLimits getLimits ()
+  {
+    return m_aLimits;
+  }
+
+  /**
+   * Set the limits for reading untrusted sources. The limits are checked by
+   * the {@link EJsonParserEngine#DIRECT} engine, so that engine is used by
+   * {@link JsonReader} whenever limits are set, independent of
+   * {@link #getParserEngine()}. As the generated parser is not involved, also
+   * deeply nested sources need no stack space in the generated code.
+   *
+   * @param aLimits
+   *        The limits to be used. May be <code>null</code> to read without
+   *        limits. The object is not copied, so later modifications are
+   *        effective.
+   * @return this
+   */
+  @Nonnull
+  public JsonReaderSettings setLimits (@Nullable final JsonReaderLimits aLimits)
+  {
+    m_aLimits = aLimits;
+    return this;
+  }
+
+  /**
+   * @return The parser engine that is really used: the
+   *         {@link EJsonParserEngine#DIRECT} engine if limits are set,
+   *         {@link #getParserEngine()} otherwise. Never <code>null</code>.
+   */
+  @Nonnull
+  public EJsonParserEngine getEffectiveParserEngine ()
+  {
+    return m_aLimits != null ? EJsonParserEngine.DIRECT : m_eParserEngine;
+  }
+
+  @Nonnull
+  public JsonReaderSettings getClone ()
+  {
+    return new JsonReaderSettings (this);
+  }
+
+  @Override
+  public String toString ()
+  {
+    return new ToStringGenerator (this).append ("parserEngine", m_eParserEngine)
+                                       .append ("fallbackCharset", m_aFallbackCharset)
+                                       .appendIfNotNull ("customExceptionHandler", m_aCustomExceptionHandler)
+                                       .append ("memoryMapFiles", m_bMemoryMapFiles)
+                                       .append ("trackPosition", m_bTrackPosition)
+                                       .append ("lazyNumbers", m_bLazyNumbers)
+                                       .append ("deduplicateKeys", m_bDeduplicateKeys)
+                                       .append ("retainTokens", m_bRetainTokens)
+                                       .append ("structuralIndexSWAR", m_bStructuralIndexSWAR)
+                                       .appendIfNotNull ("limits", m_aLimits)
+                                       .toString ();
+  }
+}
@@ -0,0 +1,294 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+
+/**
+ * Stage one structural scanner for UTF-8 encoded JSON in the spirit of
+ * simdjson: it determines the positions of all structural characters (
+ * <code>{ } [ ] : ,</code>) that are outside of string literals, without
+ * tokenizing the input. The forward slash is reported as well, so that callers
+ * can detect comments which are not handled by this class.<br>
+ * The input may be passed in consecutive pieces - the string and escape state
+ * is kept between the calls of {@link #index(byte[], int, int)}.<br>
+ * Two implementations with identical results are available: a plain byte by
+ * byte scanner and a SWAR ("SIMD within a register") variant that classifies 8
+ * bytes at once in a <code>long</code> and skips the contents of strings a
+ * word at a time. The variant used by
+ * {@link JsonReader#readArrayParallel(java.io.File, JsonReaderSettings, java.util.concurrent.ForkJoinPool)}
+ * is selected with {@link JsonReaderSettings#setStructuralIndexSWAR(boolean)}.
+ * <br>
+ * The index is only used to split files for parallel reading. The
+ * {@link JsonLazyReader} and the {@link JsonValidator} must check every token
+ * anyway and therefore use their own scanners.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonStructuralIndexer
+{
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW7 = 0x7f7f7f7f7f7f7f7fL;
+  private static final long QUOTE = ONES * '"';
+  private static final long BACKSLASH = ONES * '\\';
+  // '[' and '{' as well as ']' and '}' only differ in bit 5
+  private static final long CASE_BIT = ONES * 0x20;
+  private static final long OPEN = ONES * '{';
+  private static final long CLOSE = ONES * '}';
+  private static final long COLON = ONES * ':';
+  private static final long COMMA = ONES * ',';
+  private static final long SLASH = ONES * '/';
+
+  private final boolean m_bSWAR;
+  private boolean m_bInString = false;
+  // true if the last byte of the previous piece was an escaping backslash
+  private boolean m_bSkipFirst = false;
+  private int [] m_aPositions = new int [256];
+  private int m_nCount;
+
+  /**
+   * Constructor
+   *
+   * @param bSWAR
+   *        <code>true</code> to use the word-at-a-time scanner,
+   *        <code>false</code> to use the byte by byte scanner.
+   */
+  public JsonStructuralIndexer (final boolean bSWAR)
+  {
+    m_bSWAR = bSWAR;
+  }
+
+  /**
+   * @return <code>true</code> if the word-at-a-time scanner is used.
+   */
+  public boolean isSWAR ()
+  {
+    return m_bSWAR;
+  }
+
+  /**
+   * @return <code>true</code> if the last indexed piece ended inside a string
+   *         literal.
+   */
+  public boolean isInString ()
+  {
+    return m_bInString;
+  }
+
+  /**
+   * Reset the string state so that a new document can be indexed.
+   */
+  public void reset ()
+  {
+    m_bInString = false;
+    m_bSkipFirst = false;
+    m_nCount = 0;
+  }
+
+  /**
+   * @return The positions found by the last call to
+   *         {@link #index(byte[], int, int)}. Only the first
+   *         {@link #getCount()} entries are valid. The array is reused by the
+   *         next call.
+   */
+  @Nonnull
+  public int [] getPositions ()
+  {
+    return m_aPositions;
+  }
+
+  /**
+   * @return The number of positions found by the last call to
+   *         {@link #index(byte[], int, int)}.
+   */
+  @Nonnegative
+  public int getCount ()
+  {
+    return m_nCount;
+  }
+
+  private void _add (final int nPos)
+  {
+    if (m_nCount == m_aPositions.length)
+    {
+      final int [] aNew = new int [m_aPositions.length * 2];
+      System.arraycopy (m_aPositions, 0, aNew, 0, m_nCount);
+      m_aPositions = aNew;
+    }
+    m_aPositions[m_nCount++] = nPos;
+  }
+
+  private static boolean _isStructural (final int c)
+  {
+    return c == '{' || c == '}' || c == '[' || c == ']' || c == ':' || c == ',' || c == '/';
+  }
+
+  /**
+   * Index the next piece of the input.
+   *
+   * @param aBuf
+   *        The buffer to scan. May not be <code>null</code>.
+   * @param nFrom
+   *        The index of the first byte to scan (inclusive).
+   * @param nTo
+   *        The index of the last byte to scan (exclusive).
+   * @return The number of structural positions found. The positions are
+   *         absolute indices into the buffer and are available via
+   *         {@link #getPositions()}.
+   */
+  @Nonnegative
+  public int index (@Nonnull final byte [] aBuf, @Nonnegative final int nFrom, @Nonnegative final int nTo)
+  {
+    ValueEnforcer.isArrayOfsLen (aBuf, nFrom, nTo - nFrom);
+
+    m_nCount = 0;
+    if (nFrom == nTo)
+      return 0;
+
+    int nPos = nFrom;
+    if (m_bSkipFirst)
+    {
+      m_bSkipFirst = false;
+      ++nPos;
+    }
+    if (m_bSWAR)
+      nPos = _indexSWAR (aBuf, nPos, nTo);
+
+    // The remaining bytes (or all bytes for the scalar variant)
+    boolean bInString = m_bInString;
+    for (; nPos < nTo; ++nPos)
+    {
+      final int c = aBuf[nPos];
+      if (bInString)
+      {
+        if (c == '\\')
+        {
+          if (++nPos == nTo)
+            m_bSkipFirst = true;
+        }
+        else
+          if (c == '"')
+            bInString = false;
+      }
+      else
+        if (c == '"')
+          bInString = true;
+        else
+          if (_isStructural (c))
+            _add (nPos);
+    }
+    m_bInString = bInString;
+    return m_nCount;
+  }
+
+  /**
+   * @return A value that has the high bit of each byte set exactly where the
+   *         respective byte of the passed value is zero.
+   */
+  private static long _zeroBytes (final long x)
+  {
+    return ~(((x & LOW7) + LOW7) | x | LOW7);
+  }
+
+  /**
+   * Index all complete 8 byte words.
+   *
+   * @return The position of the first byte that was not scanned.
+   */
+  private int _indexSWAR (@Nonnull final byte [] aBuf, final int nFrom, final int nTo)
+  {
+    final ByteBuffer aBB = ByteBuffer.wrap (aBuf).order (ByteOrder.LITTLE_ENDIAN);
+    boolean bInString = m_bInString;
+    // Absolute position of the byte escaped by a backslash
+    int nEscaped = -1;
+    int nPos = nFrom;
+    for (; nPos <= nTo - 8; nPos += 8)
+    {
+      final long w = aBB.getLong (nPos);
+      final long nSpecial = _zeroBytes (w ^ QUOTE) | _zeroBytes (w ^ BACKSLASH);
+      if (nSpecial == 0)
+      {
+        // Neither quotes nor backslashes - the state does not change
+        if (!bInString)
+        {
+          final long wCase = w | CASE_BIT;
+          long nStructural = _zeroBytes (wCase ^ OPEN) |
+                             _zeroBytes (wCase ^ CLOSE) |
+                             _zeroBytes (w ^ COLON) |
+                             _zeroBytes (w ^ COMMA) |
+                             _zeroBytes (w ^ SLASH);
+          while (nStructural != 0)
+          {
+            _add (nPos + (Long.numberOfTrailingZeros (nStructural) >>> 3));
+            nStructural &= nStructural - 1;
+          }
+        }
+        continue;
+      }
+
+      // Process all interesting bytes of the word in order
+      final long wCase = w | CASE_BIT;
+      long nInteresting = nSpecial |
+                          _zeroBytes (wCase ^ OPEN) |
+                          _zeroBytes (wCase ^ CLOSE) |
+                          _zeroBytes (w ^ COLON) |
+                          _zeroBytes (w ^ COMMA) |
+                          _zeroBytes (w ^ SLASH);
+      while (nInteresting != 0)
+      {
+        final int nIndex = nPos + (Long.numberOfTrailingZeros (nInteresting) >>> 3);
+        nInteresting &= nInteresting - 1;
+        if (nIndex == nEscaped)
+          continue;
+
+        final int c = aBuf[nIndex];
+        if (bInString)
+        {
+          if (c == '\\')
+            nEscaped = nIndex + 1;
+          else
+            if (c == '"')
+              bInString = false;
+        }
+        else
+          if (c == '"')
+            bInString = true;
+          else
+            if (c != '\\')
+              _add (nIndex);
+      }
+    }
+    m_bInString = bInString;
+    if (nEscaped == nPos)
+    {
+      // The first byte of the remainder is escaped
+      if (nPos == nTo)
+        m_bSkipFirst = true;
+      return nPos + 1;
+    }
+    return nPos;
+  }
+}
@@ -0,0 +1,409 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.charset.CCharset;
+
+/**
+ * The {@link AbstractJsonScanner} implementation that tokenizes UTF-8 encoded
+ * bytes directly, without decoding them into characters first. Only the
+ * content of string tokens (and the image of error tokens) is decoded, exactly
+ * once when the string value is created. All structural tokens, numbers and
+ * keywords of JSON are pure ASCII and are therefore handled on the byte
+ * level.<br>
+ * The bytes are either read from an {@link InputStream} into an own buffer or
+ * directly from a {@link ByteBuffer} (e.g. a memory mapped file) without
+ * copying them.<br>
+ * Column numbers are counted in characters, like in {@link JsonCharStream}.
+ * Only for malformed UTF-8 sequences the column numbers may differ from the
+ * character based scanner.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonUTF8Scanner extends AbstractJsonScanner
+{
+  private static final int REPLACEMENT_CHAR = 0xfffd;
+
+  private InputStream m_aIS;
+  private byte [] m_aBuffer = new byte [DEFAULT_BUF_SIZE];
+  /** The source if reading from a ByteBuffer. Index 0 is the first byte. */
+  private ByteBuffer m_aSource;
+  /** The number of bytes of the last decoded sequence */
+  private int m_nSequenceLength;
+
+  public JsonUTF8Scanner (@Nonnull final InputStream aIS)
+  {
+    m_aIS = ValueEnforcer.notNull (aIS, "InputStream");
+  }
+
+  public JsonUTF8Scanner (@Nonnull final ByteBuffer aSource)
+  {
+    reInit (aSource);
+  }
+
+  /**
+   * Prepare this scanner for reading from another source. The buffer is
+   * reused unless it grew too large.
+   *
+   * @param aIS
+   *        The new input stream to read from. May be <code>null</code> to only
+   *        release the previous input stream.
+   */
+  void reInit (@Nullable final InputStream aIS)
+  {
+    _reset ();
+    m_aIS = aIS;
+    m_aSource = null;
+    m_nSequenceLength = 0;
+    if (m_aBuffer.length > MAX_REUSED_BUF_SIZE)
+      m_aBuffer = new byte [DEFAULT_BUF_SIZE];
+  }
+
+  /**
+   * Prepare this scanner for reading the remaining bytes of the passed buffer.
+   * The bytes are read directly from the buffer, without copying them. The
+   * position of the passed buffer is not modified.
+   *
+   * @param aSource
+   *        The complete source to read. May not be <code>null</code>.
+   */
+  void reInit (@Nonnull final ByteBuffer aSource)
+  {
+    ValueEnforcer.notNull (aSource, "Source");
+    reInit ((InputStream) null);
+    m_aSource = aSource.slice ();
+  }
+
+  private int _byteAt (final int nIndex)
+  {
+    return (m_aSource != null ? m_aSource.get (nIndex) : m_aBuffer[nIndex]) & 0xff;
+  }
+
+  @Override
+  protected boolean _fill ()
+  {
+    if (m_bEOFReached)
+      return false;
+
+    if (m_aSource != null)
+    {
+      // All bytes of the source are available at once
+      m_bEOFReached = true;
+      m_nBufLimit = m_aSource.limit ();
+      return m_nBufLimit > 0 && _checkDocumentSize (m_nBufLimit);
+    }
+
+    if (m_nTokenBegin > 0)
+    {
+      // Discard everything before the current token
+      final int nKeep = m_nBufLimit - m_nTokenBegin;
+      System.arraycopy (m_aBuffer, m_nTokenBegin, m_aBuffer, 0, nKeep);
+      m_nBufPos -= m_nTokenBegin;
+      m_nBufLimit = nKeep;
+      m_nBufOffset += m_nTokenBegin;
+      m_nTokenBegin = 0;
+    }
+
+    if (m_nBufLimit == m_aBuffer.length)
+    {
+      // The current token spans the whole buffer
+      final byte [] aNewBuffer = new byte [m_aBuffer.length * 2];
+      System.arraycopy (m_aBuffer, 0, aNewBuffer, 0, m_nBufLimit);
+      m_aBuffer = aNewBuffer;
+    }
+
+    try
+    {
+      int nRead;
+      do
+      {
+        nRead = m_aIS.read (m_aBuffer, m_nBufLimit, m_aBuffer.length - m_nBufLimit);
+      } while (nRead == 0);
+
+      if (nRead < 0)
+      {
+        m_bEOFReached = true;
+        return false;
+      }
+      m_nBufLimit += nRead;
+      return _checkDocumentSize (nRead);
+    }
+    catch (final IOException ex)
+    {
+      // Same as in JsonCharStream: read errors are treated like EOF
+      m_bEOFReached = true;
+      return false;
+    }
+  }
+
+  @Override
+  protected int _charAt (@Nonnegative final int nOffset)
+  {
+    while (m_nTokenBegin + nOffset >= m_nBufLimit)
+      if (!_fill ())
+        return EOF_CHAR;
+    return _byteAt (m_nTokenBegin + nOffset);
+  }
+
+  /**
+   * @return The first unit of the current token if it is already contained in
+   *         the buffer, {@link #EOF_CHAR} otherwise. Used to check what an
+   *         incomplete token is waiting for.
+   */
+  int getTokenBeginUnit ()
+  {
+    return m_nTokenBegin < m_nBufLimit ? _byteAt (m_nTokenBegin) : EOF_CHAR;
+  }
+
+  /**
+   * Decode the UTF-8 sequence starting at the passed offset. The length of the
+   * sequence is stored in {@link #m_nSequenceLength}. Malformed sequences are
+   * decoded to U+FFFD.
+   *
+   * @param nOffset
+   *        The offset relative to the token begin. The byte at this offset
+   *        must be &ge; 0x80.
+   * @return The decoded code point.
+   */
+  private int _decode (@Nonnegative final int nOffset)
+  {
+    final int c = _charAt (nOffset);
+    int nLength;
+    int nCodePoint;
+    int nMinCodePoint;
+    if (c >= 0xc2 && c <= 0xdf)
+    {
+      nLength = 2;
+      nCodePoint = c & 0x1f;
+      nMinCodePoint = 0x80;
+    }
+    else
+      if (c >= 0xe0 && c <= 0xef)
+      {
+        nLength = 3;
+        nCodePoint = c & 0x0f;
+        nMinCodePoint = 0x800;
+      }
+      else
+        if (c >= 0xf0 && c <= 0xf4)
+        {
+          nLength = 4;
+          nCodePoint = c & 0x07;
+          nMinCodePoint = 0x10000;
+        }
+        else
+        {
+          // Invalid lead byte
+          m_nSequenceLength = 1;
+          return REPLACEMENT_CHAR;
+        }
+
+    for (int i = 1; i < nLength; ++i)
+    {
+      // EOF_CHAR is no continuation byte either
+      final int cNext = _charAt (nOffset + i);
+      if ((cNext & 0xc0) != 0x80)
+      {
+        // Truncated sequence
+        m_nSequenceLength = i;
+        return REPLACEMENT_CHAR;
+      }
+      nCodePoint = (nCodePoint << 6) | (cNext & 0x3f);
+    }
+
+    if (nCodePoint < nMinCodePoint ||
+        nCodePoint > Character.MAX_CODE_POINT ||
+        (nCodePoint >= Character.MIN_SURROGATE && nCodePoint <= Character.MAX_SURROGATE))
+    {
+      // Overlong encoding, surrogate or out of range
+      m_nSequenceLength = 1;
+      return REPLACEMENT_CHAR;
+    }
+    m_nSequenceLength = nLength;
+    return nCodePoint;
+  }
+
+  @Override
+  @Nonnegative
+  protected int _scanString ()
+  {
+    // Skip the opening quote
+    int nOffset = 1;
+    // Including the opening and the closing quote
+    int nChars = 2;
+    boolean bUnescaped = false;
+    final boolean bSkip = _isSkipStringValues ();
+    while (true)
+    {
+      final int nIndex = m_nTokenBegin + nOffset;
+      if (nIndex >= m_nBufLimit)
+      {
+        if (_isStringTooLong (nChars - 2) || !_fill ())
+          return 0;
+        continue;
+      }
+
+      final int c = _byteAt (nIndex);
+      if (c == '"')
+      {
+        if (_isStringTooLong (nChars - 2))
+          return 0;
+        final JsonKeyCache aKeyCache = _getKeyCache ();
+        if (bSkip)
+          m_sStringValue = null;
+        else
+          if (aKeyCache != null)
+          {
+            if (bUnescaped)
+              m_sStringValue = aKeyCache.getFromCharSequence (m_aSB);
+            else
+              if (nChars == nOffset + 1)
+              {
+                // Only ASCII characters
+                m_sStringValue = m_aSource != null ? aKeyCache.getFromASCIIBytes (m_aSource,
+                                                                                  m_nTokenBegin + 1,
+                                                                                  nOffset - 1)
+                                                   : aKeyCache.getFromASCIIBytes (m_aBuffer,
+                                                                                  m_nTokenBegin + 1,
+                                                                                  nOffset - 1);
+              }
+              else
+                m_sStringValue = aKeyCache.getFromCharSequence (_createString (m_nTokenBegin + 1, nOffset - 1));
+          }
+          else
+            m_sStringValue = bUnescaped ? m_aSB.toString () : _createString (m_nTokenBegin + 1, nOffset - 1);
+        m_nTokenChars = nChars;
+        return nOffset + 1;
+      }
+
+      if (c == '\\')
+      {
+        if (!bUnescaped)
+        {
+          // Decode everything read so far
+          m_aSB.setLength (0);
+          if (!bSkip)
+            m_aSB.append (_createString (m_nTokenBegin + 1, nOffset - 1));
+          bUnescaped = true;
+        }
+
+        final int nEscapeLength = _unescape (nOffset);
+        if (nEscapeLength == 0)
+          return 0;
+        nOffset += nEscapeLength;
+        nChars += nEscapeLength;
+        continue;
+      }
+
+      if (c < 0x80)
+      {
+        if (c <= '\r' && (c == '\b' || c == '\t' || c == '\n' || c == '\f' || c == '\r'))
+        {
+          // Control character not allowed in strings
+          return 0;
+        }
+
+        if (bUnescaped && !bSkip)
+          m_aSB.append ((char) c);
+        ++nOffset;
+        ++nChars;
+      }
+      else
+      {
+        // Multi byte sequence
+        final int nCodePoint = _decode (nOffset);
+        if (bUnescaped && !bSkip)
+          m_aSB.appendCodePoint (nCodePoint);
+        nOffset += m_nSequenceLength;
+        nChars += Character.charCount (nCodePoint);
+      }
+    }
+  }
+
+  @Override
+  @Nonnegative
+  protected int _getUnknownTokenLength (final int c)
+  {
+    if (c < 0x80)
+    {
+      m_nTokenChars = 1;
+      return 1;
+    }
+    m_nTokenChars = Character.charCount (_decode (0));
+    return m_nSequenceLength;
+  }
+
+  @Override
+  protected void _updatePositions (final int nFrom, final int nLength)
+  {
+    for (int i = 0; i < nLength; ++i)
+    {
+      final int c = _byteAt (nFrom + i);
+      if ((c & 0xc0) == 0x80)
+      {
+        // Continuation bytes belong to the previous character
+        continue;
+      }
+      _updateLineColumn ((char) c);
+      if (c >= 0xf0)
+      {
+        // Supplementary characters are two chars (surrogate pair)
+        _updateLineColumn ((char) c);
+      }
+    }
+  }
+
+  @Override
+  protected char _getCharEndingAt (final int nIndex)
+  {
+    final int c = _byteAt (nIndex);
+    if (c < 0x80)
+      return (char) c;
+
+    // Search the start of the sequence
+    int nStart = nIndex;
+    while (nStart > 0 && nIndex - nStart < 3 && (_byteAt (nStart) & 0xc0) == 0x80)
+      nStart--;
+    final String s = _createString (nStart, nIndex - nStart + 1);
+    return s.charAt (s.length () - 1);
+  }
+
+  @Override
+  @Nonnull
+  protected String _createString (final int nFrom, final int nLength)
+  {
+    if (m_aSource != null)
+    {
+      final ByteBuffer aPart = m_aSource.duplicate ();
+      aPart.limit (nFrom + nLength).position (nFrom);
+      return CCharset.CHARSET_UTF_8_OBJ.decode (aPart).toString ();
+    }
+    return new String (m_aBuffer, nFrom, nLength, CCharset.CHARSET_UTF_8_OBJ);
+  }
+}
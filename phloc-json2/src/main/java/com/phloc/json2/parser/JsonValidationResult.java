@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.annotations.Nonempty;
+import com.phloc.commons.state.ISuccessIndicator;
+import com.phloc.commons.string.ToStringGenerator;
+
+/**
+ * The result of {@link JsonReader#validateJson(java.io.Reader)}. In case of an
+ * error it contains the position and a short description of the first error.
+ *
+ * @author Philip Helger
+ */
+@Immutable
+public final class JsonValidationResult implements ISuccessIndicator
+{
+  /** The result for valid Json */
+  public static final JsonValidationResult VALID = new JsonValidationResult (-1, -1, -1, null);
+
+  private final long m_nOffset;
+  private final int m_nLine;
+  private final int m_nColumn;
+  private final String m_sReason;
+
+  private JsonValidationResult (final long nOffset,
+                                final int nLine,
+                                final int nColumn,
+                                @Nullable final String sReason)
+  {
+    m_nOffset = nOffset;
+    m_nLine = nLine;
+    m_nColumn = nColumn;
+    m_sReason = sReason;
+  }
+
+  /**
+   * @return <code>true</code> if the Json is valid.
+   */
+  public boolean isValid ()
+  {
+    return m_sReason == null;
+  }
+
+  public boolean isSuccess ()
+  {
+    return isValid ();
+  }
+
+  public boolean isFailure ()
+  {
+    return !isValid ();
+  }
+
+  /**
+   * @return The 0-based character offset of the error in the source or -1 if
+   *         the Json is valid.
+   */
+  public long getOffset ()
+  {
+    return m_nOffset;
+  }
+
+  /**
+   * @return The 1-based line number of the error or -1 if the Json is valid.
+   */
+  public int getLine ()
+  {
+    return m_nLine;
+  }
+
+  /**
+   * @return The 1-based column number of the error or -1 if the Json is
+   *         valid. Tabs are expanded to 8 columns, as in the messages of
+   *         {@link ParseException}.
+   */
+  public int getColumn ()
+  {
+    return m_nColumn;
+  }
+
+  /**
+   * @return A short description of the error or <code>null</code> if the Json
+   *         is valid.
+   */
+  @Nullable
+  public String getReason ()
+  {
+    return m_sReason;
+  }
+
+  @Override
+  public String toString ()
+  {
+    if (isValid ())
+      return new ToStringGenerator (this).append ("valid", true).toString ();
+    return new ToStringGenerator (this).append ("offset", m_nOffset)
+                                       .append ("line", m_nLine)
+                                       .append ("column", m_nColumn)
+                                       .append ("reason", m_sReason)
+                                       .toString ();
+  }
+
+  /**
+   * Create a new error result.
+   *
+   * @param nOffset
+   *        The 0-based character offset of the error.
+   * @param nLine
+   *        The 1-based line number of the error.
+   * @param nColumn
+   *        The 1-based column number of the error.
+   * @param sReason
+   *        The description of the error. May neither be <code>null</code> nor
+   *        empty.
+   * @return The new result. Never <code>null</code>.
+   */
+  @Nonnull
+  public static JsonValidationResult createError (final long nOffset,
+                                                  final int nLine,
+                                                  final int nColumn,
+                                                  @Nonnull @Nonempty final String sReason)
+  {
+    ValueEnforcer.notEmpty (sReason, "Reason");
+    return new JsonValidationResult (nOffset, nLine, nColumn, sReason);
+  }
+}
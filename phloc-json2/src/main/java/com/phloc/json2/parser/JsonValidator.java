@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.ValueEnforcer;
+
+/**
+ * A recognizer that only checks whether a source is valid Json. It accepts
+ * exactly the same sources as the {@link ParserJson} (including comments), but
+ * it neither builds a tree nor creates tokens, strings or exceptions. Nesting
+ * is handled with an explicit stack instead of recursion, so deeply nested
+ * sources need no stack space.<br>
+ * Errors are returned as {@link JsonValidationResult} with the position of the
+ * offending token.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class JsonValidator implements ParserJsonConstants
+{
+  private static final String EXPECTED_VALUE = "Expected a value";
+  private static final String EXPECTED_FIRST_ARRAY_ELEMENT = "Expected a value or ']'";
+  private static final String EXPECTED_NEXT_ARRAY_ELEMENT = "Expected ',' or ']'";
+  private static final String EXPECTED_FIRST_OBJECT_ELEMENT = "Expected a string key or '}'";
+  private static final String EXPECTED_OBJECT_KEY = "Expected a string key";
+  private static final String EXPECTED_COLON = "Expected ':'";
+  private static final String EXPECTED_NEXT_OBJECT_ELEMENT = "Expected ',' or '}'";
+  private static final String EXPECTED_END_OF_INPUT = "Expected the end of input";
+  private static final String UNTERMINATED_COMMENT = "Unterminated comment";
+
+  private final AbstractJsonScanner m_aScanner;
+  // true for objects, false for arrays
+  private boolean [] m_aStack = new boolean [32];
+  private int m_nDepth = 0;
+
+  public JsonValidator (@Nonnull final AbstractJsonScanner aScanner)
+  {
+    m_aScanner = ValueEnforcer.notNull (aScanner, "Scanner");
+  }
+
+  private void _push (final boolean bObject)
+  {
+    if (m_nDepth == m_aStack.length)
+    {
+      final boolean [] aNewStack = new boolean [m_nDepth * 2];
+      System.arraycopy (m_aStack, 0, aNewStack, 0, m_nDepth);
+      m_aStack = aNewStack;
+    }
+    m_aStack[m_nDepth++] = bObject;
+  }
+
+  @Nonnull
+  private JsonValidationResult _createError (@Nonnull final String sExpected)
+  {
+    final int nKind = m_aScanner.getKind ();
+    return JsonValidationResult.createError (m_aScanner.getTokenOffset (),
+                                             m_aScanner.getBeginLine (),
+                                             m_aScanner.getBeginColumn (),
+                                             sExpected + " but found " + tokenImage[nKind]);
+  }
+
+  @Nonnull
+  private JsonValidationResult _validate ()
+  {
+    int nKind;
+    do
+    {
+      nKind = m_aScanner.nextToken ();
+    } while (nKind == S);
+
+    String sExpected = EXPECTED_VALUE;
+    while (true)
+    {
+      // nKind is the first token of a value
+      switch (nKind)
+      {
+        case STRING:
+        case NUMBER_INT:
+        case NUMBER_DEC:
+        case TRUE:
+        case FALSE:
+        case NULL:
+          break;
+        case LBRACE:
+          nKind = m_aScanner.nextToken ();
+          if (nKind == RBRACE)
+            break;
+          if (nKind != STRING)
+            return _createError (EXPECTED_FIRST_OBJECT_ELEMENT);
+          if (m_aScanner.nextToken () != COLON)
+            return _createError (EXPECTED_COLON);
+          _push (true);
+          nKind = m_aScanner.nextToken ();
+          sExpected = EXPECTED_VALUE;
+          continue;
+        case LSQUARE:
+          nKind = m_aScanner.nextToken ();
+          if (nKind == RSQUARE)
+            break;
+          _push (false);
+          sExpected = EXPECTED_FIRST_ARRAY_ELEMENT;
+          continue;
+        default:
+          return _createError (sExpected);
+      }
+
+      // A value is complete - close all finished containers
+      while (true)
+      {
+        nKind = m_aScanner.nextToken ();
+        if (m_nDepth == 0)
+          return nKind == EOF ? JsonValidationResult.VALID : _createError (EXPECTED_END_OF_INPUT);
+
+        if (m_aStack[m_nDepth - 1])
+        {
+          if (nKind == RBRACE)
+          {
+            --m_nDepth;
+            continue;
+          }
+          if (nKind != COMMA)
+            return _createError (EXPECTED_NEXT_OBJECT_ELEMENT);
+          if (m_aScanner.nextToken () != STRING)
+            return _createError (EXPECTED_OBJECT_KEY);
+          if (m_aScanner.nextToken () != COLON)
+            return _createError (EXPECTED_COLON);
+        }
+        else
+        {
+          if (nKind == RSQUARE)
+          {
+            --m_nDepth;
+            continue;
+          }
+          if (nKind != COMMA)
+            return _createError (EXPECTED_NEXT_ARRAY_ELEMENT);
+        }
+        break;
+      }
+      nKind = m_aScanner.nextToken ();
+      sExpected = EXPECTED_VALUE;
+    }
+  }
+
+  /**
+   * Check the whole source of the scanner.
+   *
+   * @return The validation result. Never <code>null</code>.
+   */
+  @Nonnull
+  public JsonValidationResult validate ()
+  {
+    m_aScanner.setSkipStringValues (true);
+    m_aScanner.setLogIllegalCharacters (false);
+    m_nDepth = 0;
+    try
+    {
+      return _validate ();
+    }
+    catch (final TokenMgrError ex)
+    {
+      // Only thrown for unterminated comments - detected at the end of input
+      return JsonValidationResult.createError (m_aScanner.getReadOffset (),
+                                               m_aScanner.getLine (),
+                                               m_aScanner.getColumn () + 1,
+                                               UNTERMINATED_COMMENT);
+    }
+    finally
+    {
+      m_aScanner.setSkipStringValues (false);
+      m_aScanner.setLogIllegalCharacters (true);
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import com.phloc.commons.CGlobal;
+import com.phloc.commons.ValueEnforcer;
+import com.phloc.commons.io.streams.StreamUtils;
+
+/**
+ * An {@link InputStream} that reads a file via memory mapped windows. Only one
+ * window of the file is mapped at a time, so that files of arbitrary size can
+ * be read. Parts of the file that are skipped via {@link #skip(long)} are never
+ * loaded by the operating system.
+ *
+ * @author Philip Helger
+ */
+@NotThreadSafe
+final class MappedFileInputStream extends InputStream
+{
+  /** The default size of a single mapped window */
+  public static final long DEFAULT_WINDOW_SIZE = 64L * CGlobal.BYTES_PER_MEGABYTE;
+
+  private final RandomAccessFile m_aRAF;
+  private final FileChannel m_aChannel;
+  private final long m_nFileSize;
+  private final long m_nWindowSize;
+  /** The file offset of the current window or of the next window to map */
+  private long m_nWindowStart = 0;
+  private MappedByteBuffer m_aWindow;
+
+  public MappedFileInputStream (@Nonnull final File aFile) throws IOException
+  {
+    this (aFile, DEFAULT_WINDOW_SIZE);
+  }
+
+  public MappedFileInputStream (@Nonnull final File aFile, @Nonnegative final long nWindowSize) throws IOException
+  {
+    ValueEnforcer.notNull (aFile, "File");
+    ValueEnforcer.isBetweenInclusive (nWindowSize, "WindowSize", 1, Integer.MAX_VALUE);
+    m_aRAF = new RandomAccessFile (aFile, "r");
+    try
+    {
+      m_aChannel = m_aRAF.getChannel ();
+      m_nFileSize = m_aChannel.size ();
+    }
+    catch (final IOException ex)
+    {
+      StreamUtils.close (m_aRAF);
+      throw ex;
+    }
+    m_nWindowSize = nWindowSize;
+  }
+
+  /**
+   * Map the complete file into memory at once.
+   *
+   * @param aFile
+   *        The file to map. May not be <code>null</code>.
+   * @return The read-only mapping of the whole file or <code>null</code> if
+   *         the file is too large to be mapped into a single buffer (2 GB).
+   * @throws IOException
+   *         if opening or mapping the file fails
+   */
+  @Nullable
+  static MappedByteBuffer mapFile (@Nonnull final File aFile) throws IOException
+  {
+    ValueEnforcer.notNull (aFile, "File");
+    final RandomAccessFile aRAF = new RandomAccessFile (aFile, "r");
+    try
+    {
+      final FileChannel aChannel = aRAF.getChannel ();
+      final long nFileSize = aChannel.size ();
+      if (nFileSize > Integer.MAX_VALUE)
+        return null;
+      // The mapping stays valid after the channel is closed
+      return aChannel.map (MapMode.READ_ONLY, 0, nFileSize);
+    }
+    finally
+    {
+      StreamUtils.close (aRAF);
+    }
+  }
+
+  /**
+   * Ensure that a window with at least one remaining byte is mapped.
+   *
+   * @return <code>false</code> if the end of the file was reached.
+   * @throws IOException
+   *         if mapping fails
+   */
+  private boolean _ensureWindow () throws IOException
+  {
+    if (m_aWindow != null)
+    {
+      if (m_aWindow.hasRemaining ())
+        return true;
+
+      // Current window is exhausted
+      m_nWindowStart += m_aWindow.capacity ();
+      m_aWindow = null;
+    }
+
+    if (m_nWindowStart >= m_nFileSize)
+      return false;
+
+    final long nSize = Math.min (m_nWindowSize, m_nFileSize - m_nWindowStart);
+    m_aWindow = m_aChannel.map (MapMode.READ_ONLY, m_nWindowStart, nSize);
+    return true;
+  }
+
+  @Nonnegative
+  private long _getPosition ()
+  {
+    return m_aWindow == null ? m_nWindowStart : m_nWindowStart + m_aWindow.position ();
+  }
+
+  @Override
+  public int read () throws IOException
+  {
+    if (!_ensureWindow ())
+      return -1;
+    return m_aWindow.get () & 0xff;
+  }
+
+  @Override
+  public int read (@Nonnull final byte [] aBuf, @Nonnegative final int nOfs, @Nonnegative final int nLen) throws IOException
+  {
+    ValueEnforcer.isArrayOfsLen (aBuf, nOfs, nLen);
+    if (nLen == 0)
+      return 0;
+    if (!_ensureWindow ())
+      return -1;
+    final int nRead = Math.min (nLen, m_aWindow.remaining ());
+    m_aWindow.get (aBuf, nOfs, nRead);
+    return nRead;
+  }
+
+  @Override
+  public long skip (final long n)
+  {
+    if (n <= 0)
+      return 0;
+
+    final long nPos = _getPosition ();
+    final long nSkip = Math.min (n, m_nFileSize - nPos);
+    final long nNewPos = nPos + nSkip;
+    if (m_aWindow != null && nNewPos < m_nWindowStart + m_aWindow.capacity ())
+    {
+      // Still in the current window
+      m_aWindow.position ((int) (nNewPos - m_nWindowStart));
+    }
+    else
+    {
+      // Map a new window upon next read
+      m_aWindow = null;
+      m_nWindowStart = nNewPos;
+    }
+    return nSkip;
+  }
+
+  @Override
+  public int available ()
+  {
+    return (int) Math.min (Integer.MAX_VALUE, m_nFileSize - _getPosition ());
+  }
+
+  @Override
+  public void close () throws IOException
+  {
+    // The mapping itself is released upon garbage collection
+    m_aWindow = null;
+    m_aRAF.close ();
+  }
+}
@@ -46,53 +46,64 @@ public final class ParseUtils
     return ret;
   }
 
+  /**
+   * Unescape the passed string token image in a single pass. Surrogate pairs
+   * written as two subsequent <code>&#92;uXXXX</code> escape sequences result
+   * in the respective two chars.
+   *
+   * @param aImage
+   *        The token image including the surrounding quotes. May not be
+   *        <code>null</code>.
+   * @param nFirstBackslash
+   *        The index of the first backslash in the image.
+   * @return The unescaped string. Never <code>null</code>.
+   */
   @Nonnull
-  public static String unescapeString (@Nonnull final StringBuilder aSB)
+  private static String _unescape (@Nonnull final CharSequence aImage, final int nFirstBackslash)
   {
-    final char [] aSrc = new char [aSB.length () - 2];
-    // Remove quotes
-    aSB.getChars (1, aSB.length () - 1, aSrc, 0);
-
-    if (aSB.indexOf ("\\") < 0)
-      return new String (aSrc);
+    // Without the closing quote
+    final int nEnd = aImage.length () - 1;
+    // The result is never longer than the image without the quotes
+    final char [] aDst = new char [nEnd - 1];
+    int nDst = 0;
+    for (int i = 1; i < nFirstBackslash; ++i)
+      aDst[nDst++] = aImage.charAt (i);
 
-    final int nMax = aSrc.length;
-    final StringBuilder ret = new StringBuilder (nMax);
-    for (int i = 0; i < nMax; ++i)
+    for (int i = nFirstBackslash; i < nEnd; ++i)
     {
-      final char c = aSrc[i];
+      final char c = aImage.charAt (i);
       if (c == '\\')
       {
-        final char cNext = aSrc[++i];
+        final char cNext = aImage.charAt (++i);
         switch (cNext)
         {
           case '"':
           case '/':
           case '\\':
-            ret.append (cNext);
+            aDst[nDst++] = cNext;
             break;
           case 'b':
-            ret.append ('\b');
+            aDst[nDst++] = '\b';
             break;
           case 'f':
-            ret.append ('\f');
+            aDst[nDst++] = '\f';
             break;
           case 'n':
-            ret.append ('\n');
+            aDst[nDst++] = '\n';
             break;
           case 'r':
-            ret.append ('\r');
+            aDst[nDst++] = '\r';
             break;
           case 't':
-            ret.append ('\t');
+            aDst[nDst++] = '\t';
             break;
           case 'u':
           {
-            final char cU1 = aSrc[++i];
-            final char cU2 = aSrc[++i];
-            final char cU3 = aSrc[++i];
-            final char cU4 = aSrc[++i];
-            ret.append ((char) (_hexval (cU1) << 12 | _hexval (cU2) << 8 | _hexval (cU3) << 4 | _hexval (cU4)));
+            final int nU1 = _hexval (aImage.charAt (++i));
+            final int nU2 = _hexval (aImage.charAt (++i));
+            final int nU3 = _hexval (aImage.charAt (++i));
+            final int nU4 = _hexval (aImage.charAt (++i));
+            aDst[nDst++] = (char) (nU1 << 12 | nU2 << 8 | nU3 << 4 | nU4);
             break;
           }
           default:
@@ -100,8 +111,49 @@ public final class ParseUtils
         }
       }
       else
-        ret.append (c);
+        aDst[nDst++] = c;
+    }
+    return new String (aDst, 0, nDst);
+  }
+
+  /**
+   * Unescape the passed string token image.
+   *
+   * @param aSB
+   *        The token image including the surrounding quotes. May not be
+   *        <code>null</code>.
+   * @return The unescaped string without the quotes. Never <code>null</code>.
+   */
+  @Nonnull
+  public static String unescapeString (@Nonnull final StringBuilder aSB)
+  {
+    final int nFirstBackslash = aSB.indexOf ("\\");
+    if (nFirstBackslash < 0)
+    {
+      // Remove quotes
+      return aSB.substring (1, aSB.length () - 1);
+    }
+    return _unescape (aSB, nFirstBackslash);
+  }
+
+  /**
+   * Unescape the passed string token image. If the image contains no escape
+   * sequences, only a single copy of the chars is created.
+   *
+   * @param sImage
+   *        The token image including the surrounding quotes. May not be
+   *        <code>null</code>.
+   * @return The unescaped string without the quotes. Never <code>null</code>.
+   */
+  @Nonnull
+  public static String unescapeString (@Nonnull final String sImage)
+  {
+    final int nFirstBackslash = sImage.indexOf ('\\');
+    if (nFirstBackslash < 0)
+    {
+      // Remove quotes
+      return sImage.substring (1, sImage.length () - 1);
     }
-    return ret.toString ();
+    return _unescape (sImage, nFirstBackslash);
   }
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import java.util.Locale;
+
+import com.phloc.json2.parser.EJsonParserEngine;
+import com.phloc.json2.parser.JsonReader;
+import com.phloc.json2.parser.JsonReaderSettings;
+
+/**
+ * Simple benchmark for creating, writing and reading numeric values, as it is
+ * typical for telemetry data. Run the main method manually - it is not part of
+ * the unit tests.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkNumberValues
+{
+  private static final int VALUES = 100000;
+  private static final int WARMUP_RUNS = 20;
+  private static final int RUNS = 50;
+
+  private BenchmarkNumberValues ()
+  {}
+
+  private static void _print (final String sName, final long nTotal)
+  {
+    System.out.println (String.format (Locale.US, "%-30s %10.2f ns/value", sName, nTotal / (double) RUNS / VALUES));
+  }
+
+  private static int _createAndWrite (final boolean bDecimal)
+  {
+    final JsonArray aArray = new JsonArray ();
+    for (int i = 0; i < VALUES; ++i)
+      if (bDecimal)
+        aArray.add (i * 0.25d + 1000);
+      else
+        aArray.add (i * 1000L + 1000);
+    return aArray.getAsString ().length ();
+  }
+
+  public static void main (final String [] args)
+  {
+    for (final boolean bDecimal : new boolean [] { false, true })
+    {
+      int nDummy = 0;
+      for (int i = 0; i < WARMUP_RUNS; ++i)
+        nDummy += _createAndWrite (bDecimal);
+      final long nStart = System.nanoTime ();
+      for (int i = 0; i < RUNS; ++i)
+        nDummy += _createAndWrite (bDecimal);
+      _print ((bDecimal ? "double" : "long") + " create+write", System.nanoTime () - nStart);
+      if (nDummy == 0)
+        throw new IllegalStateException ();
+    }
+
+    final StringBuilder aSB = new StringBuilder ("[");
+    for (int i = 0; i < VALUES; ++i)
+    {
+      if (i > 0)
+        aSB.append (',');
+      aSB.append (1500000000000L + i * 1000L);
+    }
+    final String sJson = aSB.append (']').toString ();
+    final JsonReaderSettings aSettings = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.DIRECT);
+    for (int i = 0; i < WARMUP_RUNS; ++i)
+      JsonReader.readFromString (sJson, aSettings);
+    final long nStart = System.nanoTime ();
+    for (int i = 0; i < RUNS; ++i)
+      if (JsonReader.readFromString (sJson, aSettings) == null)
+        throw new IllegalStateException ("Failed to parse");
+    _print ("long read (DIRECT)", System.nanoTime () - nStart);
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.phloc.json2.IJson;
+import com.phloc.json2.parser.JsonReader;
+
+/**
+ * Test class for class {@link JsonDoubleValue}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonDoubleValueTest
+{
+  private static Object _serializeAndRead (final Object aObject) throws Exception
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    final ObjectOutputStream aOOS = new ObjectOutputStream (aBAOS);
+    aOOS.writeObject (aObject);
+    aOOS.close ();
+    return new ObjectInputStream (new ByteArrayInputStream (aBAOS.toByteArray ())).readObject ();
+  }
+
+  private static void _check (final double dValue)
+  {
+    final JsonValue aValue = JsonValue.create (dValue);
+    assertTrue (aValue instanceof JsonDoubleValue);
+    final JsonDoubleValue aDouble = (JsonDoubleValue) aValue;
+    assertEquals (dValue, aDouble.getAsDouble (), 0);
+    assertEquals (BigDecimal.valueOf (dValue), aDouble.getValue ());
+    // Same output as the BigDecimal based value
+    assertEquals (JsonValue.create (BigDecimal.valueOf (dValue)).getAsString (), aDouble.getAsString ());
+    // Can be read again
+    final IJson aRead = JsonReader.readFromString (aDouble.getAsString ());
+    assertEquals (aDouble.getAsString (), dValue, ((Number) ((JsonValue) aRead).getValue ()).doubleValue (), 0);
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    final JsonDoubleValue aDouble = (JsonDoubleValue) JsonValue.create (3.14d);
+    assertTrue (aDouble.isDecimalValue ());
+    assertFalse (aDouble.isIntValue ());
+    assertFalse (aDouble.isNullValue ());
+    assertFalse (aDouble.isStringValue ());
+    assertSame (BigDecimal.class, aDouble.getValueClass ());
+    assertSame (aDouble.getValue (), aDouble.getValue ());
+    assertEquals (3L, aDouble.getAsLong ());
+    assertEquals (Double.valueOf (3.14), aDouble.getConvertedValue (Double.class));
+    assertEquals ("3.14", aDouble.getAsString ());
+    assertEquals ("0.0", JsonValue.create (-0.0d).getAsString ());
+
+    for (final double d : new double [] { 0,
+                                          1,
+                                          -1.5,
+                                          100,
+                                          0.001,
+                                          1e-4,
+                                          1e-5,
+                                          1e7,
+                                          1e20,
+                                          -1.25e-300,
+                                          Double.MIN_VALUE,
+                                          Double.MAX_VALUE })
+      _check (d);
+    final Random aRandom = new Random (4711);
+    for (int i = 0; i < 1000; ++i)
+    {
+      final double dRandom = Double.longBitsToDouble (aRandom.nextLong ());
+      if (!Double.isNaN (dRandom) && !Double.isInfinite (dRandom))
+        _check (dRandom);
+      _check (aRandom.nextDouble () * Math.pow (10, aRandom.nextInt (40) - 20));
+    }
+
+    // float values are widened
+    final JsonValue aFloat = JsonValue.create (3.14f);
+    assertTrue (aFloat instanceof JsonDoubleValue);
+    assertEquals (BigDecimal.valueOf (3.14f), aFloat.getValue ());
+    assertEquals (JsonValue.create (BigDecimal.valueOf (3.14f)).getAsString (), aFloat.getAsString ());
+  }
+
+  @Test
+  public void testNotFinite ()
+  {
+    for (final double d : new double [] { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY })
+      try
+      {
+        JsonValue.create (d);
+        fail ();
+      }
+      catch (final NumberFormatException ex)
+      {
+        // expected
+      }
+  }
+
+  @Test
+  public void testSerialize () throws Exception
+  {
+    final JsonValue aValue = JsonValue.create (1e-5);
+    final Object aRead = _serializeAndRead (aValue);
+    assertTrue (aRead instanceof JsonDoubleValue);
+    assertEquals (1e-5, ((JsonDoubleValue) aRead).getAsDouble (), 0);
+    assertEquals (aValue.getAsString (), ((JsonDoubleValue) aRead).getAsString ());
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+import com.phloc.json2.IJson;
+import com.phloc.json2.IJsonArray;
+import com.phloc.json2.parser.EJsonParserEngine;
+import com.phloc.json2.parser.JsonReader;
+import com.phloc.json2.parser.JsonReaderSettings;
+import com.phloc.json2.serialize.JsonValueSerializerEscaped;
+
+/**
+ * Test class for class {@link JsonLazyNumberValue}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonLazyNumberValueTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final JsonLazyNumberValue aInt = JsonLazyNumberValue.create ("-123456789012345678901234567890", false);
+    assertTrue (aInt.isValue ());
+    assertTrue (aInt.isIntValue ());
+    assertFalse (aInt.isDecimalValue ());
+    assertFalse (aInt.isNullValue ());
+    assertSame (BigInteger.class, aInt.getValueClass ());
+    assertEquals (new BigInteger ("-123456789012345678901234567890"), aInt.getValue ());
+    assertSame (aInt.getValue (), aInt.getValue ());
+    assertEquals (new BigDecimal ("-123456789012345678901234567890"), aInt.getAsBigDecimal ());
+    assertEquals ("-123456789012345678901234567890", aInt.getAsString ());
+
+    final JsonLazyNumberValue aLong = JsonLazyNumberValue.create ("-999999999999999999", false);
+    assertEquals (-999999999999999999L, aLong.getAsLong ());
+    assertEquals (Long.MAX_VALUE, JsonLazyNumberValue.create ("9223372036854775807", false).getAsLong ());
+
+    final JsonLazyNumberValue aDec = JsonLazyNumberValue.create ("1.50E+2", true);
+    assertTrue (aDec.isDecimalValue ());
+    assertFalse (aDec.isIntValue ());
+    assertSame (BigDecimal.class, aDec.getValueClass ());
+    assertEquals (150d, aDec.getAsDouble (), 0);
+    assertEquals (150L, aDec.getAsLong ());
+    assertEquals (BigInteger.valueOf (150), aDec.getAsBigInteger ());
+    assertEquals (new BigDecimal ("1.50E+2"), aDec.getValue ());
+    assertEquals (Integer.valueOf (150), aDec.getConvertedValue (Integer.class));
+    // Written verbatim
+    assertEquals ("1.50E+2", aDec.getAsString ());
+  }
+
+  @Test
+  public void testRead ()
+  {
+    final String sJson = "[0,-0,1e5,1.00,123456789012345678901234567890,-2.5E-3,{\"a\":[7]}]";
+    for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+    {
+      final JsonReaderSettings aSettings = new JsonReaderSettings ().setParserEngine (eEngine).setLazyNumbers (true);
+      final IJson aJson = JsonReader.readFromString (sJson, aSettings);
+      assertNotNull (aJson);
+      // Source text is retained
+      assertEquals (sJson, aJson.getAsString ());
+
+      final IJsonArray aArray = (IJsonArray) aJson;
+      assertTrue (aArray.getValueAtIndex (0) instanceof JsonLazyNumberValue);
+      assertEquals (BigInteger.ZERO, aArray.getValueAtIndex (1).getValue ());
+      assertTrue (aArray.getValueAtIndex (2).isDecimalValue ());
+      assertEquals (new BigDecimal ("1e5"), aArray.getValueAtIndex (2).getValue ());
+
+      // Same values as the eager objects
+      final IJsonArray aEager = (IJsonArray) JsonReader.readFromString (sJson,
+                                                                        new JsonReaderSettings ().setParserEngine (eEngine));
+      for (final int i : new int [] { 0, 1, 3, 4, 5 })
+        assertEquals (aEager.getValueAtIndex (i).getValue (), aArray.getValueAtIndex (i).getValue ());
+    }
+  }
+
+  @Test
+  public void testEquals ()
+  {
+    final JsonLazyNumberValue aFive = JsonLazyNumberValue.create ("5", false);
+    assertTrue (aFive.equals (JsonLazyNumberValue.create ("5", false)));
+    assertTrue (aFive.equals (JsonValue.create (5)));
+    assertTrue (JsonValue.create (5).equals (aFive));
+    assertTrue (aFive.equals (JsonValue.create (BigInteger.valueOf (5))));
+    assertTrue (JsonValue.create (BigInteger.valueOf (5)).equals (aFive));
+    assertFalse (aFive.equals (JsonValue.create (6)));
+    assertFalse (JsonValue.create (6).equals (aFive));
+    // Compared by value and not by source text
+    assertTrue (JsonLazyNumberValue.create ("-0", false).equals (JsonValue.create (0)));
+    assertTrue (JsonLazyNumberValue.create ("1.5", true).equals (JsonValue.create (1.5)));
+    assertTrue (JsonValue.create (1.5).equals (JsonLazyNumberValue.create ("1.5", true)));
+    // A string is no number
+    assertFalse (aFive.equals (JsonValue.create ("5", JsonValueSerializerEscaped.getInstance ())));
+    assertFalse (JsonValue.create ("5", JsonValueSerializerEscaped.getInstance ()).equals (aFive));
+  }
+
+  @Test
+  public void testEqualsDocument ()
+  {
+    final String sJson = "[0,-0,1.5e5,1.00,123456789012345678901234567890,-2.5E-3,{\"a\":[7]}]";
+    for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+    {
+      final IJson aLazy = JsonReader.readFromString (sJson,
+                                                     new JsonReaderSettings ().setParserEngine (eEngine)
+                                                                              .setLazyNumbers (true));
+      final IJson aEager = JsonReader.readFromString (sJson, new JsonReaderSettings ().setParserEngine (eEngine));
+      assertTrue (aLazy.equals (aEager));
+      assertTrue (aEager.equals (aLazy));
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+import com.phloc.json2.IJsonArray;
+import com.phloc.json2.IJsonValue;
+import com.phloc.json2.parser.EJsonParserEngine;
+import com.phloc.json2.parser.JsonReader;
+import com.phloc.json2.parser.JsonReaderSettings;
+
+/**
+ * Test class for class {@link JsonLongValue}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonLongValueTest
+{
+  private static Object _serializeAndRead (final Object aObject) throws Exception
+  {
+    final ByteArrayOutputStream aBAOS = new ByteArrayOutputStream ();
+    final ObjectOutputStream aOOS = new ObjectOutputStream (aBAOS);
+    aOOS.writeObject (aObject);
+    aOOS.close ();
+    return new ObjectInputStream (new ByteArrayInputStream (aBAOS.toByteArray ())).readObject ();
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    for (final long n : new long [] { 0, -1, 126, 127, -128, -129, 4711, Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE })
+    {
+      final JsonValue aValue = JsonValue.create (n);
+      assertTrue (aValue instanceof JsonLongValue);
+      final JsonLongValue aLong = (JsonLongValue) aValue;
+      assertEquals (n, aLong.getAsLong ());
+      assertEquals ((int) n, aLong.getAsInt ());
+      assertEquals (n, aLong.getAsDouble (), 0);
+      assertTrue (aLong.isIntValue ());
+      assertFalse (aLong.isDecimalValue ());
+      assertFalse (aLong.isNullValue ());
+      assertFalse (aLong.isStringValue ());
+      assertSame (BigInteger.class, aLong.getValueClass ());
+      assertEquals (BigInteger.valueOf (n), aLong.getValue ());
+      assertSame (aLong.getValue (), aLong.getValue ());
+      assertEquals (Long.valueOf (n), aLong.getConvertedValue (Long.class));
+      assertEquals (Long.toString (n), aLong.getAsString ());
+      // Same output as the generic value
+      assertEquals (JsonValue.create (BigInteger.valueOf (n)).getAsString (), aLong.getAsString ());
+    }
+    assertTrue (JsonValue.create (5) instanceof JsonLongValue);
+    assertTrue (JsonValue.create (100000) instanceof JsonLongValue);
+    assertTrue (JsonValue.create ((short) 815) instanceof JsonLongValue);
+  }
+
+  @Test
+  public void testSerialize () throws Exception
+  {
+    final JsonValue aValue = JsonValue.create (Long.MIN_VALUE);
+    final Object aRead = _serializeAndRead (aValue);
+    assertTrue (aRead instanceof JsonLongValue);
+    assertEquals (Long.MIN_VALUE, ((JsonLongValue) aRead).getAsLong ());
+    assertEquals (aValue.getAsString (), ((JsonLongValue) aRead).getAsString ());
+  }
+
+  @Test
+  public void testRead ()
+  {
+    final String sJson = "[0,-0,4711,-999999999999999999,1000000000000000000,-9223372036854775808]";
+    for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+    {
+      final IJsonArray aArray = (IJsonArray) JsonReader.readFromString (sJson,
+                                                                        new JsonReaderSettings ().setParserEngine (eEngine));
+      assertEquals ("[0,0,4711,-999999999999999999,1000000000000000000,-9223372036854775808]", aArray.getAsString ());
+      // Up to 18 digits are read as long
+      for (int i = 0; i < 4; ++i)
+        assertTrue (aArray.getValueAtIndex (i) instanceof JsonLongValue);
+      for (int i = 4; i < 6; ++i)
+      {
+        final IJsonValue aValue = (IJsonValue) aArray.getValueAtIndex (i);
+        assertFalse (aValue instanceof JsonLongValue);
+        assertTrue (aValue.getValue () instanceof BigInteger);
+      }
+      assertEquals (-999999999999999999L, ((JsonLongValue) aArray.getValueAtIndex (3)).getAsLong ());
+    }
+  }
+}
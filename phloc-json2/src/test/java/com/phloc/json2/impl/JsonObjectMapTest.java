@@ -0,0 +1,238 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.phloc.json2.IJson;
+
+/**
+ * Test class for class {@link JsonObjectMap}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonObjectMapTest
+{
+  private static void _assertSameContent (final Map <String, IJson> aExpected, final JsonObjectMap aMap)
+  {
+    assertEquals (aExpected.size (), aMap.size ());
+    assertEquals (aExpected.isEmpty (), aMap.isEmpty ());
+    final Iterator <Map.Entry <String, IJson>> itExpected = aExpected.entrySet ().iterator ();
+    for (final Map.Entry <String, IJson> aEntry : aMap.entrySet ())
+    {
+      final Map.Entry <String, IJson> aExpectedEntry = itExpected.next ();
+      assertEquals (aExpectedEntry.getKey (), aEntry.getKey ());
+      assertSame (aExpectedEntry.getValue (), aEntry.getValue ());
+      assertSame (aExpectedEntry.getValue (), aMap.get (aEntry.getKey ()));
+      assertTrue (aMap.containsKey (aEntry.getKey ()));
+    }
+    assertFalse (itExpected.hasNext ());
+  }
+
+  @Test
+  public void testRandomOperations ()
+  {
+    final Random aRandom = new Random (4711);
+    // Owned keys, shared keys and a cache that is full soon
+    final JsonObjectShapeCache [] aShapeCaches = new JsonObjectShapeCache [] { null,
+                                                                              new JsonObjectShapeCache (),
+                                                                              new JsonObjectShapeCache (3) };
+    for (int nRun = 0; nRun < 300; ++nRun)
+    {
+      final Map <String, IJson> aExpected = new LinkedHashMap <String, IJson> ();
+      final JsonObjectMap aMap = new JsonObjectMap (aRandom.nextInt (12), aShapeCaches[nRun % 3]);
+      for (int i = 0; i < 40; ++i)
+      {
+        final String sKey = "k" + aRandom.nextInt (nRun % 2 == 0 ? 10 : 20);
+        switch (aRandom.nextInt (4))
+        {
+          case 0:
+          case 1:
+          {
+            final IJson aValue = JsonValue.create (aRandom.nextInt (1000) + 1000);
+            assertSame (aExpected.put (sKey, aValue), aMap.put (sKey, aValue));
+            break;
+          }
+          case 2:
+            assertSame (aExpected.remove (sKey), aMap.remove (sKey));
+            break;
+          default:
+            assertSame (aExpected.get (sKey), aMap.get (sKey));
+            assertEquals (Boolean.valueOf (aExpected.containsKey (sKey)),
+                          Boolean.valueOf (aMap.containsKey (sKey)));
+            break;
+        }
+        _assertSameContent (aExpected, aMap);
+      }
+    }
+  }
+
+  @Test
+  public void testLayoutSwitch ()
+  {
+    final JsonObjectMap aMap = new JsonObjectMap (0, null);
+    assertTrue (aMap.isCompact ());
+    for (int i = 0; i < JsonObjectMap.COMPACT_MAX_SIZE; ++i)
+      aMap.put ("k" + i, JsonValue.create (i));
+    assertTrue (aMap.isCompact ());
+    aMap.put ("k0", JsonValue.TRUE);
+    assertTrue (aMap.isCompact ());
+    aMap.put ("x", JsonValue.NULL);
+    assertFalse (aMap.isCompact ());
+    assertEquals (JsonObjectMap.COMPACT_MAX_SIZE + 1, aMap.size ());
+    // Order is kept
+    final Iterator <String> it = aMap.keySet ().iterator ();
+    assertEquals ("k0", it.next ());
+    assertEquals ("k1", it.next ());
+    assertSame (JsonValue.TRUE, aMap.get ("k0"));
+    assertSame (JsonValue.NULL, aMap.get ("x"));
+
+    assertFalse (new JsonObjectMap (JsonObjectMap.COMPACT_MAX_SIZE + 1, null).isCompact ());
+  }
+
+  @Test
+  public void testIterator ()
+  {
+    final JsonObjectMap aMap = new JsonObjectMap (4, new JsonObjectShapeCache ());
+    for (int i = 0; i < 5; ++i)
+      aMap.put ("k" + i, JsonValue.create (i));
+
+    // Remove while iterating
+    final Iterator <Map.Entry <String, IJson>> it = aMap.entrySet ().iterator ();
+    while (it.hasNext ())
+    {
+      final Map.Entry <String, IJson> aEntry = it.next ();
+      if (aEntry.getKey ().equals ("k1") || aEntry.getKey ().equals ("k4"))
+        it.remove ();
+      else
+        aEntry.setValue (JsonValue.TRUE);
+    }
+    assertEquals (3, aMap.size ());
+    assertEquals ("[k0, k2, k3]", aMap.keySet ().toString ());
+    for (final IJson aValue : aMap.values ())
+      assertSame (JsonValue.TRUE, aValue);
+    assertNull (aMap.get ("k1"));
+
+    // Fail fast
+    try
+    {
+      for (final String sKey : aMap.keySet ())
+        aMap.put (sKey + "x", JsonValue.FALSE);
+      fail ();
+    }
+    catch (final ConcurrentModificationException ex)
+    {
+      // expected
+    }
+
+    aMap.clear ();
+    assertTrue (aMap.isEmpty ());
+    assertNull (aMap.get ("k0"));
+  }
+
+  @Test
+  public void testEntrySetValueAfterRemove ()
+  {
+    final JsonObjectShapeCache [] aShapeCaches = new JsonObjectShapeCache [] { null,
+                                                                              new JsonObjectShapeCache (),
+                                                                              new JsonObjectShapeCache (1) };
+    for (final JsonObjectShapeCache aShapeCache : aShapeCaches)
+    {
+      final JsonObject aObject = new JsonObject (3, aShapeCache);
+      aObject.add ("a", 1).add ("b", 2).add ("c", 3);
+      final Iterator <Map.Entry <String, IJson>> it = aObject.iterator ();
+      it.next ();
+      final Map.Entry <String, IJson> aEntryB = it.next ();
+      final Map.Entry <String, IJson> aEntryC = it.next ();
+      aObject.removeKey ("a");
+
+      // The value of the right key is changed
+      assertSame (aObject.get ("b"), aEntryB.setValue (JsonValue.create (20)));
+      assertEquals ("{\"b\":20,\"c\":3}", aObject.getAsString ());
+
+      // A removed key is not added again
+      aObject.removeKey ("c");
+      aEntryC.setValue (JsonValue.create (30));
+      assertEquals ("{\"b\":20}", aObject.getAsString ());
+
+      // Switch to the hashed layout
+      for (int i = 0; i < JsonObjectMap.COMPACT_MAX_SIZE; ++i)
+        aObject.add ("k" + i, i);
+      aEntryB.setValue (JsonValue.create (200));
+      assertEquals ("200", aObject.get ("b").getAsString ());
+      assertEquals (JsonObjectMap.COMPACT_MAX_SIZE + 1, aObject.size ());
+    }
+  }
+
+  @Test
+  public void testIteratorAfterLayoutSwitch ()
+  {
+    final JsonObjectMap aMap = new JsonObjectMap (0, new JsonObjectShapeCache ());
+    for (int i = 0; i < JsonObjectMap.COMPACT_MAX_SIZE; ++i)
+      aMap.put ("k" + i, JsonValue.create (i));
+    final Iterator <Map.Entry <String, IJson>> it = aMap.entrySet ().iterator ();
+    it.next ();
+    aMap.put ("x", JsonValue.NULL);
+    assertFalse (aMap.isCompact ());
+    assertTrue (it.hasNext ());
+    try
+    {
+      it.next ();
+      fail ();
+    }
+    catch (final ConcurrentModificationException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testJsonObject ()
+  {
+    final JsonObject aObject = new JsonObject ();
+    for (int i = 0; i < 20; ++i)
+    {
+      aObject.add ("k" + i, i);
+      assertEquals (i + 1, aObject.size ());
+    }
+    final StringBuilder aSB = new StringBuilder ("{");
+    for (int i = 0; i < 20; ++i)
+    {
+      if (i > 0)
+        aSB.append (',');
+      aSB.append ("\"k").append (i).append ("\":").append (i);
+    }
+    assertEquals (aSB.append ('}').toString (), aObject.getAsString ());
+    aObject.removeKey ("k5");
+    assertFalse (aObject.containsKey ("k5"));
+    assertEquals (19, aObject.keySet ().size ());
+  }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.phloc.json2.IJson;
+import com.phloc.json2.IJsonArray;
+import com.phloc.json2.parser.JsonReader;
+
+/**
+ * Test class for class {@link JsonObjectShape} and
+ * {@link JsonObjectShapeCache}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonObjectShapeTest
+{
+  @Test
+  public void testTransitions ()
+  {
+    final JsonObjectShapeCache aCache = new JsonObjectShapeCache ();
+    final JsonObjectShape aEmpty = aCache.getEmptyShape ();
+    assertTrue (aEmpty.isShared ());
+    assertSame (aCache, aEmpty.getCache ());
+    assertEquals (0, aEmpty.getSize ());
+
+    final JsonObjectShape aA = aEmpty.getChild ("a");
+    assertEquals (1, aA.getSize ());
+    assertEquals ("a", aA.getKey (0));
+    assertEquals (0, aA.getIndex ("a"));
+    assertEquals (-1, aA.getIndex ("b"));
+    assertEquals (-1, aA.getIndex (null));
+
+    // Transitions are cached - also for equal but not identical keys
+    assertSame (aA, aEmpty.getChild (new String ("a")));
+    final JsonObjectShape aAB = aA.getChild ("b");
+    assertSame (aAB, aA.getChild ("b"));
+    assertEquals (1, aAB.getIndex (new String ("b")));
+    assertEquals (2, aCache.getShapeCount ());
+
+    // The order of the keys matters
+    final JsonObjectShape aBA = aEmpty.getChild ("b").getChild ("a");
+    assertNotSame (aAB, aBA);
+    assertEquals (0, aBA.getIndex ("b"));
+
+    // Removing a key leads to the existing shapes
+    assertSame (aA, aAB.getWithout (1));
+    assertSame (aEmpty.getChild ("b"), aAB.getWithout (0));
+    assertSame (aEmpty, aA.getWithout (0));
+    assertSame (aEmpty, aAB.getEmpty ());
+
+    // Null key
+    final JsonObjectShape aNull = aA.getChild (null);
+    assertEquals (1, aNull.getIndex (null));
+    assertNull (aNull.getKey (1));
+
+    // Other caches have other shapes
+    assertNotSame (aA, new JsonObjectShapeCache ().getEmptyShape ().getChild ("a"));
+  }
+
+  @Test
+  public void testOwned ()
+  {
+    final JsonObjectShape aShape = JsonObjectShape.createOwned (0);
+    assertFalse (aShape.isShared ());
+    assertNull (aShape.getCache ());
+
+    // Modified in place
+    for (final String sKey : new String [] { "a", "b", null, "d" })
+      assertSame (aShape, aShape.getChild (sKey));
+    assertEquals (4, aShape.getSize ());
+    assertEquals (1, aShape.getIndex (new String ("b")));
+    assertEquals (2, aShape.getIndex (null));
+    assertEquals (-1, aShape.getIndex ("e"));
+
+    assertSame (aShape, aShape.getWithout (1));
+    assertEquals (3, aShape.getSize ());
+    assertEquals ("d", aShape.getKey (2));
+    assertEquals (-1, aShape.getIndex ("b"));
+
+    assertSame (aShape, aShape.getEmpty ());
+    assertEquals (0, aShape.getSize ());
+    assertEquals (-1, aShape.getIndex ("a"));
+  }
+
+  @Test
+  public void testCacheFull ()
+  {
+    final JsonObjectShapeCache aCache = new JsonObjectShapeCache (2);
+    final JsonObjectShape aAB = aCache.getEmptyShape ().getChild ("a").getChild ("b");
+    assertTrue (aAB.isShared ());
+    assertEquals (2, aCache.getShapeCount ());
+
+    // No more shapes are cached - continue with an owned shape
+    final JsonObjectShape aABC = aAB.getChild ("c");
+    assertFalse (aABC.isShared ());
+    assertEquals (2, aABC.getIndex ("c"));
+    assertNotSame (aABC, aAB.getChild ("c"));
+    assertSame (aABC, aABC.getChild ("d"));
+    assertEquals (2, aCache.getShapeCount ());
+
+    // Existing shapes are still shared
+    assertSame (aAB, aCache.getEmptyShape ().getChild ("a").getChild ("b"));
+    assertFalse (aCache.getEmptyShape ().getChild ("x").isShared ());
+  }
+
+  @Test
+  public void testSharedByObjects ()
+  {
+    final JsonObjectShapeCache aCache = new JsonObjectShapeCache ();
+    final JsonObjectMap aMap1 = new JsonObjectMap (JsonObject.DEFAULT_INITIAL_CAPACITY, aCache);
+    final JsonObjectMap aMap2 = new JsonObjectMap (0, aCache);
+    final JsonObjectMap aMap3 = new JsonObjectMap (0, null);
+    for (final String sKey : new String [] { "id", "name", "value" })
+    {
+      aMap1.put (sKey, JsonValue.TRUE);
+      aMap2.put (new String (sKey), JsonValue.FALSE);
+      aMap3.put (sKey, JsonValue.NULL);
+    }
+    assertSame (aMap1.getShape (), aMap2.getShape ());
+    assertSame (aCache, aMap1.getShapeCache ());
+    assertSame (JsonValue.TRUE, aMap1.get ("name"));
+    assertSame (JsonValue.FALSE, aMap2.get ("name"));
+    // Without a cache, each object has its own keys
+    assertFalse (aMap3.getShape ().isShared ());
+    assertNull (aMap3.getShapeCache ());
+    assertSame (JsonValue.NULL, aMap3.get ("value"));
+
+    // Overwriting keeps the shape
+    final JsonObjectShape aShape = aMap1.getShape ();
+    aMap1.put ("id", JsonValue.NULL);
+    assertSame (aShape, aMap1.getShape ());
+
+    // Removing and adding a key again moves the key to the end
+    aMap2.remove ("id");
+    aMap2.put ("id", JsonValue.NULL);
+    assertNotSame (aShape, aMap2.getShape ());
+    assertEquals ("[name, value, id]", aMap2.keySet ().toString ());
+    assertSame (JsonValue.FALSE, aMap2.get ("value"));
+    assertSame (JsonValue.NULL, aMap2.get ("id"));
+  }
+
+  @Test
+  public void testRead ()
+  {
+    final String sJson = "[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"}]";
+    final IJsonArray aArray1 = (IJsonArray) JsonReader.readFromString (sJson);
+    final IJsonArray aArray2 = (IJsonArray) JsonReader.readFromString (sJson);
+    final JsonObject aObject1 = (JsonObject) aArray1.getObjectAtIndex (0);
+    final JsonObject aObject2 = (JsonObject) aArray1.getObjectAtIndex (1);
+    final JsonObject aObject3 = (JsonObject) aArray2.getObjectAtIndex (0);
+
+    // The records of a document share the keys, but not with other documents
+    final JsonObjectShapeCache aCache = aObject1.getShapeCache ();
+    assertNotNull (aCache);
+    assertSame (aCache, aObject2.getShapeCache ());
+    assertNotSame (aCache, aObject3.getShapeCache ());
+
+    // Clones use the same cache
+    final IJson aClone = aObject1.getClone ();
+    assertSame (aCache, ((JsonObject) aClone).getShapeCache ());
+    assertNull (new JsonObject ().getShapeCache ());
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.util.Locale;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.json2.IJson;
+import com.phloc.json2.IJsonObject;
+
+/**
+ * Simple benchmark for reading a few values of a large document with the
+ * eager {@link EJsonParserEngine#DIRECT} engine and with {@link JsonReader#readLazyFromString(String)}. Run
+ * the main method manually - it is not part of the unit tests.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkLazyDocument
+{
+  private static final int WARMUP_RUNS = 300;
+  private static final int RUNS = 50;
+
+  private BenchmarkLazyDocument ()
+  {}
+
+  @Nonnull
+  private static String _createDocument (final int nRecords)
+  {
+    final StringBuilder aSB = new StringBuilder ("{\"meta\":{\"version\":3,\"id\":\"abc\"},\"records\":[");
+    for (int i = 0; i < nRecords; ++i)
+    {
+      if (i > 0)
+        aSB.append (',');
+      aSB.append ("{\"id\":")
+         .append (i)
+         .append (",\"name\":\"Record ")
+         .append (i)
+         .append ("\",\"price\":")
+         .append (i * 0.25)
+         .append (",\"tags\":[\"a\",\"b\",\"c\"],\"address\":{\"street\":\"Main Street ")
+         .append (i)
+         .append ("\",\"city\":\"Vienna\",\"zip\":\"1010\"}}");
+    }
+    aSB.append ("]}");
+    return aSB.toString ();
+  }
+
+  private static int _access (@Nonnull final IJson aJson)
+  {
+    // Read only a few values
+    final IJsonObject aRoot = (IJsonObject) aJson;
+    final Number aVersion = (Number) aRoot.getObject ("meta").getValue ("version").getValue ();
+    final String sZip = (String) aRoot.getArray ("records")
+                                      .getObjectAtIndex (10)
+                                      .getObject ("address")
+                                      .getValue ("zip")
+                                      .getValue ();
+    return aVersion.intValue () + Integer.parseInt (sZip);
+  }
+
+  private interface IReader
+  {
+    IJson read (@Nonnull String sJson);
+  }
+
+  private static void _run (@Nonnull final String sName, @Nonnull final String sJson, @Nonnull final IReader aReader)
+  {
+    for (int i = 0; i < WARMUP_RUNS; ++i)
+      _access (aReader.read (sJson));
+
+    final long nStart = System.nanoTime ();
+    for (int i = 0; i < RUNS; ++i)
+      if (_access (aReader.read (sJson)) != 1013)
+        throw new IllegalStateException ("Wrong result");
+    final long nTotal = System.nanoTime () - nStart;
+    System.out.println (String.format (Locale.US,
+                                       "%-30s %10.2f ms",
+                                       sName + " (" + sJson.length () / 1024 + " KB)",
+                                       nTotal / 1000000.0 / RUNS));
+  }
+
+  public static void main (final String [] args)
+  {
+    final JsonReaderSettings aDirect = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.DIRECT);
+
+    for (final int nRecords : new int [] { 1000, 20000 })
+    {
+      final String sJson = _createDocument (nRecords);
+      _run ("DIRECT", sJson, new IReader ()
+      {
+        public IJson read (@Nonnull final String s)
+        {
+          return JsonReader.readFromString (s, aDirect);
+        }
+      });
+      _run ("Lazy", sJson, new IReader ()
+      {
+        public IJson read (@Nonnull final String s)
+        {
+          return JsonReader.readLazyFromString (s, aDirect);
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.util.Locale;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.json2.IJson;
+
+/**
+ * Simple benchmark for parsing documents with very long tokens (multi
+ * megabyte strings and numbers). Run the main method manually - it is not
+ * part of the unit tests.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkLongTokens
+{
+  private static final int WARMUP_RUNS = 2;
+  private static final int RUNS = 3;
+
+  private BenchmarkLongTokens ()
+  {}
+
+  @Nonnull
+  private static String _createLongString (final int nLength)
+  {
+    // Similar to a base64 blob
+    final String sAlphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    final StringBuilder aSB = new StringBuilder (nLength + 16);
+    aSB.append ("[\"");
+    for (int i = 0; i < nLength; ++i)
+      aSB.append (sAlphabet.charAt (i % sAlphabet.length ()));
+    aSB.append ("\"]");
+    return aSB.toString ();
+  }
+
+  @Nonnull
+  private static String _createLongNumber (final int nLength)
+  {
+    final StringBuilder aSB = new StringBuilder (nLength + 16);
+    aSB.append ("[1");
+    for (int i = 1; i < nLength; ++i)
+      aSB.append ((char) ('0' + i % 10));
+    aSB.append (".5]");
+    return aSB.toString ();
+  }
+
+  private static void _run (@Nonnull final String sName,
+                            @Nonnull final String sJson,
+                            @Nonnull final JsonReaderSettings aSettings)
+  {
+    for (int i = 0; i < WARMUP_RUNS; ++i)
+      JsonReader.readFromReader (new NonBlockingStringReader (sJson), aSettings);
+
+    long nTotal = 0;
+    for (int i = 0; i < RUNS; ++i)
+    {
+      final long nStart = System.nanoTime ();
+      final IJson aJson = JsonReader.readFromReader (new NonBlockingStringReader (sJson), aSettings);
+      nTotal += System.nanoTime () - nStart;
+      if (aJson == null)
+        throw new IllegalStateException ("Failed to parse");
+    }
+    System.out.println (String.format (Locale.US,
+                                       "%-40s %10.2f ms",
+                                       sName + " (" + sJson.length () / 1024 + " KB)",
+                                       nTotal / 1000000.0 / RUNS));
+  }
+
+  public static void main (final String [] args)
+  {
+    final JsonReaderSettings aJavaCC = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.JAVACC);
+    final JsonReaderSettings aJavaCCFast = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.JAVACC)
+                                                                    .setTrackPosition (false);
+    final JsonReaderSettings aDirect = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.DIRECT);
+
+    for (final int nLength : new int [] { 1024 * 1024, 4 * 1024 * 1024, 10 * 1024 * 1024 })
+    {
+      final String sString = _createLongString (nLength);
+      _run ("String JAVACC", sString, aJavaCC);
+      _run ("String JAVACC w/o position", sString, aJavaCCFast);
+      _run ("String DIRECT", sString, aDirect);
+
+      // Converting the number to BigDecimal is not linear, so use shorter
+      // tokens to not only measure the conversion
+      final String sNumber = _createLongNumber (nLength / 64);
+      _run ("Number JAVACC", sNumber, aJavaCC);
+      _run ("Number JAVACC w/o position", sNumber, aJavaCCFast);
+      _run ("Number DIRECT", sNumber, aDirect);
+    }
+  }
+}
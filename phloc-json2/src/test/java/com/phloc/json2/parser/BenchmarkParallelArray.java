@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.io.streams.StreamUtils;
+import com.phloc.json2.IJson;
+
+/**
+ * Simple benchmark comparing sequential and parallel reading of a file with a
+ * large top-level array. Run the main method manually - it is not part of the
+ * unit tests. The optional first argument is the number of array elements.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkParallelArray
+{
+  private static final int WARMUP_RUNS = 2;
+  private static final int RUNS = 3;
+
+  private BenchmarkParallelArray ()
+  {}
+
+  @Nonnull
+  private static File _createFile (final int nElements) throws IOException
+  {
+    final File aFile = File.createTempFile ("benchmark", ".json");
+    aFile.deleteOnExit ();
+    final Writer aWriter = new BufferedWriter (new OutputStreamWriter (new FileOutputStream (aFile),
+                                                                       CCharset.CHARSET_UTF_8_OBJ));
+    try
+    {
+      aWriter.write ("[\n");
+      for (int i = 0; i < nElements; ++i)
+      {
+        if (i > 0)
+          aWriter.write (",\n");
+        aWriter.write ("{\"id\":" +
+                       i +
+                       ",\"name\":\"Element " +
+                       i +
+                       "\",\"active\":" +
+                       (i % 2 == 0) +
+                       ",\"score\":" +
+                       (i * 0.25) +
+                       ",\"tags\":[\"a\",\"b\",\"c\"]}");
+      }
+      aWriter.write ("\n]\n");
+    }
+    finally
+    {
+      StreamUtils.close (aWriter);
+    }
+    return aFile;
+  }
+
+  private static double _runSequential (@Nonnull final File aFile, @Nonnull final JsonReaderSettings aSettings)
+  {
+    long nTotal = 0;
+    for (int i = 0; i < WARMUP_RUNS + RUNS; ++i)
+    {
+      final long nStart = System.nanoTime ();
+      final IJson aJson = JsonReader.readFromFile (aFile, aSettings);
+      if (i >= WARMUP_RUNS)
+        nTotal += System.nanoTime () - nStart;
+      if (aJson == null)
+        throw new IllegalStateException ("Failed to parse");
+    }
+    return nTotal / 1000000.0 / RUNS;
+  }
+
+  private static double _runParallel (@Nonnull final File aFile,
+                                      @Nonnull final JsonReaderSettings aSettings,
+                                      @Nonnull final ForkJoinPool aPool)
+  {
+    long nTotal = 0;
+    for (int i = 0; i < WARMUP_RUNS + RUNS; ++i)
+    {
+      final long nStart = System.nanoTime ();
+      final IJson aJson = JsonReader.readArrayParallel (aFile, aSettings, aPool);
+      if (i >= WARMUP_RUNS)
+        nTotal += System.nanoTime () - nStart;
+      if (aJson == null)
+        throw new IllegalStateException ("Failed to parse");
+    }
+    return nTotal / 1000000.0 / RUNS;
+  }
+
+  public static void main (final String [] args) throws IOException
+  {
+    final int nElements = args.length > 0 ? Integer.parseInt (args[0]) : 1000000;
+    final File aFile = _createFile (nElements);
+    System.out.println ("File size: " + aFile.length () / 1024 / 1024 + " MB");
+
+    final JsonReaderSettings aSettings = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.DIRECT)
+                                                                  .setMemoryMapFiles (true);
+    final double dSequential = _runSequential (aFile, aSettings);
+    System.out.println (String.format (Locale.US, "%-20s %10.2f ms", "Sequential", dSequential));
+
+    final int nMaxThreads = Runtime.getRuntime ().availableProcessors ();
+    for (int nThreads = 1; nThreads <= nMaxThreads; nThreads *= 2)
+    {
+      final ForkJoinPool aPool = new ForkJoinPool (nThreads);
+      try
+      {
+        final double dParallel = _runParallel (aFile, aSettings, aPool);
+        System.out.println (String.format (Locale.US,
+                                           "%-20s %10.2f ms (speedup %.2f)",
+                                           nThreads + " thread(s)",
+                                           dParallel,
+                                           dSequential / dParallel));
+      }
+      finally
+      {
+        aPool.shutdown ();
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.util.Locale;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.json2.IJson;
+
+/**
+ * Simple benchmark for parsing many small documents one after the other, as
+ * it is typical for request bodies of an HTTP API. Run the main method
+ * manually - it is not part of the unit tests.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkSmallDocuments
+{
+  private static final int WARMUP_RUNS = 200000;
+  private static final int RUNS = 500000;
+
+  private BenchmarkSmallDocuments ()
+  {}
+
+  private static void _run (@Nonnull final String sName,
+                            @Nonnull final String sJson,
+                            @Nonnull final JsonReaderSettings aSettings)
+  {
+    for (int i = 0; i < WARMUP_RUNS; ++i)
+      JsonReader.readFromString (sJson, aSettings);
+
+    final long nStart = System.nanoTime ();
+    for (int i = 0; i < RUNS; ++i)
+    {
+      final IJson aJson = JsonReader.readFromString (sJson, aSettings);
+      if (aJson == null)
+        throw new IllegalStateException ("Failed to parse");
+    }
+    final long nTotal = System.nanoTime () - nStart;
+    System.out.println (String.format (Locale.US,
+                                       "%-40s %10.2f us/document",
+                                       sName + " (" + sJson.length () + " chars)",
+                                       nTotal / 1000.0 / RUNS));
+  }
+
+  public static void main (final String [] args)
+  {
+    final JsonReaderSettings aJavaCC = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.JAVACC);
+    final JsonReaderSettings aJavaCCFast = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.JAVACC)
+                                                                    .setTrackPosition (false);
+    final JsonReaderSettings aDirect = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.DIRECT);
+
+    final String sTiny = "{\"id\":4711,\"ok\":true}";
+    final String sSmall = "{\"id\":4711,\"name\":\"Order 4711\",\"customer\":{\"id\":12,\"email\":\"john@example.org\"},"
+                          + "\"items\":[{\"sku\":\"A-1\",\"qty\":2,\"price\":9.99},{\"sku\":\"B-7\",\"qty\":1,\"price\":120.5}],"
+                          + "\"paid\":false,\"note\":null}";
+    for (final String sJson : new String [] { sTiny, sSmall })
+    {
+      _run ("JAVACC", sJson, aJavaCC);
+      _run ("JAVACC w/o position", sJson, aJavaCCFast);
+      _run ("DIRECT", sJson, aDirect);
+    }
+  }
+}
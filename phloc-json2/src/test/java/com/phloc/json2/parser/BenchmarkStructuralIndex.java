@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.util.Locale;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.commons.charset.CCharset;
+
+/**
+ * Simple benchmark comparing the byte by byte and the word-at-a-time variant
+ * of the {@link JsonStructuralIndexer}. Run the main method manually - it is
+ * not part of the unit tests.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkStructuralIndex
+{
+  private static final int WARMUP_RUNS = 50;
+  private static final int RUNS = 100;
+
+  private BenchmarkStructuralIndex ()
+  {}
+
+  @Nonnull
+  private static byte [] _createRecords (final int nCount)
+  {
+    final StringBuilder aSB = new StringBuilder ("[");
+    for (int i = 0; i < nCount; ++i)
+    {
+      if (i > 0)
+        aSB.append (",\n");
+      aSB.append ("{\"id\":")
+         .append (i)
+         .append (",\"name\":\"Name ")
+         .append (i)
+         .append ("\",\"active\":")
+         .append (i % 2 == 0)
+         .append (",\"tags\":[\"a\",\"b\",\"c\"],\"score\":")
+         .append (i * 0.25)
+         .append ('}');
+    }
+    return aSB.append (']').toString ().getBytes (CCharset.CHARSET_UTF_8_OBJ);
+  }
+
+  @Nonnull
+  private static byte [] _createText (final int nCount)
+  {
+    final StringBuilder aSB = new StringBuilder ("[");
+    for (int i = 0; i < nCount; ++i)
+    {
+      if (i > 0)
+        aSB.append (',');
+      aSB.append ("{\"text\":\"Lorem ipsum dolor sit amet, consetetur sadipscing elitr, sed diam nonumy eirmod tempor " +
+                  "invidunt ut labore et dolore magna aliquyam erat, sed diam voluptua. \\\"Quoted\\\" " +
+                  i +
+                  "\"}");
+    }
+    return aSB.append (']').toString ().getBytes (CCharset.CHARSET_UTF_8_OBJ);
+  }
+
+  private static int _index (@Nonnull final JsonStructuralIndexer aIndexer, @Nonnull final byte [] aBytes)
+  {
+    // Same buffer size as used by the parallel reader
+    final int nBufSize = 64 * 1024;
+    aIndexer.reset ();
+    int ret = 0;
+    for (int nFrom = 0; nFrom < aBytes.length; nFrom += nBufSize)
+      ret += aIndexer.index (aBytes, nFrom, Math.min (nFrom + nBufSize, aBytes.length));
+    return ret;
+  }
+
+  private static void _run (@Nonnull final String sName, @Nonnull final byte [] aBytes, final boolean bSWAR)
+  {
+    final JsonStructuralIndexer aIndexer = new JsonStructuralIndexer (bSWAR);
+    for (int i = 0; i < WARMUP_RUNS; ++i)
+      _index (aIndexer, aBytes);
+
+    long nTotal = 0;
+    int nPositions = 0;
+    for (int i = 0; i < RUNS; ++i)
+    {
+      final long nStart = System.nanoTime ();
+      nPositions = _index (aIndexer, aBytes);
+      nTotal += System.nanoTime () - nStart;
+    }
+    final double dMillis = nTotal / 1000000.0 / RUNS;
+    System.out.println (String.format (Locale.US,
+                                       "%-30s %10.3f ms %8.0f MB/s (%d positions)",
+                                       sName + " (" + aBytes.length / 1024 + " KB)",
+                                       Double.valueOf (dMillis),
+                                       Double.valueOf (aBytes.length / 1024.0 / 1024.0 / (dMillis / 1000)),
+                                       Integer.valueOf (nPositions)));
+  }
+
+  public static void main (final String [] args)
+  {
+    final byte [] aRecords = _createRecords (100000);
+    final byte [] aText = _createText (50000);
+    for (int i = 0; i < 2; ++i)
+    {
+      _run ("Records scalar", aRecords, false);
+      _run ("Records SWAR", aRecords, true);
+      _run ("Text scalar", aText, false);
+      _run ("Text SWAR", aText, true);
+    }
+  }
+}
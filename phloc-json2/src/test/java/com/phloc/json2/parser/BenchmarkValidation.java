@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import java.util.Locale;
+
+import javax.annotation.Nonnull;
+
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+
+/**
+ * Simple benchmark comparing the validation with the recognizer of
+ * {@link JsonReader#validateJson(String)} against a full run of the generated
+ * parser, as it was previously done by {@link JsonReader#isValidJson(String)}.
+ * Valid and invalid documents are checked. Run the main method manually - it
+ * is not part of the unit tests.
+ *
+ * @author Philip Helger
+ */
+public final class BenchmarkValidation
+{
+  private static final int WARMUP_RUNS = 100000;
+  private static final int RUNS = 200000;
+
+  private BenchmarkValidation ()
+  {}
+
+  private static boolean _isValidWithParser (@Nonnull final String sJson)
+  {
+    final JsonParserContext aContext = JsonParserContext.acquire ();
+    try
+    {
+      aContext.getParser (aContext.getCharStream (new NonBlockingStringReader (sJson)), true).json ();
+      return true;
+    }
+    catch (final ParseException ex)
+    {
+      return false;
+    }
+    finally
+    {
+      aContext.release ();
+    }
+  }
+
+  private static void _run (@Nonnull final String sName, @Nonnull final String sJson, final boolean bRecognizer)
+  {
+    boolean bValid = false;
+    for (int i = 0; i < WARMUP_RUNS; ++i)
+      bValid = bRecognizer ? JsonReader.isValidJson (sJson) : _isValidWithParser (sJson);
+
+    final int nRuns = Math.max (1000, RUNS / (1 + sJson.length () / 1000));
+    final long nStart = System.nanoTime ();
+    for (int i = 0; i < nRuns; ++i)
+      if ((bRecognizer ? JsonReader.isValidJson (sJson) : _isValidWithParser (sJson)) != bValid)
+        throw new IllegalStateException ("Inconsistent result");
+    final long nTotal = System.nanoTime () - nStart;
+    System.out.println (String.format (Locale.US,
+                                       "%-45s %10.2f us/document (%s)",
+                                       sName + " (" + sJson.length () + " chars)",
+                                       Double.valueOf (nTotal / 1000.0 / nRuns),
+                                       bValid ? "valid" : "invalid"));
+  }
+
+  public static void main (final String [] args)
+  {
+    final String sSmall = "{\"id\":4711,\"name\":\"Order 4711\",\"customer\":{\"id\":12,\"email\":\"john@example.org\"},"
+                          + "\"items\":[{\"sku\":\"A-1\",\"qty\":2,\"price\":9.99},{\"sku\":\"B-7\",\"qty\":1,\"price\":120.5}],"
+                          + "\"paid\":false,\"note\":null}";
+    final StringBuilder aSB = new StringBuilder ("[");
+    for (int i = 0; i < 100; ++i)
+    {
+      if (i > 0)
+        aSB.append (',');
+      aSB.append (sSmall);
+    }
+    final String sLarge = aSB.append (']').toString ();
+
+    // Invalid near the end and right at the start
+    final String sInvalidLate = sSmall.substring (0, sSmall.length () - 1) + ",}";
+    final String sInvalidEarly = "{\"id\" 4711" + sSmall.substring (10);
+    final String sInvalidLarge = sLarge.substring (0, sLarge.length () - 1) + ",]";
+
+    for (final String sJson : new String [] { sSmall, sInvalidLate, sInvalidEarly, sLarge, sInvalidLarge })
+    {
+      _run ("Generated parser", sJson, false);
+      _run ("Recognizer", sJson, true);
+    }
+  }
+}
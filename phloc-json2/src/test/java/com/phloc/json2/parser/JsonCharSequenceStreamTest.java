@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.json2.IJson;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonCharSequenceStream}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonCharSequenceStreamTest
+{
+  private static final class CollectingExceptionHandler implements IJsonParseExceptionHandler
+  {
+    private final List <String> m_aMessages = ContainerHelper.newList ();
+
+    public void onException (final ParseException ex)
+    {
+      m_aMessages.add (ex.getMessage ());
+    }
+  }
+
+  private static final String [] VALID = { "{}",
+                                           "[1, 2.5,\t-3]",
+                                           "\n\r\n {\"a\" :\r[true,false,null],\n\t\"b\":\"x\\ty\\u00e4\"}",
+                                           "/* c */ [/* d */1]",
+                                           "\"" + "0123456789".replace ("0", "abcdefghijklmnopqrstuvwxyz") + "\"" };
+
+  private static final String [] INVALID = { "",
+                                             "[1,,2]",
+                                             "{\n\t\"a\":\r\n\t\t[1,\n2,]}",
+                                             "[1]\n\n]",
+                                             "\t\t{\"a\" 1}",
+                                             "[\"abc",
+                                             "[1,\n  ]",
+                                             "[ /* d */ 1 ]",
+                                             "[1 /* unterminated" };
+
+  @Nullable
+  private static String _readFromReader (@Nonnull final String sJson, final boolean bTrackPosition)
+  {
+    final CollectingExceptionHandler aHandler = new CollectingExceptionHandler ();
+    final IJson aJson = JsonReader.readFromReader (new NonBlockingStringReader (sJson),
+                                                   new JsonReaderSettings ().setTrackPosition (bTrackPosition)
+                                                                            .setCustomExceptionHandler (aHandler));
+    if (aJson != null)
+      return aJson.getAsString ();
+    assertEquals (sJson, 1, aHandler.m_aMessages.size ());
+    return aHandler.m_aMessages.get (0);
+  }
+
+  @Nullable
+  private static String _readFromString (@Nonnull final String sJson, final boolean bTrackPosition)
+  {
+    final CollectingExceptionHandler aHandler = new CollectingExceptionHandler ();
+    final IJson aJson = JsonReader.readFromString (sJson,
+                                                   new JsonReaderSettings ().setTrackPosition (bTrackPosition)
+                                                                            .setCustomExceptionHandler (aHandler));
+    if (aJson != null)
+      return aJson.getAsString ();
+    assertEquals (sJson, 1, aHandler.m_aMessages.size ());
+    return aHandler.m_aMessages.get (0);
+  }
+
+  @Test
+  public void testSameAsReader ()
+  {
+    for (final String [] aJsons : new String [] [] { VALID, INVALID })
+      for (final String sJson : aJsons)
+      {
+        // With position tracking the JsonCharStream is used for the reader
+        final String sExpected = _readFromReader (sJson, true);
+        assertNotNull (sJson, sExpected);
+        assertEquals (sJson, sExpected, _readFromString (sJson, true));
+        // Without position tracking the error position is determined in a
+        // second pass
+        assertEquals (sJson, sExpected, _readFromString (sJson, false));
+      }
+  }
+
+  @Nonnull
+  private static String _getTokenMgrErrorMessage (@Nonnull final Runnable aRunnable)
+  {
+    try
+    {
+      aRunnable.run ();
+      fail ();
+      return null;
+    }
+    catch (final TokenMgrError ex)
+    {
+      return ex.getMessage ();
+    }
+  }
+
+  @Test
+  public void testUnterminatedComment ()
+  {
+    final String sJson = "[1,\n\t/* x";
+    final String sExpected = _getTokenMgrErrorMessage (new Runnable ()
+    {
+      public void run ()
+      {
+        JsonReader.readFromReader (new NonBlockingStringReader (sJson));
+      }
+    });
+    assertEquals (sExpected, _getTokenMgrErrorMessage (new Runnable ()
+    {
+      public void run ()
+      {
+        JsonReader.readFromString (sJson);
+      }
+    }));
+    assertEquals (sExpected, _getTokenMgrErrorMessage (new Runnable ()
+    {
+      public void run ()
+      {
+        JsonReader.readFromString (sJson, new JsonReaderSettings ().setTrackPosition (false));
+      }
+    }));
+  }
+
+  @Test
+  public void testOtherEntryPoints ()
+  {
+    for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+    {
+      final JsonReaderSettings aSettings = new JsonReaderSettings ().setParserEngine (eEngine);
+      for (final String sJson : VALID)
+      {
+        final String sExpected = JsonReader.readFromString (sJson).getAsString ();
+        assertEquals (sExpected, JsonReader.readFromChars (sJson.toCharArray (), aSettings).getAsString ());
+        assertEquals (sExpected,
+                      JsonReader.readFromCharSequence (new StringBuilder (sJson), aSettings).getAsString ());
+        assertEquals (sExpected, JsonReader.readFromString (sJson, aSettings).getAsString ());
+      }
+      for (final String sJson : INVALID)
+      {
+        final JsonReaderSettings aQuietSettings = aSettings.getClone ()
+                                                           .setCustomExceptionHandler (new CollectingExceptionHandler ());
+        assertNull (sJson, JsonReader.readFromChars (sJson.toCharArray (), aQuietSettings));
+      }
+    }
+
+    // A leading BOM character is ignored
+    assertEquals ("[1]", JsonReader.readFromString ("﻿[1]", CCharset.CHARSET_UTF_8_OBJ).getAsString ());
+    // The charset is not relevant
+    assertEquals ("[\"€\"]",
+                  JsonReader.readFromString ("[\"€\"]", CCharset.CHARSET_ISO_8859_1_OBJ).getAsString ());
+  }
+
+  @Test
+  public void testDirectScannerUsesArray ()
+  {
+    final char [] aChars = "{\"a\":[1,2,3],\"b\":\"c\"}".toCharArray ();
+    final char [] aCopy = aChars.clone ();
+    final JsonReaderSettings aSettings = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.DIRECT);
+    assertEquals ("{\"a\":[1,2,3],\"b\":\"c\"}", JsonReader.readFromChars (aChars, aSettings).getAsString ());
+    // The source is not modified
+    assertEquals (new String (aCopy), new String (aChars));
+
+    // The document size limit is checked for arrays as well
+    final CollectingExceptionHandler aHandler = new CollectingExceptionHandler ();
+    assertNull (JsonReader.readFromChars (aChars,
+                                          aSettings.getClone ()
+                                                   .setLimits (new JsonReaderLimits ().setMaxDocumentSize (10))
+                                                   .setCustomExceptionHandler (aHandler)));
+    assertEquals (1, aHandler.m_aMessages.size ());
+
+    // A reused scanner must not keep the array
+    assertEquals ("[5]",
+                  JsonReader.readFromReader (new NonBlockingStringReader ("[5]"), aSettings).getAsString ());
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.Test;
+
+import com.phloc.json2.IJson;
+import com.phloc.json2.IJsonArray;
+
+/**
+ * Test class for class {@link JsonCharStream}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonCharStreamTest
+{
+  @Test
+  public void testLongToken ()
+  {
+    final StringBuilder aValue = new StringBuilder ();
+    for (int i = 0; i < 3 * 1024 * 1024; ++i)
+      aValue.append ((char) ('a' + i % 26));
+    final StringBuilder aDigits = new StringBuilder ("1");
+    for (int i = 0; i < 100000; ++i)
+      aDigits.append ((char) ('0' + i % 10));
+
+    final IJson aJson = JsonReader.readFromString ("[\"" + aValue + "\", " + aDigits + "]");
+    assertNotNull (aJson);
+    final IJsonArray aArray = (IJsonArray) aJson;
+    assertEquals (2, aArray.size ());
+    assertEquals (aValue.toString (), aArray.getValueAtIndex (0).getValue ());
+  }
+
+  @Test
+  public void testManyTokensOfDifferentLength ()
+  {
+    // Forces the ring buffer to wrap around and to grow several times
+    final StringBuilder aSB = new StringBuilder ("[");
+    for (int i = 0; i < 200; ++i)
+    {
+      if (i > 0)
+        aSB.append (",\n");
+      aSB.append ('"');
+      for (int j = 0; j < (i * 997) % 9000; ++j)
+        aSB.append ((char) ('A' + j % 26));
+      aSB.append ('"');
+    }
+    aSB.append (']');
+    final String sJson = aSB.toString ();
+
+    final IJson aJavaCC = JsonReader.readFromString (sJson);
+    assertNotNull (aJavaCC);
+    final IJson aDirect = JsonReader.readFromString (sJson,
+                                                     new JsonReaderSettings ().setParserEngine (EJsonParserEngine.DIRECT));
+    assertNotNull (aDirect);
+    assertEquals (aDirect.getAsString (), aJavaCC.getAsString ());
+  }
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.io.resource.ClassPathResource;
+import com.phloc.commons.io.streams.StreamUtils;
+import com.phloc.json2.IJson;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonDirectParser}. All results are compared with
+ * the results of the JavaCC based parser.
+ *
+ * @author Philip Helger
+ */
+public final class JsonDirectParserTest
+{
+  private static final String MOCK_JSON_MINI = "com/phloc/json/mock/mockLibraryMini.json";
+  private static final String MOCK_JSON_MEDIUM = "com/phloc/json/mock/mockLibrary.json";
+
+  private static final class CollectingHandler implements IJsonParseExceptionHandler
+  {
+    private final List <ParseException> m_aExceptions = new ArrayList <ParseException> ();
+
+    public void onException (@Nonnull final ParseException ex)
+    {
+      m_aExceptions.add (ex);
+    }
+  }
+
+  @Nonnull
+  private static JsonReaderSettings _settings (@Nonnull final EJsonParserEngine eEngine,
+                                               @Nonnull final IJsonParseExceptionHandler aHandler)
+  {
+    return new JsonReaderSettings ().setParserEngine (eEngine).setCustomExceptionHandler (aHandler);
+  }
+
+  private static void _assertSame (@Nonnull final String sJson)
+  {
+    final IJson aJavaCC = JsonReader.readFromString (sJson,
+                                                     _settings (EJsonParserEngine.JAVACC, new CollectingHandler ()));
+    assertNotNull ("Failed to parse: " + sJson, aJavaCC);
+    final IJson aDirect = JsonReader.readFromString (sJson,
+                                                     _settings (EJsonParserEngine.DIRECT, new CollectingHandler ()));
+    assertNotNull ("Failed to parse: " + sJson, aDirect);
+    assertEquals (sJson, aJavaCC.getClass (), aDirect.getClass ());
+    assertEquals (sJson, aJavaCC.getAsString (), aDirect.getAsString ());
+  }
+
+  private static void _assertSameError (@Nonnull final String sJson)
+  {
+    final CollectingHandler aJavaCCHandler = new CollectingHandler ();
+    assertNull (sJson, JsonReader.readFromString (sJson, _settings (EJsonParserEngine.JAVACC, aJavaCCHandler)));
+    final CollectingHandler aDirectHandler = new CollectingHandler ();
+    assertNull (sJson, JsonReader.readFromString (sJson, _settings (EJsonParserEngine.DIRECT, aDirectHandler)));
+
+    assertEquals (sJson, 1, aJavaCCHandler.m_aExceptions.size ());
+    assertEquals (sJson, 1, aDirectHandler.m_aExceptions.size ());
+    final ParseException aExpected = aJavaCCHandler.m_aExceptions.get (0);
+    final ParseException aActual = aDirectHandler.m_aExceptions.get (0);
+    assertEquals (sJson, aExpected.getMessage (), aActual.getMessage ());
+    assertEquals (sJson, aExpected.expectedTokenSequences.length, aActual.expectedTokenSequences.length);
+    for (int i = 0; i < aExpected.expectedTokenSequences.length; ++i)
+      assertEquals (sJson,
+                    Arrays.toString (aExpected.expectedTokenSequences[i]),
+                    Arrays.toString (aActual.expectedTokenSequences[i]));
+
+    final Token aExpectedToken = aExpected.currentToken.next;
+    final Token aActualToken = aActual.currentToken.next;
+    assertEquals (sJson, aExpectedToken.kind, aActualToken.kind);
+    assertEquals (sJson, aExpectedToken.beginLine, aActualToken.beginLine);
+    assertEquals (sJson, aExpectedToken.beginColumn, aActualToken.beginColumn);
+    assertEquals (sJson, aExpectedToken.endLine, aActualToken.endLine);
+    assertEquals (sJson, aExpectedToken.endColumn, aActualToken.endColumn);
+  }
+
+  @Test
+  public void testValid ()
+  {
+    for (final String sJson : new String [] { "true",
+                                             "false",
+                                             "null",
+                                             "10",
+                                             "0",
+                                             "-0",
+                                             "-199999",
+                                             "1.5",
+                                             "-1.00000",
+                                             "10e+3",
+                                             "1.5e+3",
+                                             "-1.00000E15",
+                                             "12345678901234567890123",
+                                             "\"\"",
+                                             "\"abc'def'hgi\"",
+                                             "\"ab\\\"ab\\/ab\\\\aa\\bab\\nab\\fab\\rab\\nab\\tab\"",
+                                             "\"ab\\u1234ab\"",
+                                             "[]",
+                                             "[3]",
+                                             "[3,4,5]",
+                                             "[3,\"abc\",4,[],5]",
+                                             "[[[[[]]]],{},[{}]]",
+                                             "{}",
+                                             "{\"key\":56}",
+                                             "{\"key\":56, \"value2\": \"abc\"}",
+                                             "{\"key\":56, \"key\": \"abc\"}",
+                                             "  {  \"key\"  :  -1.00000E15  ,  \"value2\"  :  \"abc\"  }  ",
+                                             " \t\r\n [ 1 ,\r\n 2 ]\n",
+                                             "/* comment */ {/**/\"a\"/* x */:/***/[1/**/,2]/**/}",
+                                             "{\"a\":true,\"b\":false,\"c\":null,\"d\":{\"e\":[1,2.5,\"x\"]}}" })
+      _assertSame (sJson);
+  }
+
+  @Test
+  public void testMockFiles ()
+  {
+    for (final String sPath : new String [] { MOCK_JSON_MINI, MOCK_JSON_MEDIUM })
+    {
+      final String sJson = StreamUtils.getAllBytesAsString (ClassPathResource.getInputStream (sPath),
+                                                            CCharset.CHARSET_UTF_8_OBJ);
+      _assertSame (sJson);
+    }
+  }
+
+  @Test
+  public void testLongString ()
+  {
+    // Exceeds the initial buffer size of the scanner
+    final StringBuilder aSB = new StringBuilder ("[\"");
+    for (int i = 0; i < 10000; ++i)
+      aSB.append (i % 10 == 0 ? "\\n" : "a");
+    aSB.append ("\",\"");
+    for (int i = 0; i < 10000; ++i)
+      aSB.append ('b');
+    aSB.append ("\"]");
+    _assertSame (aSB.toString ());
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    for (final String sJson : new String [] { "",
+                                             "   ",
+                                             "1 ",
+                                             "1 2",
+                                             "[",
+                                             "[1",
+                                             "[1,",
+                                             "[1,]",
+                                             "[1 2]",
+                                             "{",
+                                             "{\"a\"",
+                                             "{\"a\":",
+                                             "{\"a\":1",
+                                             "{\"a\":1,",
+                                             "{\"a\":1,}",
+                                             "{1:2}",
+                                             "{\"a\" 1}",
+                                             "}",
+                                             "]",
+                                             "tru",
+                                             "nul",
+                                             "-",
+                                             "01",
+                                             "1.",
+                                             "\"abc",
+                                             "\"a\nb\"",
+                                             "\"\\x\"",
+                                             "[1]\n\n  x",
+                                             "{\n\t\"a\" :\r\n  [1,\r\n\t ;]}",
+                                             "[1]/* */ " })
+      _assertSameError (sJson);
+  }
+
+  @Test
+  public void testEmptyKey ()
+  {
+    // The syntax error after the empty key is reported
+    for (final String sJson : new String [] { "{\"\":1,\"a\" 2}",
+                                             "[{\"\":1},]",
+                                             "{\"a\":{\"\":[1]}",
+                                             "{\"\":1} x" })
+      _assertSameError (sJson);
+
+    // A valid document with an empty key cannot be represented
+    for (final String sJson : new String [] { "{\"\":1}", "[1,{\"a\":{\"\":null}}]" })
+      for (final EJsonParserEngine eEngine : new EJsonParserEngine [] { EJsonParserEngine.JAVACC,
+                                                                        EJsonParserEngine.DIRECT })
+      {
+        final CollectingHandler aHandler = new CollectingHandler ();
+        try
+        {
+          JsonReader.readFromString (sJson, _settings (eEngine, aHandler));
+          fail (sJson + " " + eEngine);
+        }
+        catch (final IllegalArgumentException ex)
+        {
+          assertEquals ("name", ex.getMessage ());
+        }
+        assertEquals (0, aHandler.m_aExceptions.size ());
+      }
+  }
+
+  @Test
+  public void testUnterminatedComment ()
+  {
+    for (final String sJson : new String [] { "/*", "[1, /* abc", "[1,\n/* abc\n" })
+    {
+      String sExpected = null;
+      try
+      {
+        JsonReader.readFromString (sJson, _settings (EJsonParserEngine.JAVACC, new CollectingHandler ()));
+        fail ();
+      }
+      catch (final TokenMgrError ex)
+      {
+        sExpected = ex.getMessage ();
+      }
+      try
+      {
+        JsonReader.readFromString (sJson, _settings (EJsonParserEngine.DIRECT, new CollectingHandler ()));
+        fail ();
+      }
+      catch (final TokenMgrError ex)
+      {
+        assertEquals (sJson, sExpected, ex.getMessage ());
+      }
+    }
+  }
+}
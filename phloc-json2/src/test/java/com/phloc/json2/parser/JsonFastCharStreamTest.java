@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.io.resource.ClassPathResource;
+import com.phloc.commons.io.streamprovider.StringInputStreamProvider;
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.commons.io.streams.StreamUtils;
+import com.phloc.json2.IJson;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonFastCharStream}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonFastCharStreamTest
+{
+  private static final String MOCK_JSON_MEDIUM = "com/phloc/json/mock/mockLibrary.json";
+
+  private static final class CollectingHandler implements IJsonParseExceptionHandler
+  {
+    private final List <ParseException> m_aExceptions = new ArrayList <ParseException> ();
+
+    public void onException (@Nonnull final ParseException ex)
+    {
+      m_aExceptions.add (ex);
+    }
+  }
+
+  @Nonnull
+  private static JsonReaderSettings _fast (@Nonnull final IJsonParseExceptionHandler aHandler)
+  {
+    return new JsonReaderSettings ().setTrackPosition (false).setCustomExceptionHandler (aHandler);
+  }
+
+  @Test
+  public void testValid ()
+  {
+    final StringBuilder aLong = new StringBuilder ("[\"");
+    for (int i = 0; i < 20000; ++i)
+      aLong.append ((char) ('a' + i % 26));
+    aLong.append ("\", 1, 2]");
+
+    for (final String sJson : new String [] { "true",
+                                             "-1.00000E15",
+                                             "\"ab\\u1234ab\"",
+                                             "[3,\"abc\",4,[],5]",
+                                             "  {  \"key\"  :  -1.00000E15  ,  \"value2\"  :  \"abc\"  }  ",
+                                             "/* comment */ [1,/**/2]",
+                                             aLong.toString (),
+                                             StreamUtils.getAllBytesAsString (ClassPathResource.getInputStream (MOCK_JSON_MEDIUM),
+                                                                              CCharset.CHARSET_UTF_8_OBJ) })
+    {
+      final IJson aExpected = JsonReader.readFromString (sJson);
+      assertNotNull (aExpected);
+      final IJson aFast = JsonReader.readFromString (sJson, _fast (new CollectingHandler ()));
+      assertNotNull (sJson, aFast);
+      assertEquals (aExpected.getAsString (), aFast.getAsString ());
+    }
+  }
+
+  @Test
+  public void testErrorPositionRecovered ()
+  {
+    for (final String sJson : new String [] { "", "[1,]", "{\n  \"a\" :\n\t1 2}", "[1]\n\n  x" })
+    {
+      final CollectingHandler aExpected = new CollectingHandler ();
+      assertNull (JsonReader.readFromString (sJson, new JsonReaderSettings ().setCustomExceptionHandler (aExpected)));
+
+      // Reopenable sources
+      final CollectingHandler aFromString = new CollectingHandler ();
+      assertNull (JsonReader.readFromString (sJson, _fast (aFromString)));
+      final CollectingHandler aFromISP = new CollectingHandler ();
+      assertNull (JsonReader.readFromStream (new StringInputStreamProvider (sJson, CCharset.CHARSET_UTF_8_OBJ),
+                                             _fast (aFromISP)));
+
+      assertEquals (1, aExpected.m_aExceptions.size ());
+      assertEquals (1, aFromString.m_aExceptions.size ());
+      assertEquals (1, aFromISP.m_aExceptions.size ());
+      final String sExpectedMsg = aExpected.m_aExceptions.get (0).getMessage ();
+      assertEquals (sExpectedMsg, aFromString.m_aExceptions.get (0).getMessage ());
+      assertEquals (sExpectedMsg, aFromISP.m_aExceptions.get (0).getMessage ());
+    }
+  }
+
+  @Test
+  public void testErrorWithoutPosition ()
+  {
+    // A Reader cannot be read twice
+    final CollectingHandler aHandler = new CollectingHandler ();
+    assertNull (JsonReader.readFromReader (new NonBlockingStringReader ("[1,]"), _fast (aHandler)));
+    assertEquals (1, aHandler.m_aExceptions.size ());
+    final Token aErrorToken = aHandler.m_aExceptions.get (0).currentToken.next;
+    assertEquals ("]", aErrorToken.image);
+    assertEquals (-1, aErrorToken.beginLine);
+    assertEquals (-1, aErrorToken.beginColumn);
+  }
+
+  @Test
+  public void testTokenMgrError ()
+  {
+    final String sJson = "[1,\n /* abc";
+    try
+    {
+      JsonReader.readFromString (sJson, _fast (new CollectingHandler ()));
+      fail ();
+    }
+    catch (final TokenMgrError ex)
+    {
+      assertTrue (ex.getMessage (), ex.getMessage ().contains ("line 2, column 8"));
+    }
+  }
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.charset.CharsetManager;
+import com.phloc.json2.IJson;
+
+/**
+ * Test class for class {@link JsonFeedParser}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonFeedParserTest
+{
+  private static final String [] VALID = { "{}",
+                                           "[]",
+                                           "\"abc\"",
+                                           "-12.5e+3",
+                                           "0",
+                                           "true",
+                                           " \n null",
+                                           "[1,2.5,-3,\"x\",true,false,null]",
+                                           "{\"a\":{\"b\":[{\"c\":\"d\"}]},\"e\":[[[]]]}",
+                                           "{ \"a\" : 1 ,\n \"b\" : [ 2 , 3 ] }",
+                                           "[\"\\u00e4\\n\\\"\\\\\\/\",\"äöü€\",\"😀\"]",
+                                           "/* comment */ [1,/*x*/2]",
+                                           "{\"long\":\"" +
+                                               "abcdefghijklmnopqrstuvwxyz0123456789abcdefghijklmnopqrstuvwxyz0123456789" +
+                                               "\",\"n\":12345678901234567890123}" };
+
+  @Nonnull
+  private static byte [] _getBytes (@Nonnull final String s)
+  {
+    return CharsetManager.getAsBytes (s, CCharset.CHARSET_UTF_8_OBJ);
+  }
+
+  /**
+   * Feed the passed bytes in chunks of the passed size and read the document.
+   */
+  @Nonnull
+  private static IJson _readInChunks (@Nonnull final byte [] aBytes, final int nChunkSize) throws ParseException
+  {
+    final IJsonFeedParser aParser = JsonReader.createFeedParser ();
+    for (int i = 0; i < aBytes.length; i += nChunkSize)
+    {
+      // The document cannot be complete before the end of input
+      assertNull (aParser.readDocument ());
+      aParser.feed (aBytes, i, Math.min (nChunkSize, aBytes.length - i));
+    }
+    aParser.endOfInput ();
+    final IJson ret = aParser.readDocument ();
+    assertNotNull (ret);
+    assertFalse (aParser.hasNext ());
+    return ret;
+  }
+
+  @Test
+  public void testReadDocumentInChunks () throws ParseException
+  {
+    for (final String sJson : VALID)
+    {
+      final String sExpected = JsonReader.readFromString (sJson).getAsString ();
+      final byte [] aBytes = _getBytes (sJson);
+      for (int nChunkSize = 1; nChunkSize <= aBytes.length; ++nChunkSize)
+        assertEquals (sJson + " in chunks of " + nChunkSize,
+                      sExpected,
+                      _readInChunks (aBytes, nChunkSize).getAsString ());
+    }
+  }
+
+  @Test
+  public void testEvents () throws ParseException
+  {
+    final IJsonFeedParser aParser = JsonReader.createFeedParser ();
+    assertEquals (EJsonPullParserEvent.NEED_MORE_INPUT, aParser.next ());
+
+    aParser.feed (ByteBuffer.wrap (_getBytes ("[\"ab")));
+    assertEquals (EJsonPullParserEvent.START_ARRAY, aParser.next ());
+    assertEquals (1, aParser.getDepth ());
+    assertEquals (EJsonPullParserEvent.NEED_MORE_INPUT, aParser.next ());
+    assertNull (aParser.getString ());
+
+    aParser.feed (ByteBuffer.wrap (_getBytes ("c\",{\"k\":12")));
+    assertEquals (EJsonPullParserEvent.VALUE_STRING, aParser.next ());
+    assertEquals ("abc", aParser.getString ());
+    assertEquals (EJsonPullParserEvent.START_OBJECT, aParser.next ());
+    assertEquals (EJsonPullParserEvent.KEY, aParser.next ());
+    assertEquals ("k", aParser.getString ());
+    // The number may continue
+    assertEquals (EJsonPullParserEvent.NEED_MORE_INPUT, aParser.next ());
+
+    aParser.feed (ByteBuffer.wrap (_getBytes ("3.5}]")));
+    assertEquals (EJsonPullParserEvent.VALUE_NUMBER, aParser.next ());
+    assertEquals ("123.5", aParser.getString ());
+    assertTrue (aParser.isDecimalNumber ());
+    assertEquals ("123.5", aParser.getValue ().getAsString ());
+    assertEquals (EJsonPullParserEvent.END_OBJECT, aParser.next ());
+    // Whitespaces after the closing bracket may follow
+    assertEquals (EJsonPullParserEvent.NEED_MORE_INPUT, aParser.next ());
+    assertTrue (aParser.hasNext ());
+
+    aParser.endOfInput ();
+    assertEquals (EJsonPullParserEvent.END_ARRAY, aParser.next ());
+    assertEquals (0, aParser.getDepth ());
+    assertEquals (EJsonPullParserEvent.END_DOCUMENT, aParser.next ());
+    assertFalse (aParser.hasNext ());
+
+    try
+    {
+      aParser.feed (new byte [1], 0, 1);
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testByteBuffer () throws ParseException
+  {
+    final IJsonFeedParser aParser = JsonReader.createFeedParser ();
+    final ByteBuffer aBuffer = ByteBuffer.allocateDirect (16);
+    aBuffer.put (_getBytes ("xx[1,")).flip ();
+    aBuffer.position (2);
+    aParser.feed (aBuffer);
+    assertEquals (aBuffer.limit (), aBuffer.position ());
+
+    // Reuse the buffer
+    aBuffer.clear ();
+    aBuffer.put (_getBytes ("2]")).flip ();
+    aParser.feed (aBuffer);
+    aParser.endOfInput ();
+    assertEquals ("[1,2]", aParser.readDocument ().getAsString ());
+  }
+
+  @Test
+  public void testLargeString () throws ParseException
+  {
+    final StringBuilder aSB = new StringBuilder ("[\"");
+    for (int i = 0; i < 100000; ++i)
+      aSB.append ((char) ('a' + i % 26));
+    aSB.append ("\"]");
+    final byte [] aBytes = _getBytes (aSB.toString ());
+    assertEquals (aSB.toString (), _readInChunks (aBytes, 100).getAsString ());
+  }
+
+  @Test
+  public void testErrors ()
+  {
+    for (final String sJson : new String [] { "[1,,2]", "{\"a\" 1}", "[1] 2", "[1", "{\"a\":1,}", "\"abc", "tru" })
+    {
+      final byte [] aBytes = _getBytes (sJson);
+      final IJsonFeedParser aParser = JsonReader.createFeedParser ();
+      try
+      {
+        for (final byte b : aBytes)
+        {
+          aParser.feed (new byte [] { b }, 0, 1);
+          assertNull (aParser.readDocument ());
+        }
+        aParser.endOfInput ();
+        aParser.readDocument ();
+        fail (sJson);
+      }
+      catch (final ParseException ex)
+      {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testLimits () throws ParseException
+  {
+    final IJsonFeedParser aParser = JsonReader.createFeedParser (new JsonReaderSettings ().setLimits (new JsonReaderLimits ().setMaxStringLength (5)));
+    aParser.feed (_getBytes ("[\"abc"), 0, 5);
+    assertNull (aParser.readDocument ());
+    aParser.feed (_getBytes ("def"), 0, 3);
+    try
+    {
+      // Without waiting for the end of the string
+      aParser.readDocument ();
+      fail ();
+    }
+    catch (final JsonLimitExceededException ex)
+    {
+      assertEquals ("[1:2] The string exceeds the maximum length of 5", ex.getMessage ());
+    }
+
+    final IJsonFeedParser aParser2 = JsonReader.createFeedParser (new JsonReaderSettings ().setLimits (new JsonReaderLimits ().setMaxDepth (2)));
+    aParser2.feed (_getBytes ("[[[1"), 0, 4);
+    try
+    {
+      aParser2.readDocument ();
+      fail ();
+    }
+    catch (final JsonLimitExceededException ex)
+    {
+      // expected
+    }
+  }
+}
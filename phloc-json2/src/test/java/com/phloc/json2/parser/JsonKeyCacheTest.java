@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.charset.CharsetManager;
+import com.phloc.json2.IJsonArray;
+import com.phloc.json2.IJsonObject;
+
+/**
+ * Test class for class {@link JsonKeyCache}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonKeyCacheTest
+{
+  @Test
+  public void testBasic ()
+  {
+    final JsonKeyCache aCache = new JsonKeyCache ();
+    final char [] aChars = "xxnameyy".toCharArray ();
+    final String sName = aCache.getFromChars (aChars, 2, 4);
+    assertEquals ("name", sName);
+    assertSame (sName, aCache.getFromChars (aChars, 2, 4));
+    assertSame (sName, aCache.getFromCharSequence (new StringBuilder ("name")));
+    assertSame (sName, aCache.getFromASCIIBytes ("--name".getBytes (CCharset.CHARSET_US_ASCII_OBJ), 2, 4));
+    assertEquals ("", aCache.getFromChars (aChars, 0, 0));
+
+    // Different keys with the same hash code
+    final String sAa = aCache.getFromCharSequence ("Aa");
+    final String sBB = aCache.getFromCharSequence ("BB");
+    assertEquals ("Aa", sAa);
+    assertEquals ("BB", sBB);
+    assertSame (sAa, aCache.getFromCharSequence (new String ("Aa")));
+    assertSame (sBB, aCache.getFromCharSequence (new String ("BB")));
+
+    // Too long keys are not cached
+    final StringBuilder aLong = new StringBuilder ();
+    for (int i = 0; i <= JsonKeyCache.MAX_KEY_LENGTH; ++i)
+      aLong.append ('a');
+    assertNotSame (aCache.getFromCharSequence (aLong), aCache.getFromCharSequence (aLong));
+
+    // Many keys - the cache is bounded but must still return correct values
+    for (int i = 0; i < 10000; ++i)
+      assertEquals ("key" + i, aCache.getFromCharSequence ("key" + i));
+  }
+
+  @Test
+  public void testClear ()
+  {
+    final JsonKeyCache aCache = new JsonKeyCache ();
+    final String sName = aCache.getFromCharSequence (new StringBuilder ("name"));
+    assertSame (sName, aCache.getFromCharSequence ("name"));
+    aCache.clear ();
+    final String sName2 = aCache.getFromCharSequence (new StringBuilder ("name"));
+    assertEquals (sName, sName2);
+    assertNotSame (sName, sName2);
+    assertSame (sName2, aCache.getFromCharSequence ("name"));
+  }
+
+  @Test
+  public void testNotSharedBetweenDocuments ()
+  {
+    // The cache of the per thread context is cleared after each document
+    final String sJson = "{\"id\":1}";
+    final JsonReaderSettings aSettings = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.DIRECT);
+    final IJsonObject aObject1 = (IJsonObject) JsonReader.readFromString (sJson, aSettings);
+    final IJsonObject aObject2 = (IJsonObject) JsonReader.readFromString (sJson, aSettings);
+    final String sKey1 = aObject1.keySet ().iterator ().next ();
+    final String sKey2 = aObject2.keySet ().iterator ().next ();
+    assertEquals (sKey1, sKey2);
+    assertNotSame (sKey1, sKey2);
+  }
+
+  private static void _assertSharedKeys (final IJsonArray aArray)
+  {
+    assertNotNull (aArray);
+    assertEquals (3, aArray.size ());
+    final String sKey0 = aArray.getObjectAtIndex (0).keySet ().iterator ().next ();
+    for (int i = 1; i < aArray.size (); ++i)
+    {
+      final String sKey = aArray.getObjectAtIndex (i).keySet ().iterator ().next ();
+      assertEquals (sKey0, sKey);
+      assertSame (sKey0, sKey);
+    }
+  }
+
+  @Test
+  public void testRead ()
+  {
+    for (final String sKey : new String [] { "id", "\\u0069d", "grüß" })
+    {
+      final String sJson = "[{\"" + sKey + "\":1},{\"" + sKey + "\":2},{\"" + sKey + "\":3}]";
+      for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+      {
+        final JsonReaderSettings aSettings = new JsonReaderSettings ().setParserEngine (eEngine);
+        _assertSharedKeys ((IJsonArray) JsonReader.readFromString (sJson, aSettings));
+        _assertSharedKeys ((IJsonArray) JsonReader.readFromStream (new ByteArrayInputStream (CharsetManager.getAsBytes (sJson,
+                                                                                                                         CCharset.CHARSET_UTF_8_OBJ)),
+                                                                   aSettings));
+      }
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.json2.IJson;
+import com.phloc.json2.IJsonArray;
+import com.phloc.json2.IJsonObject;
+import com.phloc.json2.impl.IJsonLazyContent;
+import com.phloc.json2.impl.JsonArray;
+import com.phloc.json2.impl.JsonObject;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonLazyReader}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonLazyReaderTest
+{
+  private static final String [] VALID = new String [] { "{}",
+                                                         "[]",
+                                                         " \n{ } \r\n",
+                                                         "[ ]",
+                                                         "\"abc\"",
+                                                         "\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u00e4\\uD83D\\uDE00\"",
+                                                         "17",
+                                                         "-0.5e+10",
+                                                         "true",
+                                                         "false",
+                                                         "null",
+                                                         "[1, -2, 3.25, 4E3, 0, -0.0, 12345678901234567890123]",
+                                                         "{\"a\":1,\"b\" : [true,false,null] , \"c\":{\"d\":{\"e\":[[],{}]}}}",
+                                                         "{\"k\\u0065y\":\"v\u00e4lue\",\"emoji\":\"\uD83D\uDE00\"}",
+                                                         "[{\"id\":1,\"tags\":[\"a\",\"b\"]},{\"id\":2,\"tags\":[]},\n{\"id\":3}]\n" };
+
+  private static final String [] INVALID = new String [] { "",
+                                                           "  ",
+                                                           "{",
+                                                           "[1,]",
+                                                           "{\"a\"}",
+                                                           "{\"a\":}",
+                                                           "{\"a\":1,}",
+                                                           "{a:1}",
+                                                           "[01]",
+                                                           "[1.]",
+                                                           "[-]",
+                                                           "[1e]",
+                                                           "1 ",
+                                                           "[\"a\nb\"]",
+                                                           "[\"\\x\"]",
+                                                           "[\"\\u12G4\"]",
+                                                           "[\"abc",
+                                                           "[tru]",
+                                                           "[truex]",
+                                                           "[1 2]",
+                                                           "{\"a\":1}x",
+                                                           "[1]]" };
+
+  private static boolean _isLoaded (@Nonnull final IJson aJson) throws Exception
+  {
+    final Field aField = (aJson instanceof JsonObject ? JsonObject.class : JsonArray.class).getDeclaredField ("m_aLazyContent");
+    aField.setAccessible (true);
+    return aField.get (aJson) == null;
+  }
+
+  @Test
+  public void testSameAsEager ()
+  {
+    for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+      for (final boolean bLazyNumbers : new boolean [] { false, true })
+      {
+        final JsonReaderSettings aSettings = new JsonReaderSettings ().setParserEngine (eEngine)
+                                                                      .setLazyNumbers (bLazyNumbers);
+        for (final String sJson : VALID)
+        {
+          final IJson aEager = JsonReader.readFromString (sJson, aSettings);
+          assertNotNull (sJson, aEager);
+          final IJson aLazy = JsonReader.readLazyFromString (sJson, aSettings);
+          assertNotNull (sJson, aLazy);
+          assertEquals (sJson, aEager.getAsString (), aLazy.getAsString ());
+          // Same classes, so that equals works across eager and lazy objects
+          assertEquals (sJson, aEager.getClass (), aLazy.getClass ());
+
+          assertEquals (aEager.getAsString (),
+                        JsonReader.readLazyFromReader (new NonBlockingStringReader (sJson), aSettings).getAsString ());
+        }
+      }
+  }
+
+  @Test
+  public void testLoadOnAccess () throws Exception
+  {
+    final IJsonObject aRoot = (IJsonObject) JsonReader.readLazyFromString ("{\"a\":{\"b\":{\"c\":[1,2,{\"d\":3}]}},\"x\":[4]}");
+    assertNotNull (aRoot);
+    assertTrue (_isLoaded (aRoot));
+    assertEquals (2, aRoot.size ());
+
+    final IJsonObject aA = aRoot.getObject ("a");
+    final IJsonArray aX = aRoot.getArray ("x");
+    assertFalse (_isLoaded (aA));
+    assertFalse (_isLoaded (aX));
+
+    final IJsonObject aB = aA.getObject ("b");
+    assertTrue (_isLoaded (aA));
+    assertFalse (_isLoaded (aB));
+    assertFalse (_isLoaded (aX));
+
+    final IJsonArray aC = aB.getArray ("c");
+    assertEquals (3, aC.size ());
+    assertFalse (_isLoaded (aC.getAtIndex (2)));
+    assertEquals ("{\"d\":3}", aC.getAtIndex (2).getAsString ());
+
+    // Containers only, as equals of JsonValue is not needed for this
+    final String sContainers = "{\"a\":{},\"b\":[[],{\"c\":[]}]}";
+    assertEquals (JsonReader.readFromString (sContainers), JsonReader.readLazyFromString (sContainers));
+
+    // Modifying before loading keeps the original content
+    aX.add (5);
+    assertEquals ("[4,5]", aX.getAsString ());
+    assertTrue (_isLoaded (aX));
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    final List <String> aMessages = ContainerHelper.newList ();
+    final IJsonParseExceptionHandler aHandler = new IJsonParseExceptionHandler ()
+    {
+      public void onException (final ParseException ex)
+      {
+        aMessages.add (ex.getMessage ());
+      }
+    };
+    final JsonReaderSettings aSettings = new JsonReaderSettings ().setCustomExceptionHandler (aHandler);
+    for (final String sJson : INVALID)
+    {
+      aMessages.clear ();
+      assertNull (sJson, JsonReader.readFromString (sJson, aSettings));
+      final List <String> aExpected = ContainerHelper.newList (aMessages);
+
+      aMessages.clear ();
+      assertNull (sJson, JsonReader.readLazyFromString (sJson, aSettings));
+      // Same error as the eager parser
+      assertEquals (sJson, aExpected, aMessages);
+    }
+  }
+
+  @Test
+  public void testEmptyKey ()
+  {
+    // Rejected when reading, as with the eager parser
+    for (final String sJson : new String [] { "{\"a\":{\"\":1},\"b\":2}", "[{\"\":1}]", "{\"\":1}" })
+    {
+      try
+      {
+        JsonReader.readFromString (sJson);
+        fail (sJson);
+      }
+      catch (final IllegalArgumentException ex)
+      {
+        // expected
+      }
+      try
+      {
+        JsonReader.readLazyFromString (sJson);
+        fail (sJson);
+      }
+      catch (final IllegalArgumentException ex)
+      {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testLoadFailure ()
+  {
+    final int [] aCalls = new int [1];
+    final JsonArray aArray = new JsonArray (new IJsonLazyContent <JsonArray> ()
+    {
+      public void loadInto (final JsonArray aTarget)
+      {
+        aTarget.add (1);
+        if (++aCalls[0] == 1)
+          throw new IllegalStateException ("first");
+        aTarget.add (2);
+      }
+    });
+    try
+    {
+      aArray.size ();
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+    // The content is loaded again instead of being empty
+    assertEquals ("[1,2]", aArray.getAsString ());
+    assertEquals (2, aCalls[0]);
+
+    final JsonObject aObject = new JsonObject (new IJsonLazyContent <JsonObject> ()
+    {
+      public void loadInto (final JsonObject aTarget)
+      {
+        aTarget.add ("a", 1);
+        aTarget.add ("", 2);
+      }
+    });
+    for (int i = 0; i < 2; ++i)
+      try
+      {
+        aObject.size ();
+        fail ();
+      }
+      catch (final IllegalArgumentException ex)
+      {
+        // expected every time
+      }
+  }
+
+  @Test
+  public void testComments ()
+  {
+    // Comments are handled by the regular parser
+    final String sJson = "[1,/* comment */2]";
+    final IJson aEager = JsonReader.readFromString (sJson);
+    assertNotNull (aEager);
+    assertEquals (aEager.getAsString (), JsonReader.readLazyFromString (sJson).getAsString ());
+  }
+}
@@ -0,0 +1,364 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.charset.CharsetManager;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonLinesReader} and
+ * {@link JsonParallelLinesReader}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonLinesReaderTest
+{
+  private static final class CollectingExceptionHandler implements IJsonParseExceptionHandler
+  {
+    private final List <String> m_aMessages = ContainerHelper.newList ();
+
+    public void onException (final ParseException ex)
+    {
+      m_aMessages.add (ex.getMessage ());
+    }
+  }
+
+  /**
+   * Runs the tasks pairwise in reverse order, so that a batch completes before
+   * the batch submitted before it.
+   *
+   * @author Philip Helger
+   */
+  private static final class ReversePairExecutor extends AbstractExecutorService
+  {
+    private final List <Runnable> m_aTasks = ContainerHelper.newList ();
+    private final List <Future <?>> m_aFutures = ContainerHelper.newList ();
+
+    @Override
+    protected <T> RunnableFuture <T> newTaskFor (final Callable <T> aCallable)
+    {
+      final RunnableFuture <T> ret = super.newTaskFor (aCallable);
+      m_aFutures.add (ret);
+      return ret;
+    }
+
+    public void execute (final Runnable aTask)
+    {
+      m_aTasks.add (aTask);
+      final int nSize = m_aTasks.size ();
+      if (nSize % 2 == 0)
+      {
+        m_aTasks.get (nSize - 1).run ();
+        m_aTasks.get (nSize - 2).run ();
+      }
+    }
+
+    public void shutdown ()
+    {}
+
+    @Nonnull
+    public List <Runnable> shutdownNow ()
+    {
+      return ContainerHelper.newList ();
+    }
+
+    public boolean isShutdown ()
+    {
+      return false;
+    }
+
+    public boolean isTerminated ()
+    {
+      return false;
+    }
+
+    public boolean awaitTermination (final long nTimeout, final TimeUnit eUnit)
+    {
+      return true;
+    }
+  }
+
+  @Nonnull
+  private static List <String> _readAll (@Nonnull final IJsonLinesReader aReader) throws IOException
+  {
+    final List <String> ret = ContainerHelper.newList ();
+    try
+    {
+      while (aReader.hasNext ())
+        ret.add (aReader.next ().getAsString ());
+    }
+    finally
+    {
+      aReader.close ();
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private static String _createLines (final int nCount)
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    for (int i = 0; i < nCount; ++i)
+    {
+      if (i % 10 == 0)
+        aSB.append ("\r\n");
+      aSB.append ("{\"id\":").append (i).append (",\"name\":\"Record \\\"").append (i).append ("\\\"\",\"tags\":[1,2]}\n");
+    }
+    return aSB.toString ();
+  }
+
+  @Test
+  public void testRead () throws IOException
+  {
+    final String sLines = "{\"a\":1}\n\n[1, 2]\r\n\"äöü\"\n  17 \ntrue\nnull\n";
+    final List <String> aExpected = ContainerHelper.newList ("{\"a\":1}", "[1,2]", "\"äöü\"", "17", "true", "null");
+    assertEquals (aExpected, _readAll (JsonReader.createLinesReader (new NonBlockingStringReader (sLines))));
+
+    final JsonReaderSettings aSettings = new JsonReaderSettings ();
+    assertEquals (aExpected,
+                  _readAll (JsonReader.createLinesReader (new ByteArrayInputStream (CharsetManager.getAsBytes (sLines,
+                                                                                                              CCharset.CHARSET_UTF_8_OBJ)),
+                                                          aSettings)));
+
+    assertEquals (0, _readAll (JsonReader.createLinesReader (new NonBlockingStringReader (""))).size ());
+    assertEquals (0, _readAll (JsonReader.createLinesReader (new NonBlockingStringReader ("\n \n"))).size ());
+  }
+
+  @Test
+  public void testReadError () throws IOException
+  {
+    final CollectingExceptionHandler aHandler = new CollectingExceptionHandler ();
+    final IJsonLinesReader aReader = JsonReader.createLinesReader (new NonBlockingStringReader ("1\n2\n{\"a\" 1}\n4\n"),
+                                                                   new JsonReaderSettings ().setCustomExceptionHandler (aHandler));
+    assertEquals (ContainerHelper.newList ("1", "2"), _readAll (aReader));
+    assertTrue (aReader.isError ());
+    assertFalse (aReader.hasNext ());
+    assertEquals (1, aHandler.m_aMessages.size ());
+    assertTrue (aHandler.m_aMessages.get (0), aHandler.m_aMessages.get (0).contains ("line 3"));
+  }
+
+  @Test
+  public void testParallel () throws IOException
+  {
+    final String sLines = _createLines (5000);
+    final List <String> aExpected = _readAll (JsonReader.createLinesReader (new NonBlockingStringReader (sLines)));
+    assertEquals (5000, aExpected.size ());
+
+    final ExecutorService aExecutor = Executors.newFixedThreadPool (4);
+    try
+    {
+      final JsonReaderSettings aSettings = new JsonReaderSettings ();
+      final CollectingExceptionHandler aHandler = new CollectingExceptionHandler ();
+      for (final int nBatchSize : new int [] { 1, 7, 1000, 10000 })
+      {
+        // Ordered
+        assertEquals (aExpected, _readAll (new JsonParallelLinesReader (new NonBlockingStringReader (sLines),
+                                                                        aSettings,
+                                                                        aHandler,
+                                                                        aExecutor,
+                                                                        4,
+                                                                        nBatchSize,
+                                                                        true)));
+
+        // Unordered
+        final List <String> aUnordered = _readAll (new JsonParallelLinesReader (new NonBlockingStringReader (sLines),
+                                                                                aSettings,
+                                                                                aHandler,
+                                                                                aExecutor,
+                                                                                4,
+                                                                                nBatchSize,
+                                                                                false));
+        final List <String> aSortedExpected = ContainerHelper.newList (aExpected);
+        Collections.sort (aSortedExpected);
+        Collections.sort (aUnordered);
+        assertEquals (aSortedExpected, aUnordered);
+      }
+      assertEquals (0, aHandler.m_aMessages.size ());
+
+      // Default settings
+      assertEquals (aExpected,
+                    _readAll (JsonReader.createParallelLinesReader (new NonBlockingStringReader (sLines),
+                                                                    aSettings,
+                                                                    aExecutor,
+                                                                    true)));
+    }
+    finally
+    {
+      aExecutor.shutdown ();
+    }
+  }
+
+  @Test
+  public void testParallelError () throws IOException
+  {
+    final String sLines = _createLines (100) + "{\"id\":,}\n" + _createLines (100);
+
+    final CollectingExceptionHandler aExpectedHandler = new CollectingExceptionHandler ();
+    final List <String> aExpected = _readAll (JsonReader.createLinesReader (new NonBlockingStringReader (sLines),
+                                                                            new JsonReaderSettings ().setCustomExceptionHandler (aExpectedHandler)));
+    assertEquals (100, aExpected.size ());
+    assertEquals (1, aExpectedHandler.m_aMessages.size ());
+
+    final ExecutorService aExecutor = Executors.newFixedThreadPool (3);
+    try
+    {
+      for (final int nBatchSize : new int [] { 1, 7, 1000 })
+      {
+        final CollectingExceptionHandler aHandler = new CollectingExceptionHandler ();
+        final IJsonLinesReader aReader = new JsonParallelLinesReader (new NonBlockingStringReader (sLines),
+                                                                      new JsonReaderSettings (),
+                                                                      aHandler,
+                                                                      aExecutor,
+                                                                      3,
+                                                                      nBatchSize,
+                                                                      true);
+        assertEquals (aExpected, _readAll (aReader));
+        assertTrue (aReader.isError ());
+        // Same error location as when reading sequentially
+        assertEquals (aExpectedHandler.m_aMessages, aHandler.m_aMessages);
+        assertNotNull (aReader.toString ());
+      }
+    }
+    finally
+    {
+      aExecutor.shutdown ();
+    }
+  }
+
+  @Test
+  public void testParallelMultiLineRecords () throws IOException
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    for (int i = 0; i < 999; ++i)
+      aSB.append ("1\n");
+    // The record crosses the boundary of the first batch
+    aSB.append ("{\n\"a\":1}\n2\n");
+    // Brackets in strings and comments spanning lines
+    aSB.append ("[\"]\",\n\"\\\"[\"]\n/* {\n*/ 3\n{\"b\":\n/* ] */\n[4]}\n");
+    final String sLines = aSB.toString ();
+
+    final List <String> aExpected = _readAll (JsonReader.createLinesReader (new NonBlockingStringReader (sLines)));
+    assertEquals (1004, aExpected.size ());
+    assertEquals ("{\"a\":1}", aExpected.get (999));
+    assertEquals ("[\"]\",\"\\\"[\"]", aExpected.get (1001));
+    assertEquals ("{\"b\":[4]}", aExpected.get (1003));
+
+    final ExecutorService aExecutor = Executors.newFixedThreadPool (3);
+    try
+    {
+      for (final int nBatchSize : new int [] { 1, 2, 7, 1000 })
+      {
+        final CollectingExceptionHandler aHandler = new CollectingExceptionHandler ();
+        final IJsonLinesReader aReader = new JsonParallelLinesReader (new NonBlockingStringReader (sLines),
+                                                                      new JsonReaderSettings (),
+                                                                      aHandler,
+                                                                      aExecutor,
+                                                                      3,
+                                                                      nBatchSize,
+                                                                      true);
+        assertEquals (aExpected, _readAll (aReader));
+        assertFalse (aReader.isError ());
+        assertEquals (0, aHandler.m_aMessages.size ());
+      }
+
+      // Errors after a multi line record are reported with the same line
+      final String sInvalid = sLines + "{\"c\":\n1,}\n";
+      final CollectingExceptionHandler aExpectedHandler = new CollectingExceptionHandler ();
+      _readAll (JsonReader.createLinesReader (new NonBlockingStringReader (sInvalid),
+                                              new JsonReaderSettings ().setCustomExceptionHandler (aExpectedHandler)));
+      assertEquals (1, aExpectedHandler.m_aMessages.size ());
+      for (final int nBatchSize : new int [] { 1, 1000 })
+      {
+        final CollectingExceptionHandler aHandler = new CollectingExceptionHandler ();
+        assertEquals (aExpected, _readAll (new JsonParallelLinesReader (new NonBlockingStringReader (sInvalid),
+                                                                        new JsonReaderSettings (),
+                                                                        aHandler,
+                                                                        aExecutor,
+                                                                        3,
+                                                                        nBatchSize,
+                                                                        true)));
+        assertEquals (aExpectedHandler.m_aMessages, aHandler.m_aMessages);
+      }
+    }
+    finally
+    {
+      aExecutor.shutdown ();
+    }
+  }
+
+  @Test
+  public void testParallelErrorUnordered () throws IOException
+  {
+    // The invalid second batch completes before the first batch
+    ReversePairExecutor aExecutor = new ReversePairExecutor ();
+    CollectingExceptionHandler aHandler = new CollectingExceptionHandler ();
+    IJsonLinesReader aReader = new JsonParallelLinesReader (new NonBlockingStringReader ("1\n{\"a\" 1}\n3\n4\n"),
+                                                            new JsonReaderSettings (),
+                                                            aHandler,
+                                                            aExecutor,
+                                                            1,
+                                                            1,
+                                                            false);
+    // The valid record before the error is still returned
+    assertEquals (ContainerHelper.newList ("1"), _readAll (aReader));
+    assertTrue (aReader.isError ());
+    assertEquals (1, aHandler.m_aMessages.size ());
+    assertTrue (aHandler.m_aMessages.get (0), aHandler.m_aMessages.get (0).contains ("line 2"));
+
+    // The batch after the error is not yet parsed and must be cancelled
+    aExecutor = new ReversePairExecutor ();
+    aHandler = new CollectingExceptionHandler ();
+    aReader = new JsonParallelLinesReader (new NonBlockingStringReader ("1\n2\n{\"a\" 1}\n4\n5\n"),
+                                           new JsonReaderSettings (),
+                                           aHandler,
+                                           aExecutor,
+                                           1,
+                                           1,
+                                           false);
+    assertEquals (ContainerHelper.newList ("2", "1", "4"), _readAll (aReader));
+    assertTrue (aReader.isError ());
+    assertTrue (aHandler.m_aMessages.get (0), aHandler.m_aMessages.get (0).contains ("line 3"));
+    assertEquals (5, aExecutor.m_aFutures.size ());
+    assertFalse (aExecutor.m_aFutures.get (3).isCancelled ());
+    assertTrue (aExecutor.m_aFutures.get (4).isCancelled ());
+  }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.commons.io.streams.StringInputStream;
+import com.phloc.json2.parser.errorhandler.DoNothingJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonMultiDocumentReader} and the
+ * {@link IJsonMultiDocumentReader} creation in {@link JsonReader}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonMultiDocumentReaderTest
+{
+  @Nonnull
+  private static List <String> _readAll (@Nonnull final IJsonMultiDocumentReader aReader) throws IOException
+  {
+    final List <String> ret = ContainerHelper.newList ();
+    try
+    {
+      while (aReader.hasNext ())
+        ret.add (aReader.next ().getAsString ());
+    }
+    finally
+    {
+      aReader.close ();
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private static List <JsonReaderSettings> _getAllSettings ()
+  {
+    final List <JsonReaderSettings> ret = ContainerHelper.newList ();
+    for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+      for (final boolean bTrackPosition : new boolean [] { true, false })
+        ret.add (new JsonReaderSettings ().setParserEngine (eEngine)
+                                          .setTrackPosition (bTrackPosition)
+                                          .setCustomExceptionHandler (DoNothingJsonParseExceptionHandler.getInstance ()));
+    return ret;
+  }
+
+  @Test
+  public void testRead () throws IOException
+  {
+    final String sSource = "{\"a\":1}{\"b\":[1,2]}[3]\"x\" 17\n true null{}\r\n[\"ä\"]  ";
+    final List <String> aExpected = ContainerHelper.newList ("{\"a\":1}",
+                                                             "{\"b\":[1,2]}",
+                                                             "[3]",
+                                                             "\"x\"",
+                                                             "17",
+                                                             "true",
+                                                             "null",
+                                                             "{}",
+                                                             "[\"ä\"]");
+    for (final JsonReaderSettings aSettings : _getAllSettings ())
+    {
+      final String sMsg = aSettings.toString ();
+      assertEquals (sMsg,
+                    aExpected,
+                    _readAll (JsonReader.createMultiDocumentReader (new NonBlockingStringReader (sSource), aSettings)));
+      final IJsonMultiDocumentReader aReader = JsonReader.createMultiDocumentReader (new StringInputStream (sSource,
+                                                                                                           CCharset.CHARSET_UTF_8_OBJ),
+                                                                                    aSettings);
+      assertNotNull (aReader);
+      assertEquals (sMsg, aExpected, _readAll (aReader));
+      assertFalse (aReader.isError ());
+
+      assertEquals (0,
+                    _readAll (JsonReader.createMultiDocumentReader (new NonBlockingStringReader (""), aSettings)).size ());
+      assertEquals (0,
+                    _readAll (JsonReader.createMultiDocumentReader (new NonBlockingStringReader (" \n "), aSettings)).size ());
+    }
+  }
+
+  @Test
+  public void testManyDocuments () throws IOException
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    for (int i = 0; i < 20000; ++i)
+      aSB.append ("{\"id\":").append (i).append (",\"values\":[").append (i).append (",\"").append (i).append ("\"]}");
+    final String sSource = aSB.toString ();
+
+    for (final JsonReaderSettings aSettings : _getAllSettings ())
+    {
+      final IJsonMultiDocumentReader aReader = JsonReader.createMultiDocumentReader (new NonBlockingStringReader (sSource),
+                                                                                    aSettings);
+      int nCount = 0;
+      while (aReader.hasNext ())
+      {
+        assertEquals ("{\"id\":" + nCount + ",\"values\":[" + nCount + ",\"" + nCount + "\"]}",
+                      aReader.next ().getAsString ());
+        ++nCount;
+      }
+      aReader.close ();
+      assertEquals (20000, nCount);
+    }
+  }
+
+  @Test
+  public void testError () throws IOException
+  {
+    for (final JsonReaderSettings aSettings : _getAllSettings ())
+    {
+      final IJsonMultiDocumentReader aReader = JsonReader.createMultiDocumentReader (new NonBlockingStringReader ("{}\n[1,]{}"),
+                                                                                    aSettings);
+      assertEquals (ContainerHelper.newList ("{}"), _readAll (aReader));
+      assertTrue (aReader.isError ());
+      assertFalse (aReader.hasNext ());
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+/**
+ * Test class for class {@link JsonNode}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonNodeTest
+{
+  @Test
+  public void testRetainTokens () throws ParseException
+  {
+    // Default: the tokens are kept
+    final JsonNode aRoot = new ParserJson (new JsonCharStream (new StringReader ("[1,\n  \"abc\"]"))).json ();
+    assertTrue (aRoot.isRetainTokens ());
+    assertNotNull (aRoot.jjtGetFirstToken ());
+    assertEquals ("[", aRoot.jjtGetFirstToken ().image);
+    assertNotNull (aRoot.jjtGetLastToken ());
+
+    // Only the positions are kept
+    final ParserJson aParser = new ParserJson (new JsonCharStream (new StringReader ("[1,\n  \"abc\"]")));
+    aParser.setRetainTokens (false);
+    final JsonNode aTokenFreeRoot = aParser.json ();
+    assertFalse (aTokenFreeRoot.isRetainTokens ());
+    assertNull (aTokenFreeRoot.jjtGetFirstToken ());
+    assertNull (aTokenFreeRoot.jjtGetLastToken ());
+    assertTrue (aTokenFreeRoot.hasSourcePositions ());
+    assertEquals (aRoot.getSourceLocation ().getFirstTokenArea ().getTokenLocationAsString (),
+                  aTokenFreeRoot.getSourceLocation ().getFirstTokenArea ().getTokenLocationAsString ());
+    assertEquals (aRoot.getSourceLocation ().getLastTokenArea ().getTokenLocationAsString (),
+                  aTokenFreeRoot.getSourceLocation ().getLastTokenArea ().getTokenLocationAsString ());
+  }
+
+  @Test
+  public void testReaderSettings ()
+  {
+    final String sJson = "{\"a\":[1,2.5,\"x\"],\"b\":{\"c\":null}}";
+    for (final boolean bTrackPosition : new boolean [] { true, false })
+    {
+      final JsonReaderSettings aSettings = new JsonReaderSettings ().setTrackPosition (bTrackPosition)
+                                                                    .setRetainTokens (false);
+      assertEquals (sJson, JsonReader.readFromString (sJson, aSettings).getAsString ());
+      assertEquals (sJson, JsonReader.readFromReader (new StringReader (sJson), aSettings).getAsString ());
+    }
+  }
+
+  @Test
+  public void testSourceLocation () throws ParseException
+  {
+    for (final boolean bRetainTokens : new boolean [] { true, false })
+      _testSourceLocation (bRetainTokens);
+  }
+
+  private static void _testSourceLocation (final boolean bRetainTokens) throws ParseException
+  {
+    final ParserJson aParser = new ParserJson (new JsonCharStream (new StringReader ("[1,\n  \"abc\"]")));
+    aParser.setRetainTokens (bRetainTokens);
+    final JsonNode aRoot = aParser.json ();
+    assertTrue (aRoot.hasSourcePositions ());
+    final JsonSourceLocation aRootLoc = aRoot.getSourceLocation ();
+    assertNotNull (aRootLoc);
+    assertEquals (1, aRootLoc.getFirstTokenArea ().getTokenBeginLineNumber ());
+    assertEquals (1, aRootLoc.getFirstTokenArea ().getTokenBeginColumnNumber ());
+    assertEquals (2, aRootLoc.getLastTokenArea ().getTokenEndLineNumber ());
+    assertEquals (8, aRootLoc.getLastTokenArea ().getTokenEndColumnNumber ());
+
+    // The string inside the array
+    JsonNode aNode = aRoot.jjtGetChild (0);
+    while (aNode.jjtGetNumChildren () > 0)
+      aNode = aNode.jjtGetChild (aNode.jjtGetNumChildren () - 1);
+    final JsonSourceLocation aLoc = aNode.getSourceLocation ();
+    assertNotNull (aLoc);
+    assertEquals (2, aLoc.getFirstTokenArea ().getTokenBeginLineNumber ());
+    assertEquals (3, aLoc.getFirstTokenArea ().getTokenBeginColumnNumber ());
+    assertEquals (2, aLoc.getLastTokenArea ().getTokenEndLineNumber ());
+    assertEquals (7, aLoc.getLastTokenArea ().getTokenEndColumnNumber ());
+  }
+
+  @Test
+  public void testWithoutPositionTracking () throws ParseException
+  {
+    for (final boolean bRetainTokens : new boolean [] { true, false })
+    {
+      final ParserJson aParser = new ParserJson (new JsonFastCharStream (new StringReader ("{\"a\":[1,2]}")));
+      aParser.setRetainTokens (bRetainTokens);
+      final JsonNode aRoot = aParser.json ();
+      assertFalse (aRoot.hasSourcePositions ());
+      assertNull (aRoot.getSourceLocation ());
+      for (final JsonNode aChild : aRoot)
+      {
+        assertFalse (aChild.hasSourcePositions ());
+        assertNull (aChild.getSourceLocation ());
+      }
+    }
+  }
+}
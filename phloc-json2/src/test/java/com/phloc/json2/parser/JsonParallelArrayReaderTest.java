@@ -0,0 +1,243 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.charset.CharsetManager;
+import com.phloc.json2.IJson;
+import com.phloc.json2.IJsonArray;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonParallelArrayReader}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonParallelArrayReaderTest
+{
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  private ForkJoinPool m_aPool;
+
+  @Before
+  public void before ()
+  {
+    m_aPool = new ForkJoinPool (4);
+  }
+
+  @After
+  public void after ()
+  {
+    m_aPool.shutdown ();
+  }
+
+  @Nonnull
+  private File _createFile (@Nonnull final byte [] aContent) throws IOException
+  {
+    final File aFile = m_aTempFolder.newFile ();
+    final FileOutputStream aFOS = new FileOutputStream (aFile);
+    try
+    {
+      aFOS.write (aContent);
+    }
+    finally
+    {
+      aFOS.close ();
+    }
+    return aFile;
+  }
+
+  @Nonnull
+  private File _createFile (@Nonnull final String sContent) throws IOException
+  {
+    return _createFile (CharsetManager.getAsBytes (sContent, CCharset.CHARSET_UTF_8_OBJ));
+  }
+
+  private void _assertSameAsSequential (@Nonnull final File aFile, final long nMinChunkSize)
+  {
+    final JsonReaderSettings aSettings = new JsonReaderSettings ();
+    final IJson aExpected = JsonReader.readFromFile (aFile, aSettings);
+    assertNotNull (aExpected);
+    // Both variants of the structural index
+    for (final boolean bSWAR : new boolean [] { true, false })
+    {
+      aSettings.setStructuralIndexSWAR (bSWAR);
+      final IJsonArray aActual = JsonParallelArrayReader.readArray (aFile, aSettings, m_aPool, nMinChunkSize);
+      assertNotNull (aActual);
+      assertEquals (aExpected.getAsString (), aActual.getAsString ());
+    }
+  }
+
+  @Test
+  public void testRead () throws IOException
+  {
+    final StringBuilder aSB = new StringBuilder ("\n [ ");
+    for (int i = 0; i < 5000; ++i)
+    {
+      if (i > 0)
+        aSB.append (i % 3 == 0 ? " ,\n" : ",");
+      switch (i % 5)
+      {
+        case 0:
+          aSB.append ("{\"id\":").append (i).append (",\"text\":\"a, [b] {c} \\\"d,\\\\\",\"list\":[1,[2,3],{}]}");
+          break;
+        case 1:
+          aSB.append ("\"äöü,\\u00df\\\\\"");
+          break;
+        case 2:
+          aSB.append ("[").append (i).append (",\"]\",").append (i * 0.5).append ("]");
+          break;
+        case 3:
+          aSB.append ("null");
+          break;
+        default:
+          aSB.append (i);
+          break;
+      }
+    }
+    aSB.append (" ] \n");
+    final File aFile = _createFile (aSB.toString ());
+
+    // Many small chunks
+    _assertSameAsSequential (aFile, 1);
+    _assertSameAsSequential (aFile, 100);
+    // Only one chunk
+    _assertSameAsSequential (aFile, Long.MAX_VALUE);
+    // Default settings
+    final IJsonArray aArray = JsonReader.readArrayParallel (aFile, m_aPool);
+    assertNotNull (aArray);
+    assertEquals (5000, aArray.size ());
+  }
+
+  @Test
+  public void testSpecialCases () throws IOException
+  {
+    _assertSameAsSequential (_createFile ("[]"), 1);
+    _assertSameAsSequential (_createFile ("[ ]"), 1);
+    _assertSameAsSequential (_createFile ("[1]"), 1);
+    // With BOM
+    _assertSameAsSequential (_createFile (new byte [] { (byte) 0xef, (byte) 0xbb, (byte) 0xbf, '[', '1', ',', '2', ']' }),
+                             1);
+    // Comments are read sequentially
+    _assertSameAsSequential (_createFile ("[1,/*a,b*/2]"), 1);
+  }
+
+  @Test
+  public void testErrors () throws IOException
+  {
+    final AtomicInteger aErrors = new AtomicInteger (0);
+    final JsonReaderSettings aSettings = new JsonReaderSettings ().setCustomExceptionHandler (new IJsonParseExceptionHandler ()
+    {
+      public void onException (final ParseException ex)
+      {
+        aErrors.incrementAndGet ();
+      }
+    });
+
+    int nExpectedErrors = 0;
+    for (final String sJson : new String [] { "[1,,2]",
+                                              "[,1,2]",
+                                              "[1,2,]",
+                                              "[1,2",
+                                              "[1,[2,3}]",
+                                              "[1,2] 3",
+                                              "",
+                                              "{\"a\":[1,2]" })
+    {
+      assertNull (sJson, JsonParallelArrayReader.readArray (_createFile (sJson), aSettings, m_aPool, 1));
+      // The error is reported exactly once with the sequential reader
+      assertEquals (sJson, ++nExpectedErrors, aErrors.get ());
+    }
+
+    // Valid, but no array
+    assertNull (JsonParallelArrayReader.readArray (_createFile ("{\"a\":[1,2]}"), aSettings, m_aPool, 1));
+    assertEquals (nExpectedErrors, aErrors.get ());
+  }
+
+  @Test
+  public void testLimits () throws IOException
+  {
+    final StringBuilder aSB = new StringBuilder ("[");
+    for (int i = 0; i < 100001; ++i)
+    {
+      if (i > 0)
+        aSB.append (',');
+      aSB.append (i % 10);
+    }
+    aSB.append (']');
+    final File aFile = _createFile (aSB.toString ());
+
+    final AtomicInteger aErrors = new AtomicInteger (0);
+    final IJsonParseExceptionHandler aHandler = new IJsonParseExceptionHandler ()
+    {
+      public void onException (final ParseException ex)
+      {
+        assertTrue (ex instanceof JsonLimitExceededException);
+        aErrors.incrementAndGet ();
+      }
+    };
+
+    // The limits apply to the whole file and not to each chunk
+    JsonReaderSettings aSettings = new JsonReaderSettings ().setLimits (new JsonReaderLimits ().setMaxEntries (50000))
+                                                            .setCustomExceptionHandler (aHandler);
+    assertNull (JsonReader.readFromFile (aFile, aSettings));
+    assertEquals (1, aErrors.get ());
+    assertNull (JsonParallelArrayReader.readArray (aFile, aSettings, m_aPool, 1));
+    assertEquals (2, aErrors.get ());
+
+    aSettings = new JsonReaderSettings ().setLimits (new JsonReaderLimits ().setMaxDocumentSize (aFile.length () / 2))
+                                         .setCustomExceptionHandler (aHandler);
+    assertNull (JsonReader.readFromFile (aFile, aSettings));
+    assertEquals (3, aErrors.get ());
+    assertNull (JsonParallelArrayReader.readArray (aFile, aSettings, m_aPool, 1));
+    assertEquals (4, aErrors.get ());
+
+    // Exactly at the limits: all elements and the array itself
+    aSettings = new JsonReaderSettings ().setLimits (new JsonReaderLimits ().setMaxEntries (100002)
+                                                                           .setMaxDocumentSize (aFile.length ()))
+                                         .setCustomExceptionHandler (aHandler);
+    assertNotNull (JsonReader.readFromFile (aFile, aSettings));
+    final IJsonArray aArray = JsonParallelArrayReader.readArray (aFile, aSettings, m_aPool, 1);
+    assertNotNull (aArray);
+    assertEquals (100001, aArray.size ());
+    aSettings.getLimits ().setMaxEntries (100001);
+    assertNull (JsonReader.readFromFile (aFile, aSettings));
+    assertNull (JsonParallelArrayReader.readArray (aFile, aSettings, m_aPool, 1));
+    assertEquals (6, aErrors.get ());
+  }
+}
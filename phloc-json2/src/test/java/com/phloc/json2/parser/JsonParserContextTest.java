@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.commons.io.streams.StringInputStream;
+import com.phloc.json2.IJson;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonParserContext}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonParserContextTest
+{
+  @Test
+  public void testAcquire ()
+  {
+    final JsonParserContext aContext = JsonParserContext.acquire ();
+    try
+    {
+      assertTrue (aContext.isInUse ());
+      // Nested usage gets a separate context
+      final JsonParserContext aNested = JsonParserContext.acquire ();
+      assertNotSame (aContext, aNested);
+      aNested.release ();
+    }
+    finally
+    {
+      aContext.release ();
+    }
+    assertFalse (aContext.isInUse ());
+
+    final JsonParserContext aContext2 = JsonParserContext.acquire ();
+    assertSame (aContext, aContext2);
+    aContext2.release ();
+  }
+
+  @Test
+  public void testReuse () throws ParseException
+  {
+    final StringBuilder aBig = new StringBuilder ("[");
+    for (int i = 0; i < 5000; ++i)
+      aBig.append (i == 0 ? "" : ",\n").append ("{\"key").append (i % 10).append ("\":\"value ").append (i).append ("\"}");
+    aBig.append (']');
+
+    final List <String> aSources = ContainerHelper.newList ("{\"a\":1}",
+                                                            aBig.toString (),
+                                                            "[true,false,null]",
+                                                            "\"x\\ty\"",
+                                                            aBig.toString (),
+                                                            "{}");
+    for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+      for (final boolean bTrackPosition : new boolean [] { true, false })
+      {
+        final JsonReaderSettings aSettings = new JsonReaderSettings ().setParserEngine (eEngine)
+                                                                      .setTrackPosition (bTrackPosition);
+        for (final String sSource : aSources)
+        {
+          // Fresh parser objects
+          final IJson aExpected = JsonHandler.readCascadingStyleSheetFromNode (new ParserJson (new JsonCharStream (new NonBlockingStringReader (sSource))).json ());
+          final IJson aJson = JsonReader.readFromString (sSource, aSettings);
+          assertNotNull (aJson);
+          assertEquals (aExpected.getAsString (), aJson.getAsString ());
+
+          final IJson aJson2 = JsonReader.readFromStream (new StringInputStream (sSource, CCharset.CHARSET_UTF_8_OBJ),
+                                                          aSettings);
+          assertNotNull (aJson2);
+          assertEquals (aExpected.getAsString (), aJson2.getAsString ());
+        }
+      }
+  }
+
+  @Test
+  public void testErrorPositionAfterReuse ()
+  {
+    final List <String> aMessages = ContainerHelper.newList ();
+    final IJsonParseExceptionHandler aHandler = new IJsonParseExceptionHandler ()
+    {
+      public void onException (final ParseException ex)
+      {
+        aMessages.add (ex.getMessage ());
+      }
+    };
+    for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+    {
+      aMessages.clear ();
+      final JsonReaderSettings aSettings = new JsonReaderSettings ().setParserEngine (eEngine)
+                                                                    .setCustomExceptionHandler (aHandler);
+      assertNull (JsonReader.readFromString ("[1,\n\n2,]", aSettings));
+      assertNotNull (JsonReader.readFromString ("[\n\n\n\n1]", aSettings));
+      assertNull (JsonReader.readFromString ("[1,\n\n2,]", aSettings));
+      assertEquals (2, aMessages.size ());
+      // The position must start at line 1 again
+      assertEquals (aMessages.get (0), aMessages.get (1));
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.commons.state.ESuccess;
+import com.phloc.json2.parser.errorhandler.DoNothingJsonParseExceptionHandler;
+
+/**
+ * Test class for {@link IJsonParserHandler} based parsing.
+ *
+ * @author Philip Helger
+ */
+public final class JsonParserHandlerTest
+{
+  private static final class TracingHandler implements IJsonParserHandler
+  {
+    private final StringBuilder m_aSB = new StringBuilder ();
+
+    public void onObjectStart ()
+    {
+      m_aSB.append ('{');
+    }
+
+    public void onKey (@Nonnull final String sKey)
+    {
+      m_aSB.append ("k(").append (sKey).append (')');
+    }
+
+    public void onObjectEnd ()
+    {
+      m_aSB.append ('}');
+    }
+
+    public void onArrayStart ()
+    {
+      m_aSB.append ('[');
+    }
+
+    public void onArrayEnd ()
+    {
+      m_aSB.append (']');
+    }
+
+    public void onString (@Nonnull final String sValue)
+    {
+      m_aSB.append ("s(").append (sValue).append (')');
+    }
+
+    public void onNumber (@Nonnull final String sNumber, final boolean bDecimal)
+    {
+      m_aSB.append (bDecimal ? "d(" : "i(").append (sNumber).append (')');
+    }
+
+    public void onBoolean (final boolean bValue)
+    {
+      m_aSB.append (bValue);
+    }
+
+    public void onNull ()
+    {
+      m_aSB.append ("null");
+    }
+  }
+
+  @Test
+  public void testCallbacks ()
+  {
+    final TracingHandler aHandler = new TracingHandler ();
+    assertTrue (JsonReader.parse ("{\"a\":[1,-2.5e3,\"x\\\"\"],\"b\":{\"c\":true,\"d\":false},\"e\":null}", aHandler)
+                          .isSuccess ());
+    assertEquals ("{k(a)[i(1)d(-2.5e3)s(x\")]k(b){k(c)truek(d)false}k(e)null}", aHandler.m_aSB.toString ());
+  }
+
+  @Test
+  public void testAggregate ()
+  {
+    // Sum up all "price" fields
+    final BigDecimal [] aSum = new BigDecimal [] { BigDecimal.ZERO };
+    final IJsonParserHandler aHandler = new DefaultJsonParserHandler ()
+    {
+      private boolean m_bPrice = false;
+
+      @Override
+      public void onKey (@Nonnull final String sKey)
+      {
+        m_bPrice = sKey.equals ("price");
+      }
+
+      @Override
+      public void onNumber (@Nonnull final String sNumber, final boolean bDecimal)
+      {
+        if (m_bPrice)
+          aSum[0] = aSum[0].add (new BigDecimal (sNumber));
+        m_bPrice = false;
+      }
+    };
+    assertEquals (ESuccess.SUCCESS,
+                  JsonReader.parse ("[{\"price\":1.5,\"n\":3},{\"x\":{\"price\":2}},{\"price\":0.25}]", aHandler));
+    assertEquals (new BigDecimal ("3.75"), aSum[0]);
+  }
+
+  @Test
+  public void testError ()
+  {
+    final TracingHandler aHandler = new TracingHandler ();
+    assertEquals (ESuccess.FAILURE,
+                  JsonReader.parse (new NonBlockingStringReader ("[1,2,}"),
+                                    aHandler,
+                                    new DoNothingJsonParseExceptionHandler ()));
+    // Callbacks up to the error were invoked
+    assertEquals ("[i(1)i(2)", aHandler.m_aSB.toString ());
+  }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.json2.IJson;
+import com.phloc.json2.impl.JsonValue;
+
+/**
+ * Test class for class {@link JsonProjection}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonProjectionTest
+{
+  private static final String DOC = "{\"id\":17,\"name\":\"Order \\\"17\\\"\",\"customer\":{\"id\":4,\"name\":\"Smith\"}," +
+                                    "\"items\":[{\"sku\":\"a\",\"price\":1.5,\"tags\":[\"x\"]},{\"sku\":\"b\",\"price\":2}," +
+                                    "{\"sku\":\"c\"},5],\"a/b\":{\"~\":true}}";
+
+  private static void _check (@Nonnull final String sExpected,
+                              @Nonnull final String sJson,
+                              @Nonnull final JsonProjection aProjection)
+  {
+    final IJson aExpected = JsonReader.readFromString (sExpected);
+    assertNotNull (aExpected);
+    final IJson aJson = JsonReader.readFromString (sJson, aProjection);
+    assertNotNull (aJson);
+    assertEquals (aExpected.getAsString (), aJson.getAsString ());
+
+    // Same result for all engines and for the byte scanner
+    for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+    {
+      final IJson aJson2 = JsonReader.readFromReader (new NonBlockingStringReader (sJson),
+                                                      new JsonReaderSettings ().setParserEngine (eEngine),
+                                                      aProjection);
+      assertNotNull (aJson2);
+      assertEquals (aExpected.getAsString (), aJson2.getAsString ());
+    }
+  }
+
+  @Test
+  public void testPaths ()
+  {
+    _check ("{\"id\":17}", DOC, JsonProjection.of ("/id"));
+    _check ("{\"id\":17,\"customer\":{\"name\":\"Smith\"}}", DOC, JsonProjection.of ("/id", "/customer/name"));
+    _check ("{\"items\":[{\"price\":1.5},{\"price\":2},{}]}", DOC, JsonProjection.of ("/items/*/price"));
+    _check ("{\"items\":[{\"price\":1.5},{\"price\":2},{}]}", DOC, JsonProjection.of ("items.*.price"));
+    _check ("{\"items\":[{\"sku\":\"b\",\"price\":2}]}", DOC, JsonProjection.of ("/items/1"));
+    _check ("{\"items\":[{\"sku\":\"a\",\"tags\":[\"x\"]},{\"sku\":\"b\"},{\"sku\":\"c\"}]}",
+            DOC,
+            JsonProjection.of ("/items/*/sku", "/items/0/tags"));
+    _check ("{\"a/b\":{\"~\":true}}", DOC, JsonProjection.of ("/a~1b/~0"));
+    // Containers on the way are kept, scalars on the way are not
+    _check ("{\"customer\":{\"name\":\"Smith\"},\"items\":[],\"a/b\":{}}", DOC, JsonProjection.of ("/*/name"));
+    _check ("{}", DOC, JsonProjection.of ("/unknown"));
+    _check (DOC, DOC, JsonProjection.of (""));
+  }
+
+  @Test
+  public void testWildcardAndName ()
+  {
+    final String sJson = "{\"a\":{\"b\":{\"x\":1,\"y\":2,\"z\":3},\"c\":{\"x\":4,\"y\":5}}}";
+    _check ("{\"a\":{\"b\":{\"x\":1,\"y\":2},\"c\":{\"x\":4}}}", sJson, JsonProjection.of ("/a/*/x", "/a/b/y"));
+    _check ("{\"a\":{\"b\":{\"x\":1,\"y\":2,\"z\":3},\"c\":{\"x\":4}}}",
+            sJson,
+            JsonProjection.of ("/a/*/x", "/a/b"));
+  }
+
+  @Test
+  public void testScalarRoot ()
+  {
+    assertEquals (JsonValue.NULL.getAsString (), JsonReader.readFromString ("17", JsonProjection.of ("/a"))
+                                                            .getAsString ());
+    assertEquals ("17", JsonReader.readFromString ("17", JsonProjection.of ("")).getAsString ());
+  }
+
+  @Test
+  public void testErrorsInSkippedParts ()
+  {
+    // Skipped parts are still checked
+    assertNull (JsonReader.readFromString ("{\"id\":1,\"x\":[1,]}", JsonProjection.of ("/id")));
+    assertNull (JsonReader.readFromString ("{\"id\":1,\"x\":\"a\\xb\"}", JsonProjection.of ("/id")));
+    assertNull (JsonReader.readFromString ("[1,2]]", JsonProjection.of ("/0")));
+  }
+
+  @Test
+  public void testInvalidPath ()
+  {
+    try
+    {
+      JsonProjection.of ("a..b");
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,293 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.charset.CharsetManager;
+import com.phloc.commons.io.resource.ClassPathResource;
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.commons.io.streams.StreamUtils;
+import com.phloc.json2.IJson;
+import com.phloc.json2.impl.JsonLazyNumberValue;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonPullParser}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonPullParserTest
+{
+  private static final String MOCK_JSON_MEDIUM = "com/phloc/json/mock/mockLibrary.json";
+
+  @Nonnull
+  private static IJsonPullParser _create (@Nonnull final String sJson)
+  {
+    return JsonReader.createPullParser (new NonBlockingStringReader (sJson));
+  }
+
+  @Nonnull
+  private static List <EJsonPullParserEvent> _readAll (@Nonnull final String sJson) throws ParseException
+  {
+    final List <EJsonPullParserEvent> ret = new ArrayList <EJsonPullParserEvent> ();
+    final IJsonPullParser aParser = _create (sJson);
+    try
+    {
+      while (aParser.hasNext ())
+        ret.add (aParser.next ());
+    }
+    finally
+    {
+      aParser.close ();
+    }
+    return ret;
+  }
+
+  @Test
+  public void testEvents () throws ParseException
+  {
+    final IJsonPullParser aParser = _create (" {\"a\" : [1, 2.5, \"x\\ty\"], \"b\":{}, \"c\":[true,false,null]}");
+    assertNull (aParser.getCurrentEvent ());
+    assertEquals (EJsonPullParserEvent.START_OBJECT, aParser.next ());
+    assertEquals (1, aParser.getDepth ());
+    assertEquals (EJsonPullParserEvent.KEY, aParser.next ());
+    assertEquals ("a", aParser.getString ());
+    assertEquals (EJsonPullParserEvent.START_ARRAY, aParser.next ());
+    assertEquals (2, aParser.getDepth ());
+    assertEquals (EJsonPullParserEvent.VALUE_NUMBER, aParser.next ());
+    assertFalse (aParser.isDecimalNumber ());
+    assertEquals (BigInteger.ONE, aParser.getBigInteger ());
+    assertEquals ("1", aParser.getString ());
+    assertEquals (EJsonPullParserEvent.VALUE_NUMBER, aParser.next ());
+    assertTrue (aParser.isDecimalNumber ());
+    assertNull (aParser.getBigInteger ());
+    assertEquals (new BigDecimal ("2.5"), aParser.getBigDecimal ());
+    assertEquals (EJsonPullParserEvent.VALUE_STRING, aParser.next ());
+    assertEquals ("x\ty", aParser.getString ());
+    assertEquals ("x\ty", aParser.getValue ().getValue ());
+    assertEquals (EJsonPullParserEvent.END_ARRAY, aParser.next ());
+    assertEquals (1, aParser.getDepth ());
+    assertEquals (EJsonPullParserEvent.KEY, aParser.next ());
+    assertEquals ("b", aParser.getString ());
+    assertEquals (EJsonPullParserEvent.START_OBJECT, aParser.next ());
+    assertEquals (EJsonPullParserEvent.END_OBJECT, aParser.next ());
+    assertEquals (EJsonPullParserEvent.KEY, aParser.next ());
+    assertEquals ("c", aParser.getString ());
+    assertEquals (EJsonPullParserEvent.START_ARRAY, aParser.next ());
+    assertEquals (EJsonPullParserEvent.VALUE_TRUE, aParser.next ());
+    assertNull (aParser.getString ());
+    assertEquals (EJsonPullParserEvent.VALUE_FALSE, aParser.next ());
+    assertEquals (EJsonPullParserEvent.VALUE_NULL, aParser.next ());
+    assertTrue (aParser.getValue ().isNullValue ());
+    assertEquals (EJsonPullParserEvent.END_ARRAY, aParser.next ());
+    assertEquals (EJsonPullParserEvent.END_OBJECT, aParser.next ());
+    assertEquals (0, aParser.getDepth ());
+    assertTrue (aParser.hasNext ());
+    assertEquals (EJsonPullParserEvent.END_DOCUMENT, aParser.next ());
+    assertFalse (aParser.hasNext ());
+    try
+    {
+      aParser.next ();
+      fail ();
+    }
+    catch (final IllegalStateException ex)
+    {
+      // expected
+    }
+    aParser.close ();
+
+    assertEquals (2, _readAll ("\"abc\"").size ());
+    assertEquals (3, _readAll ("[]").size ());
+  }
+
+  @Test
+  public void testReadValue () throws ParseException
+  {
+    for (final String sJson : new String [] { "[]",
+                                             "17",
+                                             "\"abc\"",
+                                             "[3,\"abc\",4,[],5]",
+                                             "{\"key\":56, \"value2\": \"abc\", \"x\":[{\"y\":null}]}",
+                                             StreamUtils.getAllBytesAsString (ClassPathResource.getInputStream (MOCK_JSON_MEDIUM),
+                                                                              CCharset.CHARSET_UTF_8_OBJ) })
+    {
+      final IJsonPullParser aParser = _create (sJson);
+      aParser.next ();
+      final IJson aPulled = aParser.readValue ();
+      assertEquals (EJsonPullParserEvent.END_DOCUMENT, aParser.next ());
+      aParser.close ();
+
+      final IJson aRead = JsonReader.readFromString (sJson);
+      assertNotNull (aPulled);
+      assertEquals (aRead.getAsString (), aPulled.getAsString ());
+    }
+  }
+
+  @Test
+  public void testStreamArrayElements () throws ParseException
+  {
+    final StringBuilder aSB = new StringBuilder ("[");
+    for (int i = 0; i < 1000; ++i)
+    {
+      if (i > 0)
+        aSB.append (',');
+      aSB.append ("{\"id\":").append (i).append (",\"tags\":[\"a\",\"b\"]}");
+    }
+    aSB.append (']');
+
+    final IJsonPullParser aParser = _create (aSB.toString ());
+    assertEquals (EJsonPullParserEvent.START_ARRAY, aParser.next ());
+    int nCount = 0;
+    while (aParser.next () == EJsonPullParserEvent.START_OBJECT)
+    {
+      if ((nCount & 1) == 0)
+        aParser.skipChildren ();
+      else
+        assertEquals ("{\"id\":" + nCount + ",\"tags\":[\"a\",\"b\"]}", aParser.readValue ().getAsString ());
+      assertEquals (1, aParser.getDepth ());
+      nCount++;
+    }
+    assertEquals (EJsonPullParserEvent.END_ARRAY, aParser.getCurrentEvent ());
+    assertEquals (1000, nCount);
+    aParser.close ();
+  }
+
+  @Test
+  public void testErrors ()
+  {
+    for (final String sJson : new String [] { "",
+                                             "1 2",
+                                             "[1,]",
+                                             "[1 2]",
+                                             "{\"a\"",
+                                             "{\"a\":1,}",
+                                             "{1:2}",
+                                             "{\"a\" 1}",
+                                             "[1]\n\n  x" })
+    {
+      final List <ParseException> aExpected = new ArrayList <ParseException> ();
+      JsonReader.readFromString (sJson,
+                                 new JsonReaderSettings ().setCustomExceptionHandler (new IJsonParseExceptionHandler ()
+                                 {
+                                   public void onException (@Nonnull final ParseException ex)
+                                   {
+                                     aExpected.add (ex);
+                                   }
+                                 }));
+      assertEquals (sJson, 1, aExpected.size ());
+      try
+      {
+        _readAll (sJson);
+        fail (sJson);
+      }
+      catch (final ParseException ex)
+      {
+        assertEquals (sJson, aExpected.get (0).getMessage (), ex.getMessage ());
+      }
+    }
+  }
+
+  @Test
+  public void testLimits ()
+  {
+    final String sJson = "{\"a\":[1,[2,[3]]],\"bcdefgh\":\"ijklmnop\",\"c\":12345678901}";
+    for (final JsonReaderLimits aLimits : new JsonReaderLimits [] { new JsonReaderLimits ().setMaxDepth (3),
+                                                                   new JsonReaderLimits ().setMaxStringLength (6),
+                                                                   new JsonReaderLimits ().setMaxNumberLength (10),
+                                                                   new JsonReaderLimits ().setMaxEntries (5),
+                                                                   new JsonReaderLimits ().setMaxDocumentSize (20) })
+    {
+      final List <ParseException> aExpected = new ArrayList <ParseException> ();
+      final JsonReaderSettings aSettings = new JsonReaderSettings ().setLimits (aLimits)
+                                                                    .setCustomExceptionHandler (new IJsonParseExceptionHandler ()
+                                                                    {
+                                                                      public void onException (@Nonnull final ParseException ex)
+                                                                      {
+                                                                        aExpected.add (ex);
+                                                                      }
+                                                                    });
+      assertNull (JsonReader.readFromString (sJson, aSettings));
+      assertEquals (1, aExpected.size ());
+      assertTrue (aExpected.get (0) instanceof JsonLimitExceededException);
+
+      // Same error with the pull parser
+      final IJsonPullParser aParser = JsonReader.createPullParser (new NonBlockingStringReader (sJson), aSettings);
+      try
+      {
+        while (aParser.hasNext ())
+          aParser.next ();
+        fail (aLimits.toString ());
+      }
+      catch (final ParseException ex)
+      {
+        assertTrue (ex instanceof JsonLimitExceededException);
+        assertEquals (aExpected.get (0).getMessage (), ex.getMessage ());
+      }
+      finally
+      {
+        aParser.close ();
+      }
+
+      // And with parse
+      assertTrue (JsonReader.parse (sJson, new DefaultJsonParserHandler (), aSettings).isFailure ());
+      assertTrue (JsonReader.parse (new NonBlockingStringReader (sJson), new DefaultJsonParserHandler (), aSettings)
+                            .isFailure ());
+      assertEquals (3, aExpected.size ());
+      assertEquals (aExpected.get (0).getMessage (), aExpected.get (1).getMessage ());
+      assertEquals (aExpected.get (0).getMessage (), aExpected.get (2).getMessage ());
+    }
+
+    // Within the limits
+    final JsonReaderSettings aSettings = new JsonReaderSettings ().setLimits (new JsonReaderLimits ().setMaxDepth (4)
+                                                                                                     .setMaxEntries (10));
+    assertTrue (JsonReader.parse (sJson, new DefaultJsonParserHandler (), aSettings).isSuccess ());
+  }
+
+  @Test
+  public void testSettings () throws ParseException
+  {
+    final JsonReaderSettings aSettings = new JsonReaderSettings ().setLazyNumbers (true);
+    final IJsonPullParser aParser = JsonReader.createPullParser (new ByteArrayInputStream (CharsetManager.getAsBytes ("[1.50]",
+                                                                                                                     CCharset.CHARSET_UTF_8_OBJ)),
+                                                                 aSettings);
+    assertNotNull (aParser);
+    assertEquals (EJsonPullParserEvent.START_ARRAY, aParser.next ());
+    assertEquals (EJsonPullParserEvent.VALUE_NUMBER, aParser.next ());
+    // The source text is kept
+    assertTrue (aParser.getValue () instanceof JsonLazyNumberValue);
+    assertEquals ("1.50", aParser.getValue ().getAsString ());
+    aParser.close ();
+  }
+}
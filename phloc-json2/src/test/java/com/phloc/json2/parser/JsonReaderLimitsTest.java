@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.charset.CharsetManager;
+import com.phloc.commons.collections.ContainerHelper;
+import com.phloc.commons.io.streams.NonBlockingStringReader;
+import com.phloc.json2.IJson;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonReaderLimits}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonReaderLimitsTest
+{
+  private static final class CollectingExceptionHandler implements IJsonParseExceptionHandler
+  {
+    private final List <ParseException> m_aExceptions = ContainerHelper.newList ();
+
+    public void onException (final ParseException ex)
+    {
+      m_aExceptions.add (ex);
+    }
+  }
+
+  /**
+   * Read the passed Json from a String and from UTF-8 bytes with the passed
+   * limits.
+   *
+   * @return The exceeded limit or <code>null</code> if the Json could be read.
+   */
+  @Nullable
+  private static String _read (@Nonnull final String sJson, @Nonnull final JsonReaderLimits aLimits)
+  {
+    final CollectingExceptionHandler aHandler = new CollectingExceptionHandler ();
+    final JsonReaderSettings aSettings = new JsonReaderSettings ().setLimits (aLimits)
+                                                                  .setCustomExceptionHandler (aHandler);
+    final IJson aFromString = JsonReader.readFromString (sJson, aSettings);
+    final IJson aFromBytes = JsonReader.readFromStream (new ByteArrayInputStream (CharsetManager.getAsBytes (sJson,
+                                                                                                              CCharset.CHARSET_UTF_8_OBJ)),
+                                                        aSettings);
+    if (aFromString == null)
+    {
+      assertNull (sJson, aFromBytes);
+      assertEquals (sJson, 2, aHandler.m_aExceptions.size ());
+      final ParseException ex = aHandler.m_aExceptions.get (0);
+      assertTrue (sJson + ": " + ex, ex instanceof JsonLimitExceededException);
+      assertEquals (ex.getMessage (), aHandler.m_aExceptions.get (1).getMessage ());
+      return ex.getMessage ();
+    }
+    assertNotNull (sJson, aFromBytes);
+    assertEquals (sJson, aFromString.getAsString (), aFromBytes.getAsString ());
+    assertEquals (sJson, 0, aHandler.m_aExceptions.size ());
+    return null;
+  }
+
+  @Test
+  public void testDefault ()
+  {
+    final JsonReaderLimits aLimits = new JsonReaderLimits ();
+    assertEquals (JsonReaderLimits.DEFAULT_MAX_DEPTH, aLimits.getMaxDepth ());
+    assertEquals (JsonReaderLimits.DEFAULT_MAX_ENTRIES, aLimits.getMaxEntries ());
+    assertNull (_read ("{\"a\":[1,2,{\"b\":\"c\"}]}", aLimits));
+    assertEquals (JsonReaderLimits.DEFAULT_MAX_DOCUMENT_SIZE, aLimits.getClone ().getMaxDocumentSize ());
+
+    try
+    {
+      aLimits.setMaxNumberLength (0);
+      fail ();
+    }
+    catch (final IllegalArgumentException ex)
+    {
+      // expected
+    }
+  }
+
+  @Test
+  public void testMaxDepth ()
+  {
+    final JsonReaderLimits aLimits = new JsonReaderLimits ().setMaxDepth (2);
+    assertNull (_read ("[[1],{\"a\":2}]", aLimits));
+    assertNull (_read ("5", aLimits));
+    assertEquals ("[1:3] The nesting exceeds the maximum depth of 2", _read ("[[[1]]]", aLimits));
+    assertNotNull (_read ("{\"a\":{\"b\":{}}}", aLimits));
+
+    // A deeply nested source must not overflow the stack
+    final StringBuilder aSB = new StringBuilder ();
+    for (int i = 0; i < 100000; ++i)
+      aSB.append ('[');
+    assertNotNull (_read (aSB.toString (), aLimits));
+  }
+
+  @Test
+  public void testMaxStringLength ()
+  {
+    final JsonReaderLimits aLimits = new JsonReaderLimits ().setMaxStringLength (3);
+    assertNull (_read ("[\"abc\",\"\\n\",\"\"]", aLimits));
+    // Escape sequences count with their source length
+    assertNotNull (_read ("[\"\\u0041\"]", aLimits));
+    assertNull (_read ("{\"key\":\"äöü\"}", aLimits));
+    assertEquals ("[1:2] The string exceeds the maximum length of 3", _read ("[\"abcd\"]", aLimits));
+    assertNotNull (_read ("{\"keys\":1}", aLimits));
+
+    // Not terminated and very long
+    final StringBuilder aSB = new StringBuilder ("[\"");
+    for (int i = 0; i < 100000; ++i)
+      aSB.append ('x');
+    assertNotNull (_read (aSB.toString (), aLimits));
+  }
+
+  @Test
+  public void testMaxNumberLength ()
+  {
+    final JsonReaderLimits aLimits = new JsonReaderLimits ().setMaxNumberLength (5);
+    assertNull (_read ("[12345,-1234,1.234,1e+10]", aLimits));
+    assertEquals ("[1:2] The number exceeds the maximum length of 5", _read ("[123456]", aLimits));
+    assertNotNull (_read ("1.2345", aLimits));
+    assertNotNull (_read ("[1e+100]", aLimits));
+  }
+
+  @Test
+  public void testMaxDocumentSize ()
+  {
+    final JsonReaderLimits aLimits = new JsonReaderLimits ().setMaxDocumentSize (10);
+    assertNull (_read ("[1,2,3,45]", aLimits));
+    assertNotNull (_read ("[1,2,3,456]", aLimits));
+    assertNotNull (_read ("[1,2,3,4,5,6,7,8,9,10]", aLimits));
+    // The cut happens inside of a valid token
+    assertNotNull (_read ("[1,2,3,4567]", aLimits));
+
+    // Larger than the buffer
+    final StringBuilder aSB = new StringBuilder ("[0");
+    for (int i = 0; i < 100000; ++i)
+      aSB.append (",0");
+    aSB.append (']');
+    assertNotNull (_read (aSB.toString (), new JsonReaderLimits ().setMaxDocumentSize (50000)));
+    assertNull (_read (aSB.toString (), new JsonReaderLimits ().setMaxDocumentSize (aSB.length ())));
+  }
+
+  @Test
+  public void testMaxEntries ()
+  {
+    final JsonReaderLimits aLimits = new JsonReaderLimits ().setMaxEntries (4);
+    // The array and its 3 elements
+    assertNull (_read ("[1,2,3]", aLimits));
+    assertNull (_read ("{\"a\":{\"b\":true}}", aLimits));
+    assertEquals ("[1:8] The document exceeds the maximum number of 4 values", _read ("[1,2,3,4]", aLimits));
+    assertNotNull (_read ("[[],[],[],[]]", aLimits));
+  }
+
+  @Test
+  public void testMaxEntriesPerLine () throws IOException
+  {
+    final JsonReaderSettings aSettings = new JsonReaderSettings ().setLimits (new JsonReaderLimits ().setMaxEntries (3));
+    final IJsonLinesReader aReader = JsonReader.createLinesReader (new NonBlockingStringReader ("[1,2]\n[3,4]\n[5,6,7]\n"),
+                                                                   aSettings);
+    try
+    {
+      // The number of values is limited per line
+      assertEquals ("[1,2]", aReader.next ().getAsString ());
+      assertEquals ("[3,4]", aReader.next ().getAsString ());
+      assertFalse (aReader.hasNext ());
+      assertTrue (aReader.isError ());
+    }
+    finally
+    {
+      aReader.close ();
+    }
+  }
+
+  @Test
+  public void testEngine ()
+  {
+    final JsonReaderSettings aSettings = new JsonReaderSettings ().setParserEngine (EJsonParserEngine.JAVACC);
+    assertEquals (EJsonParserEngine.JAVACC, aSettings.getEffectiveParserEngine ());
+    aSettings.setLimits (new JsonReaderLimits ());
+    assertEquals (EJsonParserEngine.JAVACC, aSettings.getParserEngine ());
+    assertEquals (EJsonParserEngine.DIRECT, aSettings.getEffectiveParserEngine ());
+
+    // The limits are copied
+    final JsonReaderSettings aClone = aSettings.getClone ();
+    aSettings.getLimits ().setMaxDepth (1);
+    assertEquals (JsonReaderLimits.DEFAULT_MAX_DEPTH, aClone.getLimits ().getMaxDepth ());
+  }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+
+/**
+ * Test class for class {@link JsonStructuralIndexer}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonStructuralIndexerTest
+{
+  @Nonnull
+  private static int [] _index (@Nonnull final byte [] aBytes, final boolean bSWAR, @Nonnull final int [] aSplits)
+  {
+    final JsonStructuralIndexer aIndexer = new JsonStructuralIndexer (bSWAR);
+    int [] ret = new int [0];
+    int nFrom = 0;
+    for (int i = 0; i <= aSplits.length; ++i)
+    {
+      final int nTo = i < aSplits.length ? aSplits[i] : aBytes.length;
+      final int nCount = aIndexer.index (aBytes, nFrom, nTo);
+      final int nOld = ret.length;
+      ret = Arrays.copyOf (ret, nOld + nCount);
+      System.arraycopy (aIndexer.getPositions (), 0, ret, nOld, nCount);
+      nFrom = nTo;
+    }
+    return ret;
+  }
+
+  @Nonnull
+  private static int [] _index (@Nonnull final String sJson, final boolean bSWAR)
+  {
+    return _index (sJson.getBytes (CCharset.CHARSET_UTF_8_OBJ), bSWAR, new int [0]);
+  }
+
+  @Test
+  public void testBasic ()
+  {
+    for (final boolean bSWAR : new boolean [] { false, true })
+    {
+      assertArrayEquals (new int [] { 0, 4, 6 }, _index ("{\"a\":1}", bSWAR));
+      assertArrayEquals (new int [] { 0, 2, 4, 6 }, _index ("[1,2,3]", bSWAR));
+      // Structural characters in strings are ignored
+      assertArrayEquals (new int [] { 0, 19 }, _index ("[\"{[,:]} long text\"]", bSWAR));
+      // Escaped quotes and backslashes
+      assertArrayEquals (new int [] { 0, 10, 14 }, _index ("[\"a\\\"b,\\\\\",\"x\"]", bSWAR));
+      // Comments are reported
+      assertArrayEquals (new int [] { 0, 1, 5, 6 }, _index ("[/* */]", bSWAR));
+      // Non-ASCII characters
+      assertArrayEquals (new int [] { 0, 12, 26 },
+                         _index ("[\"\u00e4\u00f6\u00fc\u20ac\",\"\u00e4\u00f6\u00fc\u20ac\u00e4\"]", bSWAR));
+    }
+  }
+
+  @Test
+  public void testStringState ()
+  {
+    for (final boolean bSWAR : new boolean [] { false, true })
+    {
+      final JsonStructuralIndexer aIndexer = new JsonStructuralIndexer (bSWAR);
+      final byte [] aBytes = "[\"abc,def,ghi,jkl\\".getBytes (CCharset.CHARSET_UTF_8_OBJ);
+      aIndexer.index (aBytes, 0, aBytes.length);
+      assertTrue (aIndexer.isInString ());
+      // The first byte is escaped by the previous piece
+      final byte [] aNext = "\",x\",1]".getBytes (CCharset.CHARSET_UTF_8_OBJ);
+      final int nCount = aIndexer.index (aNext, 0, aNext.length);
+      assertArrayEquals (new int [] { 4, 6 }, Arrays.copyOf (aIndexer.getPositions (), nCount));
+      assertFalse (aIndexer.isInString ());
+      aIndexer.reset ();
+      assertFalse (aIndexer.isInString ());
+    }
+  }
+
+  @Test
+  public void testRandom ()
+  {
+    // Both variants must find the same positions regardless of the pieces
+    final byte [] aAlphabet = "\"\"\\{}[]:,/ a\u00e4".getBytes (CCharset.CHARSET_UTF_8_OBJ);
+    final Random aRandom = new Random (1234);
+    for (int nRun = 0; nRun < 500; ++nRun)
+    {
+      final byte [] aBytes = new byte [aRandom.nextInt (300)];
+      for (int i = 0; i < aBytes.length; ++i)
+      {
+        // Long runs of plain text to use the fast path inside and outside of
+        // strings
+        aBytes[i] = aRandom.nextInt (4) == 0 ? aAlphabet[aRandom.nextInt (aAlphabet.length)] : (byte) 'x';
+      }
+      final int [] aExpected = _index (aBytes, false, new int [0]);
+      assertArrayEquals (aExpected, _index (aBytes, true, new int [0]));
+
+      final int [] aSplits = new int [aRandom.nextInt (5)];
+      for (int i = 0; i < aSplits.length; ++i)
+        aSplits[i] = aRandom.nextInt (aBytes.length + 1);
+      Arrays.sort (aSplits);
+      assertArrayEquals (aExpected, _index (aBytes, false, aSplits));
+      assertArrayEquals (aExpected, _index (aBytes, true, aSplits));
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.io.resource.ClassPathResource;
+import com.phloc.commons.io.streams.NonBlockingByteArrayInputStream;
+import com.phloc.commons.io.streams.StreamUtils;
+import com.phloc.json2.IJson;
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonUTF8Scanner}. All results are compared with
+ * the results of the JavaCC based parser reading characters.
+ *
+ * @author Philip Helger
+ */
+public final class JsonUTF8ScannerTest
+{
+  private static final String MOCK_JSON_MEDIUM = "com/phloc/json/mock/mockLibrary.json";
+
+  private static final class CollectingHandler implements IJsonParseExceptionHandler
+  {
+    private final List <ParseException> m_aExceptions = new ArrayList <ParseException> ();
+
+    public void onException (@Nonnull final ParseException ex)
+    {
+      m_aExceptions.add (ex);
+    }
+  }
+
+  @Nonnull
+  private static NonBlockingByteArrayInputStream _getUTF8 (@Nonnull final String sJson)
+  {
+    return new NonBlockingByteArrayInputStream (sJson.getBytes (CCharset.CHARSET_UTF_8_OBJ));
+  }
+
+  /**
+   * Read from a ByteBuffer that is not backed by an array, like a memory
+   * mapped file, and that does not start at index 0.
+   */
+  @Nullable
+  private static IJson _readFromByteBuffer (@Nonnull final String sJson, @Nonnull final CollectingHandler aHandler)
+  {
+    final byte [] aBytes = sJson.getBytes (CCharset.CHARSET_UTF_8_OBJ);
+    final ByteBuffer aBuffer = ByteBuffer.allocateDirect (aBytes.length + 1);
+    aBuffer.put ((byte) 'x').put (aBytes).flip ();
+    aBuffer.position (1);
+    final JsonUTF8Scanner aScanner = new JsonUTF8Scanner (aBuffer);
+    aScanner.setKeyCache (new JsonKeyCache ());
+    try
+    {
+      return new JsonDirectParser (aScanner, false).json ();
+    }
+    catch (final ParseException ex)
+    {
+      aHandler.onException (ex);
+      return null;
+    }
+  }
+
+  private static void _assertSame (@Nonnull final String sJson)
+  {
+    final IJson aJavaCC = JsonReader.readFromString (sJson,
+                                                     new JsonReaderSettings ().setCustomExceptionHandler (new CollectingHandler ()));
+    assertNotNull ("Failed to parse: " + sJson, aJavaCC);
+    final IJson aDirect = JsonReader.readFromStream (_getUTF8 (sJson),
+                                                     new JsonReaderSettings ().setParserEngine (EJsonParserEngine.DIRECT)
+                                                                              .setCustomExceptionHandler (new CollectingHandler ()));
+    assertNotNull ("Failed to parse: " + sJson, aDirect);
+    assertEquals (sJson, aJavaCC.getAsString (), aDirect.getAsString ());
+    final IJson aByteBuffer = _readFromByteBuffer (sJson, new CollectingHandler ());
+    assertNotNull ("Failed to parse: " + sJson, aByteBuffer);
+    assertEquals (sJson, aJavaCC.getAsString (), aByteBuffer.getAsString ());
+  }
+
+  private static void _assertSameError (@Nonnull final String sJson)
+  {
+    final CollectingHandler aJavaCCHandler = new CollectingHandler ();
+    assertNull (sJson, JsonReader.readFromString (sJson, new JsonReaderSettings ().setCustomExceptionHandler (aJavaCCHandler)));
+    final CollectingHandler aDirectHandler = new CollectingHandler ();
+    assertNull (sJson,
+                JsonReader.readFromStream (_getUTF8 (sJson),
+                                           new JsonReaderSettings ().setParserEngine (EJsonParserEngine.DIRECT)
+                                                                    .setCustomExceptionHandler (aDirectHandler)));
+
+    assertEquals (sJson, 1, aJavaCCHandler.m_aExceptions.size ());
+    assertEquals (sJson, 1, aDirectHandler.m_aExceptions.size ());
+    // The message contains the token image and all positions
+    assertEquals (sJson,
+                  aJavaCCHandler.m_aExceptions.get (0).getMessage (),
+                  aDirectHandler.m_aExceptions.get (0).getMessage ());
+
+    final CollectingHandler aByteBufferHandler = new CollectingHandler ();
+    assertNull (sJson, _readFromByteBuffer (sJson, aByteBufferHandler));
+    assertEquals (sJson, 1, aByteBufferHandler.m_aExceptions.size ());
+    assertEquals (sJson,
+                  aJavaCCHandler.m_aExceptions.get (0).getMessage (),
+                  aByteBufferHandler.m_aExceptions.get (0).getMessage ());
+  }
+
+  @Test
+  public void testValid ()
+  {
+    for (final String sJson : new String [] { "true",
+                                             "-1.00000E15",
+                                             "\"\"",
+                                             "\"äöüß\"",
+                                             "\"中文\"",
+                                             "\"😀 smile\"",
+                                             "\"ä\\nö\\u00fc😀\\t€\"",
+                                             "{\"kéy\":[\"ä\",\"€\",\"😀\"]}",
+                                             "/* ä€😀 */ [1,/*ü*/2]" })
+      _assertSame (sJson);
+  }
+
+  @Test
+  public void testBufferBoundaries ()
+  {
+    // Place multi byte sequences at all positions around the buffer size
+    for (int nPrefix = 4080; nPrefix < 4100; ++nPrefix)
+    {
+      final StringBuilder aSB = new StringBuilder ("[\"");
+      for (int i = 0; i < nPrefix; ++i)
+        aSB.append ('a');
+      aSB.append ("ä€😀\\\"ä\",\"€\"]");
+      _assertSame (aSB.toString ());
+    }
+  }
+
+  @Test
+  public void testMockFile ()
+  {
+    _assertSame (StreamUtils.getAllBytesAsString (ClassPathResource.getInputStream (MOCK_JSON_MEDIUM),
+                                                  CCharset.CHARSET_UTF_8_OBJ));
+  }
+
+  @Test
+  public void testInvalid ()
+  {
+    for (final String sJson : new String [] { "",
+                                             "[\"ä€\" 1]",
+                                             "[\"😀\" 1]",
+                                             "{\"ä\"\n  \"€\"}",
+                                             "[ä]",
+                                             "[1,€]",
+                                             "/* ä */ x",
+                                             "[\"ä\\x\"]" })
+      _assertSameError (sJson);
+  }
+
+  @Test
+  public void testUnterminatedComment ()
+  {
+    for (final String sJson : new String [] { "[1, /* ä", "[1, /* €\n", "/* ä€" })
+    {
+      String sExpected = null;
+      try
+      {
+        JsonReader.readFromString (sJson, new JsonReaderSettings ());
+        fail ();
+      }
+      catch (final TokenMgrError ex)
+      {
+        sExpected = ex.getMessage ();
+      }
+      try
+      {
+        JsonReader.readFromStream (_getUTF8 (sJson), new JsonReaderSettings ().setParserEngine (EJsonParserEngine.DIRECT));
+        fail ();
+      }
+      catch (final TokenMgrError ex)
+      {
+        assertEquals (sJson, sExpected, ex.getMessage ());
+      }
+    }
+  }
+
+  @Test
+  public void testPullParser () throws ParseException
+  {
+    final IJsonPullParser aParser = JsonReader.createPullParser (_getUTF8 ("{\"ä\":\"€😀\"}"),
+                                                                 CCharset.CHARSET_UTF_8_OBJ);
+    assertNotNull (aParser);
+    assertEquals (EJsonPullParserEvent.START_OBJECT, aParser.next ());
+    assertEquals (EJsonPullParserEvent.KEY, aParser.next ());
+    assertEquals ("ä", aParser.getString ());
+    assertEquals (EJsonPullParserEvent.VALUE_STRING, aParser.next ());
+    assertEquals ("€😀", aParser.getString ());
+    assertEquals (EJsonPullParserEvent.END_OBJECT, aParser.next ());
+    assertEquals (EJsonPullParserEvent.END_DOCUMENT, aParser.next ());
+    aParser.close ();
+  }
+}
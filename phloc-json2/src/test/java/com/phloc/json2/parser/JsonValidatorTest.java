@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Test;
+
+import com.phloc.json2.parser.errorhandler.IJsonParseExceptionHandler;
+
+/**
+ * Test class for class {@link JsonValidator}.
+ *
+ * @author Philip Helger
+ */
+public final class JsonValidatorTest
+{
+  private static final String [] SOURCES = new String [] { "{}",
+                                                           "[]",
+                                                           " \n{ } \r\n",
+                                                           "\"abc\"",
+                                                           "17",
+                                                           "-0.5e+10",
+                                                           "true",
+                                                           "null",
+                                                           "[1, -2, 3.25, 4E3, 0, -0.0, 12345678901234567890123]",
+                                                           "{\"a\":1,\"b\" : [true,false,null] , \"c\":{\"d\":{\"e\":[[],{}]}}}",
+                                                           "{\"k\\u0065y\":\"v\u00e4lue\",\"emoji\":\"\uD83D\uDE00\"}",
+                                                           "[/* comment */1,/**/2]",
+                                                           "1/* trailing */",
+                                                           "",
+                                                           "  ",
+                                                           "{",
+                                                           "[1,]",
+                                                           "[1,\n\t]",
+                                                           "{\"a\"}",
+                                                           "{\"a\":}",
+                                                           "{\"a\":1,}",
+                                                           "{\"a\":1 \"b\":2}",
+                                                           "{a:1}",
+                                                           "[01]",
+                                                           "[1.]",
+                                                           "1 ",
+                                                           "[1 /* c */,2]",
+                                                           "[\"a\nb\"]",
+                                                           "[\"\\x\"]",
+                                                           "[\"abc",
+                                                           "[tru]",
+                                                           "[1 2]",
+                                                           "{\"a\":1}x",
+                                                           "[1]]",
+                                                           "[#]",
+                                                           "\n\n   [1,\n  2,\n  {\"a\":[}]" };
+
+  @Test
+  public void testSameAsParser ()
+  {
+    for (final String sJson : SOURCES)
+    {
+      final ParseException [] aException = new ParseException [1];
+      final IJsonParseExceptionHandler aHandler = new IJsonParseExceptionHandler ()
+      {
+        public void onException (final ParseException ex)
+        {
+          aException[0] = ex;
+        }
+      };
+      final boolean bValid = JsonReader.readFromString (sJson,
+                                                        new JsonReaderSettings ().setCustomExceptionHandler (aHandler)) != null;
+
+      final JsonValidationResult aResult = JsonReader.validateJson (sJson);
+      assertNotNull (aResult);
+      assertEquals (sJson, Boolean.valueOf (bValid), Boolean.valueOf (aResult.isValid ()));
+      assertEquals (sJson, Boolean.valueOf (bValid), Boolean.valueOf (JsonReader.isValidJson (sJson)));
+      if (bValid)
+      {
+        assertSame (JsonValidationResult.VALID, aResult);
+        assertNull (aResult.getReason ());
+      }
+      else
+      {
+        // Same position as the token reported by the generated parser
+        final Token aToken = aException[0].currentToken.next;
+        assertEquals (sJson, aToken.beginLine, aResult.getLine ());
+        assertEquals (sJson, aToken.beginColumn, aResult.getColumn ());
+        assertNotNull (aResult.getReason ());
+      }
+    }
+  }
+
+  private static void _checkError (@Nonnull final String sJson,
+                                   final long nOffset,
+                                   final int nLine,
+                                   final int nColumn,
+                                   @Nonnull final String sReason)
+  {
+    final JsonValidationResult aResult = JsonReader.validateJson (sJson);
+    assertFalse (aResult.isValid ());
+    assertTrue (aResult.isFailure ());
+    assertEquals (nOffset, aResult.getOffset ());
+    assertEquals (nLine, aResult.getLine ());
+    assertEquals (nColumn, aResult.getColumn ());
+    assertEquals (sReason, aResult.getReason ());
+  }
+
+  @Test
+  public void testErrorDetails ()
+  {
+    _checkError ("[1,\n  ]", 6, 2, 3, "Expected a value but found <RSQUARE>");
+    _checkError ("{\"a\":1,\n\"b\" 2}", 11, 2, 4, "Expected ':' but found <S>");
+    _checkError ("{\"a\":[1, 2}", 10, 1, 11, "Expected ',' or ']' but found <RBRACE>");
+    _checkError ("[1]\n]", 4, 2, 1, "Expected the end of input but found <RSQUARE>");
+    _checkError ("", 0, 1, 0, "Expected a value but found <EOF>");
+    _checkError ("[#]", 1, 1, 2, "Expected a value or ']' but found <UNKNOWN>");
+    _checkError ("[1/* open", 9, 1, 10, "Unterminated comment");
+  }
+
+  @Test
+  public void testDeepNesting ()
+  {
+    final StringBuilder aSB = new StringBuilder ();
+    for (int i = 0; i < 100000; ++i)
+      aSB.append ("[{\"a\":");
+    aSB.append ('1');
+    for (int i = 0; i < 100000; ++i)
+      aSB.append ("}]");
+    assertTrue (JsonReader.validateJson (aSB.toString ()).isValid ());
+    aSB.setLength (aSB.length () - 1);
+    assertFalse (JsonReader.validateJson (aSB.toString ()).isValid ());
+  }
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright (C) 2006-2015 phloc systems
+ * http://www.phloc.com
+ * office[at]phloc[dot]com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.phloc.json2.parser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import javax.annotation.Nonnull;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.phloc.commons.charset.CCharset;
+import com.phloc.commons.io.resource.ClassPathResource;
+import com.phloc.commons.io.streams.NonBlockingByteArrayOutputStream;
+import com.phloc.commons.io.streams.StreamUtils;
+import com.phloc.json2.IJson;
+
+/**
+ * Test class for class {@link MappedFileInputStream}.
+ *
+ * @author Philip Helger
+ */
+public final class MappedFileInputStreamTest
+{
+  private static final String MOCK_JSON_MEDIUM = "com/phloc/json/mock/mockLibrary.json";
+
+  @Rule
+  public final TemporaryFolder m_aTempFolder = new TemporaryFolder ();
+
+  @Nonnull
+  private File _createFile (@Nonnull final byte [] aContent) throws IOException
+  {
+    final File aFile = m_aTempFolder.newFile ();
+    final FileOutputStream aFOS = new FileOutputStream (aFile);
+    try
+    {
+      aFOS.write (aContent);
+    }
+    finally
+    {
+      aFOS.close ();
+    }
+    return aFile;
+  }
+
+  @Test
+  public void testReadAcrossWindows () throws IOException
+  {
+    final byte [] aContent = new byte [1000];
+    for (int i = 0; i < aContent.length; ++i)
+      aContent[i] = (byte) i;
+    final File aFile = _createFile (aContent);
+
+    // Window size that is no divisor of the file size
+    final MappedFileInputStream aIS = new MappedFileInputStream (aFile, 7);
+    try
+    {
+      assertEquals (1000, aIS.available ());
+      assertEquals (0, aIS.read ());
+      assertEquals (5, aIS.skip (5));
+      assertEquals (6, aIS.read ());
+      // Skip beyond the current window
+      assertEquals (100, aIS.skip (100));
+      assertEquals (107, aIS.read ());
+
+      final NonBlockingByteArrayOutputStream aBAOS = new NonBlockingByteArrayOutputStream ();
+      final byte [] aBuf = new byte [13];
+      int nRead;
+      while ((nRead = aIS.read (aBuf, 0, aBuf.length)) >= 0)
+        aBAOS.write (aBuf, 0, nRead);
+      final byte [] aExpected = new byte [1000 - 108];
+      System.arraycopy (aContent, 108, aExpected, 0, aExpected.length);
+      assertArrayEquals (aExpected, aBAOS.toByteArray ());
+      assertEquals (0, aIS.available ());
+      assertEquals (-1, aIS.read ());
+      assertEquals (0, aIS.skip (10));
+    }
+    finally
+    {
+      aIS.close ();
+    }
+  }
+
+  @Test
+  public void testEmptyFile () throws IOException
+  {
+    final MappedFileInputStream aIS = new MappedFileInputStream (_createFile (new byte [0]));
+    try
+    {
+      assertEquals (-1, aIS.read ());
+    }
+    finally
+    {
+      aIS.close ();
+    }
+  }
+
+  @Test
+  public void testReadFromFile () throws IOException
+  {
+    final String sJson = StreamUtils.getAllBytesAsString (ClassPathResource.getInputStream (MOCK_JSON_MEDIUM),
+                                                          CCharset.CHARSET_UTF_8_OBJ);
+    final IJson aExpected = JsonReader.readFromString (sJson);
+    assertNotNull (aExpected);
+
+    // With and without UTF-8 BOM
+    final byte [] aBytes = sJson.getBytes (CCharset.CHARSET_UTF_8_OBJ);
+    final byte [] aBytesWithBOM = new byte [aBytes.length + 3];
+    aBytesWithBOM[0] = (byte) 0xef;
+    aBytesWithBOM[1] = (byte) 0xbb;
+    aBytesWithBOM[2] = (byte) 0xbf;
+    System.arraycopy (aBytes, 0, aBytesWithBOM, 3, aBytes.length);
+
+    for (final byte [] aContent : new byte [] [] { aBytes, aBytesWithBOM })
+    {
+      final File aFile = _createFile (aContent);
+      for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+      {
+        final IJson aRead = JsonReader.readFromFile (aFile,
+                                                     new JsonReaderSettings ().setParserEngine (eEngine)
+                                                                              .setMemoryMapFiles (true));
+        assertNotNull (aRead);
+        assertEquals (aExpected.getAsString (), aRead.getAsString ());
+      }
+    }
+  }
+
+  @Test
+  public void testReadFromFileNonUTF8 () throws IOException
+  {
+    final String sJson = "{\"k\u00e4y\":[\"v\u00e4lue\",1]}";
+    final IJson aExpected = JsonReader.readFromString (sJson);
+    assertNotNull (aExpected);
+
+    // UTF-16 with BOM
+    final byte [] aBytes = sJson.getBytes (CCharset.CHARSET_UTF_16BE_OBJ);
+    final byte [] aBytesWithBOM = new byte [aBytes.length + 2];
+    aBytesWithBOM[0] = (byte) 0xfe;
+    aBytesWithBOM[1] = (byte) 0xff;
+    System.arraycopy (aBytes, 0, aBytesWithBOM, 2, aBytes.length);
+
+    // ISO-8859-1 as the fallback charset
+    final File aLatin1File = _createFile (sJson.getBytes (CCharset.CHARSET_ISO_8859_1_OBJ));
+    final File aUTF16File = _createFile (aBytesWithBOM);
+    for (final EJsonParserEngine eEngine : EJsonParserEngine.values ())
+    {
+      IJson aRead = JsonReader.readFromFile (aLatin1File,
+                                             new JsonReaderSettings ().setParserEngine (eEngine)
+                                                                      .setFallbackCharset (CCharset.CHARSET_ISO_8859_1_OBJ)
+                                                                      .setMemoryMapFiles (true));
+      assertNotNull (aRead);
+      assertEquals (aExpected.getAsString (), aRead.getAsString ());
+
+      aRead = JsonReader.readFromFile (aUTF16File,
+                                       new JsonReaderSettings ().setParserEngine (eEngine).setMemoryMapFiles (true));
+      assertNotNull (aRead);
+      assertEquals (aExpected.getAsString (), aRead.getAsString ());
+    }
+  }
+}
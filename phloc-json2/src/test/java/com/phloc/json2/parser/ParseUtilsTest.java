@@ -37,4 +37,21 @@ public final class ParseUtilsTest
     assertEquals ("aaa\baaa\"aaa\"", ParseUtils.unescapeString (new StringBuilder ("\"aaa\\baaa\"aaa\\\"\"")));
     assertEquals ("/\\/\baaa", ParseUtils.unescapeString (new StringBuilder ("\"\\/\\\\/\\baaa\"")));
   }
+
+  @Test
+  public void testUnescapeStringImage ()
+  {
+    assertEquals ("", ParseUtils.unescapeString ("\"\""));
+    assertEquals ("aaa/aaa", ParseUtils.unescapeString ("\"aaa/aaa\""));
+    assertEquals ("aaa\"aaa", ParseUtils.unescapeString ("\"aaa\\\"aaa\""));
+    assertEquals ("\b\f\n\r\t/\\\"", ParseUtils.unescapeString ("\"\\b\\f\\n\\r\\t\\/\\\\\\\"\""));
+    assertEquals ("a\u00e4b\u20ACc", ParseUtils.unescapeString ("\"a\\u00e4b\\u20acc\""));
+    // Surrogate pair
+    final String sSmiley = new String (Character.toChars (0x1F600));
+    assertEquals (sSmiley, ParseUtils.unescapeString ("\"\\uD83D\\uDE00\""));
+    assertEquals (0x1F600, ParseUtils.unescapeString ("\"x\\ud83d\\ude00\"").codePointAt (1));
+    // Unescaped surrogate pair
+    assertEquals ("x" + sSmiley, ParseUtils.unescapeString ("\"x" + sSmiley + "\""));
+    assertEquals (sSmiley + "\n", ParseUtils.unescapeString ("\"" + sSmiley + "\\n\""));
+  }
 }